@@ -6,7 +6,8 @@ import android.os.AsyncTask;
 import android.os.Handler;
 import android.os.IBinder;
 import android.support.annotation.Nullable;
-import android.util.Log;
+
+import com.brein.util.BreinLogger;
 
 public class BreinBackgroundService extends Service {
 
@@ -32,7 +33,7 @@ public class BreinBackgroundService extends Service {
                 Thread.sleep(10000);
             } catch (final InterruptedException e) {
                 new BreinBackgroundTask().execute();
-                Log.d("BreinBackgroundService", "Exception on onStartCommand is: ", e);
+                BreinLogger.d("BreinBackgroundService", "Exception on onStartCommand is: ", e);
             }
             return START_STICKY;
         }
@@ -49,7 +50,7 @@ public class BreinBackgroundService extends Service {
         }
 
         protected void requestHttp() {
-            Log.d(TAG, "within requestHttp");
+            BreinLogger.d(TAG, "within requestHttp");
         }
 
         @Override
@@ -0,0 +1,33 @@
+package com.brein.api;
+
+import android.util.Log;
+
+import com.brein.util.BreinLogger;
+
+/**
+ * Passes the messages of the {@link BreinLogger} to logcat, it is the default sink as soon as {@link Breinify} is
+ * used.
+ */
+public class BreinLogcatSink implements BreinLogger.ISink {
+
+    @Override
+    public void log(final BreinLogger.Level level, final String tag, final String message, final Throwable t) {
+        switch (level) {
+            case VERBOSE:
+                Log.v(tag, message, t);
+                break;
+            case DEBUG:
+                Log.d(tag, message, t);
+                break;
+            case INFO:
+                Log.i(tag, message, t);
+                break;
+            case WARN:
+                Log.w(tag, message, t);
+                break;
+            default:
+                Log.e(tag, message, t);
+                break;
+        }
+    }
+}
@@ -8,8 +8,8 @@ import android.content.Intent;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.support.v4.app.NotificationCompat;
-import android.util.Log;
 
+import com.brein.util.BreinLogger;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
@@ -29,9 +29,10 @@ public class BreinNotficationService extends FirebaseMessagingService {
 
         // super.onMessageReceived(remoteMessage);
 
-        final Map<String, String> dataMap = remoteMessage.getData();
-        for (Map.Entry<String, String> entry : dataMap.entrySet()) {
-            Log.d(TAG, "Key : " + entry.getKey() + " Value : " + entry.getValue());
+        // the values of the data may contain personal data, only the keys are logged
+        if (BreinLogger.isLoggable(BreinLogger.Level.VERBOSE)) {
+            final Map<String, String> dataMap = remoteMessage.getData();
+            BreinLogger.v(TAG, "Keys : " + dataMap.keySet());
         }
 
         sendNotification(remoteMessage);
@@ -39,12 +40,12 @@ public class BreinNotficationService extends FirebaseMessagingService {
 
     @Override
     public void onDeletedMessages() {
-        Log.d(TAG, "onDeleteMessage invoked");
+        BreinLogger.d(TAG, "onDeleteMessage invoked");
     }
 
     @Override
     public void onMessageSent(String data) {
-        Log.d(TAG, "onMessageSent invoked");
+        BreinLogger.d(TAG, "onMessageSent invoked");
     }
 
     /**
@@ -55,7 +56,7 @@ public class BreinNotficationService extends FirebaseMessagingService {
     private void sendNotification(final RemoteMessage remoteMessage) {
 
         if (remoteMessage == null) {
-            Log.d(TAG, "remote notification: message not set!  -> no notification shown.");
+            BreinLogger.d(TAG, "remote notification: message not set!  -> no notification shown.");
             return;
         }
 
@@ -63,12 +64,12 @@ public class BreinNotficationService extends FirebaseMessagingService {
         final String message = remoteMessage.getData().get("message");
 
         if (title == null) {
-            Log.d(TAG, "remote notification: title not set! -> no notification shown.");
+            BreinLogger.d(TAG, "remote notification: title not set! -> no notification shown.");
             return;
         }
 
         if (message == null) {
-            Log.d(TAG, "remote notification: message not set! -> no notification shown.");
+            BreinLogger.d(TAG, "remote notification: message not set! -> no notification shown.");
             return;
         }
 
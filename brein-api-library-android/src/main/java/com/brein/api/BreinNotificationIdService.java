@@ -1,7 +1,6 @@
 package com.brein.api;
 
-import android.util.Log;
-
+import com.brein.util.BreinLogger;
 import com.google.firebase.iid.FirebaseInstanceId;
 import com.google.firebase.iid.FirebaseInstanceIdService;
 
@@ -31,7 +30,7 @@ public class BreinNotificationIdService extends FirebaseInstanceIdService {
      * @param token The new token.
      */
     private void sendRegistrationToServer(final String token) {
-        Log.d(TAG, "Refreshed token is: " + token);
+        BreinLogger.v(TAG, "Refreshed token received");
         Breinify.configureDeviceToken(token);
     }
 }
@@ -3,7 +3,8 @@ package com.brein.api;
 import android.content.Context;
 import android.content.Intent;
 import android.support.v4.content.WakefulBroadcastReceiver;
-import android.util.Log;
+
+import com.brein.util.BreinLogger;
 
 /**
  *
@@ -17,13 +18,11 @@ public class BreinPushNotificationReceiver extends WakefulBroadcastReceiver {
     private final String TAG = "BrePushNotReceiver";
 
     public void onReceive(Context context, Intent intent) {
-        Log.d(TAG, "onReceive invoked");
+        BreinLogger.v(TAG, "onReceive invoked");
 
-        if (intent.getExtras() != null) {
-            for (String key : intent.getExtras().keySet()) {
-                Object value = intent.getExtras().get(key);
-                Log.e(TAG, "Key: " + key + " Value: " + value);
-            }
+        // the values of the extras may contain personal data, only the keys are logged
+        if (intent.getExtras() != null && BreinLogger.isLoggable(BreinLogger.Level.VERBOSE)) {
+            BreinLogger.v(TAG, "Keys: " + intent.getExtras().keySet());
         }
     }
 }
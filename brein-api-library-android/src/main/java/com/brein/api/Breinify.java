@@ -4,40 +4,21 @@ import android.app.Activity;
 import android.app.Application;
 
 import com.brein.domain.BreinConfig;
-import com.brein.domain.BreinResult;
-import com.brein.domain.BreinUser;
+import com.brein.util.BreinLogger;
 
 import java.util.Map;
 
 /**
- * Static Implementation of Breinify activity  lookup calls
+ * Static Implementation of Breinify activity  lookup calls, extends the calls of the core (see {@link BreinifyCore})
+ * by the initialization through the Android application, i.e., the lifecycle, the location and push notifications.
  */
-public class Breinify {
+public class Breinify extends BreinifyCore {
 
-    private static BreinConfig lastConfig = null;
-    private static Brein lastBrein = null;
-
-    private static final BreinUser breinUser = new BreinUser();
-
-    /**
-     * contains the current version of the usage library
-     */
-    private static final String VERSION = BreinConfig.VERSION;
-
-    /**
-     * contains the activity object
-     */
-    private static final BreinActivity breinActivity = new BreinActivity();
-
-    /**
-     * contains the lookup object
-     */
-    private static final BreinLookup breinLookup = new BreinLookup();
-
-    /**
-     * contains the temporalData object
-     */
-    // private static final BreinTemporalData breinTemporalData = new BreinTemporalData();
+    static {
+        // messages of the library are passed to logcat, unless another sink was set (the setConfig methods are
+        // declared again, so this class is initialized as soon as the configuration is set)
+        BreinLogger.setDefaultSink(new BreinLogcatSink());
+    }
 
     /**
      * Specifies the overall configuration used by the library. The configuration must be set prior to any call to the
@@ -49,8 +30,7 @@ public class Breinify {
      * @see BreinConfig
      */
     public static Brein setConfig(final BreinConfig config) {
-        lastConfig = config;
-        return new Brein().setConfig(config);
+        return BreinifyCore.setConfig(config);
     }
 
     /**
@@ -62,7 +42,7 @@ public class Breinify {
      * @see Brein
      */
     public static Brein setConfig(final String apiKey) {
-        return setConfig(apiKey, null);
+        return BreinifyCore.setConfig(apiKey);
     }
 
     /**
@@ -76,7 +56,7 @@ public class Breinify {
      * @see Brein
      */
     public static Brein setConfig(final String apiKey, final String secret) {
-        return setConfig(new BreinConfig(apiKey, secret));
+        return BreinifyCore.setConfig(apiKey, secret);
     }
 
     /**
@@ -118,48 +98,36 @@ public class Breinify {
     }
 
     /**
-     * configures the deviceToken
+     * Sets the Android application used to detect the device information (location, network).
      *
-     * @param deviceToken String contains the deviceToken
+     * @param application Application contains the application context
+     * @deprecated the application was part of the {@code BreinConfig}, which does not depend on Android anymore; use
+     * {@link #initialize(Application, Activity, String, String)} instead
      */
-    public static void configureDeviceToken(final String deviceToken) {
-        BreinifyManager.getInstance().configureDeviceToken(deviceToken);
+    @Deprecated
+    public static void setApplication(final Application application) {
+        BreinifyManager.getInstance().setApplication(application);
     }
 
     /**
-     * gets the config
+     * Provides the Android application set so far.
      *
-     * @return BreinConfig config
+     * @return Application the application, {@code null} if not set so far
+     * @deprecated the application was part of the {@code BreinConfig}, which does not depend on Android anymore; use
+     * {@link BreinifyManager#getApplication()} instead
      */
-    public static BreinConfig getConfig() {
-        return lastConfig;
+    @Deprecated
+    public static Application getApplication() {
+        return BreinifyManager.getInstance().getApplication();
     }
 
     /**
-     * returns the  version
+     * configures the deviceToken
      *
-     * @return String version
-     */
-    public String getVersion() {
-        return VERSION;
-    }
-
-    /**
-     * @return BreinActivity instance
-     */
-    public static BreinActivity getBreinActivity() {
-        return breinActivity;
-    }
-
-    /**
-     * @return BreinLookup instance
+     * @param deviceToken String contains the deviceToken
      */
-    public static BreinLookup getBreinLookup() {
-        return breinLookup;
-    }
-
-    public static BreinUser getUser() {
-        return breinUser;
+    public static void configureDeviceToken(final String deviceToken) {
+        BreinifyManager.getInstance().configureDeviceToken(deviceToken);
     }
 
     /**
@@ -215,15 +183,6 @@ public class Breinify {
         return BreinifyManager.getInstance().getPushDeviceRegistration();
     }
 
-    /**
-     * Returns the session id
-     *
-     * @return String containing the session id
-     */
-    public static String getSessionId() {
-        return Breinify.getUser().getSessionId();
-    }
-
     /**
      * Delegate to save userDefaults
      */
@@ -241,201 +200,11 @@ public class Breinify {
         BreinifyManager.getInstance().sendActivity(activityType, null);
     }
 
-    /**
-     * Sends an activity to the engine utilizing the API. The call is done asynchronously as a POST request. It is
-     * important that a valid API-key is configured prior to using this function.
-     * <p>
-     * This request is asynchronous.
-     *
-     * @param user         BreinUser a plain object specifying the user information the activity belongs to
-     * @param activityType String the type of the activity collected, i.e., one of search, login, logout, addToCart,
-     *                     removeFromCart, checkOut, selectProduct, or other. if not specified, the default other will
-     *                     be used
-     * @param category     String the category of the platform/service/products, i.e., one of apparel, home, education, family,
-     *                     food, health, job, services, or other
-     * @param description  String a string with further information about the activity performed
-     * @param callback     ICallback function
-     */
-    public static void activity(final BreinUser user,
-                                final String activityType,
-                                final String category,
-                                final String description,
-                                final ICallback<BreinResult> callback) {
-
-        if (user == null) {
-            throw new BreinException(BreinException.USER_NOT_SET);
-        }
-
-        final BreinActivity activity = new BreinActivity()
-                .setUser(user)
-                .setActivityType(activityType)
-                .setCategory(category)
-                .setDescription(description);
-
-        activity(activity, callback);
-    }
-
-    /**
-     * Sends an activity to the engine utilizing the API. The call is done asynchronously as a POST request. It is
-     * important that a valid API-key is configured prior to using this function.
-     * <p>
-     * This request is asynchronous.
-     *
-     * @param user         BreinUser a plain object specifying the user information the activity belongs to
-     * @param activityType String the type of the activity collected, i.e., one of search, login, logout, addToCart,
-     *                     removeFromCart, checkOut, selectProduct, or other. if not specified, the default other will
-     *                     be used
-     * @param category     String the category of the platform/service/products, i.e., one of apparel, home, education, family,
-     *                     food, health, job, services, or other
-     * @param description  String a string with further information about the activity performed
-     */
-    public static void activity(final BreinUser user,
-                                final String activityType,
-                                final String category,
-                                final String description) {
-
-        // invoke activity call without callback
-        activity(user, activityType, category, description, null);
-    }
-
-    /**
-     * Method to send an activity asynchronous.
-     *
-     * @param activityType String the activity type to be sent
-     * @see BreinActivity
-     */
-    public static void activity(final String activityType) {
-
-        breinActivity.setUser(breinUser);
-        breinActivity.setActivityType(activityType);
-
-        activity(breinActivity, null);
-    }
-
-    /**
-     * Method to send an activity asynchronous.
-     *
-     * @param activity BreinActivity the {@code BreinActivity} to be sent
-     * @see BreinActivity
-     */
-    public static void activity(final BreinActivity activity) {
-        activity(activity, null);
-    }
-
-    /**
-     * Method to send an activity asynchronous.
-     *
-     * @param activity BreinActivity the {@code BreinActivity} to be sent
-     * @param callback ICallback callback to get informed whenever the activity was sent, the callback retrieves the {@code
-     *                 BreinResult}
-     * @see BreinActivity
-     * @see BreinResult
-     */
-    public static void activity(final BreinActivity activity, final ICallback<BreinResult> callback) {
-        getBrein().activity(activity, callback);
-    }
-
-    /**
-     * Method to retrieve temporal information based on temporal data. This method uses the available information from
-     * the system it is running on to be passed to the API, which resolves the temporal information. Normally (if not
-     * using a VPN) the ip-address is a good source to determine, e.g., the location.
-     *
-     * @param callback ICallback to be invoked
-     */
-    public static void temporalData(final ICallback<BreinResult> callback) {
-
-        final BreinTemporalData data = new BreinTemporalData().setLocalDateTime();
-        temporalData(data, callback);
-    }
-
-    /**
-     * Method to retrieve temporal information based on temporal data. This method uses the {@code latitude} and {@code
-     * longitude} to determine further information, i.e., weather, location, events, time, timezone, and holidays.
-     *
-     * @param latitude   double the latitude of the geo-coordinates to resolve
-     * @param longitude  double the longitude of the geo-coordinates to resolve
-     * @param callback   ICallback to be invoked
-     * @param shapeTypes String the shape-types to retrieve (if empty, no shape-types will be returned), e.g., CITY,
-     *                   NEIGHBORHOOD, ZIP-CODES
-     */
-    public static void temporalData(final double latitude,
-                                    final double longitude,
-                                    final ICallback<BreinResult> callback,
-                                    final String... shapeTypes) {
-        final BreinTemporalData data = new BreinTemporalData()
-                .setLongitude(longitude)
-                .setLatitude(latitude)
-                .addShapeTypes(shapeTypes);
-
-        getBrein().temporalData(data, callback);
-    }
-
-    /**
-     * Method to retrieve temporal information based on temporal data. This method uses the {@code ipAddress} to
-     * determine further information, i.e., weather, location, events, time, timezone, and holidays.
-     *
-     * @param ipAddress  String the address to resolve the information for
-     * @param callback   ICallback to be invoked
-     */
-    public static void temporalData(final String ipAddress, final ICallback<BreinResult> callback) {
-        final BreinTemporalData data = new BreinTemporalData().setLookUpIpAddress(ipAddress);
-
-        getBrein().temporalData(data, callback);
-    }
-
-    /**
-     * Method to retrieve temporal information based on temporal data. This method uses the available information from
-     * the system it is running on to be passed to the API, which resolves the temporal information. Normally (if not
-     * using a VPN) the ip-address is a good source to determine, e.g., the location.
-     *
-     * @param data      BreinTemporalData contains the object
-     * @param callback  ICallback to be invoked
-     */
-    public static void temporalData(final BreinTemporalData data, final ICallback<BreinResult> callback) {
-        getBrein().temporalData(data, callback);
-    }
-
-    /**
-     * Invokes recommendation request
-     *
-     * @param data     BreinRecommendation instance
-     * @param callback ICallback constains callback handler
-     */
-    public static void recommendation(final BreinRecommendation data, final ICallback<BreinResult> callback) {
-        getBrein().recommendation(data, callback);
-    }
-
-    /**
-     * Retrieves a lookup result from the engine. The function needs a valid API-key to be configured to succeed.
-     * <p>
-     * This request is synchronous.
-     *
-     * @param data     BreinLookup a plain object specifying information about the brein lookup data.
-     * @param callback ICallback a method invoked with the result set.
-     */
-    public static void lookUp(final BreinLookup data, final ICallback<BreinResult> callback) {
-        getBrein().lookup(data, callback);
-    }
-
-    /**
-     * Returns the last brein object
-     *
-     * @return Brein
-     */
-    protected static Brein getBrein() {
-        if (lastBrein == null) {
-            lastBrein = new Brein().setConfig(lastConfig);
-        }
-        return lastBrein;
-    }
-
     /**
      * Shutdown Breinify services
      */
     public static void shutdown() {
-        if (getConfig() != null) {
-            getConfig().shutdownEngine();
-        }
+        BreinifyCore.shutdown();
         BreinifyManager.getInstance().shutdown();
     }
 }
@@ -3,7 +3,8 @@ package com.brein.api;
 import android.app.Activity;
 import android.app.Application;
 import android.os.Bundle;
-import android.util.Log;
+
+import com.brein.util.BreinLogger;
 
 public class BreinifyLifecycle implements Application.ActivityLifecycleCallbacks {
 
@@ -14,12 +15,12 @@ public class BreinifyLifecycle implements Application.ActivityLifecycleCallbacks
 
     @Override
     public void onActivityCreated(final Activity activity, final Bundle bundle) {
-        Log.d(TAG, "onActivityCreated invoked");
+        BreinLogger.v(TAG, "onActivityCreated invoked");
     }
 
     @Override
     public void onActivityStarted(final Activity activity) {
-        Log.d(TAG, "onActivityStarted invoked");
+        BreinLogger.v(TAG, "onActivityStarted invoked");
         if (numStarted == 0) {
             userEnteredTime = System.currentTimeMillis();
 
@@ -31,35 +32,40 @@ public class BreinifyLifecycle implements Application.ActivityLifecycleCallbacks
 
     @Override
     public void onActivityResumed(final Activity activity) {
-        Log.d(TAG, "onActivityResumed invoked");
+        BreinLogger.v(TAG, "onActivityResumed invoked");
     }
 
     @Override
     public void onActivityPaused(final Activity activity) {
-        Log.d(TAG, "onActivityPaused invoked");
+        BreinLogger.v(TAG, "onActivityPaused invoked");
     }
 
     @Override
     public void onActivityStopped(final Activity activity) {
-        Log.d(TAG, "onActivityStopped invoked");
+        BreinLogger.v(TAG, "onActivityStopped invoked");
         numStarted--;
         if (numStarted == 0) {
             long timeInApp = System.currentTimeMillis() - userEnteredTime;
 
             // app is now in background
-            Log.d(TAG, "app is now in background. Time in App was: " + Long.toString(timeInApp));
+            if (BreinLogger.isLoggable(BreinLogger.Level.VERBOSE)) {
+                BreinLogger.v(TAG, "app is now in background. Time in App was: " + Long.toString(timeInApp));
+            }
 
             BreinifyManager.getInstance().appIsInBackground();
+
+            // send the collected activities, the app may be killed while in background
+            Breinify.flush();
         }
     }
 
     @Override
     public void onActivitySaveInstanceState(final Activity activity, final Bundle bundle) {
-        Log.d(TAG, "onActivitySaveInstanceState invoked");
+        BreinLogger.v(TAG, "onActivitySaveInstanceState invoked");
     }
 
     @Override
     public void onActivityDestroyed(final Activity activity) {
-        Log.d(TAG, "onActivityDestroyed invoked");
+        BreinLogger.v(TAG, "onActivityDestroyed invoked");
     }
 }
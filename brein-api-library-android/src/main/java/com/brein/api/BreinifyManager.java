@@ -8,11 +8,15 @@ import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.os.Handler;
 import android.support.v4.app.ActivityCompat;
-import android.util.Log;
 
+import com.brein.domain.BreinAndroidDeviceInfoProvider;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDeviceContext;
 import com.brein.domain.BreinIpInfo;
+import com.brein.util.BreinLogger;
 import com.brein.util.BreinUtil;
 
+import java.io.File;
 import java.util.Map;
 import java.util.UUID;
 
@@ -26,6 +30,8 @@ public class BreinifyManager {
     private static final String BREIN_PUSH_DEVICE_REGISTRATION = "breinPushDeviceRegistration";
     private static final String BREIN_USER_EMAIL = "breinUserEmail";
     private static final String BREIN_USER_ID = "breinUserId";
+    private static final String BREIN_OFFLINE_QUEUE_DIR = "breinify-offline-queue";
+    private static final String BREIN_IP_INFO_FILE = "breinify-ip-info.json";
 
     // contains the device token
     private String pushDeviceRegistration;
@@ -45,6 +51,9 @@ public class BreinifyManager {
     // application context
     private Application application;
 
+    // detects the device information (location, network) of the application
+    private BreinAndroidDeviceInfoProvider deviceInfoProvider;
+
     // contains the main activity
     private Activity mainActivity;
 
@@ -101,7 +110,6 @@ public class BreinifyManager {
      * @param pushDeviceRegistration String
      */
     public void setPushDeviceRegistration(final String pushDeviceRegistration) {
-        Log.d(TAG, "pushDeviceRegistration is: " + pushDeviceRegistration);
         this.pushDeviceRegistration = pushDeviceRegistration;
 
         // set user as well -> necessary for correct request
@@ -183,6 +191,7 @@ public class BreinifyManager {
      */
     public void setApplication(final Application application) {
         this.application = application;
+        configureDeviceContext();
     }
 
     /**
@@ -206,9 +215,6 @@ public class BreinifyManager {
         this.backgroundInterval = backgroundInterval;
 
         initLifecycleAndEngine(backgroundInterval);
-
-        // invoke ipAddress detection now
-        BreinIpInfo.getInstance();
     }
 
     /**
@@ -224,12 +230,23 @@ public class BreinifyManager {
             this.application.registerActivityLifecycleCallbacks(new BreinifyLifecycle());
         }
 
-        // configure the API
-        Breinify.setConfig(this.apiKey, this.secret);
+        // configure the API, activities which cannot be sent are kept within the files of the application
+        final BreinConfig config = new BreinConfig(this.apiKey, this.secret);
+        if (this.application != null) {
+            config.setOfflineQueueDirectory(new File(this.application.getFilesDir(), BREIN_OFFLINE_QUEUE_DIR));
+            config.setIpInfoFile(new File(this.application.getFilesDir(), BREIN_IP_INFO_FILE));
+        }
+        Breinify.setConfig(config);
+
+        // the last known ipAddress is available right away, it is refreshed in the background if outdated
+        BreinIpInfo.getInstance(config);
 
         // configure the recipient of push notifications
         initNotificationReceiver();
 
+        // keep the cached device information (location, network) up to date
+        configureDeviceContext();
+
         // read user defaults (email, userId, token)
         readAndInitUserDefaults();
 
@@ -242,8 +259,8 @@ public class BreinifyManager {
         // send the user identification to the backend
         sendIdentifyInfo();
 
-        // check if unsent message are there
-        // TODO: 15/06/17
+        // send the activities which could not be sent so far
+        Breinify.getBrein().getEngine().replayOfflineQueue();
     }
 
     /**
@@ -272,14 +289,14 @@ public class BreinifyManager {
      */
     public void initBackgroundHandler(final long backgroundInterval) {
 
-        Log.d(TAG, "initBackgroundHandler invoked with duration: " + Long.toString(backgroundInterval));
+        BreinLogger.d(TAG, "initBackgroundHandler invoked with duration: " + Long.toString(backgroundInterval));
 
         // Define the code block to be executed
         runnableCode = new Runnable() {
             @Override
             public void run() {
                 // Do something here on the main thread
-                Log.d("initBackgroundHandler", "Called on main thread");
+                BreinLogger.d("initBackgroundHandler", "Called on main thread");
 
                 // flag if sending is possible
                 sendLocationInfo();
@@ -297,9 +314,31 @@ public class BreinifyManager {
      * Called in case of API Shutdown and will stop all services
      */
     public void shutdown() {
-        Log.d(TAG, "shutdown invoked ");
+        BreinLogger.d(TAG, "shutdown invoked ");
 
         destroyNotificationReceiver();
+        if (this.deviceInfoProvider != null) {
+            this.deviceInfoProvider.unregister();
+        }
+    }
+
+    /**
+     * Detects the device information (location, network) through the application, a changed connectivity or changed
+     * location providers invalidate the cached values.
+     */
+    private synchronized void configureDeviceContext() {
+        if (this.deviceInfoProvider != null) {
+            if (this.deviceInfoProvider.getApplication() == this.application) {
+                this.deviceInfoProvider.register();
+                return;
+            }
+            this.deviceInfoProvider.unregister();
+        }
+
+        final BreinDeviceContext context = BreinDeviceContext.getInstance();
+        this.deviceInfoProvider = new BreinAndroidDeviceInfoProvider(this.application, context);
+        this.deviceInfoProvider.register();
+        context.setProvider(this.deviceInfoProvider);
     }
 
     /**
@@ -318,7 +357,9 @@ public class BreinifyManager {
     public void sendActivity(final String activityType,
                              final Map<String, Object> additionalContent) {
 
-        Log.d(TAG, "sending activity of type: " + activityType);
+        if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+            BreinLogger.d(TAG, "sending activity of type: " + activityType);
+        }
 
         if (BreinUtil.containsValue(this.userEmail)) {
             Breinify.getUser().setEmail(this.userEmail);
@@ -341,7 +382,7 @@ public class BreinifyManager {
      * send an identify information ony if token is given
      */
     public void sendIdentifyInfo() {
-        Log.d(TAG, "sendIdentifyInfo invoked");
+        BreinLogger.d(TAG, "sendIdentifyInfo invoked");
 
         if (BreinUtil.containsValue(BreinifyManager.getInstance().getPushDeviceRegistration())) {
             sendActivity("identify", null);
@@ -352,15 +393,15 @@ public class BreinifyManager {
      * send a location information
      */
     public void sendLocationInfo() {
-        Log.d(TAG, "sendLocationInfo invoked");
+        BreinLogger.d(TAG, "sendLocationInfo invoked");
 
         if (application == null) {
-            Log.d(TAG, "sendLocationInfo. Can not check permissions because application object not set");
+            BreinLogger.d(TAG, "sendLocationInfo. Can not check permissions because application object not set");
             return;
         }
 
         if (!BreinUtil.containsValue(BreinifyManager.getInstance().getPushDeviceRegistration())) {
-            Log.d(TAG, "sendLocationInfo. No deviceRegistrationToken set.");
+            BreinLogger.d(TAG, "sendLocationInfo. No deviceRegistrationToken set.");
             return;
         }
 
@@ -372,7 +413,7 @@ public class BreinifyManager {
 
         if (accessCoarseLocationPermission != PackageManager.PERMISSION_GRANTED ||
                 accessFineLocationPermission != PackageManager.PERMISSION_GRANTED) {
-            Log.d(TAG, "no permission granted to invoke location requests");
+            BreinLogger.d(TAG, "no permission granted to invoke location requests");
             return;
         }
 
@@ -384,10 +425,10 @@ public class BreinifyManager {
      */
     public void readAndInitUserDefaults() {
 
-        Log.d(TAG, "readAndInitUserDefaults invoked");
+        BreinLogger.d(TAG, "readAndInitUserDefaults invoked");
 
         if (application == null) {
-            Log.d(TAG, "readAndInitUserDefaults can not work, because application object not set.");
+            BreinLogger.d(TAG, "readAndInitUserDefaults can not work, because application object not set.");
             return;
         }
 
@@ -419,7 +460,7 @@ public class BreinifyManager {
      * an identifyInfo to the backend.
      */
     public void saveUserDefaults() {
-        Log.d(TAG, "saveUserDefaults invoked");
+        BreinLogger.d(TAG, "saveUserDefaults invoked");
 
         saveUserDefaultValue(BREIN_USER_EMAIL, getUserEmail());
         saveUserDefaultValue(BREIN_USER_ID, getUserId());
@@ -434,7 +475,7 @@ public class BreinifyManager {
      * @param deviceToken String contains pushDeviceRegistration
      */
     public void configureDeviceToken(final String deviceToken) {
-        Log.d(TAG, "configureDeviceToken invoked wit token: " + deviceToken);
+        BreinLogger.v(TAG, "configureDeviceToken invoked");
 
         setPushDeviceRegistration(deviceToken);
 
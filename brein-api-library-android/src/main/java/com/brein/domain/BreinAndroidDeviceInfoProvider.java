@@ -0,0 +1,236 @@
+package com.brein.domain;
+
+import android.Manifest;
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+import android.net.ConnectivityManager;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.support.v4.app.ActivityCompat;
+import android.text.format.Formatter;
+
+import com.brein.util.BreinLogger;
+import com.google.gson.JsonObject;
+
+import java.util.List;
+
+import static android.content.Context.WIFI_SERVICE;
+
+/**
+ * Detects the location, the wifi network and the user agent of the device for the {@link BreinDeviceContext}. While
+ * registered (see {@link #register()}), a changed connectivity or changed location providers invalidate the
+ * corresponding value of the context.
+ */
+public class BreinAndroidDeviceInfoProvider implements IDeviceInfoProvider {
+
+    private static final String TAG = "BreinDeviceContext";
+
+    private final Application application;
+    private final BreinDeviceContext context;
+
+    /**
+     * receiver of the signals invalidating the cached values, {@code null} if not registered
+     */
+    private BroadcastReceiver receiver = null;
+
+    /**
+     * @param application Application the application context, may be {@code null}
+     * @param context     BreinDeviceContext the context invalidated by the signals
+     */
+    public BreinAndroidDeviceInfoProvider(final Application application, final BreinDeviceContext context) {
+        this.application = application;
+        this.context = context;
+    }
+
+    @Override
+    public JsonObject detectLocation() {
+        return detectLocation(this.application);
+    }
+
+    @Override
+    public JsonObject detectNetwork() {
+        return detectNetwork(this.application);
+    }
+
+    @Override
+    public String createUserAgent() {
+        return createUserAgent(this.application);
+    }
+
+    /**
+     * @return Application the application context, may be {@code null}
+     */
+    public Application getApplication() {
+        return application;
+    }
+
+    /**
+     * Registers the receiver of connectivity and location provider changes, does nothing if the receiver is already
+     * registered.
+     */
+    public synchronized void register() {
+        if (this.application == null || this.receiver != null) {
+            return;
+        }
+
+        final IntentFilter filter = new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION);
+        filter.addAction(WifiManager.NETWORK_STATE_CHANGED_ACTION);
+        filter.addAction(LocationManager.PROVIDERS_CHANGED_ACTION);
+
+        final BroadcastReceiver signalReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(final Context context, final Intent intent) {
+                onSignal(intent == null ? null : intent.getAction());
+            }
+        };
+
+        try {
+            this.application.registerReceiver(signalReceiver, filter);
+            this.receiver = signalReceiver;
+        } catch (final RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to register for connectivity changes: " + e);
+        }
+    }
+
+    /**
+     * Unregisters the receiver of connectivity and location provider changes.
+     */
+    public synchronized void unregister() {
+        if (this.receiver != null) {
+            try {
+                this.application.unregisterReceiver(this.receiver);
+            } catch (final RuntimeException e) {
+                BreinLogger.w(TAG, "Unable to unregister for connectivity changes: " + e);
+            }
+        }
+
+        this.receiver = null;
+    }
+
+    /**
+     * Handles a received signal, i.e., invalidates the values affected by the signal.
+     *
+     * @param action String the action of the received intent
+     */
+    protected void onSignal(final String action) {
+        if (LocationManager.PROVIDERS_CHANGED_ACTION.equals(action)) {
+            this.context.invalidateLocation();
+        } else {
+            this.context.invalidateNetwork();
+            BreinIpInfo.getInstance().invalidate();
+        }
+    }
+
+    /**
+     * Detects the last known location of the device.
+     *
+     * @param application Application the application context, may be {@code null}
+     * @return JsonObject the location, {@code null} if not available
+     */
+    private static JsonObject detectLocation(final Application application) {
+        if (application == null) {
+            return null;
+        }
+
+        final int accessFineLocationPermission = ActivityCompat.checkSelfPermission(application,
+                Manifest.permission.ACCESS_FINE_LOCATION);
+        final int accessCoarseLocationPermission = ActivityCompat.checkSelfPermission(application,
+                Manifest.permission.ACCESS_COARSE_LOCATION);
+        if (accessCoarseLocationPermission != PackageManager.PERMISSION_GRANTED ||
+                accessFineLocationPermission != PackageManager.PERMISSION_GRANTED) {
+            return null;
+        }
+
+        final LocationManager locationManager =
+                (LocationManager) application.getSystemService(Context.LOCATION_SERVICE);
+        final List<String> providers = locationManager == null ? null : locationManager.getAllProviders();
+        if (providers == null) {
+            return null;
+        }
+
+        // Loop over the array backwards, and if you get an accurate location, then break out the loop
+        Location location = null;
+        try {
+            for (int index = providers.size() - 1; index >= 0 && location == null; index--) {
+                location = locationManager.getLastKnownLocation(providers.get(index));
+            }
+        } catch (final SecurityException e) {
+            BreinLogger.w(TAG, "Unable to detect the location: " + e);
+        }
+
+        if (location == null) {
+            return null;
+        }
+
+        final JsonObject locationData = new JsonObject();
+        locationData.addProperty("accuracy", location.getAccuracy());
+        locationData.addProperty("speed", location.getSpeed());
+        locationData.addProperty("latitude", location.getLatitude());
+        locationData.addProperty("longitude", location.getLongitude());
+
+        return locationData;
+    }
+
+    /**
+     * Detects the information about the wifi network.
+     *
+     * @param application Application the application context, may be {@code null}
+     * @return JsonObject the network information, {@code null} if not available
+     */
+    private static JsonObject detectNetwork(final Application application) {
+
+        // only possible if permission has been granted
+        if (application == null || ActivityCompat.checkSelfPermission(application,
+                Manifest.permission.ACCESS_WIFI_STATE) != PackageManager.PERMISSION_GRANTED) {
+            return null;
+        }
+
+        final WifiManager wifiManager = (WifiManager) application
+                .getApplicationContext()
+                .getSystemService(WIFI_SERVICE);
+        final WifiInfo wifiInfo = wifiManager == null ? null : wifiManager.getConnectionInfo();
+        if (wifiInfo == null) {
+            return null;
+        }
+
+        // contains double quotes
+        final String ssid = wifiInfo.getSSID() == null ? null : wifiInfo.getSSID().replace("\"", "");
+
+        final JsonObject networkData = new JsonObject();
+        networkData.addProperty("ssid", ssid);
+        networkData.addProperty("bssid", wifiInfo.getBSSID());
+        networkData.addProperty("ipAddress", Formatter.formatIpAddress(wifiInfo.getIpAddress()));
+        networkData.addProperty("linkSpeed", wifiInfo.getLinkSpeed());
+        networkData.addProperty("macAddress", wifiInfo.getMacAddress());
+        networkData.addProperty("rssi", wifiInfo.getRssi());
+        networkData.addProperty("networkId", wifiInfo.getNetworkId());
+        networkData.addProperty("state", String.valueOf(wifiInfo.getSupplicantState()));
+
+        return networkData;
+    }
+
+    /**
+     * Creates the userAgent String in Android standard format and adds the app name.
+     *
+     * @param application Application the application context, may be {@code null}
+     * @return String userAgent
+     */
+    private static String createUserAgent(final Application application) {
+        String appName = "";
+        if (application != null && application.getApplicationInfo() != null) {
+            appName = application.getApplicationInfo().loadLabel(application.getPackageManager()).toString();
+        }
+
+        // add the app
+        return System.getProperty("http.agent")
+                + "/("
+                + appName
+                + ")";
+    }
+}
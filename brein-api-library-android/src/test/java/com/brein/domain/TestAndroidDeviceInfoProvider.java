@@ -0,0 +1,60 @@
+package com.brein.domain;
+
+import android.location.LocationManager;
+import android.net.ConnectivityManager;
+
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the device information detected through the Android application
+ */
+public class TestAndroidDeviceInfoProvider {
+
+    /**
+     * A signal invalidates the affected value only.
+     */
+    @Test
+    public void testSignals() {
+        final BreinConfig config = new BreinConfig("TEST-API-KEY");
+        final CountingDeviceContext context = new CountingDeviceContext();
+        final BreinAndroidDeviceInfoProvider provider = new BreinAndroidDeviceInfoProvider(null, context);
+        context.getSnapshot(config);
+
+        provider.onSignal(ConnectivityManager.CONNECTIVITY_ACTION);
+        context.getSnapshot(config);
+        context.getSnapshot(config);
+        assertEquals(1, context.locations);
+        assertEquals(2, context.networks);
+
+        provider.onSignal(LocationManager.PROVIDERS_CHANGED_ACTION);
+        context.getSnapshot(config);
+        assertEquals(2, context.locations);
+        assertEquals(2, context.networks);
+    }
+
+    private static class CountingDeviceContext extends BreinDeviceContext {
+        private int locations = 0;
+        private int networks = 0;
+
+        @Override
+        protected JsonObject detectLocation() {
+            locations++;
+            return new JsonObject();
+        }
+
+        @Override
+        protected JsonObject detectNetwork() {
+            networks++;
+            return new JsonObject();
+        }
+
+        @Override
+        protected String createUserAgent() {
+            return "agent";
+        }
+    }
+}
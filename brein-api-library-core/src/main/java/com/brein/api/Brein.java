@@ -0,0 +1,170 @@
+package com.brein.api;
+
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.engine.BreinEngine;
+
+import java.util.concurrent.TimeUnit;
+
+public class Brein {
+
+    private BreinConfig config;
+    private volatile BreinEngine engine;
+
+    /**
+     * Sets the configuration
+     *
+     * @param breinConfig config object
+     */
+    public Brein setConfig(final BreinConfig breinConfig) {
+        if (this.engine != null) {
+            shutdown();
+        }
+        this.config = breinConfig;
+        return this;
+    }
+
+    /**
+     * Sends an activity to the engine utilizing the API. The call is done asynchronously as a POST request. It is
+     * important that a valid API-key is configured prior to using this function.
+     * <p>
+     * This request is asynchronous.
+     */
+    public void activity(final BreinActivity data, final ICallback<BreinResult> callback) {
+        activityAsync(data).then(callback);
+    }
+
+    /**
+     * Sends an activity to the engine utilizing the API. The returned future is done as soon as the activity is sent
+     * (or the request failed), a timeout can be set using {@link BreinFuture#setTimeout(long, TimeUnit)}.
+     *
+     * @param data BreinActivity the activity to send
+     *
+     * @return BreinFuture the pending result of the request
+     */
+    public BreinFuture<BreinResult> activityAsync(final BreinActivity data) {
+        return invoke(data);
+    }
+
+    /**
+     * Retrieves a lookup result from the engine. The function needs a valid API-key to be configured to succeed.
+     * <p>
+     * This request is synchronous.
+     *
+     * @param data a plain object specifying the lookup information.
+     *
+     */
+    public void lookup(final BreinLookup data, final ICallback<BreinResult> callback) {
+        lookupAsync(data).then(callback);
+    }
+
+    /**
+     * Retrieves a lookup result from the engine. The returned future is done as soon as the result is received (or
+     * the request failed), a timeout can be set using {@link BreinFuture#setTimeout(long, TimeUnit)}.
+     *
+     * @param data BreinLookup a plain object specifying the lookup information
+     *
+     * @return BreinFuture the pending result of the request
+     */
+    public BreinFuture<BreinResult> lookupAsync(final BreinLookup data) {
+        return invoke(data);
+    }
+
+    /**
+     * Sends a temporalData to the engine utilizing the API. The call is done synchronously as a POST request. It is
+     * important that a valid API-key is configured prior to using this function.
+     * <p>
+     * This request is synchronous.
+     *
+     */
+    public void temporalData(final BreinTemporalData data, final ICallback<BreinResult> callback) {
+        temporalDataAsync(data).then(callback);
+    }
+
+    /**
+     * Retrieves the temporal information from the engine. The returned future is done as soon as the result is
+     * received (or the request failed), a timeout can be set using {@link BreinFuture#setTimeout(long, TimeUnit)}.
+     *
+     * @param data BreinTemporalData the request
+     *
+     * @return BreinFuture the pending result of the request
+     */
+    public BreinFuture<BreinResult> temporalDataAsync(final BreinTemporalData data) {
+        return invoke(data);
+    }
+
+    /**
+     * Sends a recommendation request to the engine utilizing the API. The call is done synchronously as a POST request.
+     * It is important that a valid API-key is configured prior to using this function.
+     * <p>
+     * This request is synchronous.
+     *
+     * @param data contains the brein recommendation object
+     *
+     */
+    public void recommendation(final BreinRecommendation data, final ICallback<BreinResult> callback) {
+        recommendationAsync(data).then(callback);
+    }
+
+    /**
+     * Retrieves recommendations from the engine. The returned future is done as soon as the result is received (or
+     * the request failed), a timeout can be set using {@link BreinFuture#setTimeout(long, TimeUnit)}.
+     *
+     * @param data BreinRecommendation the request
+     *
+     * @return BreinFuture the pending result of the request
+     */
+    public BreinFuture<BreinResult> recommendationAsync(final BreinRecommendation data) {
+        return invoke(data);
+    }
+
+    /**
+     * Hands the request over to the engine, the future is informed with the result.
+     *
+     * @param data BreinBase the request
+     *
+     * @return BreinFuture the pending result of the request
+     */
+    protected BreinFuture<BreinResult> invoke(final BreinBase data) {
+        final BreinFuture<BreinResult> future = new BreinFuture<>();
+        getEngine().invoke(this.config, data, future);
+        return future;
+    }
+
+    /**
+     * Shutdown Breinify services
+     */
+    public void shutdown() {
+        final BreinEngine current;
+        synchronized (this) {
+            current = this.engine;
+            this.engine = null;
+        }
+
+        if (current != null) {
+            current.terminate();
+        }
+    }
+
+    public BreinEngine getEngine() {
+        BreinEngine current = this.engine;
+        if (current == null) {
+            synchronized (this) {
+                current = this.engine;
+                if (current == null) {
+                    current = new BreinEngine();
+                    if (this.config != null) {
+                        current.configure(this.config);
+                    }
+                    this.engine = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    public BreinConfig getConfig() {
+        return config;
+    }
+}
@@ -3,9 +3,13 @@ package com.brein.api;
 import com.brein.domain.BreinConfig;
 import com.brein.domain.BreinResult;
 import com.brein.domain.BreinUser;
+import com.brein.util.BreinCopyOnWriteMap;
+import com.brein.util.BreinJsonUtil;
 import com.brein.util.BreinMapUtil;
 import com.brein.util.BreinUtil;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,12 +27,12 @@ public class BreinActivity extends BreinBase<BreinActivity> implements ISecretSt
     /**
      * contains the tags
      */
-    private Map<String, Object> tagsMap;
+    private BreinCopyOnWriteMap<String, Object> tagsMap = new BreinCopyOnWriteMap<>();
 
     /**
      * contains the fields that are part of the activity map
      */
-    private Map<String, Object> activityMap;
+    private BreinCopyOnWriteMap<String, Object> activityMap = new BreinCopyOnWriteMap<>();
 
     /**
      * returns activity type
@@ -114,8 +118,6 @@ public class BreinActivity extends BreinBase<BreinActivity> implements ISecretSt
         if (TAGS_FIELD.equalsIgnoreCase(key)) {
             throw new BreinException("The field '" + TAGS_FIELD + "' cannot be set, " +
                     "use the setTag method to do so.");
-        } else if (this.activityMap == null) {
-            this.activityMap = new HashMap<>();
         }
 
         this.activityMap.put(key, value);
@@ -147,10 +149,26 @@ public class BreinActivity extends BreinBase<BreinActivity> implements ISecretSt
         execute(callback);
     }
 
+    /**
+     * Creates a snapshot of the activity, i.e., an independent activity containing the current values and a snapshot
+     * of the current user. Changes of this activity (or its user) do not affect the snapshot and vice versa. Creating
+     * the snapshot does not copy any values, the snapshot shares the current (unmodifiable) values.
+     *
+     * @return BreinActivity the snapshot
+     */
+    public BreinActivity snapshot() {
+        final BreinActivity snapshot = new BreinActivity();
+        snapshot.copyBase(this);
+        snapshot.activityMap = this.activityMap.copy();
+        snapshot.tagsMap = this.tagsMap.copy();
+
+        return snapshot;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void execute(ICallback callback) {
-        Breinify.activity(this, callback);
+        BreinifyCore.activity(this, callback);
     }
 
     /**
@@ -160,7 +178,7 @@ public class BreinActivity extends BreinBase<BreinActivity> implements ISecretSt
         setActivityType("");
         setCategory("");
         setDescription("");
-        tagsMap = null;
+        tagsMap.clear();
     }
 
     @Override
@@ -168,12 +186,9 @@ public class BreinActivity extends BreinBase<BreinActivity> implements ISecretSt
         final Map<String, Object> activityRequestData = new HashMap<>();
 
         // add the user-data, if there is any
-        if (this.activityMap != null) {
-            // loop a Map
-            for (Map.Entry<String, Object> entry : this.activityMap.entrySet()) {
-                if (BreinUtil.containsValue(entry.getValue())) {
-                    activityRequestData.put(entry.getKey(), entry.getValue());
-                }
+        for (Map.Entry<String, Object> entry : this.activityMap.snapshot().entrySet()) {
+            if (BreinUtil.containsValue(entry.getValue())) {
+                activityRequestData.put(entry.getKey(), entry.getValue());
             }
         }
 
@@ -183,13 +198,55 @@ public class BreinActivity extends BreinBase<BreinActivity> implements ISecretSt
         }
 
         // add tagsMap map if configured
-        if (this.tagsMap != null && !this.tagsMap.isEmpty()) {
-            activityRequestData.put(TAGS_FIELD, BreinMapUtil.copyMap(this.tagsMap));
+        final Map<String, Object> tags = this.tagsMap.snapshot();
+        if (!tags.isEmpty()) {
+            activityRequestData.put(TAGS_FIELD, BreinMapUtil.copyMap(tags));
         }
 
         requestData.put(ACTIVITY_FIELD, activityRequestData);
     }
 
+    /**
+     * Writes the request body, the activity is streamed without creating the intermediate maps of {@link
+     * #prepareRequestData(BreinConfig)}.
+     *
+     * @param config BreinConfig the configuration used to create the request body
+     * @param writer JsonWriter the writer to write the request body to
+     *
+     * @throws IOException if the body cannot be written
+     */
+    @Override
+    public void writeRequestData(final BreinConfig config, final JsonWriter writer) throws IOException {
+        final long unixTimestamp = resolveUnixTimestamp();
+
+        writer.beginObject();
+        writeBaseData(config, writer, unixTimestamp);
+
+        writer.name(ACTIVITY_FIELD).beginObject();
+        BreinJsonUtil.writeEntries(writer, getGson(), this.activityMap.snapshot(), ActivityField.CATEGORY.getName());
+
+        // the category may be set to default
+        final String category = getCategory(config);
+        if (BreinUtil.containsValue(category)) {
+            writer.name(ActivityField.CATEGORY.getName()).value(category);
+        }
+
+        final Map<String, Object> tags = this.tagsMap.snapshot();
+        if (!tags.isEmpty()) {
+            writer.name(TAGS_FIELD);
+            BreinJsonUtil.writeValue(writer, getGson(), tags);
+        }
+        writer.endObject();
+
+        if (config.isSign()) {
+            final String type = getActivityType();
+            writer.name(SIGNATURE_FIELD).value(createSignature(config, BreinUtil.containsValue(type) ? type : null,
+                    unixTimestamp));
+            writer.name(SIGNATURE_TYPE_FIELD).value("HmacSHA256");
+        }
+        writer.endObject();
+    }
+
     /**
      * Generates the signature for the request
      *
@@ -198,19 +255,22 @@ public class BreinActivity extends BreinBase<BreinActivity> implements ISecretSt
     @Override
     public String createSignature(final BreinConfig config, final Map<String, Object> requestData) {
         final String type = BreinMapUtil.getNestedValue(requestData, ACTIVITY_FIELD, ActivityField.TYPE.getName());
-        final String paraType = type == null ? "" : type;
-
         final long unixTimestamp = BreinMapUtil.getNestedValue(requestData, UNIX_TIMESTAMP_FIELD);
 
-        final String message = String.format("%s%d%d", paraType, unixTimestamp, 1);
-        return BreinUtil.generateSignature(message, config.getSecret());
+        return createSignature(config, type, unixTimestamp);
     }
 
-    public BreinActivity setTag(final String key, final Object value) {
-        if (this.tagsMap == null) {
-            this.tagsMap = new HashMap<>();
-        }
+    private String createSignature(final BreinConfig config, final String type, final long unixTimestamp) {
+        final String paraType = type == null ? "" : type;
 
+        return config.getSigner().message()
+                .append(paraType)
+                .append(unixTimestamp)
+                .append(1)
+                .sign();
+    }
+
+    public BreinActivity setTag(final String key, final Object value) {
         this.tagsMap.put(key, value);
         return this;
     }
@@ -221,7 +281,7 @@ public class BreinActivity extends BreinBase<BreinActivity> implements ISecretSt
 
     @SuppressWarnings("unchecked")
     public <T> T get(final String key) {
-        return this.activityMap == null ? null : (T) this.activityMap.get(key);
+        return (T) this.activityMap.get(key);
     }
 
     protected <T> T getActivityField(final ActivityField field) {
@@ -2,13 +2,18 @@ package com.brein.api;
 
 import com.brein.domain.BreinConfig;
 import com.brein.domain.BreinUser;
+import com.brein.util.BreinCopyOnWriteMap;
+import com.brein.util.BreinJsonUtil;
 import com.brein.util.BreinUtil;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -31,12 +36,12 @@ public abstract class BreinBase<T extends BreinBase> implements ISecretStrategy
     /**
      * Contains user information for the request
      */
-    private BreinUser user;
+    private final AtomicReference<BreinUser> user = new AtomicReference<>();
 
     /**
      * The base data for the request
      */
-    private Map<String, Object> baseMap;
+    private BreinCopyOnWriteMap<String, Object> baseMap = new BreinCopyOnWriteMap<>();
 
     /**
      * Retrieves the current {@code BreinUser} for the request. This method never returns {@code null}, instead it
@@ -45,11 +50,13 @@ public abstract class BreinBase<T extends BreinBase> implements ISecretStrategy
      * @return the current {@code BreinUser} for the request
      */
     public BreinUser getUser() {
-        if (this.user == null) {
-            this.user = new BreinUser();
+        final BreinUser current = this.user.get();
+        if (current != null) {
+            return current;
         }
 
-        return this.user;
+        this.user.compareAndSet(null, new BreinUser());
+        return this.user.get();
     }
 
     /**
@@ -64,7 +71,7 @@ public abstract class BreinBase<T extends BreinBase> implements ISecretStrategy
      * @see BreinUser
      */
     public T setUser(final BreinUser user) {
-        this.user = user;
+        this.user.set(user);
         return getThis();
     }
 
@@ -187,11 +194,22 @@ public abstract class BreinBase<T extends BreinBase> implements ISecretStrategy
      * @return {@code this}
      */
     public T set(final String key, final Object value) {
+        return setBase(key, value);
+    }
+
+    /**
+     * Sets a base value, sub-classes may override {@link #set(String, Object)} to set their specific values, this
+     * method always sets the base value.
+     *
+     * @param key   the key of the base value
+     * @param value the value to be set for the specified key
+     *
+     * @return {@code this}
+     */
+    protected T setBase(final String key, final Object value) {
         if (BreinUser.USER_FIELD.equalsIgnoreCase(key)) {
             throw new BreinException("The field '" + BreinUser.USER_FIELD + "' cannot be set, " +
                     "use the setUser method to do so.");
-        } else if (this.baseMap == null) {
-            this.baseMap = new HashMap<>();
         }
 
         this.baseMap.put(key, value);
@@ -219,30 +237,25 @@ public abstract class BreinBase<T extends BreinBase> implements ISecretStrategy
         requestData.put(API_KEY_FIELD, config.getApiKey());
 
         // add the base values
-        if (this.baseMap != null) {
-            for (Map.Entry<String, Object> entry : this.baseMap.entrySet()) {
-                if (BreinUtil.containsValue(entry.getValue())) {
-                    requestData.put(entry.getKey(), entry.getValue());
-                }
+        for (Map.Entry<String, Object> entry : this.baseMap.snapshot().entrySet()) {
+            if (BreinUtil.containsValue(entry.getValue())) {
+                requestData.put(entry.getKey(), entry.getValue());
             }
         }
 
-        if (!requestData.containsValue(IP_ADDRESS)) {
+        if (!requestData.containsKey(IP_ADDRESS)) {
             final String ipDetected = BreinUtil.detectIpAddress();
             if (BreinUtil.containsValue(ipDetected)) {
                 requestData.put(IP_ADDRESS, ipDetected);
             }
         }
 
-        long timestamp = getUnixTimestamp();
-        if (timestamp == -1L) {
-            timestamp = System.currentTimeMillis() / 1000L;
-        }
-        requestData.put(UNIX_TIMESTAMP_FIELD, timestamp);
+        requestData.put(UNIX_TIMESTAMP_FIELD, resolveUnixTimestamp());
 
         // check if we have user data
-        if (this.user != null) {
-            this.user.prepareRequestData(config, requestData);
+        final BreinUser currentUser = this.user.get();
+        if (currentUser != null) {
+            currentUser.prepareRequestData(config, requestData);
         }
 
         // add the sub-type specific values
@@ -257,16 +270,86 @@ public abstract class BreinBase<T extends BreinBase> implements ISecretStrategy
         return getGson().toJson(requestData);
     }
 
+    /**
+     * Writes the body of the request to the {@code writer}. The default implementation writes the JSON created by
+     * {@link #prepareRequestData(BreinConfig)}, sub-classes may stream their data instead (see {@link
+     * #writeBaseData(BreinConfig, JsonWriter, long)}).
+     *
+     * @param config the configuration used to create the request body
+     * @param writer the writer to write the request body (JSON) to
+     *
+     * @throws IOException if the body cannot be written
+     */
+    public void writeRequestData(final BreinConfig config, final JsonWriter writer) throws IOException {
+        writer.jsonValue(prepareRequestData(config));
+    }
+
+    /**
+     * Writes the base values of the request, i.e., api-key, base values, ip-address, timestamp and user data. The
+     * method writes the same values as {@link #prepareRequestData(BreinConfig)} adds before the sub-type specific
+     * values, without creating the map.
+     *
+     * @param config    the configuration used to create the request body
+     * @param writer    the writer to write to, the enclosing object must have been started
+     * @param timestamp the unix timestamp of the request (see {@link #resolveUnixTimestamp()})
+     *
+     * @throws IOException if the values cannot be written
+     */
+    protected void writeBaseData(final BreinConfig config, final JsonWriter writer, final long timestamp)
+            throws IOException {
+        final Gson gson = getGson();
+        final Map<String, Object> base = this.baseMap.snapshot();
+
+        if (!BreinUtil.containsValue(base.get(API_KEY_FIELD))) {
+            writer.name(API_KEY_FIELD).value(config.getApiKey());
+        }
+        BreinJsonUtil.writeEntries(writer, gson, base, UNIX_TIMESTAMP_FIELD);
+
+        if (!BreinUtil.containsValue(base.get(IP_ADDRESS))) {
+            final String ipDetected = BreinUtil.detectIpAddress();
+            if (BreinUtil.containsValue(ipDetected)) {
+                writer.name(IP_ADDRESS).value(ipDetected);
+            }
+        }
+
+        writer.name(UNIX_TIMESTAMP_FIELD).value(timestamp);
+
+        // check if we have user data
+        final BreinUser currentUser = this.user.get();
+        if (currentUser != null) {
+            currentUser.writeRequestData(config, writer);
+        }
+    }
+
+    /**
+     * Retrieves the timestamp to be sent, i.e., the set {@code unixTimestamp} or now.
+     *
+     * @return the unix timestamp (in seconds) of the request
+     */
+    protected long resolveUnixTimestamp() {
+        final long timestamp = getUnixTimestamp();
+        return timestamp == -1L ? System.currentTimeMillis() / 1000L : timestamp;
+    }
+
+    /**
+     * Copies the base values and a snapshot of the user (see {@link BreinUser#snapshot()}) of the {@code source}.
+     * Used by sub-classes to create their snapshots, the values are shared and not copied.
+     *
+     * @param source the request to copy the base values from
+     */
+    protected void copyBase(final BreinBase<?> source) {
+        final BreinUser sourceUser = source.user.get();
+
+        this.baseMap = source.baseMap.copy();
+        this.user.set(sourceUser == null ? null : sourceUser.snapshot());
+    }
+
     @SuppressWarnings("unchecked")
     protected T getThis() {
         return (T) this;
     }
 
     protected <F> F getBaseField(final BaseField field) {
-        if (baseMap == null) {
-            return null;
-        }
-
         //noinspection unchecked
         return (F) baseMap.get(field.getName());
     }
@@ -296,7 +379,7 @@ public abstract class BreinBase<T extends BreinBase> implements ISecretStrategy
         }
 
         public void set(final BreinBase base, final Object value) {
-            base.set(getName(), value);
+            base.setBase(getName(), value);
         }
     }
 }
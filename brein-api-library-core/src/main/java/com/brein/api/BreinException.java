@@ -1,6 +1,6 @@
 package com.brein.api;
 
-import android.util.Log;
+import com.brein.util.BreinLogger;
 
 /**
  * BreinException
@@ -31,16 +31,22 @@ public class BreinException extends RuntimeException {
      */
     public BreinException(final Throwable e) {
         super(e);
-        Log.d(TAG, EXCEPTION_IS + e.getMessage());
+        if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+            BreinLogger.d(TAG, EXCEPTION_IS + e.getMessage());
+        }
     }
 
     public BreinException(final String msg) {
         super(msg);
-        Log.d(TAG, EXCEPTION_IS + msg);
+        if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+            BreinLogger.d(TAG, EXCEPTION_IS + msg);
+        }
     }
 
     public BreinException(final String msg, final Exception cause) {
         super(msg, cause);
-        Log.d(TAG, EXCEPTION_IS + msg + " with cause: " + cause.getMessage());
+        if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+            BreinLogger.d(TAG, EXCEPTION_IS + msg + " with cause: " + cause.getMessage());
+        }
     }
 }
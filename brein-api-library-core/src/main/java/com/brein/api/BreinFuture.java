@@ -0,0 +1,323 @@
+package com.brein.api;
+
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.util.BreinLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The pending result of a request (see e.g. {@link Brein#lookupAsync(BreinLookup)}). The future is done, as soon as
+ * the result is received, the request failed (see {@link #getError()}), timed out, or was cancelled. Cancelling the
+ * future (or a timeout) aborts the request, i.e., it is not sent (again) and the connection in flight is closed (if
+ * supported by the engine, see {@link IRequestCallback#setCancelAction(Runnable)}).
+ * <p>
+ * Callbacks can be added at any time (see {@link #then(ICallback)}), they are informed within the thread completing
+ * the future, or right away if the future is done already.
+ *
+ * @param <T> the type of the result
+ */
+public class BreinFuture<T extends BreinResult> implements Future<T>, IRequestCallback<T> {
+
+    private static final String TAG = "BreinFuture";
+
+    /**
+     * timer completing the futures which timed out, created with the first timeout
+     */
+    private static ScheduledThreadPoolExecutor timer = null;
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * callbacks informed when the future is done, guarded by {@code this}
+     */
+    private List<ICallback<T>> listeners = new ArrayList<>();
+
+    /**
+     * action aborting the request, guarded by {@code this}
+     */
+    private Runnable cancelAction = null;
+
+    /**
+     * the scheduled timeout, guarded by {@code this}
+     */
+    private ScheduledFuture<?> timeout = null;
+
+    /**
+     * {@code true} if the future was cancelled or timed out, i.e., the request is aborted, guarded by {@code this}
+     */
+    private boolean aborted = false;
+
+    private volatile boolean completed = false;
+    private volatile boolean cancelled = false;
+    private volatile T result = null;
+    private volatile BreinRequestException error = null;
+
+    /**
+     * Sets the timeout of the future, i.e., the future fails with {@link BreinRequestException.Reason#TIMEOUT} and the
+     * request is aborted, if no result is received within the specified time (from now on).
+     *
+     * @param timeout long the maximal time to wait for the result, {@code 0} or less to remove the timeout
+     * @param unit    TimeUnit the unit of the timeout
+     *
+     * @return BreinFuture the future itself
+     */
+    public BreinFuture<T> setTimeout(final long timeout, final TimeUnit unit) {
+        final ScheduledFuture<?> scheduled;
+        if (timeout > 0) {
+            final long timeoutInMs = unit.toMillis(timeout);
+            scheduled = getTimer().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    final String msg = "No result received within " + timeoutInMs + "ms";
+                    if (complete(null, new BreinRequestException(BreinRequestException.Reason.TIMEOUT, msg), true)) {
+                        if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                            BreinLogger.d(TAG, "Request aborted, no result received within " + timeoutInMs + "ms");
+                        }
+                    }
+                }
+            }, timeout, unit);
+        } else {
+            scheduled = null;
+        }
+
+        final ScheduledFuture<?> previous;
+        synchronized (this) {
+            if (this.completed) {
+                previous = scheduled;
+            } else {
+                previous = this.timeout;
+                this.timeout = scheduled;
+            }
+        }
+
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a callback informed when the future is done. The callback receives the result, or {@code null} if the
+     * request failed (an {@link IRequestCallback} is informed about the reason instead).
+     *
+     * @param listener ICallback the callback to inform, may be {@code null}
+     *
+     * @return BreinFuture the future itself
+     */
+    public BreinFuture<T> then(final ICallback<T> listener) {
+        if (listener == null) {
+            return this;
+        }
+
+        synchronized (this) {
+            if (!this.completed) {
+                this.listeners.add(listener);
+                return this;
+            }
+        }
+
+        inform(listener);
+        return this;
+    }
+
+    /**
+     * Cancels the request, i.e., it is not sent (again) and the connection in flight is closed (if supported by the
+     * engine). The request is aborted regardless of {@code mayInterruptIfRunning}, no thread is interrupted.
+     *
+     * @param mayInterruptIfRunning boolean ignored, the request is always aborted
+     *
+     * @return boolean {@code true} if the future was cancelled, {@code false} if it was done already
+     */
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return complete(null, new BreinRequestException(BreinRequestException.Reason.CANCELLED,
+                "The request was cancelled"), true);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return this.completed;
+    }
+
+    /**
+     * @return boolean {@code true} if the result was received, {@code false} if the future is pending or failed
+     */
+    public boolean isSucceeded() {
+        return this.completed && this.error == null;
+    }
+
+    /**
+     * @return BreinRequestException the reason of the failure, {@code null} if the future is pending or succeeded
+     */
+    public BreinRequestException getError() {
+        return this.error;
+    }
+
+    /**
+     * Waits for the result of the request.
+     *
+     * @return T the result of the request
+     *
+     * @throws InterruptedException  if the thread is interrupted while waiting
+     * @throws ExecutionException    if the request failed or timed out, the cause is the {@link BreinRequestException}
+     * @throws CancellationException if the request was cancelled
+     */
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        this.done.await();
+        return report();
+    }
+
+    /**
+     * Waits for the result of the request, at most the specified time. The request is not aborted, if the waiting
+     * time elapses (see {@link #setTimeout(long, TimeUnit)}).
+     *
+     * @param timeout long the maximal time to wait
+     * @param unit    TimeUnit the unit of the timeout
+     *
+     * @return T the result of the request
+     *
+     * @throws InterruptedException  if the thread is interrupted while waiting
+     * @throws ExecutionException    if the request failed or timed out, the cause is the {@link BreinRequestException}
+     * @throws CancellationException if the request was cancelled
+     * @throws TimeoutException      if the result was not received within the waiting time
+     */
+    @Override
+    public T get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!this.done.await(timeout, unit)) {
+            throw new TimeoutException("No result received within " + unit.toMillis(timeout) + "ms");
+        }
+        return report();
+    }
+
+    @Override
+    public void callback(final T data) {
+        if (data == null) {
+            complete(null, new BreinRequestException(BreinRequestException.Reason.UNKNOWN,
+                    BreinException.REQUEST_FAILED), false);
+        } else {
+            complete(data, null, false);
+        }
+    }
+
+    @Override
+    public void onError(final BreinRequestException error) {
+        complete(null, error, false);
+    }
+
+    @Override
+    public void setCancelAction(final Runnable action) {
+        synchronized (this) {
+            if (!this.aborted) {
+                this.cancelAction = this.completed ? null : action;
+                return;
+            }
+        }
+
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Completes the future, if it is not done so far.
+     *
+     * @param result T the result, {@code null} if the request failed
+     * @param error  BreinRequestException the reason of the failure, {@code null} if the result was received
+     * @param abort  boolean {@code true} if the request is aborted, i.e., the future is cancelled or timed out
+     *
+     * @return boolean {@code true} if the future was completed, {@code false} if it was done already
+     */
+    private boolean complete(final T result, final BreinRequestException error, final boolean abort) {
+        final List<ICallback<T>> currentListeners;
+        final Runnable currentCancelAction;
+        final ScheduledFuture<?> currentTimeout;
+        synchronized (this) {
+            if (this.completed) {
+                return false;
+            }
+
+            this.result = result;
+            this.error = error;
+            this.cancelled = abort && error.getReason() == BreinRequestException.Reason.CANCELLED;
+            this.aborted = abort;
+            this.completed = true;
+
+            currentListeners = this.listeners;
+            currentCancelAction = this.cancelAction;
+            currentTimeout = this.timeout;
+            this.listeners = null;
+            this.cancelAction = null;
+            this.timeout = null;
+        }
+        this.done.countDown();
+
+        if (currentTimeout != null) {
+            currentTimeout.cancel(false);
+        }
+        if (abort && currentCancelAction != null) {
+            currentCancelAction.run();
+        }
+        for (final ICallback<T> listener : currentListeners) {
+            inform(listener);
+        }
+
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void inform(final ICallback<T> listener) {
+        final BreinRequestException currentError = this.error;
+        if (currentError == null) {
+            listener.callback(this.result);
+        } else if (listener instanceof IRequestCallback) {
+            ((IRequestCallback<T>) listener).onError(currentError);
+        } else {
+            listener.callback(null);
+        }
+    }
+
+    private T report() throws ExecutionException {
+        final BreinRequestException currentError = this.error;
+        if (this.cancelled) {
+            throw new CancellationException(currentError.getMessage());
+        } else if (currentError != null) {
+            throw new ExecutionException(currentError.getMessage(), currentError);
+        } else {
+            return this.result;
+        }
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getTimer() {
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "breinify-timeout");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            timer.setKeepAliveTime(BreinConfig.DEFAULT_EXECUTOR_KEEP_ALIVE, TimeUnit.MILLISECONDS);
+            timer.allowCoreThreadTimeOut(true);
+        }
+        return timer;
+    }
+}
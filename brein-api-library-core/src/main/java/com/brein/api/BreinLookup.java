@@ -2,14 +2,11 @@ package com.brein.api;
 
 import com.brein.domain.BreinConfig;
 import com.brein.domain.BreinDimension;
-import com.brein.domain.BreinUser;
+import com.brein.util.BreinMapUtil;
 import com.brein.util.BreinUtil;
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -18,6 +15,9 @@ import java.util.Map;
 
 public class BreinLookup extends BreinBase<BreinActivity> implements ISecretStrategy, IAsyncExecutable {
 
+    private static final String LOOKUP_FIELD = "lookup";
+    private static final String DIMENSIONS_FIELD = "dimensions";
+
     // used for lookup request
     private BreinDimension breinDimension;
 
@@ -48,51 +48,18 @@ public class BreinLookup extends BreinBase<BreinActivity> implements ISecretStra
     }
 
     /**
-     * Used to create the request
+     * Used to create the request, adds the requested dimensions
      *
      * @param config      BreinConfig configuration object
      * @param requestData Map the request data to be sent to the endpoint
      */
-    public void prepareRequestData(final BreinConfig config, final Map<String, Object> requestData) {
-    }
-
-    /**
-     * prepares a JSON request for a lookup
-     *
-     * @param config  BreinConfig configuration object
-     * @return        String well formed json request
-     */
     @Override
-    public String prepareRequestData(final BreinConfig config) {
-
-        // call base class
-        super.prepareRequestData(config);
-
-        final JsonObject requestData = new JsonObject();
-        final BreinUser breinUser = getUser();
-        if (breinUser != null) {
-            JsonObject userData = new JsonObject();
-            userData.addProperty("email", breinUser.getEmail());
-            requestData.add("user", userData);
-        }
-
+    public void prepareRequestData(final BreinConfig config, final Map<String, Object> requestData) {
         if (BreinUtil.containsValue(getBreinDimension())) {
-            final JsonObject lookupData = new JsonObject();
-            final JsonArray dimensions = new JsonArray();
-            for (String field : getBreinDimension().getDimensionFields()) {
-                dimensions.add(field);
-            }
-            lookupData.add("dimensions", dimensions);
-            requestData.add("lookup", lookupData);
+            final Map<String, Object> lookupData = new HashMap<>();
+            lookupData.put(DIMENSIONS_FIELD, Arrays.asList(getBreinDimension().getDimensionFields()));
+            requestData.put(LOOKUP_FIELD, lookupData);
         }
-
-        final Gson gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .serializeNulls()
-                .setFieldNamingPolicy(FieldNamingPolicy.UPPER_CAMEL_CASE)
-                .create();
-
-        return gson.toJson(requestData);
     }
 
     /**
@@ -116,21 +83,21 @@ public class BreinLookup extends BreinBase<BreinActivity> implements ISecretStra
     @Override
     public String createSignature(final BreinConfig config, final Map<String, Object> requestData) {
 
-        final String[] dimensions = getBreinDimension().getDimensionFields();
+        final String[] dimensions = getBreinDimension() == null ? null : getBreinDimension().getDimensionFields();
+        final long unixTimestamp = BreinMapUtil.getNestedValue(requestData, UNIX_TIMESTAMP_FIELD);
 
         // we need the first one
-        final String message = String.format("%s%d%d",
-                dimensions == null ? 0 : dimensions[0],
-                getUnixTimestamp(),
-                dimensions == null ? 0 : dimensions.length);
-
-        return BreinUtil.generateSignature(message, config.getSecret());
+        return config.getSigner().message()
+                .append(dimensions == null || dimensions.length == 0 ? "0" : dimensions[0])
+                .append(unixTimestamp)
+                .append(dimensions == null ? 0 : dimensions.length)
+                .sign();
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void execute(ICallback callback) {
-        Breinify.lookUp(this, callback);
+        BreinifyCore.lookUp(this, callback);
     }
 
 }
@@ -101,8 +101,9 @@ public class BreinRecommendation extends BreinBase<BreinRecommendation> implemen
     public String createSignature(final BreinConfig config, final Map<String, Object> requestData) {
         final long unixTimestamp = BreinMapUtil.getNestedValue(requestData, UNIX_TIMESTAMP_FIELD);
 
-        final String message = String.format("%d", unixTimestamp);
-        return BreinUtil.generateSignature(message, config.getSecret());
+        return config.getSigner().message()
+                .append(unixTimestamp)
+                .sign();
     }
 
     /**
@@ -111,7 +112,7 @@ public class BreinRecommendation extends BreinBase<BreinRecommendation> implemen
      */
     @Override
     public void execute(ICallback<BreinResult> callback) {
-        Breinify.recommendation(this, callback);
+        BreinifyCore.recommendation(this, callback);
 
     }
 }
@@ -0,0 +1,96 @@
+package com.brein.api;
+
+/**
+ * The reason of a failed request, passed to a {@link BreinFuture} (or any {@link IRequestCallback}) instead of a
+ * {@code null} result.
+ */
+public class BreinRequestException extends BreinException {
+
+    /**
+     * The reasons of a failed request
+     */
+    public enum Reason {
+
+        /**
+         * the backend answered with a status code indicating an error, see {@link #getStatusCode()}
+         */
+        HTTP_STATUS,
+
+        /**
+         * the backend answered, but the response could not be read or parsed
+         */
+        INVALID_RESPONSE,
+
+        /**
+         * no response was received, e.g., the connection failed or timed out (after all attempts)
+         */
+        CONNECTION,
+
+        /**
+         * the request was not sent, e.g., the circuit of the endpoint is open or the worker pool is saturated
+         */
+        REJECTED,
+
+        /**
+         * no result was received within the timeout of the future
+         */
+        TIMEOUT,
+
+        /**
+         * the request was cancelled
+         */
+        CANCELLED,
+
+        /**
+         * the request failed without a more specific reason, e.g., a callback was informed with {@code null}
+         */
+        UNKNOWN
+    }
+
+    private final Reason reason;
+    private final int statusCode;
+
+    /**
+     * @param reason Reason the reason of the failure
+     * @param msg    String the message describing the failure
+     */
+    public BreinRequestException(final Reason reason, final String msg) {
+        this(reason, -1, msg);
+    }
+
+    /**
+     * @param reason     Reason the reason of the failure
+     * @param statusCode int the status code of the response, {@code -1} if no response was received
+     * @param msg        String the message describing the failure
+     */
+    public BreinRequestException(final Reason reason, final int statusCode, final String msg) {
+        super(msg);
+        this.reason = reason;
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * @param reason Reason the reason of the failure
+     * @param msg    String the message describing the failure
+     * @param cause  Exception the cause of the failure
+     */
+    public BreinRequestException(final Reason reason, final String msg, final Exception cause) {
+        super(msg, cause);
+        this.reason = reason;
+        this.statusCode = -1;
+    }
+
+    /**
+     * @return Reason the reason of the failure
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return int the status code of the (last) response, {@code -1} if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -3,7 +3,6 @@ package com.brein.api;
 import com.brein.domain.BreinConfig;
 import com.brein.domain.BreinUser;
 import com.brein.util.BreinMapUtil;
-import com.brein.util.BreinUtil;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -37,9 +36,9 @@ public class BreinTemporalData extends BreinBase<BreinTemporalData> implements I
     private static final String SHAPE_TYPES_FIELD = "shapeTypes";
     private static final String TEXT_FIELD = "text";
 
-    private static final String CITY_TEXT_FIELD = "text";
-    private static final String STATE_TEXT_FIELD = "text";
-    private static final String COUNTRY_TEXT_FIELD = "text";
+    private static final String CITY_TEXT_FIELD = "city";
+    private static final String STATE_TEXT_FIELD = "state";
+    private static final String COUNTRY_TEXT_FIELD = "country";
 
     /**
      * retrieves the configured temporalData endpoint (e.g. \temporalData)
@@ -121,6 +120,16 @@ public class BreinTemporalData extends BreinBase<BreinTemporalData> implements I
         return this;
     }
 
+    /**
+     * Gets the ipAddress used to look-up the temporal information.
+     *
+     * @return String the ipAddress, {@code null} if not set
+     */
+    public String getLookUpIpAddress() {
+        final Object ipAddress = getUser().getAdditional(IP_ADDRESS_FIELD);
+        return ipAddress == null ? null : ipAddress.toString();
+    }
+
     /**
      * Sets the longitude used to look-up the temporal information, i.e.:
      * <p>
@@ -169,6 +178,26 @@ public class BreinTemporalData extends BreinBase<BreinTemporalData> implements I
         return this;
     }
 
+    /**
+     * Gets the latitude used to look-up the temporal information.
+     *
+     * @return Double the latitude, {@code null} if not set
+     */
+    public Double getLatitude() {
+        final Object latitude = getLocation(LATITUDE_FIELD);
+        return latitude instanceof Number ? ((Number) latitude).doubleValue() : null;
+    }
+
+    /**
+     * Gets the longitude used to look-up the temporal information.
+     *
+     * @return Double the longitude, {@code null} if not set
+     */
+    public Double getLongitude() {
+        final Object longitude = getLocation(LONGITUDE_FIELD);
+        return longitude instanceof Number ? ((Number) longitude).doubleValue() : null;
+    }
+
     /**
      * Sets the shape-types to be returned with the response of the request, i.e.:
      * <p>
@@ -383,15 +412,19 @@ public class BreinTemporalData extends BreinBase<BreinTemporalData> implements I
         final String paraTimezone = timeZone == null ? "" : timeZone;
 
         final long unixTimestamp = BreinMapUtil.getNestedValue(requestData, UNIX_TIMESTAMP_FIELD);
-        final String message = String.format("%d-%s-%s", unixTimestamp, paraLocalDateTime, paraTimezone);
-
-        return BreinUtil.generateSignature(message, config.getSecret());
+        return config.getSigner().message()
+                .append(unixTimestamp)
+                .append('-')
+                .append(paraLocalDateTime)
+                .append('-')
+                .append(paraTimezone)
+                .sign();
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void execute(ICallback callback) {
-        Breinify.temporalData(this, callback);
+        BreinifyCore.temporalData(this, callback);
     }
 
 }
@@ -0,0 +1,390 @@
+package com.brein.api;
+
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.domain.BreinUser;
+
+/**
+ * Static Implementation of Breinify activity  lookup calls, which does not depend on a platform. The Android module
+ * extends it by the initialization through the application (see {@code Breinify}).
+ */
+public class BreinifyCore {
+
+    private static BreinConfig lastConfig = null;
+    private static Brein lastBrein = null;
+
+    private static final BreinUser breinUser = new BreinUser();
+
+    /**
+     * contains the current version of the usage library
+     */
+    private static final String VERSION = BreinConfig.VERSION;
+
+    /**
+     * contains the activity object
+     */
+    private static final BreinActivity breinActivity = new BreinActivity();
+
+    /**
+     * contains the lookup object
+     */
+    private static final BreinLookup breinLookup = new BreinLookup();
+
+    /**
+     * contains the temporalData object
+     */
+    // private static final BreinTemporalData breinTemporalData = new BreinTemporalData();
+
+    /**
+     * Specifies the overall configuration used by the library. The configuration must be set prior to any call to the
+     * API.
+     *
+     * @param config the configuration to use
+     * @return the {@code Brein} instance, usable if multiple different configurations are used
+     * @see Brein
+     * @see BreinConfig
+     */
+    public static Brein setConfig(final BreinConfig config) {
+        lastConfig = config;
+        return new Brein().setConfig(config);
+    }
+
+    /**
+     * Specifies the overall configuration used by the library. The configuration must be set prior to any call to the
+     * API.
+     *
+     * @param apiKey the API key to be used
+     * @return the {@code Brein} instance, usable if multiple different configurations are used
+     * @see Brein
+     */
+    public static Brein setConfig(final String apiKey) {
+        return setConfig(apiKey, null);
+    }
+
+    /**
+     * Specifies the overall configuration used by the library. The configuration must be set prior to any call to the
+     * API.
+     *
+     * @param apiKey the API key to be used
+     * @param secret the secret to be used to sign the messages (Verification Signature must be enabled for the API
+     *               key)
+     * @return the {@code Brein} instance, usable if multiple different configurations are used
+     * @see Brein
+     */
+    public static Brein setConfig(final String apiKey, final String secret) {
+        return setConfig(new BreinConfig(apiKey, secret));
+    }
+
+    /**
+     * gets the config
+     *
+     * @return BreinConfig config
+     */
+    public static BreinConfig getConfig() {
+        return lastConfig;
+    }
+
+    /**
+     * returns the  version
+     *
+     * @return String version
+     */
+    public String getVersion() {
+        return VERSION;
+    }
+
+    /**
+     * Retrieves the shared activity, its values are used by {@link #activity(String)}. Each call sends a snapshot of
+     * the activity (see {@link BreinActivity#snapshot()}), so the shared activity can be modified concurrently.
+     *
+     * @return BreinActivity instance
+     */
+    public static BreinActivity getBreinActivity() {
+        return breinActivity;
+    }
+
+    /**
+     * @return BreinLookup instance
+     */
+    public static BreinLookup getBreinLookup() {
+        return breinLookup;
+    }
+
+    /**
+     * Retrieves the shared user, the requests of the facade send a snapshot of the user (see {@link
+     * BreinUser#snapshot()}), so the shared user can be modified concurrently.
+     *
+     * @return BreinUser instance
+     */
+    public static BreinUser getUser() {
+        return breinUser;
+    }
+
+    /**
+     * Returns the session id
+     *
+     * @return String containing the session id
+     */
+    public static String getSessionId() {
+        return getUser().getSessionId();
+    }
+
+    /**
+     * Sends an activity to the engine utilizing the API. The call is done asynchronously as a POST request. It is
+     * important that a valid API-key is configured prior to using this function.
+     * <p>
+     * This request is asynchronous.
+     *
+     * @param user         BreinUser a plain object specifying the user information the activity belongs to
+     * @param activityType String the type of the activity collected, i.e., one of search, login, logout, addToCart,
+     *                     removeFromCart, checkOut, selectProduct, or other. if not specified, the default other will
+     *                     be used
+     * @param category     String the category of the platform/service/products, i.e., one of apparel, home, education, family,
+     *                     food, health, job, services, or other
+     * @param description  String a string with further information about the activity performed
+     * @param callback     ICallback function
+     */
+    public static void activity(final BreinUser user,
+                                final String activityType,
+                                final String category,
+                                final String description,
+                                final ICallback<BreinResult> callback) {
+
+        if (user == null) {
+            throw new BreinException(BreinException.USER_NOT_SET);
+        }
+
+        final BreinActivity activity = new BreinActivity()
+                .setUser(user.snapshot())
+                .setActivityType(activityType)
+                .setCategory(category)
+                .setDescription(description);
+
+        activity(activity, callback);
+    }
+
+    /**
+     * Sends an activity to the engine utilizing the API. The call is done asynchronously as a POST request. It is
+     * important that a valid API-key is configured prior to using this function.
+     * <p>
+     * This request is asynchronous.
+     *
+     * @param user         BreinUser a plain object specifying the user information the activity belongs to
+     * @param activityType String the type of the activity collected, i.e., one of search, login, logout, addToCart,
+     *                     removeFromCart, checkOut, selectProduct, or other. if not specified, the default other will
+     *                     be used
+     * @param category     String the category of the platform/service/products, i.e., one of apparel, home, education, family,
+     *                     food, health, job, services, or other
+     * @param description  String a string with further information about the activity performed
+     */
+    public static void activity(final BreinUser user,
+                                final String activityType,
+                                final String category,
+                                final String description) {
+
+        // invoke activity call without callback
+        activity(user, activityType, category, description, null);
+    }
+
+    /**
+     * Method to send an activity asynchronous. The activity is a snapshot of the shared activity and user (see {@link
+     * #getBreinActivity()} and {@link #getUser()}), taken when the method is called.
+     *
+     * @param activityType String the activity type to be sent
+     * @see BreinActivity
+     */
+    public static void activity(final String activityType) {
+        final BreinActivity activity = breinActivity.snapshot()
+                .setUser(breinUser.snapshot())
+                .setActivityType(activityType);
+
+        activity(activity, null);
+    }
+
+    /**
+     * Method to send an activity asynchronous.
+     *
+     * @param activity BreinActivity the {@code BreinActivity} to be sent
+     * @see BreinActivity
+     */
+    public static void activity(final BreinActivity activity) {
+        activity(activity, null);
+    }
+
+    /**
+     * Method to send an activity asynchronous.
+     *
+     * @param activity BreinActivity the {@code BreinActivity} to be sent
+     * @param callback ICallback callback to get informed whenever the activity was sent, the callback retrieves the {@code
+     *                 BreinResult}
+     * @see BreinActivity
+     * @see BreinResult
+     */
+    public static void activity(final BreinActivity activity, final ICallback<BreinResult> callback) {
+        getBrein().activity(activity, callback);
+    }
+
+    /**
+     * Method to send an activity asynchronous, the returned future is done as soon as the activity is sent.
+     *
+     * @param activity BreinActivity the {@code BreinActivity} to be sent
+     *
+     * @return BreinFuture the pending result, e.g., to wait for it or to cancel the request
+     * @see BreinFuture
+     */
+    public static BreinFuture<BreinResult> activityAsync(final BreinActivity activity) {
+        return getBrein().activityAsync(activity);
+    }
+
+    /**
+     * Method to retrieve temporal information based on temporal data. This method uses the available information from
+     * the system it is running on to be passed to the API, which resolves the temporal information. Normally (if not
+     * using a VPN) the ip-address is a good source to determine, e.g., the location.
+     *
+     * @param callback ICallback to be invoked
+     */
+    public static void temporalData(final ICallback<BreinResult> callback) {
+
+        final BreinTemporalData data = new BreinTemporalData().setLocalDateTime();
+        temporalData(data, callback);
+    }
+
+    /**
+     * Method to retrieve temporal information based on temporal data. This method uses the {@code latitude} and {@code
+     * longitude} to determine further information, i.e., weather, location, events, time, timezone, and holidays.
+     *
+     * @param latitude   double the latitude of the geo-coordinates to resolve
+     * @param longitude  double the longitude of the geo-coordinates to resolve
+     * @param callback   ICallback to be invoked
+     * @param shapeTypes String the shape-types to retrieve (if empty, no shape-types will be returned), e.g., CITY,
+     *                   NEIGHBORHOOD, ZIP-CODES
+     */
+    public static void temporalData(final double latitude,
+                                    final double longitude,
+                                    final ICallback<BreinResult> callback,
+                                    final String... shapeTypes) {
+        final BreinTemporalData data = new BreinTemporalData()
+                .setLongitude(longitude)
+                .setLatitude(latitude)
+                .addShapeTypes(shapeTypes);
+
+        getBrein().temporalData(data, callback);
+    }
+
+    /**
+     * Method to retrieve temporal information based on temporal data. This method uses the {@code ipAddress} to
+     * determine further information, i.e., weather, location, events, time, timezone, and holidays.
+     *
+     * @param ipAddress  String the address to resolve the information for
+     * @param callback   ICallback to be invoked
+     */
+    public static void temporalData(final String ipAddress, final ICallback<BreinResult> callback) {
+        final BreinTemporalData data = new BreinTemporalData().setLookUpIpAddress(ipAddress);
+
+        getBrein().temporalData(data, callback);
+    }
+
+    /**
+     * Method to retrieve temporal information based on temporal data. This method uses the available information from
+     * the system it is running on to be passed to the API, which resolves the temporal information. Normally (if not
+     * using a VPN) the ip-address is a good source to determine, e.g., the location.
+     *
+     * @param data      BreinTemporalData contains the object
+     * @param callback  ICallback to be invoked
+     */
+    public static void temporalData(final BreinTemporalData data, final ICallback<BreinResult> callback) {
+        getBrein().temporalData(data, callback);
+    }
+
+    /**
+     * Method to retrieve temporal information based on temporal data, the returned future is done as soon as the
+     * result is received.
+     *
+     * @param data BreinTemporalData contains the object
+     *
+     * @return BreinFuture the pending result, e.g., to wait for it or to cancel the request
+     * @see BreinFuture
+     */
+    public static BreinFuture<BreinResult> temporalDataAsync(final BreinTemporalData data) {
+        return getBrein().temporalDataAsync(data);
+    }
+
+    /**
+     * Invokes recommendation request
+     *
+     * @param data     BreinRecommendation instance
+     * @param callback ICallback constains callback handler
+     */
+    public static void recommendation(final BreinRecommendation data, final ICallback<BreinResult> callback) {
+        getBrein().recommendation(data, callback);
+    }
+
+    /**
+     * Invokes recommendation request, the returned future is done as soon as the result is received.
+     *
+     * @param data BreinRecommendation instance
+     *
+     * @return BreinFuture the pending result, e.g., to wait for it or to cancel the request
+     * @see BreinFuture
+     */
+    public static BreinFuture<BreinResult> recommendationAsync(final BreinRecommendation data) {
+        return getBrein().recommendationAsync(data);
+    }
+
+    /**
+     * Retrieves a lookup result from the engine. The function needs a valid API-key to be configured to succeed.
+     * <p>
+     * This request is synchronous.
+     *
+     * @param data     BreinLookup a plain object specifying information about the brein lookup data.
+     * @param callback ICallback a method invoked with the result set.
+     */
+    public static void lookUp(final BreinLookup data, final ICallback<BreinResult> callback) {
+        getBrein().lookup(data, callback);
+    }
+
+    /**
+     * Retrieves a lookup result from the engine, the returned future is done as soon as the result is received.
+     *
+     * @param data BreinLookup a plain object specifying information about the brein lookup data.
+     *
+     * @return BreinFuture the pending result, e.g., to wait for it or to cancel the request
+     * @see BreinFuture
+     */
+    public static BreinFuture<BreinResult> lookUpAsync(final BreinLookup data) {
+        return getBrein().lookupAsync(data);
+    }
+
+    /**
+     * Sends the activities collected so far, if batching is enabled (see {@link BreinConfig#setActivityBatchingEnabled(boolean)}).
+     * The batch is sent asynchronously.
+     */
+    public static void flush() {
+        getBrein().getEngine().flush();
+    }
+
+    /**
+     * Returns the last brein object
+     *
+     * @return Brein
+     */
+    protected static Brein getBrein() {
+        if (lastBrein == null) {
+            lastBrein = new Brein().setConfig(lastConfig);
+        }
+        return lastBrein;
+    }
+
+    /**
+     * Shutdown Breinify services
+     */
+    public static void shutdown() {
+        if (getConfig() != null) {
+            getConfig().shutdownEngine();
+        }
+        if (lastBrein != null) {
+            lastBrein.shutdown();
+            lastBrein = null;
+        }
+    }
+}
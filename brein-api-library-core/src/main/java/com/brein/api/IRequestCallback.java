@@ -0,0 +1,36 @@
+package com.brein.api;
+
+import com.brein.domain.BreinResult;
+
+/**
+ * A callback which is informed about the reason of a failed request (instead of receiving {@code null}) and which can
+ * abandon the request, e.g., the {@link BreinFuture}. Plain {@link ICallback} instances are still informed with
+ * {@code null}, if a request fails.
+ *
+ * @param <T> the type of the result
+ */
+public interface IRequestCallback<T extends BreinResult> extends ICallback<T> {
+
+    /**
+     * Called instead of {@link #callback(BreinResult)}, if the request failed.
+     *
+     * @param error BreinRequestException the reason of the failure
+     */
+    void onError(final BreinRequestException error);
+
+    /**
+     * Checks if the callback still waits for the result. A request of a callback which is done (e.g., cancelled or
+     * timed out) is not sent (again).
+     *
+     * @return boolean {@code true} if the result is not needed anymore, otherwise {@code false}
+     */
+    boolean isDone();
+
+    /**
+     * Sets the action aborting the request, e.g., disconnecting the connection in flight. The action is run when the
+     * callback is done before the result is received (right away, if it is done already).
+     *
+     * @param action Runnable the action aborting the request, {@code null} to remove it
+     */
+    void setCancelAction(final Runnable action);
+}
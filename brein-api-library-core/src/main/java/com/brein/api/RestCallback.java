@@ -1,8 +1,7 @@
 package com.brein.api;
 
-import android.util.Log;
-
 import com.brein.domain.BreinResult;
+import com.brein.util.BreinLogger;
 
 public class RestCallback implements ICallback {
 
@@ -10,8 +9,8 @@ public class RestCallback implements ICallback {
 
     @Override
     public void callback(final BreinResult data) {
-        if (data != null) {
-            Log.d(TAG, "callback data is:" + data.toString());
+        if (data != null && BreinLogger.isLoggable(BreinLogger.Level.VERBOSE)) {
+            BreinLogger.v(TAG, "callback data is:" + data.toString());
         }
     }
 }
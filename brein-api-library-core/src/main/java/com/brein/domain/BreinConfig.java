@@ -0,0 +1,2031 @@
+package com.brein.domain;
+
+import com.brein.api.BreinInvalidConfigurationException;
+import com.brein.engine.BreinCircuitBreaker;
+import com.brein.engine.BreinEngine;
+import com.brein.engine.BreinEngineType;
+import com.brein.engine.BreinEventListener;
+import com.brein.engine.BreinRetryPolicy;
+import com.brein.engine.IBreinMetricsListener;
+import com.brein.util.BreinLogger;
+import com.brein.util.BreinSigner;
+import com.brein.util.BreinUtil;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contains Breinify Endpoint configuration
+ */
+public class BreinConfig {
+
+    /**
+     * contains the current version of the usage library
+     */
+    public static final String VERSION = "1.0.2";
+
+    /**
+     * default endpoint of activity
+     */
+    private static final String DEFAULT_ACTIVITY_ENDPOINT = "/activity";
+
+    /**
+     * default endpoint for temporalData
+     */
+    private static final String DEFAULT_TEMPORALDATA_ENDPOINT = "/temporaldata";
+
+    /**
+     * default endpoint for recommendation
+     */
+    private static final String DEFAULT_RECOMMENDATION_ENDPOINT = "/recommendation";
+
+    /**
+     * default endpoint of lookup
+     */
+    private static final String DEFAULT_LOOKUP_ENDPOINT = "/lookup";
+
+    /**
+     * default endpoint used to send batched activities
+     */
+    private static final String DEFAULT_BULK_ACTIVITY_ENDPOINT = "/activities";
+
+    /**
+     * default connection timeout in ms
+     */
+    private static final long DEFAULT_CONNECTION_TIMEOUT = 10000;
+
+    /**
+     * default socket timeout in ms
+     */
+    private static final long DEFAULT_SOCKET_TIMEOUT = 10000;
+
+    /**
+     * default number of worker threads kept while requests are processed
+     */
+    private static final int DEFAULT_EXECUTOR_CORE_POOL_SIZE = 2;
+
+    /**
+     * default maximal number of worker threads
+     */
+    private static final int DEFAULT_EXECUTOR_MAX_POOL_SIZE = 4;
+
+    /**
+     * default number of requests waiting for a worker thread
+     */
+    private static final int DEFAULT_EXECUTOR_QUEUE_CAPACITY = 256;
+
+    /**
+     * default priority of the worker threads
+     */
+    private static final int DEFAULT_EXECUTOR_THREAD_PRIORITY = Thread.NORM_PRIORITY - 1;
+
+    /**
+     * default name prefix of the worker threads
+     */
+    private static final String DEFAULT_EXECUTOR_THREAD_NAME_PREFIX = "breinify-worker-";
+
+    /**
+     * default time in ms to wait for queued requests when the engine is terminated
+     */
+    private static final long DEFAULT_EXECUTOR_TERMINATION_TIMEOUT = 2000;
+
+    /**
+     * default maximal size in bytes of the offline queue
+     */
+    private static final long DEFAULT_OFFLINE_QUEUE_MAX_BYTES = 1024 * 1024;
+
+    /**
+     * default maximal age in ms of an activity within the offline queue (3 days)
+     */
+    private static final long DEFAULT_OFFLINE_QUEUE_MAX_AGE = 3L * 24L * 60L * 60L * 1000L;
+
+    /**
+     * default size in bytes of a segment file of the offline queue
+     */
+    private static final long DEFAULT_OFFLINE_QUEUE_SEGMENT_SIZE = 64 * 1024;
+
+    /**
+     * default maximal number of activities within a batch
+     */
+    private static final int DEFAULT_ACTIVITY_BATCH_SIZE = 50;
+
+    /**
+     * default maximal size in bytes of a batch
+     */
+    private static final int DEFAULT_ACTIVITY_BATCH_MAX_BYTES = 64 * 1024;
+
+    /**
+     * default maximal time in ms an activity waits within a batch
+     */
+    private static final long DEFAULT_ACTIVITY_BATCH_INTERVAL = 30000;
+
+    /**
+     * default maximal size in bytes of a response, larger responses are dropped
+     */
+    private static final int DEFAULT_MAX_RESPONSE_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * default time in ms the detected location of the device is used
+     */
+    private static final long DEFAULT_DEVICE_LOCATION_TTL = 5L * 60L * 1000L;
+
+    /**
+     * default time in ms the detected network information of the device is used
+     */
+    private static final long DEFAULT_DEVICE_NETWORK_TTL = 5L * 60L * 1000L;
+
+    /**
+     * default time in ms the resolved external ip-address is used
+     */
+    private static final long DEFAULT_IP_INFO_TTL = 60L * 60L * 1000L;
+
+    /**
+     * default time in ms the created user agent is used
+     */
+    private static final long DEFAULT_USER_AGENT_TTL = 24L * 60L * 60L * 1000L;
+
+    /**
+     * default rate of failed requests (0.0 to 1.0) which opens the circuit of an endpoint
+     */
+    private static final double DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = 0.5;
+
+    /**
+     * default number of requests the failure rate of an endpoint is determined for
+     */
+    private static final int DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE = 20;
+
+    /**
+     * default minimal number of requests before the circuit of an endpoint is opened
+     */
+    private static final int DEFAULT_CIRCUIT_BREAKER_MINIMUM_REQUESTS = 10;
+
+    /**
+     * default time in ms the circuit of an endpoint is kept open
+     */
+    private static final long DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = 30000;
+
+    /**
+     * default smallest limit of requests in flight
+     */
+    private static final int DEFAULT_CONCURRENCY_LIMIT_MIN = 1;
+
+    /**
+     * default largest limit of requests in flight
+     */
+    private static final int DEFAULT_CONCURRENCY_LIMIT_MAX = 8;
+
+    /**
+     * default factor the round trip time may exceed the minimal one, before requests are considered queued
+     */
+    private static final double DEFAULT_CONCURRENCY_LIMIT_RTT_TOLERANCE = 2.0;
+
+    /**
+     * default maximal number of connections opened by the non-blocking engine
+     */
+    private static final int DEFAULT_NIO_MAX_CONNECTIONS = 64;
+
+    /**
+     * default minimal size in bytes of a request body to be compressed
+     */
+    private static final int DEFAULT_REQUEST_COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * default maximal number of cached temporalData results
+     */
+    private static final int DEFAULT_TEMPORAL_DATA_CACHE_SIZE = 32;
+
+    /**
+     * default time in ms a temporalData result is cached
+     */
+    private static final long DEFAULT_TEMPORAL_DATA_CACHE_TTL = 5L * 60L * 1000L;
+
+    /**
+     * default precision of the geohash used to cache temporalData results, i.e., a cell of about 1.2km x 0.6km
+     */
+    private static final int DEFAULT_TEMPORAL_DATA_CACHE_GEOHASH_PRECISION = 6;
+
+    /**
+     * default maximal age in ms of a cached weather measurement
+     */
+    private static final long DEFAULT_TEMPORAL_DATA_CACHE_MAX_WEATHER_AGE = 60L * 60L * 1000L;
+
+    /**
+     * default maximal number of cached recommendation results
+     */
+    private static final int DEFAULT_RECOMMENDATION_CACHE_SIZE = 16;
+
+    /**
+     * default time in ms a cached recommendation result is served without being refreshed
+     */
+    private static final long DEFAULT_RECOMMENDATION_CACHE_REFRESH_INTERVAL = 60L * 1000L;
+
+    /**
+     * default maximal age in ms of a served recommendation result
+     */
+    private static final long DEFAULT_RECOMMENDATION_CACHE_MAX_AGE = 7L * 24L * 60L * 60L * 1000L;
+
+    /**
+     * time in ms an idle worker thread is kept alive
+     */
+    public static final long DEFAULT_EXECUTOR_KEEP_ALIVE = 30000;
+
+    /**
+     * default breinify base url
+     */
+    private static final String DEFAULT_BASE_URL = "https://api.breinify.com";
+
+    /**
+     * BASE URL
+     */
+    private String baseUrl = DEFAULT_BASE_URL;
+
+    /**
+     * contains the api-key
+     */
+    private String apiKey;
+
+    /**
+     * Default REST client
+     */
+    private BreinEngineType restEngineType = BreinEngineType.HTTP_URL_CONNECTION_ENGINE;
+
+    /**
+     * REST clients used for specific endpoints
+     */
+    private final Map<String, BreinEngineType> endpointRestEngineTypes = new ConcurrentHashMap<>();
+
+    /**
+     * contains the activity endpoint (default = ACTIVITY_ENDPOINT)
+     */
+    private String activityEndpoint = DEFAULT_ACTIVITY_ENDPOINT;
+
+    /**
+     * contains the lookup endpoint (default = LOOKUP_ENDPOINT)
+     */
+    private String lookupEndpoint = DEFAULT_LOOKUP_ENDPOINT;
+
+    /**
+     * contains the temporalData endpoint (default = DEFAULT_TEMPORALDATA_ENDPOINT)
+     */
+    private String temporalDataEndpoint = DEFAULT_TEMPORALDATA_ENDPOINT;
+
+    /**
+     * contains the recommendation endpoint (default = DEFAULT_RECOMMENDATION_ENDPOINT)
+     */
+    private String recommendationEndpoint = DEFAULT_RECOMMENDATION_ENDPOINT;
+
+    /**
+     * contains the endpoint used to send batched activities (default = DEFAULT_BULK_ACTIVITY_ENDPOINT)
+     */
+    private String bulkActivityEndpoint = DEFAULT_BULK_ACTIVITY_ENDPOINT;
+
+    /**
+     * connection timeout
+     */
+    private long connectionTimeout = DEFAULT_CONNECTION_TIMEOUT;
+
+    /**
+     * Engine with default value
+     */
+    private BreinEngine breinEngine;
+
+    /**
+     * socket timeout
+     */
+    private long socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+
+    /**
+     * number of worker threads kept while requests are processed
+     */
+    private int executorCorePoolSize = DEFAULT_EXECUTOR_CORE_POOL_SIZE;
+
+    /**
+     * maximal number of worker threads
+     */
+    private int executorMaxPoolSize = DEFAULT_EXECUTOR_MAX_POOL_SIZE;
+
+    /**
+     * maximal number of requests waiting for a worker thread
+     */
+    private int executorQueueCapacity = DEFAULT_EXECUTOR_QUEUE_CAPACITY;
+
+    /**
+     * priority of the worker threads
+     */
+    private int executorThreadPriority = DEFAULT_EXECUTOR_THREAD_PRIORITY;
+
+    /**
+     * name prefix of the worker threads
+     */
+    private String executorThreadNamePrefix = DEFAULT_EXECUTOR_THREAD_NAME_PREFIX;
+
+    /**
+     * time in ms to wait for queued requests when the engine is terminated
+     */
+    private long executorTerminationTimeout = DEFAULT_EXECUTOR_TERMINATION_TIMEOUT;
+
+    /**
+     * directory of the offline queue, the queue is disabled if not set
+     */
+    private File offlineQueueDirectory = null;
+
+    /**
+     * maximal size in bytes of the offline queue
+     */
+    private long offlineQueueMaxBytes = DEFAULT_OFFLINE_QUEUE_MAX_BYTES;
+
+    /**
+     * maximal age in ms of an activity within the offline queue
+     */
+    private long offlineQueueMaxAge = DEFAULT_OFFLINE_QUEUE_MAX_AGE;
+
+    /**
+     * size in bytes of a segment file of the offline queue
+     */
+    private long offlineQueueSegmentSize = DEFAULT_OFFLINE_QUEUE_SEGMENT_SIZE;
+
+    /**
+     * flag if activities are collected and sent in batches
+     */
+    private boolean activityBatchingEnabled = false;
+
+    /**
+     * maximal number of activities within a batch
+     */
+    private int activityBatchSize = DEFAULT_ACTIVITY_BATCH_SIZE;
+
+    /**
+     * maximal size in bytes of a batch
+     */
+    private int activityBatchMaxBytes = DEFAULT_ACTIVITY_BATCH_MAX_BYTES;
+
+    /**
+     * maximal time in ms an activity waits within a batch
+     */
+    private long activityBatchInterval = DEFAULT_ACTIVITY_BATCH_INTERVAL;
+
+    /**
+     * maximal size in bytes of a response
+     */
+    private int maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
+
+    /**
+     * time in ms the detected location of the device is used
+     */
+    private long deviceLocationTtl = DEFAULT_DEVICE_LOCATION_TTL;
+
+    /**
+     * time in ms the detected network information of the device is used
+     */
+    private long deviceNetworkTtl = DEFAULT_DEVICE_NETWORK_TTL;
+
+    /**
+     * time in ms the resolved external ip-address is used
+     */
+    private long ipInfoTtl = DEFAULT_IP_INFO_TTL;
+
+    /**
+     * file the resolved external ip-address is persisted in, {@code null} if kept in memory only
+     */
+    private File ipInfoFile = null;
+
+    /**
+     * provider resolving the external ip-address, {@code null} to use ip-api.com
+     */
+    private IIpInfoProvider ipInfoProvider = null;
+
+    /**
+     * time in ms the created user agent is used
+     */
+    private long userAgentTtl = DEFAULT_USER_AGENT_TTL;
+
+    /**
+     * policy used to retry failed requests, if no policy is set for the endpoint
+     */
+    private BreinRetryPolicy retryPolicy = BreinRetryPolicy.DEFAULT;
+
+    /**
+     * policies used to retry failed requests of specific endpoints
+     */
+    private final Map<String, BreinRetryPolicy> endpointRetryPolicies = new ConcurrentHashMap<>();
+
+    /**
+     * flag if requests to a failing endpoint fail fast
+     */
+    private boolean circuitBreakerEnabled = true;
+
+    /**
+     * rate of failed requests (0.0 to 1.0) which opens the circuit of an endpoint
+     */
+    private double circuitBreakerFailureRateThreshold = DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD;
+
+    /**
+     * number of requests the failure rate of an endpoint is determined for
+     */
+    private int circuitBreakerWindowSize = DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE;
+
+    /**
+     * minimal number of requests before the circuit of an endpoint is opened
+     */
+    private int circuitBreakerMinimumRequests = DEFAULT_CIRCUIT_BREAKER_MINIMUM_REQUESTS;
+
+    /**
+     * time in ms the circuit of an endpoint is kept open
+     */
+    private long circuitBreakerOpenDuration = DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION;
+
+    /**
+     * informed whenever the circuit of an endpoint changes its state, may be {@code null}
+     */
+    private BreinCircuitBreaker.IStateListener circuitBreakerListener = null;
+
+    /**
+     * flag if the number of requests in flight is adapted to the measured round trip times
+     */
+    private boolean concurrencyLimitEnabled = true;
+
+    /**
+     * smallest limit of requests in flight
+     */
+    private int concurrencyLimitMin = DEFAULT_CONCURRENCY_LIMIT_MIN;
+
+    /**
+     * largest limit of requests in flight
+     */
+    private int concurrencyLimitMax = DEFAULT_CONCURRENCY_LIMIT_MAX;
+
+    /**
+     * factor the round trip time may exceed the minimal one, before requests are considered queued
+     */
+    private double concurrencyLimitRttTolerance = DEFAULT_CONCURRENCY_LIMIT_RTT_TOLERANCE;
+
+    /**
+     * maximal number of connections opened by the non-blocking engine
+     */
+    private int nioMaxConnections = DEFAULT_NIO_MAX_CONNECTIONS;
+
+    /**
+     * flag if request bodies are compressed using gzip
+     */
+    private boolean requestCompressionEnabled = false;
+
+    /**
+     * minimal size in bytes of a request body to be compressed
+     */
+    private int requestCompressionThreshold = DEFAULT_REQUEST_COMPRESSION_THRESHOLD;
+
+    /**
+     * flag if the latency, the counters and the payload sizes of the requests are recorded
+     */
+    private boolean metricsEnabled = true;
+
+    /**
+     * listener informed about every attempt of a request, {@code null} if none
+     */
+    private IBreinMetricsListener metricsListener = null;
+
+    /**
+     * listener informed about the phases of the requests, {@code null} if none
+     */
+    private BreinEventListener eventListener = null;
+
+    /**
+     * minimal level of the messages logged by the library, {@code null} to keep the current level
+     */
+    private BreinLogger.Level logLevel = null;
+
+    /**
+     * flag if temporalData results are cached (opt-in, a cached result may be shared by nearby coordinates)
+     */
+    private boolean temporalDataCacheEnabled = false;
+
+    /**
+     * maximal number of cached temporalData results
+     */
+    private int temporalDataCacheSize = DEFAULT_TEMPORAL_DATA_CACHE_SIZE;
+
+    /**
+     * time in ms a temporalData result is cached
+     */
+    private long temporalDataCacheTtl = DEFAULT_TEMPORAL_DATA_CACHE_TTL;
+
+    /**
+     * precision of the geohash used to cache temporalData results
+     */
+    private int temporalDataCacheGeohashPrecision = DEFAULT_TEMPORAL_DATA_CACHE_GEOHASH_PRECISION;
+
+    /**
+     * maximal age in ms of a cached weather measurement
+     */
+    private long temporalDataCacheMaxWeatherAge = DEFAULT_TEMPORAL_DATA_CACHE_MAX_WEATHER_AGE;
+
+    /**
+     * flag if recommendation results are cached (opt-in, a cached result may be older than the refreshed one)
+     */
+    private boolean recommendationCacheEnabled = false;
+
+    /**
+     * maximal number of cached recommendation results
+     */
+    private int recommendationCacheSize = DEFAULT_RECOMMENDATION_CACHE_SIZE;
+
+    /**
+     * time in ms a cached recommendation result is served without being refreshed
+     */
+    private long recommendationCacheRefreshInterval = DEFAULT_RECOMMENDATION_CACHE_REFRESH_INTERVAL;
+
+    /**
+     * maximal age in ms of a served recommendation result
+     */
+    private long recommendationCacheMaxAge = DEFAULT_RECOMMENDATION_CACHE_MAX_AGE;
+
+    /**
+     * directory the recommendation results are persisted in, {@code null} if kept in memory only
+     */
+    private File recommendationCacheDirectory = null;
+
+    /**
+     * flag if identical lookups, recommendations and temporalData requests in flight are coalesced
+     */
+    private boolean singleFlightEnabled = true;
+
+    /**
+     * default category
+     */
+    private String defaultCategory = "";
+
+    /**
+     * contains the secret
+     */
+    private String secret;
+
+    /**
+     * signer of the secret, created when needed
+     */
+    private volatile BreinSigner signer;
+
+    /**
+     * @param apiKey  contains the Breinify com.brein.api-key
+     */
+    public BreinConfig(final String apiKey) {
+
+        setApiKey(apiKey);
+        if (this.getRestEngineType() != BreinEngineType.HTTP_URL_CONNECTION_ENGINE) {
+            setRestEngineType(BreinEngineType.HTTP_URL_CONNECTION_ENGINE);
+        }
+    }
+
+    /**
+     * @param apiKey  String contains the Breinify com.brein.api-key
+     * @param secret  String contains the secret
+     */
+    public BreinConfig(final String apiKey,
+                       final String secret) {
+
+        this(apiKey);
+        setSecret(secret);
+        initEngine();
+    }
+
+    /**
+     * Configuration object
+     *
+     * @param apiKey            String contains the Breinify com.brein.api-key
+     * @param secret            String contains the secret
+     * @param breinEngineType   BreinEngineType selected com.brein.engine
+     */
+    public BreinConfig(final String apiKey,
+                       final String secret,
+                       final BreinEngineType breinEngineType) {
+
+        this(apiKey);
+        setSecret(secret);
+        setRestEngineType(breinEngineType);
+        initEngine();
+    }
+
+    /**
+     * Empty Ctor - necessary
+     */
+    public BreinConfig() {
+    }
+
+    /**
+     * initializes the rest client
+     */
+    public void initEngine() {
+        breinEngine = new BreinEngine();
+    }
+
+    /**
+     * retrieves the base url
+     *
+     * @return  String base url
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * set the base url of the breinify backend and will check
+     * if the URL is valid.
+     *
+     * @param baseUrl  String contains the url
+     * @return         BreinConfig the config object itself
+     */
+    public BreinConfig setBaseUrl(final String baseUrl) {
+        this.baseUrl = baseUrl;
+        checkBaseUrl(baseUrl);
+        return this;
+    }
+
+    /**
+     * checks if the url is valid. If not a BreinInvalidConfigurationException will
+     * be thrown.
+     *
+     * @param baseUrl String url to check
+     */
+    public void checkBaseUrl(final String baseUrl) throws BreinInvalidConfigurationException {
+
+        if (!isUrlValid(baseUrl)) {
+            final String msg = "BreinConfig issue. Value for BaseUrl is not valid. Value is: "
+                    + baseUrl;
+            // Log.d("BreinUtil", msg);
+
+            throw new BreinInvalidConfigurationException(msg);
+        }
+    }
+
+    /**
+     * retrieves rest type client
+     *
+     * @return  BreinEngineType configured rest type client
+     */
+    public BreinEngineType getRestEngineType() {
+        return restEngineType;
+    }
+
+    /**
+     * set rest type client
+     *
+     * @param restEngineType  BreinEngineType rest impl
+     * @return                BreinConfig the config object itself
+     */
+    public BreinConfig setRestEngineType(final BreinEngineType restEngineType) {
+        this.restEngineType = restEngineType;
+        return this;
+    }
+
+    /**
+     * retrieves the rest type client used for the endpoint
+     *
+     * @param endpoint String the endpoint, e.g. {@code /lookup}
+     * @return         BreinEngineType the rest type client of the endpoint, or the default one if none is set
+     */
+    public BreinEngineType getRestEngineType(final String endpoint) {
+        final BreinEngineType endpointType = endpoint == null ? null : endpointRestEngineTypes.get(endpoint);
+        return endpointType == null ? restEngineType : endpointType;
+    }
+
+    /**
+     * sets the rest type client used for the endpoint. Activities are always sent by the default rest type client,
+     * which keeps the batches and the offline queue.
+     *
+     * @param endpoint       String the endpoint, e.g. {@code /lookup}
+     * @param restEngineType BreinEngineType rest impl, {@code null} to use the default one
+     * @return               BreinConfig the config object itself
+     */
+    public BreinConfig setRestEngineType(final String endpoint, final BreinEngineType restEngineType) {
+        if (restEngineType == null) {
+            endpointRestEngineTypes.remove(endpoint);
+        } else {
+            endpointRestEngineTypes.put(endpoint, restEngineType);
+        }
+        return this;
+    }
+
+    /**
+     * returns the configured BreinEngine for the rest calls
+     *
+     * @return   BreinEngine
+     */
+    public BreinEngine getBreinEngine() {
+        return breinEngine;
+    }
+
+    /**
+     * retrieves the apikey
+     *
+     * @return  String apikey
+     */
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    /**
+     * sets the apikey
+     *
+     * @param apiKey   String the apikey
+     * @return         BreinConfig the config object itself
+     */
+    public BreinConfig setApiKey(final String apiKey) {
+
+        if (BreinUtil.containsValue(apiKey)) {
+            this.apiKey = apiKey;
+        }
+        return this;
+    }
+
+    /**
+     * retrieves the url for the post requests
+     *
+     * @return String base url
+     */
+    public String getUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * retrieves the configured timeout values
+     *
+     * @return long connection time out
+     */
+    public long getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * set the connection timeout
+     *
+     * @param connectionTimeout long value
+     */
+    public void setConnectionTimeout(final long connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    /**
+     * socket timeout values
+     *
+     * @return long connection time out values
+     */
+    public long getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    /**
+     * set the socket timeout
+     *
+     * @param socketTimeout long value
+     */
+    public void setSocketTimeout(final long socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    /**
+     * retrieves the number of worker threads kept while requests are processed
+     *
+     * @return int core pool size
+     */
+    public int getExecutorCorePoolSize() {
+        return executorCorePoolSize;
+    }
+
+    /**
+     * sets the number of worker threads kept while requests are processed
+     *
+     * @param executorCorePoolSize int core pool size
+     * @return                     BreinConfig the config object itself
+     */
+    public BreinConfig setExecutorCorePoolSize(final int executorCorePoolSize) {
+        this.executorCorePoolSize = executorCorePoolSize;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal number of worker threads
+     *
+     * @return int max pool size
+     */
+    public int getExecutorMaxPoolSize() {
+        return executorMaxPoolSize;
+    }
+
+    /**
+     * sets the maximal number of worker threads, additional threads are only started if the queue is full
+     *
+     * @param executorMaxPoolSize int max pool size
+     * @return                    BreinConfig the config object itself
+     */
+    public BreinConfig setExecutorMaxPoolSize(final int executorMaxPoolSize) {
+        this.executorMaxPoolSize = executorMaxPoolSize;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal number of requests waiting for a worker thread
+     *
+     * @return int queue capacity
+     */
+    public int getExecutorQueueCapacity() {
+        return executorQueueCapacity;
+    }
+
+    /**
+     * sets the maximal number of requests waiting for a worker thread, requests exceeding the capacity are rejected
+     *
+     * @param executorQueueCapacity int queue capacity
+     * @return                      BreinConfig the config object itself
+     */
+    public BreinConfig setExecutorQueueCapacity(final int executorQueueCapacity) {
+        this.executorQueueCapacity = executorQueueCapacity;
+        return this;
+    }
+
+    /**
+     * retrieves the priority of the worker threads
+     *
+     * @return int thread priority
+     */
+    public int getExecutorThreadPriority() {
+        return executorThreadPriority;
+    }
+
+    /**
+     * sets the priority of the worker threads (between {@code Thread.MIN_PRIORITY} and {@code Thread.MAX_PRIORITY})
+     *
+     * @param executorThreadPriority int thread priority
+     * @return                       BreinConfig the config object itself
+     */
+    public BreinConfig setExecutorThreadPriority(final int executorThreadPriority) {
+        this.executorThreadPriority = executorThreadPriority;
+        return this;
+    }
+
+    /**
+     * retrieves the name prefix of the worker threads
+     *
+     * @return String thread name prefix
+     */
+    public String getExecutorThreadNamePrefix() {
+        return executorThreadNamePrefix;
+    }
+
+    /**
+     * sets the name prefix of the worker threads
+     *
+     * @param executorThreadNamePrefix String thread name prefix
+     * @return                         BreinConfig the config object itself
+     */
+    public BreinConfig setExecutorThreadNamePrefix(final String executorThreadNamePrefix) {
+        this.executorThreadNamePrefix = executorThreadNamePrefix;
+        return this;
+    }
+
+    /**
+     * retrieves the time in ms to wait for queued requests when the engine is terminated
+     *
+     * @return long termination timeout
+     */
+    public long getExecutorTerminationTimeout() {
+        return executorTerminationTimeout;
+    }
+
+    /**
+     * sets the time in ms to wait for queued requests when the engine is terminated
+     *
+     * @param executorTerminationTimeout long termination timeout
+     * @return                           BreinConfig the config object itself
+     */
+    public BreinConfig setExecutorTerminationTimeout(final long executorTerminationTimeout) {
+        this.executorTerminationTimeout = executorTerminationTimeout;
+        return this;
+    }
+
+    /**
+     * retrieves the directory of the offline queue
+     *
+     * @return File the directory, {@code null} if the offline queue is disabled
+     */
+    public File getOfflineQueueDirectory() {
+        return offlineQueueDirectory;
+    }
+
+    /**
+     * sets the directory of the offline queue. Activities which could not be sent are stored within this directory
+     * and sent again when the queue is replayed. Setting {@code null} disables the offline queue.
+     *
+     * @param offlineQueueDirectory File the directory
+     * @return                      BreinConfig the config object itself
+     */
+    public BreinConfig setOfflineQueueDirectory(final File offlineQueueDirectory) {
+        this.offlineQueueDirectory = offlineQueueDirectory;
+        return this;
+    }
+
+    /**
+     * @return boolean true if the offline queue is enabled
+     */
+    public boolean isOfflineQueueEnabled() {
+        return offlineQueueDirectory != null;
+    }
+
+    /**
+     * retrieves the maximal size in bytes of the offline queue
+     *
+     * @return long max bytes
+     */
+    public long getOfflineQueueMaxBytes() {
+        return offlineQueueMaxBytes;
+    }
+
+    /**
+     * sets the maximal size in bytes of the offline queue, the oldest activities are dropped first
+     *
+     * @param offlineQueueMaxBytes long max bytes
+     * @return                     BreinConfig the config object itself
+     */
+    public BreinConfig setOfflineQueueMaxBytes(final long offlineQueueMaxBytes) {
+        this.offlineQueueMaxBytes = offlineQueueMaxBytes;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal age in ms of an activity within the offline queue
+     *
+     * @return long max age
+     */
+    public long getOfflineQueueMaxAge() {
+        return offlineQueueMaxAge;
+    }
+
+    /**
+     * sets the maximal age in ms of an activity within the offline queue, older activities are dropped
+     *
+     * @param offlineQueueMaxAge long max age
+     * @return                   BreinConfig the config object itself
+     */
+    public BreinConfig setOfflineQueueMaxAge(final long offlineQueueMaxAge) {
+        this.offlineQueueMaxAge = offlineQueueMaxAge;
+        return this;
+    }
+
+    /**
+     * retrieves the size in bytes of a segment file of the offline queue
+     *
+     * @return long segment size
+     */
+    public long getOfflineQueueSegmentSize() {
+        return offlineQueueSegmentSize;
+    }
+
+    /**
+     * sets the size in bytes of a segment file of the offline queue
+     *
+     * @param offlineQueueSegmentSize long segment size
+     * @return                        BreinConfig the config object itself
+     */
+    public BreinConfig setOfflineQueueSegmentSize(final long offlineQueueSegmentSize) {
+        this.offlineQueueSegmentSize = offlineQueueSegmentSize;
+        return this;
+    }
+
+    /**
+     * @return boolean true if activities are collected and sent in batches
+     */
+    public boolean isActivityBatchingEnabled() {
+        return activityBatchingEnabled;
+    }
+
+    /**
+     * enables or disables the batching of activities. If enabled, activities are collected and sent as one request
+     * to the bulk endpoint whenever the batch reaches the configured size, number of bytes or age.
+     *
+     * @param activityBatchingEnabled boolean true to enable batching
+     * @return                        BreinConfig the config object itself
+     */
+    public BreinConfig setActivityBatchingEnabled(final boolean activityBatchingEnabled) {
+        this.activityBatchingEnabled = activityBatchingEnabled;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal number of activities within a batch
+     *
+     * @return int batch size
+     */
+    public int getActivityBatchSize() {
+        return activityBatchSize;
+    }
+
+    /**
+     * sets the maximal number of activities within a batch
+     *
+     * @param activityBatchSize int batch size
+     * @return                  BreinConfig the config object itself
+     */
+    public BreinConfig setActivityBatchSize(final int activityBatchSize) {
+        this.activityBatchSize = activityBatchSize;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal size in bytes of a batch
+     *
+     * @return int max bytes
+     */
+    public int getActivityBatchMaxBytes() {
+        return activityBatchMaxBytes;
+    }
+
+    /**
+     * sets the maximal size in bytes of a batch
+     *
+     * @param activityBatchMaxBytes int max bytes
+     * @return                      BreinConfig the config object itself
+     */
+    public BreinConfig setActivityBatchMaxBytes(final int activityBatchMaxBytes) {
+        this.activityBatchMaxBytes = activityBatchMaxBytes;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal time in ms an activity waits within a batch
+     *
+     * @return long interval
+     */
+    public long getActivityBatchInterval() {
+        return activityBatchInterval;
+    }
+
+    /**
+     * sets the maximal time in ms an activity waits within a batch
+     *
+     * @param activityBatchInterval long interval
+     * @return                      BreinConfig the config object itself
+     */
+    public BreinConfig setActivityBatchInterval(final long activityBatchInterval) {
+        this.activityBatchInterval = activityBatchInterval;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal size in bytes of a response
+     *
+     * @return int maximal size
+     */
+    public int getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    /**
+     * sets the maximal size in bytes of a response, a larger response is not read and the request is answered with
+     * a {@code null} result
+     *
+     * @param maxResponseSize int maximal size
+     * @return                BreinConfig the config object itself
+     */
+    public BreinConfig setMaxResponseSize(final int maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+        return this;
+    }
+
+    /**
+     * retrieves the time in ms the detected location of the device is used
+     *
+     * @return long time to live
+     */
+    public long getDeviceLocationTtl() {
+        return deviceLocationTtl;
+    }
+
+    /**
+     * sets the time in ms the detected location of the device is used, changed location providers lead to a new
+     * detection as well
+     *
+     * @param deviceLocationTtl long time to live
+     * @return                  BreinConfig the config object itself
+     */
+    public BreinConfig setDeviceLocationTtl(final long deviceLocationTtl) {
+        this.deviceLocationTtl = deviceLocationTtl;
+        return this;
+    }
+
+    /**
+     * retrieves the time in ms the detected network information of the device is used
+     *
+     * @return long time to live
+     */
+    public long getDeviceNetworkTtl() {
+        return deviceNetworkTtl;
+    }
+
+    /**
+     * sets the time in ms the detected network information of the device is used, a changed connectivity leads to a
+     * new detection as well
+     *
+     * @param deviceNetworkTtl long time to live
+     * @return                 BreinConfig the config object itself
+     */
+    public BreinConfig setDeviceNetworkTtl(final long deviceNetworkTtl) {
+        this.deviceNetworkTtl = deviceNetworkTtl;
+        return this;
+    }
+
+    /**
+     * retrieves the time in ms the resolved external ip-address is used
+     *
+     * @return long time to live
+     */
+    public long getIpInfoTtl() {
+        return ipInfoTtl;
+    }
+
+    /**
+     * sets the time in ms the resolved external ip-address is used before it is refreshed, a changed connectivity
+     * leads to a refresh as well
+     *
+     * @param ipInfoTtl long time to live
+     * @return          BreinConfig the config object itself
+     */
+    public BreinConfig setIpInfoTtl(final long ipInfoTtl) {
+        this.ipInfoTtl = ipInfoTtl;
+        return this;
+    }
+
+    /**
+     * retrieves the file the resolved external ip-address is persisted in
+     *
+     * @return File the file, {@code null} if the ip-address is kept in memory only
+     */
+    public File getIpInfoFile() {
+        return ipInfoFile;
+    }
+
+    /**
+     * sets the file the resolved external ip-address is persisted in, so that the last known ip-address is sent
+     * right after a start of the application
+     *
+     * @param ipInfoFile File the file
+     * @return           BreinConfig the config object itself
+     */
+    public BreinConfig setIpInfoFile(final File ipInfoFile) {
+        this.ipInfoFile = ipInfoFile;
+        return this;
+    }
+
+    /**
+     * retrieves the provider resolving the external ip-address
+     *
+     * @return IIpInfoProvider the provider, {@code null} if ip-api.com is used
+     */
+    public IIpInfoProvider getIpInfoProvider() {
+        return ipInfoProvider;
+    }
+
+    /**
+     * sets the provider resolving the external ip-address
+     *
+     * @param ipInfoProvider IIpInfoProvider the provider, {@code null} to use ip-api.com
+     * @return               BreinConfig the config object itself
+     */
+    public BreinConfig setIpInfoProvider(final IIpInfoProvider ipInfoProvider) {
+        this.ipInfoProvider = ipInfoProvider;
+        return this;
+    }
+
+    /**
+     * retrieves the time in ms the created user agent is used
+     *
+     * @return long time to live
+     */
+    public long getUserAgentTtl() {
+        return userAgentTtl;
+    }
+
+    /**
+     * sets the time in ms the created user agent is used
+     *
+     * @param userAgentTtl long time to live
+     * @return             BreinConfig the config object itself
+     */
+    public BreinConfig setUserAgentTtl(final long userAgentTtl) {
+        this.userAgentTtl = userAgentTtl;
+        return this;
+    }
+
+    /**
+     * retrieves the policy used to retry failed requests, if no policy is set for the endpoint
+     *
+     * @return BreinRetryPolicy the default retry policy
+     */
+    public BreinRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * sets the policy used to retry failed requests, if no policy is set for the endpoint
+     *
+     * @param retryPolicy BreinRetryPolicy the policy, {@code null} to disable retries
+     * @return            BreinConfig the config object itself
+     */
+    public BreinConfig setRetryPolicy(final BreinRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy == null ? BreinRetryPolicy.NONE : retryPolicy;
+        return this;
+    }
+
+    /**
+     * retrieves the policy used to retry failed requests of the endpoint
+     *
+     * @param endpoint String the endpoint, e.g. {@code /activity}
+     * @return         BreinRetryPolicy the policy of the endpoint, or the default policy if none is set
+     */
+    public BreinRetryPolicy getRetryPolicy(final String endpoint) {
+        final BreinRetryPolicy endpointPolicy = endpoint == null ? null : endpointRetryPolicies.get(endpoint);
+        return endpointPolicy == null ? retryPolicy : endpointPolicy;
+    }
+
+    /**
+     * sets the policy used to retry failed requests of the endpoint
+     *
+     * @param endpoint    String the endpoint, e.g. {@code /activity}
+     * @param retryPolicy BreinRetryPolicy the policy, {@code null} to use the default policy
+     * @return            BreinConfig the config object itself
+     */
+    public BreinConfig setRetryPolicy(final String endpoint, final BreinRetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            endpointRetryPolicies.remove(endpoint);
+        } else {
+            endpointRetryPolicies.put(endpoint, retryPolicy);
+        }
+        return this;
+    }
+
+    /**
+     * checks if requests to a failing endpoint fail fast
+     *
+     * @return boolean true if the circuit breakers are enabled
+     */
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+
+    /**
+     * enables or disables the circuit breakers, i.e., if enabled requests to an endpoint fail fast (activities are
+     * stored within the offline queue, if enabled) while the endpoint is failing
+     *
+     * @param circuitBreakerEnabled boolean true to enable the circuit breakers
+     * @return                      BreinConfig the config object itself
+     */
+    public BreinConfig setCircuitBreakerEnabled(final boolean circuitBreakerEnabled) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+        return this;
+    }
+
+    /**
+     * retrieves the rate of failed requests which opens the circuit of an endpoint
+     *
+     * @return double failure rate (0.0 to 1.0)
+     */
+    public double getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+
+    /**
+     * sets the rate of failed requests which opens the circuit of an endpoint
+     *
+     * @param circuitBreakerFailureRateThreshold double failure rate (0.0 to 1.0)
+     * @return                                   BreinConfig the config object itself
+     */
+    public BreinConfig setCircuitBreakerFailureRateThreshold(final double circuitBreakerFailureRateThreshold) {
+        this.circuitBreakerFailureRateThreshold = circuitBreakerFailureRateThreshold;
+        return this;
+    }
+
+    /**
+     * retrieves the number of requests the failure rate of an endpoint is determined for
+     *
+     * @return int window size
+     */
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    /**
+     * sets the number of requests the failure rate of an endpoint is determined for
+     *
+     * @param circuitBreakerWindowSize int window size
+     * @return                         BreinConfig the config object itself
+     */
+    public BreinConfig setCircuitBreakerWindowSize(final int circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+        return this;
+    }
+
+    /**
+     * retrieves the minimal number of requests before the circuit of an endpoint is opened
+     *
+     * @return int minimal number of requests
+     */
+    public int getCircuitBreakerMinimumRequests() {
+        return circuitBreakerMinimumRequests;
+    }
+
+    /**
+     * sets the minimal number of requests before the circuit of an endpoint is opened
+     *
+     * @param circuitBreakerMinimumRequests int minimal number of requests
+     * @return                              BreinConfig the config object itself
+     */
+    public BreinConfig setCircuitBreakerMinimumRequests(final int circuitBreakerMinimumRequests) {
+        this.circuitBreakerMinimumRequests = circuitBreakerMinimumRequests;
+        return this;
+    }
+
+    /**
+     * retrieves the time in ms the circuit of an endpoint is kept open
+     *
+     * @return long open duration
+     */
+    public long getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    /**
+     * sets the time in ms the circuit of an endpoint is kept open, afterwards a single trial request is sent
+     *
+     * @param circuitBreakerOpenDuration long open duration
+     * @return                           BreinConfig the config object itself
+     */
+    public BreinConfig setCircuitBreakerOpenDuration(final long circuitBreakerOpenDuration) {
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+        return this;
+    }
+
+    /**
+     * retrieves the listener informed about state changes of the circuit breakers
+     *
+     * @return BreinCircuitBreaker.IStateListener the listener, may be {@code null}
+     */
+    public BreinCircuitBreaker.IStateListener getCircuitBreakerListener() {
+        return circuitBreakerListener;
+    }
+
+    /**
+     * sets the listener informed about state changes of the circuit breakers
+     *
+     * @param circuitBreakerListener BreinCircuitBreaker.IStateListener the listener, may be {@code null}
+     * @return                       BreinConfig the config object itself
+     */
+    public BreinConfig setCircuitBreakerListener(final BreinCircuitBreaker.IStateListener circuitBreakerListener) {
+        this.circuitBreakerListener = circuitBreakerListener;
+        return this;
+    }
+
+    /**
+     * retrieves the flag if the number of requests in flight is adapted to the measured round trip times
+     *
+     * @return boolean true if enabled
+     */
+    public boolean isConcurrencyLimitEnabled() {
+        return concurrencyLimitEnabled;
+    }
+
+    /**
+     * enables or disables the adaptive limit of requests in flight. If enabled, requests exceeding the current limit
+     * wait for a permit, the limit never exceeds the max pool size (see {@link #setExecutorMaxPoolSize(int)}).
+     * Otherwise the pool settings alone determine the requests in flight
+     *
+     * @param concurrencyLimitEnabled boolean true to enable
+     * @return                        BreinConfig the config object itself
+     */
+    public BreinConfig setConcurrencyLimitEnabled(final boolean concurrencyLimitEnabled) {
+        this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+        return this;
+    }
+
+    /**
+     * retrieves the smallest limit of requests in flight
+     *
+     * @return int smallest limit
+     */
+    public int getConcurrencyLimitMin() {
+        return concurrencyLimitMin;
+    }
+
+    /**
+     * sets the smallest limit of requests in flight
+     *
+     * @param concurrencyLimitMin int smallest limit
+     * @return                    BreinConfig the config object itself
+     */
+    public BreinConfig setConcurrencyLimitMin(final int concurrencyLimitMin) {
+        this.concurrencyLimitMin = concurrencyLimitMin;
+        return this;
+    }
+
+    /**
+     * retrieves the largest limit of requests in flight
+     *
+     * @return int largest limit
+     */
+    public int getConcurrencyLimitMax() {
+        return concurrencyLimitMax;
+    }
+
+    /**
+     * sets the largest limit of requests in flight, the limit is clamped to the max pool size
+     *
+     * @param concurrencyLimitMax int largest limit
+     * @return                    BreinConfig the config object itself
+     */
+    public BreinConfig setConcurrencyLimitMax(final int concurrencyLimitMax) {
+        this.concurrencyLimitMax = concurrencyLimitMax;
+        return this;
+    }
+
+    /**
+     * retrieves the factor the round trip time may exceed the minimal one, before requests are considered queued
+     *
+     * @return double tolerance
+     */
+    public double getConcurrencyLimitRttTolerance() {
+        return concurrencyLimitRttTolerance;
+    }
+
+    /**
+     * sets the factor the round trip time may exceed the minimal one, before requests are considered queued and the
+     * limit of requests in flight is decreased
+     *
+     * @param concurrencyLimitRttTolerance double tolerance, e.g. {@code 2.0}
+     * @return                             BreinConfig the config object itself
+     */
+    public BreinConfig setConcurrencyLimitRttTolerance(final double concurrencyLimitRttTolerance) {
+        this.concurrencyLimitRttTolerance = concurrencyLimitRttTolerance;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal number of connections opened by the non-blocking engine
+     *
+     * @return int maximal number of connections
+     */
+    public int getNioMaxConnections() {
+        return nioMaxConnections;
+    }
+
+    /**
+     * sets the maximal number of connections opened by the non-blocking engine ({@link BreinEngineType#NIO_ENGINE}),
+     * i.e., the number of requests in flight. Further requests wait for a connection, at most as many as the queue
+     * capacity of the worker pool
+     *
+     * @param nioMaxConnections int maximal number of connections
+     * @return                  BreinConfig the config object itself
+     */
+    public BreinConfig setNioMaxConnections(final int nioMaxConnections) {
+        this.nioMaxConnections = nioMaxConnections;
+        return this;
+    }
+
+    /**
+     * retrieves the flag if request bodies are compressed using gzip
+     *
+     * @return boolean true if enabled
+     */
+    public boolean isRequestCompressionEnabled() {
+        return requestCompressionEnabled;
+    }
+
+    /**
+     * enables or disables the compression of request bodies ({@code Content-Encoding: gzip}), only bodies exceeding
+     * the threshold are compressed. Endpoints whose bodies do not compress well are compressed only occasionally
+     *
+     * @param requestCompressionEnabled boolean true to enable
+     * @return                          BreinConfig the config object itself
+     */
+    public BreinConfig setRequestCompressionEnabled(final boolean requestCompressionEnabled) {
+        this.requestCompressionEnabled = requestCompressionEnabled;
+        return this;
+    }
+
+    /**
+     * retrieves the minimal size in bytes of a request body to be compressed
+     *
+     * @return int the threshold in bytes
+     */
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * sets the minimal size in bytes of a request body to be compressed, smaller bodies are sent uncompressed
+     *
+     * @param requestCompressionThreshold int the threshold in bytes
+     * @return                            BreinConfig the config object itself
+     */
+    public BreinConfig setRequestCompressionThreshold(final int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+        return this;
+    }
+
+    /**
+     * retrieves the flag if the metrics of the requests are recorded
+     *
+     * @return boolean true if enabled
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * enables or disables the metrics of the requests, i.e., the latency, the counters and the payload sizes per
+     * endpoint (see {@link BreinEngine#getMetrics()})
+     *
+     * @param metricsEnabled boolean true to enable
+     * @return               BreinConfig the config object itself
+     */
+    public BreinConfig setMetricsEnabled(final boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
+
+    /**
+     * retrieves the listener informed about every attempt of a request
+     *
+     * @return IBreinMetricsListener the listener, may be {@code null}
+     */
+    public IBreinMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * sets the listener informed about every attempt of a request, e.g., to forward the metrics to another system
+     *
+     * @param metricsListener IBreinMetricsListener the listener, may be {@code null}
+     * @return                BreinConfig the config object itself
+     */
+    public BreinConfig setMetricsListener(final IBreinMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        return this;
+    }
+
+    /**
+     * retrieves the listener informed about the phases of the requests
+     *
+     * @return BreinEventListener the listener, may be {@code null}
+     */
+    public BreinEventListener getEventListener() {
+        return eventListener;
+    }
+
+    /**
+     * sets the listener informed about the phases of the requests (e.g., serialization, connect, time to the first
+     * byte, parsing), a {@code BreinSamplingEventListener} traces only every n-th request
+     *
+     * @param eventListener BreinEventListener the listener, may be {@code null}
+     * @return              BreinConfig the config object itself
+     */
+    public BreinConfig setEventListener(final BreinEventListener eventListener) {
+        this.eventListener = eventListener;
+        return this;
+    }
+
+    /**
+     * retrieves the minimal level of the messages logged by the library
+     *
+     * @return BreinLogger.Level the level, {@code null} if the current level is kept
+     */
+    public BreinLogger.Level getLogLevel() {
+        return logLevel;
+    }
+
+    /**
+     * sets the minimal level of the messages logged by the library, applied as soon as the configuration is used,
+     * {@code BreinLogger.Level.OFF} disables the logging (request bodies are logged on {@code VERBOSE} only)
+     *
+     * @param logLevel BreinLogger.Level the level, {@code null} to keep the current level
+     * @return         BreinConfig the config object itself
+     */
+    public BreinConfig setLogLevel(final BreinLogger.Level logLevel) {
+        this.logLevel = logLevel;
+        return this;
+    }
+
+    /**
+     * retrieves the flag if temporalData results are cached
+     *
+     * @return boolean true if enabled
+     */
+    public boolean isTemporalDataCacheEnabled() {
+        return temporalDataCacheEnabled;
+    }
+
+    /**
+     * enables or disables the cache of temporalData results (disabled by default). Cached results are served without a
+     * request, i.e., a callback may receive the result of nearby coordinates which is up to the time-to-live old
+     *
+     * @param temporalDataCacheEnabled boolean true to enable
+     * @return                         BreinConfig the config object itself
+     */
+    public BreinConfig setTemporalDataCacheEnabled(final boolean temporalDataCacheEnabled) {
+        this.temporalDataCacheEnabled = temporalDataCacheEnabled;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal number of cached temporalData results
+     *
+     * @return int cache size
+     */
+    public int getTemporalDataCacheSize() {
+        return temporalDataCacheSize;
+    }
+
+    /**
+     * sets the maximal number of cached temporalData results, the least recently used result is evicted first
+     *
+     * @param temporalDataCacheSize int cache size
+     * @return                      BreinConfig the config object itself
+     */
+    public BreinConfig setTemporalDataCacheSize(final int temporalDataCacheSize) {
+        this.temporalDataCacheSize = temporalDataCacheSize;
+        return this;
+    }
+
+    /**
+     * retrieves the time in ms a temporalData result is cached
+     *
+     * @return long time-to-live
+     */
+    public long getTemporalDataCacheTtl() {
+        return temporalDataCacheTtl;
+    }
+
+    /**
+     * sets the time in ms a temporalData result is cached, i.e., the size of the time buckets results are cached for
+     *
+     * @param temporalDataCacheTtl long time-to-live
+     * @return                     BreinConfig the config object itself
+     */
+    public BreinConfig setTemporalDataCacheTtl(final long temporalDataCacheTtl) {
+        this.temporalDataCacheTtl = temporalDataCacheTtl;
+        return this;
+    }
+
+    /**
+     * retrieves the precision of the geohash used to cache temporalData results
+     *
+     * @return int precision (number of characters)
+     */
+    public int getTemporalDataCacheGeohashPrecision() {
+        return temporalDataCacheGeohashPrecision;
+    }
+
+    /**
+     * sets the precision of the geohash used to cache temporalData results, coordinates within the same cell share a
+     * result (e.g., 5 for about 5km x 5km, 6 for about 1.2km x 0.6km)
+     *
+     * @param temporalDataCacheGeohashPrecision int precision (1 to 12 characters)
+     * @return                                  BreinConfig the config object itself
+     */
+    public BreinConfig setTemporalDataCacheGeohashPrecision(final int temporalDataCacheGeohashPrecision) {
+        this.temporalDataCacheGeohashPrecision = temporalDataCacheGeohashPrecision;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal age in ms of a cached weather measurement
+     *
+     * @return long maximal age
+     */
+    public long getTemporalDataCacheMaxWeatherAge() {
+        return temporalDataCacheMaxWeatherAge;
+    }
+
+    /**
+     * sets the maximal age in ms of a cached weather measurement, a result expires earlier than its time-to-live if
+     * the weather contained gets too old
+     *
+     * @param temporalDataCacheMaxWeatherAge long maximal age
+     * @return                               BreinConfig the config object itself
+     */
+    public BreinConfig setTemporalDataCacheMaxWeatherAge(final long temporalDataCacheMaxWeatherAge) {
+        this.temporalDataCacheMaxWeatherAge = temporalDataCacheMaxWeatherAge;
+        return this;
+    }
+
+    /**
+     * retrieves the flag if recommendation results are cached
+     *
+     * @return boolean true if enabled
+     */
+    public boolean isRecommendationCacheEnabled() {
+        return recommendationCacheEnabled;
+    }
+
+    /**
+     * enables or disables the cache of recommendation results (disabled by default). A cached result is served right
+     * away and refreshed in the background, i.e., a callback may receive a result up to the maximal age old and is
+     * not informed about the refreshed one
+     *
+     * @param recommendationCacheEnabled boolean true to enable
+     * @return                           BreinConfig the config object itself
+     */
+    public BreinConfig setRecommendationCacheEnabled(final boolean recommendationCacheEnabled) {
+        this.recommendationCacheEnabled = recommendationCacheEnabled;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal number of cached recommendation results
+     *
+     * @return int cache size
+     */
+    public int getRecommendationCacheSize() {
+        return recommendationCacheSize;
+    }
+
+    /**
+     * sets the maximal number of cached recommendation results, the least recently used result is evicted first
+     *
+     * @param recommendationCacheSize int cache size
+     * @return                        BreinConfig the config object itself
+     */
+    public BreinConfig setRecommendationCacheSize(final int recommendationCacheSize) {
+        this.recommendationCacheSize = recommendationCacheSize;
+        return this;
+    }
+
+    /**
+     * retrieves the time in ms a cached recommendation result is served without being refreshed
+     *
+     * @return long refresh interval
+     */
+    public long getRecommendationCacheRefreshInterval() {
+        return recommendationCacheRefreshInterval;
+    }
+
+    /**
+     * sets the time in ms a cached recommendation result is served without being refreshed, {@code 0} refreshes the
+     * result with every request
+     *
+     * @param recommendationCacheRefreshInterval long refresh interval
+     * @return                                   BreinConfig the config object itself
+     */
+    public BreinConfig setRecommendationCacheRefreshInterval(final long recommendationCacheRefreshInterval) {
+        this.recommendationCacheRefreshInterval = recommendationCacheRefreshInterval;
+        return this;
+    }
+
+    /**
+     * retrieves the maximal age in ms of a served recommendation result
+     *
+     * @return long maximal age
+     */
+    public long getRecommendationCacheMaxAge() {
+        return recommendationCacheMaxAge;
+    }
+
+    /**
+     * sets the maximal age in ms of a served recommendation result, older results are not served
+     *
+     * @param recommendationCacheMaxAge long maximal age
+     * @return                          BreinConfig the config object itself
+     */
+    public BreinConfig setRecommendationCacheMaxAge(final long recommendationCacheMaxAge) {
+        this.recommendationCacheMaxAge = recommendationCacheMaxAge;
+        return this;
+    }
+
+    /**
+     * retrieves the directory the recommendation results are persisted in
+     *
+     * @return File the directory, {@code null} if the results are kept in memory only
+     */
+    public File getRecommendationCacheDirectory() {
+        return recommendationCacheDirectory;
+    }
+
+    /**
+     * sets the directory the recommendation results are persisted in (e.g., a directory within {@code
+     * Context.getCacheDir()}), so that they are available after a cold start. Setting {@code null} keeps the results in
+     * memory only.
+     *
+     * @param recommendationCacheDirectory File the directory
+     * @return                             BreinConfig the config object itself
+     */
+    public BreinConfig setRecommendationCacheDirectory(final File recommendationCacheDirectory) {
+        this.recommendationCacheDirectory = recommendationCacheDirectory;
+        return this;
+    }
+
+    /**
+     * retrieves the flag if identical requests in flight are coalesced
+     *
+     * @return boolean true if enabled
+     */
+    public boolean isSingleFlightEnabled() {
+        return singleFlightEnabled;
+    }
+
+    /**
+     * enables or disables the coalescing of identical lookups, recommendations and temporalData requests in flight,
+     * i.e., such requests share one call and its result is passed to all callbacks. Activities are never coalesced.
+     *
+     * @param singleFlightEnabled boolean true to enable
+     * @return                    BreinConfig the config object itself
+     */
+    public BreinConfig setSingleFlightEnabled(final boolean singleFlightEnabled) {
+        this.singleFlightEnabled = singleFlightEnabled;
+        return this;
+    }
+
+    /**
+     * retrieves the endpoint used to send batched activities
+     *
+     * @return String endpoint
+     */
+    public String getBulkActivityEndpoint() {
+        return bulkActivityEndpoint;
+    }
+
+    /**
+     * sets the endpoint used to send batched activities
+     *
+     * @param bulkActivityEndpoint String endpoint
+     * @return                     BreinConfig the config object itself
+     */
+    public BreinConfig setBulkActivityEndpoint(final String bulkActivityEndpoint) {
+        this.bulkActivityEndpoint = bulkActivityEndpoint;
+        return this;
+    }
+
+    /**
+     * retrieves the activity endpoint
+     *
+     * @return String endpoint
+     */
+    public String getActivityEndpoint() {
+        return activityEndpoint;
+    }
+
+    /**
+     * sets the activity endpoint
+     *
+     * @param activityEndpoint String endpoint
+     * @return                 BreinConfig the config object itself
+     */
+    public BreinConfig setActivityEndpoint(final String activityEndpoint) {
+        this.activityEndpoint = activityEndpoint;
+        return this;
+    }
+
+    /**
+     * retrieves the lookup endpoint
+     *
+     * @return String lookup endpoint
+     */
+    public String getLookupEndpoint() {
+        return lookupEndpoint;
+    }
+
+    /**
+     * sets the lookup endpoint
+     *
+     * @param lookupEndpoint String endpoint
+     * @return               BreinConfig the config object itself
+     */
+    public BreinConfig setLookupEndpoint(final String lookupEndpoint) {
+        this.lookupEndpoint = lookupEndpoint;
+        return this;
+    }
+
+    /**
+     * retrieves the temporalData endpoint
+     *
+     * @return String temporalData endpoint
+     */
+    public String getTemporalDataEndpoint() {
+        return this.temporalDataEndpoint;
+    }
+
+    /**
+     * sets the temporalData endpoint
+     *
+     * @param temporalDataEndpoint String endpoint
+     */
+    public void setTemporalDataEndpoint(final String temporalDataEndpoint) {
+        this.temporalDataEndpoint = temporalDataEndpoint;
+    }
+
+    /**
+     * retrieves the recommendation endpoint
+     *
+     * @return String recommendationEndpoint endpoint
+     */
+    public String getRecommendationEndpoint() {
+        return this.recommendationEndpoint;
+    }
+
+    /**
+     * sets the recommendation endpoint
+     *
+     * @param recommendationEndpoint String endpoint
+     * @return                       BreinConfig the config object itself
+     */
+    public BreinConfig setRecommendationEndpoint(final String recommendationEndpoint) {
+        this.recommendationEndpoint = recommendationEndpoint;
+        return this;
+    }
+
+    /**
+     * returns the configured secret
+     *
+     * @return String raw secret
+     */
+    public String getSecret() {
+        return secret;
+    }
+
+    /**
+     * set the secret
+     *
+     * @param secret String raw secret
+     * @return       BreinConfig the config object itself
+     */
+    public BreinConfig setSecret(final String secret) {
+        this.secret = secret;
+        this.signer = null;
+        return this;
+    }
+
+    /**
+     * retrieves the signer of the configured secret, the signer is thread-safe and shared by all requests using this
+     * configuration
+     *
+     * @return BreinSigner the signer, {@code null} if no secret is configured
+     */
+    public BreinSigner getSigner() {
+        BreinSigner current = this.signer;
+        if (current == null && this.secret != null) {
+            current = BreinSigner.forSecret(this.secret);
+            this.signer = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * returns the default category (if set)
+     *
+     * @return String default category
+     */
+    public String getDefaultCategory() {
+        return defaultCategory;
+    }
+
+    /**
+     * sets the default category
+     *
+     * @param defaultCategory String default to set
+     */
+    public BreinConfig setDefaultCategory(final String defaultCategory) {
+        this.defaultCategory = defaultCategory;
+        return this;
+    }
+
+    /**
+     * invokes the termination of the rest com.brein.engine.
+     * Depending of the configured com.brein.engine additional threads might
+     * have been allocated and this will close those threads.
+     */
+    public void shutdownEngine() {
+
+        // check valid objects
+        if (this.breinEngine == null) {
+            return;
+        }
+
+        if (this.breinEngine.getRestEngine() == null) {
+            return;
+        }
+
+        // invoke termination of the com.brein.engine
+        this.breinEngine.getRestEngine().terminate();
+    }
+
+    /**
+     * Validates if the URL is correct.
+     *
+     * @param url String to check
+     * @return boolean true if ok otherwise false
+     */
+    public boolean isUrlValid(final String url) {
+        return BreinUtil.isUrlValid(url);
+    }
+
+    public boolean isSign() {
+        return getSecret() != null && !getSecret().isEmpty();
+    }
+
+}
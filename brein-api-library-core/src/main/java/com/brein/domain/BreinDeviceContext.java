@@ -0,0 +1,239 @@
+package com.brein.domain;
+
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caches the information about the device which is added to the {@code additional} section of the user, i.e., the
+ * location, the network and the user agent. Each value is kept for its time to live (see {@link
+ * BreinConfig#setDeviceLocationTtl(long)}, {@link BreinConfig#setDeviceNetworkTtl(long)} and {@link
+ * BreinConfig#setUserAgentTtl(long)}), the platform may invalidate a value earlier, e.g., if the connectivity
+ * changed. The values are detected again when the next request needs them, so a request normally just
+ * reads the cached {@link Snapshot}.
+ * <p>
+ * The values are detected by the {@link IDeviceInfoProvider} of the platform (see {@link
+ * #setProvider(IDeviceInfoProvider)}), e.g., the Android module detects the location and the wifi network of the
+ * device; by default only the user agent is available.
+ */
+public class BreinDeviceContext {
+
+    public static final String LOCATION_FIELD = "location";
+    public static final String NETWORK_FIELD = "network";
+
+    /**
+     * provider used if the platform does not provide one, only the user agent is available
+     */
+    private static final IDeviceInfoProvider DEFAULT_PROVIDER = new IDeviceInfoProvider() {
+        @Override
+        public JsonObject detectLocation() {
+            return null;
+        }
+
+        @Override
+        public JsonObject detectNetwork() {
+            return null;
+        }
+
+        @Override
+        public String createUserAgent() {
+            return System.getProperty("http.agent");
+        }
+    };
+
+    // used for singleton
+    private static volatile BreinDeviceContext breinDeviceContextInstance;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    private volatile IDeviceInfoProvider provider = DEFAULT_PROVIDER;
+
+    protected BreinDeviceContext() {
+    }
+
+    public static BreinDeviceContext getInstance() {
+        // Double check locking pattern
+        if (breinDeviceContextInstance == null) {
+            synchronized (BreinDeviceContext.class) {
+                if (breinDeviceContextInstance == null) {
+                    breinDeviceContextInstance = new BreinDeviceContext();
+                }
+            }
+        }
+        return breinDeviceContextInstance;
+    }
+
+    /**
+     * Retrieves the cached values, values which are expired or invalidated are detected again.
+     *
+     * @param config BreinConfig contains the time to live of the values
+     * @return Snapshot the current values
+     */
+    public Snapshot getSnapshot(final BreinConfig config) {
+        final long now = System.nanoTime();
+        final Snapshot current = this.snapshot.get();
+
+        final boolean locationExpired = current.location.isExpired(now, config.getDeviceLocationTtl());
+        final boolean networkExpired = current.network.isExpired(now, config.getDeviceNetworkTtl());
+        final boolean userAgentExpired = current.userAgent.isExpired(now, config.getUserAgentTtl());
+        if (!locationExpired && !networkExpired && !userAgentExpired) {
+            return current;
+        }
+
+        final Snapshot updated = new Snapshot(
+                locationExpired ? new CachedValue<>(detectLocation(), now) : current.location,
+                networkExpired ? new CachedValue<>(detectNetwork(), now) : current.network,
+                userAgentExpired ? new CachedValue<>(createUserAgent(), now) : current.userAgent);
+
+        // if another thread updated the values in the meantime, its values are kept
+        this.snapshot.compareAndSet(current, updated);
+        return updated;
+    }
+
+    /**
+     * Marks the location as outdated, it is detected again with the next request.
+     */
+    public void invalidateLocation() {
+        while (true) {
+            final Snapshot current = this.snapshot.get();
+            final Snapshot updated = new Snapshot(current.location.invalidate(), current.network, current.userAgent);
+            if (this.snapshot.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks the network information as outdated, it is detected again with the next request.
+     */
+    public void invalidateNetwork() {
+        while (true) {
+            final Snapshot current = this.snapshot.get();
+            final Snapshot updated = new Snapshot(current.location, current.network.invalidate(), current.userAgent);
+            if (this.snapshot.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks all values as outdated.
+     */
+    public void invalidate() {
+        this.snapshot.set(Snapshot.EMPTY);
+    }
+
+    /**
+     * Sets the provider detecting the values, all cached values are detected again.
+     *
+     * @param provider IDeviceInfoProvider the provider, {@code null} to use the default one
+     */
+    public void setProvider(final IDeviceInfoProvider provider) {
+        this.provider = provider == null ? DEFAULT_PROVIDER : provider;
+        invalidate();
+    }
+
+    /**
+     * @return IDeviceInfoProvider the provider detecting the values
+     */
+    public IDeviceInfoProvider getProvider() {
+        return this.provider;
+    }
+
+    /**
+     * Detects the location of the device.
+     *
+     * @return JsonObject the location, {@code null} if not available
+     */
+    protected JsonObject detectLocation() {
+        return this.provider.detectLocation();
+    }
+
+    /**
+     * Detects the information about the network.
+     *
+     * @return JsonObject the network information, {@code null} if not available
+     */
+    protected JsonObject detectNetwork() {
+        return this.provider.detectNetwork();
+    }
+
+    /**
+     * Creates the user agent.
+     *
+     * @return String the user agent
+     */
+    protected String createUserAgent() {
+        return this.provider.createUserAgent();
+    }
+
+    /**
+     * The cached values, the values must not be modified.
+     */
+    public static class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(CachedValue.<JsonObject>invalid(),
+                CachedValue.<JsonObject>invalid(), CachedValue.<String>invalid());
+
+        private final CachedValue<JsonObject> location;
+        private final CachedValue<JsonObject> network;
+        private final CachedValue<String> userAgent;
+
+        private Snapshot(final CachedValue<JsonObject> location,
+                         final CachedValue<JsonObject> network,
+                         final CachedValue<String> userAgent) {
+            this.location = location;
+            this.network = network;
+            this.userAgent = userAgent;
+        }
+
+        /**
+         * @return JsonObject the location, {@code null} if not available
+         */
+        public JsonObject getLocation() {
+            return location.value;
+        }
+
+        /**
+         * @return JsonObject the network information, {@code null} if not available
+         */
+        public JsonObject getNetwork() {
+            return network.value;
+        }
+
+        /**
+         * @return String the user agent
+         */
+        public String getUserAgent() {
+            return userAgent.value;
+        }
+    }
+
+    private static class CachedValue<T> {
+        private final T value;
+        private final long time;
+        private final boolean valid;
+
+        private CachedValue(final T value, final long time) {
+            this(value, time, true);
+        }
+
+        private CachedValue(final T value, final long time, final boolean valid) {
+            this.value = value;
+            this.time = time;
+            this.valid = valid;
+        }
+
+        private static <T> CachedValue<T> invalid() {
+            return new CachedValue<>(null, 0L, false);
+        }
+
+        private CachedValue<T> invalidate() {
+            return new CachedValue<>(value, time, false);
+        }
+
+        private boolean isExpired(final long now, final long ttl) {
+            return !valid || now - time >= TimeUnit.MILLISECONDS.toNanos(ttl);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.brein.domain;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Resolves the information about the external ip-address using <a href="http://www.ip-api.com">ip-api.com</a>.
+ * <p>
+ * request: http://www.ip-api.com/json
+ * <p>
+ * response:
+ * {
+ * as: "AS3320 Deutsche Telekom AG",
+ * city: "Roetgen",
+ * country: "Germany",
+ * countryCode: "DE",
+ * isp: "Deutsche Telekom AG",
+ * lat: 50.65,
+ * lon: 6.2,
+ * org: "Deutsche Telekom AG",
+ * query: "217.247.43.188",
+ * region: "NW",
+ * regionName: "North Rhine-Westphalia",
+ * status: "success",
+ * timezone: "Europe/Berlin",
+ * zip: "52159"
+ * }
+ */
+public class BreinIpApiProvider implements IIpInfoProvider {
+
+    /**
+     * default url of the service
+     */
+    public static final String DEFAULT_URL = "http://www.ip-api.com/json";
+
+    /**
+     * default time in ms to wait for the connection and the response
+     */
+    private static final int DEFAULT_TIMEOUT = 5000;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String url;
+
+    /**
+     * Creates the provider requesting the default url.
+     */
+    public BreinIpApiProvider() {
+        this(DEFAULT_URL);
+    }
+
+    /**
+     * Creates the provider
+     *
+     * @param url String the url of the service
+     */
+    public BreinIpApiProvider(final String url) {
+        this.url = url;
+    }
+
+    @Override
+    public Map<String, Object> resolve() throws IOException {
+        HttpURLConnection conn = null;
+        JsonReader reader = null;
+        try {
+            conn = (HttpURLConnection) new URL(this.url).openConnection();
+            conn.setConnectTimeout(DEFAULT_TIMEOUT);
+            conn.setReadTimeout(DEFAULT_TIMEOUT);
+
+            final int statusCode = conn.getResponseCode();
+            if (statusCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected status code " + statusCode + " from " + this.url);
+            }
+
+            // the response is parsed while it is read
+            reader = new JsonReader(new InputStreamReader(conn.getInputStream(), UTF8));
+            return BreinResult.fromJson(reader).getMap();
+        } catch (final RuntimeException e) {
+            throw new IOException("Invalid response from " + this.url, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    // nothing to do
+                }
+            }
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * @return String the url of the service
+     */
+    public String getUrl() {
+        return url;
+    }
+}
@@ -0,0 +1,364 @@
+package com.brein.domain;
+
+
+import com.brein.util.BreinLogger;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves the information about the external ip-address of the device (using the configured {@link
+ * IIpInfoProvider}, by default {@link BreinIpApiProvider}). The information is kept for its time to live (see {@link
+ * BreinConfig#setIpInfoTtl(long)}) and, if a file is configured, persisted, so that the last known ip-address is
+ * available right after the start of the application. Afterwards the information is refreshed in the background, i.e.,
+ * outdated information is served until the refresh is finished. A changed connectivity leads to a refresh as well.
+ * <p>
+ * At most one refresh runs at a time (on a single background thread shared by all instances), a failed refresh is
+ * retried with the next access after a minute (or as soon as the connectivity changes).
+ */
+public class BreinIpInfo {
+
+    private static final String TAG = "BreinIpInfo";
+
+    public static final String IP_FIELD = "query";
+    public static final String TIMEZONE_FIELD = "timezone";
+
+    /**
+     * time in ms a failed refresh is not retried
+     */
+    private static final long RETRY_INTERVAL = 60L * 1000L;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String RESOLVED_AT_FIELD = "resolvedAt";
+    private static final String INFO_FIELD = "info";
+
+    /**
+     * the thread refreshing the information, shared by all instances
+     */
+    private static final ThreadPoolExecutor REFRESHER = createRefresher();
+
+    // used for singleton
+    private static volatile BreinIpInfo breinIpInfoInstance;
+
+    private volatile IIpInfoProvider provider;
+    private IIpInfoProvider configuredProvider = null;
+    private volatile long ttl;
+    private volatile File file;
+
+    private volatile ResolvedInfo info = null;
+    private volatile boolean invalidated = false;
+    private volatile long failedAt = -1;
+
+    /**
+     * flag if a refresh is running, so that at most one runs at a time
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    /**
+     * Creates the resolver using the settings of the configuration
+     *
+     * @param config BreinConfig contains the provider, the time to live and the file to persist the information in
+     */
+    protected BreinIpInfo(final BreinConfig config) {
+        apply(config);
+    }
+
+    public static BreinIpInfo getInstance() {
+        // Double check locking pattern
+        if (breinIpInfoInstance == null) { //Check for the first time
+
+            synchronized (BreinIpInfo.class) {   //Check for the second time.
+                //if there is no instance available... create new one
+                if (breinIpInfoInstance == null) {
+                    breinIpInfoInstance = new BreinIpInfo(new BreinConfig());
+                }
+            }
+        }
+        return breinIpInfoInstance;
+    }
+
+    /**
+     * Retrieves the instance and applies the settings of the configuration (see {@link #configure(BreinConfig)}), e.g.,
+     * to replace the provider before the ip-address is resolved the first time.
+     *
+     * @param config BreinConfig contains the provider, the time to live and the file to persist the information in
+     *
+     * @return BreinIpInfo the configured instance
+     */
+    public static BreinIpInfo getInstance(final BreinConfig config) {
+        synchronized (BreinIpInfo.class) {
+            if (breinIpInfoInstance == null) {
+                breinIpInfoInstance = new BreinIpInfo(config);
+            }
+        }
+
+        final BreinIpInfo instance = breinIpInfoInstance;
+        instance.configure(config);
+        return instance;
+    }
+
+    /**
+     * Applies the settings of the configuration, the persisted information is read (if not resolved so far) and a
+     * refresh is started if the information is outdated.
+     *
+     * @param config BreinConfig contains the provider, the time to live and the file to persist the information in
+     */
+    public void configure(final BreinConfig config) {
+        apply(config);
+        refreshIfNeeded();
+    }
+
+    /**
+     * Starts a refresh of the information in the background, unless a refresh is running already.
+     */
+    public void refreshData() {
+        if (!this.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            REFRESHER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refresh();
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            this.refreshing.set(false);
+            BreinLogger.w(TAG, "Unable to refresh the ip-address: " + e);
+        }
+    }
+
+    /**
+     * Marks the information as outdated and starts a refresh, e.g., because the connectivity changed. The outdated
+     * information is served until the refresh is finished.
+     */
+    public void invalidate() {
+        this.invalidated = true;
+        this.failedAt = -1;
+        refreshData();
+    }
+
+    public String getExternalIp() {
+        return get(IP_FIELD);
+    }
+
+    public String getTimezone() {
+        return get(TIMEZONE_FIELD);
+    }
+
+    /**
+     * @return boolean {@code true} if a refresh is running
+     */
+    public boolean isRefreshing() {
+        return this.refreshing.get();
+    }
+
+    /**
+     * @return long the time in ms the served information was resolved, {@code -1} if not resolved so far
+     */
+    public long getResolvedAt() {
+        final ResolvedInfo current = this.info;
+        return current == null ? -1 : current.resolvedAt;
+    }
+
+    /**
+     * @return long the current time in ms, used to determine the age of the information
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private String get(final String field) {
+        refreshIfNeeded();
+
+        final ResolvedInfo current = this.info;
+        final Object value = current == null ? null : current.values.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private void refreshIfNeeded() {
+        final long now = now();
+        final ResolvedInfo current = this.info;
+
+        final boolean outdated = current == null || this.invalidated || now - current.resolvedAt >= this.ttl;
+        final boolean retry = this.failedAt < 0 || now - this.failedAt >= RETRY_INTERVAL;
+        if (outdated && retry) {
+            refreshData();
+        }
+    }
+
+    private void refresh() {
+        final IIpInfoProvider used = this.provider;
+
+        Map<String, Object> values;
+        try {
+            values = used.resolve();
+        } catch (final IOException | RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to resolve the ip-address: " + e);
+            values = null;
+        }
+
+        if (used != this.provider) {
+            // the provider was replaced meanwhile, the next access refreshes using the new one
+            return;
+        } else if (values == null || !(values.get(IP_FIELD) instanceof String)) {
+            this.failedAt = now();
+        } else {
+            final ResolvedInfo resolved = new ResolvedInfo(Collections.unmodifiableMap(values), now());
+            this.info = resolved;
+            this.invalidated = false;
+            this.failedAt = -1;
+
+            write(resolved);
+        }
+    }
+
+    private synchronized void apply(final BreinConfig config) {
+        final IIpInfoProvider newProvider = config.getIpInfoProvider();
+        if (this.provider == null || newProvider != this.configuredProvider) {
+            this.provider = newProvider == null ? new BreinIpApiProvider() : newProvider;
+
+            // the information of another provider (or its failure) is outdated
+            this.invalidated = this.info != null;
+            this.failedAt = -1;
+        }
+        this.configuredProvider = newProvider;
+        this.ttl = config.getIpInfoTtl();
+
+        final File configuredFile = config.getIpInfoFile();
+        final boolean changedFile = configuredFile != null && !configuredFile.equals(this.file);
+        this.file = configuredFile;
+
+        if (changedFile && this.info == null) {
+            this.info = read(configuredFile);
+        }
+    }
+
+    private ResolvedInfo read(final File source) {
+        if (!source.exists()) {
+            return null;
+        }
+
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(new InputStreamReader(new FileInputStream(source), UTF8));
+
+            long resolvedAt = -1;
+            Map<String, Object> values = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (RESOLVED_AT_FIELD.equals(name)) {
+                    resolvedAt = reader.nextLong();
+                } else if (INFO_FIELD.equals(name)) {
+                    values = BreinResult.fromJson(reader).getMap();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return resolvedAt < 0 || values == null ? null :
+                    new ResolvedInfo(Collections.unmodifiableMap(values), resolvedAt);
+        } catch (final IOException | RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to read the persisted ip-address " + source + ": " + e);
+            return null;
+        } finally {
+            close(reader);
+        }
+    }
+
+    private synchronized void write(final ResolvedInfo resolved) {
+        final File target = this.file;
+        if (target == null) {
+            return;
+        }
+
+        // the information is written to a temporary file first, so a crash never leaves a partially written file
+        final File tmp = new File(target.getPath() + ".tmp");
+        JsonWriter writer = null;
+        try {
+            final File directory = target.getParentFile();
+            if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+                BreinLogger.w(TAG, "Unable to create the directory " + directory);
+            }
+
+            writer = new JsonWriter(new OutputStreamWriter(new FileOutputStream(tmp), UTF8));
+            writer.beginObject();
+            writer.name(RESOLVED_AT_FIELD).value(resolved.resolvedAt);
+            writer.name(INFO_FIELD);
+            BreinResult.GSON.toJson(resolved.values, Map.class, writer);
+            writer.endObject();
+            writer.close();
+            writer = null;
+
+            if (!tmp.renameTo(target)) {
+                BreinLogger.w(TAG, "Unable to persist the ip-address " + target);
+            }
+        } catch (final IOException | RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to write the ip-address " + target + ": " + e);
+        } finally {
+            close(writer);
+            if (tmp.exists() && !tmp.delete()) {
+                BreinLogger.w(TAG, "Unable to delete " + tmp);
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor createRefresher() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                BreinConfig.DEFAULT_EXECUTOR_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "breinify-ip-info");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static void close(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (final IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    private static class ResolvedInfo {
+        private final Map<String, Object> values;
+        private final long resolvedAt;
+
+        ResolvedInfo(final Map<String, Object> values, final long resolvedAt) {
+            this.values = values;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
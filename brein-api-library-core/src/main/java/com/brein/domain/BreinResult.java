@@ -2,7 +2,12 @@ package com.brein.domain;
 
 import com.brein.util.BreinMapUtil;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -11,6 +16,21 @@ import java.util.Map;
  */
 public class BreinResult {
 
+    /**
+     * Gson instance shared to parse the responses
+     */
+    public static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .create();
+
+    private static final TypeToken<Map<String, Object>> MAP_TYPE = new TypeToken<Map<String, Object>>() {
+    };
+
+    /**
+     * adapter used to parse a response into a map, looked up once
+     */
+    private static final TypeAdapter<Map<String, Object>> MAP_ADAPTER = GSON.getAdapter(MAP_TYPE);
+
     /**
      * contains the collected data as map
      */
@@ -20,15 +40,26 @@ public class BreinResult {
      * creates a brein result object
      * @param jsonResponse as json string
      */
-    @SuppressWarnings("unchecked")
     public BreinResult(final String jsonResponse) {
-        map = new Gson().fromJson(jsonResponse, Map.class);
+        map = GSON.fromJson(jsonResponse, MAP_TYPE.getType());
     }
 
     public BreinResult(final Map<String, Object> json) {
         this.map = json;
     }
 
+    /**
+     * creates a brein result object by reading the next value of the reader, i.e., the response is parsed while it
+     * is read
+     *
+     * @param reader JsonReader the reader positioned at the result object
+     * @return BreinResult the result, the map is {@code null} if the value is {@code null}
+     * @throws IOException if the response cannot be read or is malformed
+     */
+    public static BreinResult fromJson(final JsonReader reader) throws IOException {
+        return new BreinResult(MAP_ADAPTER.read(reader));
+    }
+
     /**
      * retrieves the object according to the requested key
      * @param key   String contains the key
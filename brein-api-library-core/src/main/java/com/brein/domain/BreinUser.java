@@ -1,29 +1,19 @@
 package com.brein.domain;
 
-import android.Manifest;
-import android.app.Application;
-import android.content.Context;
-import android.content.pm.PackageManager;
-import android.location.Location;
-import android.location.LocationManager;
-import android.net.wifi.WifiInfo;
-import android.net.wifi.WifiManager;
-import android.support.v4.app.ActivityCompat;
-import android.text.format.Formatter;
-
 import com.brein.api.BreinBase;
 import com.brein.api.BreinException;
-import com.brein.api.BreinifyManager;
+import com.brein.util.BreinCopyOnWriteMap;
+import com.brein.util.BreinJsonUtil;
 import com.brein.util.BreinMapUtil;
 import com.brein.util.BreinUtil;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
-import static android.content.Context.WIFI_SERVICE;
-import static com.brein.api.Breinify.getConfig;
+import static com.brein.api.BreinifyCore.getConfig;
 
 /**
  * A plain object specifying the user information the activity belongs to
@@ -33,14 +23,23 @@ public class BreinUser {
     public static final String USER_FIELD = "user";
     public static final String ADDITIONAL_FIELD = "additional";
 
+    /**
+     * fields of the additional section, which are provided by the {@code BreinDeviceContext} if not set
+     */
+    private static final String[] DEVICE_FIELDS = {
+            UserAdditionalField.USER_AGENT.getName(),
+            BreinDeviceContext.LOCATION_FIELD,
+            BreinDeviceContext.NETWORK_FIELD
+    };
+
     /**
      * contains further fields in the user additional section
      */
-    private Map<String, Object> additionalMap = new HashMap<>();
+    private BreinCopyOnWriteMap<String, Object> additionalMap = new BreinCopyOnWriteMap<>();
     /**
      * contains further fields in the user section
      */
-    private Map<String, Object> userMap;
+    private BreinCopyOnWriteMap<String, Object> userMap = new BreinCopyOnWriteMap<>();
 
     /**
      * create a brein user with field email.
@@ -57,6 +56,21 @@ public class BreinUser {
     public BreinUser() {
     }
 
+    /**
+     * Creates a snapshot of the user, i.e., an independent user containing the current values. Changes of this user
+     * do not affect the snapshot and vice versa. Creating the snapshot does not copy any values, the snapshot shares
+     * the current (unmodifiable) values.
+     *
+     * @return BreinUser the snapshot
+     */
+    public BreinUser snapshot() {
+        final BreinUser snapshot = new BreinUser();
+        snapshot.userMap = this.userMap.copy();
+        snapshot.additionalMap = this.additionalMap.copy();
+
+        return snapshot;
+    }
+
     /**
      * get the email of the user
      *
@@ -297,19 +311,7 @@ public class BreinUser {
      * @return String userAgent
      */
     public String createUserAgent() {
-
-        final Application appCtx = BreinifyManager.getInstance().getApplication();
-
-        String appName = "";
-        if (appCtx != null) {
-            appName = appCtx.getApplicationInfo().loadLabel(appCtx.getPackageManager()).toString();
-        }
-
-        // add the app
-        return System.getProperty("http.agent")
-                + "/("
-                + appName
-                + ")";
+        return BreinDeviceContext.getInstance().createUserAgent();
     }
 
     /**
@@ -433,111 +435,34 @@ public class BreinUser {
     }
 
     /**
-     * detects the GPS coordinates and adds this to the user.additional.location section
+     * adds the (cached) GPS coordinates to the user.additional.location section, the coordinates are added to each
+     * request anyways (if available)
      */
     public void detectGpsCoordinates() {
-
-        // firstly get the context
-        final Application applicationContext = getConfig().getApplication();
-        if (applicationContext == null) {
+        final BreinConfig config = getConfig();
+        if (config == null) {
             return;
         }
 
-        final LocationManager locationManager = (LocationManager) applicationContext.getSystemService(Context.LOCATION_SERVICE);
-        final List<String> providers = locationManager.getAllProviders(); // getProviders(true);
-
-        // Loop over the array backwards, and if you get an accurate location, then break out the loop
-        Location location = null;
-
-        for (int index = providers.size() - 1; index >= 0; index--) {
-
-            final int accessFineLocationPermission = ActivityCompat.checkSelfPermission(applicationContext,
-                    Manifest.permission.ACCESS_FINE_LOCATION);
-
-            final int accessCoarseLocationPermission = ActivityCompat.checkSelfPermission(applicationContext,
-                    Manifest.permission.ACCESS_COARSE_LOCATION);
-
-            if (accessCoarseLocationPermission != PackageManager.PERMISSION_GRANTED ||
-                    accessFineLocationPermission != PackageManager.PERMISSION_GRANTED) {
-                return;
-            }
-
-            /*
-            if (ActivityCompat.checkSelfPermission(applicationContext,
-                    Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED
-                    && ActivityCompat.checkSelfPermission(applicationContext,
-                    Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
-                // we do not have the permissions
-                return;
-            }
-            */
-            location = locationManager.getLastKnownLocation(providers.get(index));
-            if (location != null) {
-                break;
-            }
-        }
-
+        final JsonObject location = BreinDeviceContext.getInstance().getSnapshot(config).getLocation();
         if (location != null) {
-            final JsonObject locationData = new JsonObject();
-            locationData.addProperty("accuracy", location.getAccuracy());
-            locationData.addProperty("speed", location.getSpeed());
-            locationData.addProperty("latitude", location.getLatitude());
-            locationData.addProperty("longitude", location.getLongitude());
-
-            this.additionalMap.put("location", locationData);
+            this.additionalMap.put(BreinDeviceContext.LOCATION_FIELD, location);
         }
     }
 
     /**
-     * Provides network information within the user additional request
+     * adds the (cached) network information to the user.additional.network section, the information is added to
+     * each request anyways (if available)
      */
     public void detectNetwork() {
-
-        // firstly get the context
-        final Application applicationContext = getConfig().getApplication();
-        if (applicationContext == null) {
+        final BreinConfig config = getConfig();
+        if (config == null) {
             return;
         }
 
-        // only possible if permission has been granted
-        if (ActivityCompat.checkSelfPermission(applicationContext,
-                Manifest.permission.ACCESS_WIFI_STATE) == PackageManager.PERMISSION_GRANTED) {
-
-            final WifiManager wifiManager = (WifiManager) applicationContext
-                    .getApplicationContext()
-                    .getSystemService(WIFI_SERVICE);
-
-            if (wifiManager != null) {
-                final WifiInfo wifiInfo = wifiManager.getConnectionInfo();
-                if (wifiInfo != null) {
-                    // contains double quotes
-                    final String ssid = wifiInfo.getSSID().replace("\"", "");
-                    final String bssid = wifiInfo.getBSSID();
-                    // final boolean hiddenSsid = wifiInfo.getHiddenSSID();
-
-                    int ip = wifiInfo.getIpAddress();
-                    final String ipAddress = Formatter.formatIpAddress(ip);
-                    final int linkSpeed = wifiInfo.getLinkSpeed();
-                    final String macAddress = wifiInfo.getMacAddress();
-                    final int rssi = wifiInfo.getRssi();
-                    final int networkId = wifiInfo.getNetworkId();
-                    final String state = wifiInfo.getSupplicantState().toString();
-
-                    final JsonObject networkData = new JsonObject();
-                    networkData.addProperty("ssid", ssid);
-                    networkData.addProperty("bssid", bssid);
-                    networkData.addProperty("ipAddress", ipAddress);
-                    networkData.addProperty("linkSpeed", linkSpeed);
-                    networkData.addProperty("macAddress", macAddress);
-                    networkData.addProperty("rssi", rssi);
-                    networkData.addProperty("networkId", networkId);
-                    networkData.addProperty("state", state);
-
-                    if (this.additionalMap != null) {
-                        this.additionalMap.put("network", networkData);
-                    }
-                }
-            }
+        final JsonObject network = BreinDeviceContext.getInstance().getSnapshot(config).getNetwork();
+        if (network != null) {
+            this.additionalMap.put(BreinDeviceContext.NETWORK_FIELD, network);
         }
     }
 
@@ -566,8 +491,6 @@ public class BreinUser {
         if (ADDITIONAL_FIELD.equalsIgnoreCase(key)) {
             throw new BreinException("The field '" + ADDITIONAL_FIELD + "' cannot be set, " +
                     "use the setAdditional method to do so.");
-        } else if (this.userMap == null) {
-            this.userMap = new HashMap<>();
         }
 
         this.userMap.put(key, value);
@@ -595,9 +518,9 @@ public class BreinUser {
     @SuppressWarnings("unchecked")
     public <T> T get(final String key, final boolean additional) {
         if (additional) {
-            return this.additionalMap == null ? null : (T) this.additionalMap.get(key);
+            return (T) this.additionalMap.get(key);
         } else {
-            return this.userMap == null ? null : (T) this.userMap.get(key);
+            return (T) this.userMap.get(key);
         }
     }
 
@@ -620,10 +543,6 @@ public class BreinUser {
      * @return       BreinUser the object itself
      */
     public BreinUser setAdditional(final String key, final Object value) {
-        if (this.additionalMap == null) {
-            this.additionalMap = new HashMap<>();
-        }
-
         this.additionalMap.put(key, value);
         return this;
     }
@@ -639,25 +558,71 @@ public class BreinUser {
         requestData.put(USER_FIELD, userRequestData);
 
         // add the user-data, if there is any
-        if (this.userMap != null) {
-            // loop a Map
-            for (Map.Entry<String, Object> entry : this.userMap.entrySet()) {
-                if (BreinUtil.containsValue(entry.getValue())) {
-                    userRequestData.put(entry.getKey(), entry.getValue());
-                }
+        for (Map.Entry<String, Object> entry : this.userMap.snapshot().entrySet()) {
+            if (BreinUtil.containsValue(entry.getValue())) {
+                userRequestData.put(entry.getKey(), entry.getValue());
             }
         }
 
-        // tries to detect gps and network data this will be added to property additionalMap
-        detectGpsCoordinates();
-        detectNetwork();
+        // add the additional-data, completed by the cached location, network and userAgent
+        final Map<String, Object> additional = BreinMapUtil.copyMap(this.additionalMap.snapshot());
+        final BreinDeviceContext.Snapshot device = BreinDeviceContext.getInstance().getSnapshot(config);
+        for (final String key : DEVICE_FIELDS) {
+            final Object value = getDeviceValue(device, key);
+            if (value != null && !BreinUtil.containsValue(additional.get(key))) {
+                additional.put(key, value);
+            }
+        }
+        userRequestData.put(ADDITIONAL_FIELD, additional);
+    }
+
+    /**
+     * Writes the user data of the request, i.e., the streaming counterpart of {@link #prepareRequestData(BreinConfig,
+     * Map)}.
+     *
+     * @param config BreinConfig the configuration used to create the request body
+     * @param writer JsonWriter the writer to write to, the enclosing object must have been started
+     *
+     * @throws IOException if the user data cannot be written
+     */
+    public void writeRequestData(final BreinConfig config, final JsonWriter writer) throws IOException {
+        writer.name(USER_FIELD).beginObject();
+        BreinJsonUtil.writeEntries(writer, BreinBase.GSON, this.userMap.snapshot());
+
+        // add the additional-data, completed by the cached location, network and userAgent
+        final Map<String, Object> additional = this.additionalMap.snapshot();
+        final BreinDeviceContext.Snapshot device = BreinDeviceContext.getInstance().getSnapshot(config);
+
+        writer.name(ADDITIONAL_FIELD).beginObject();
+        for (final Map.Entry<String, Object> entry : additional.entrySet()) {
+
+            // empty values are replaced by the values of the device (if available)
+            if (BreinUtil.containsValue(entry.getValue()) || getDeviceValue(device, entry.getKey()) == null) {
+                writer.name(entry.getKey());
+                BreinJsonUtil.writeValue(writer, BreinBase.GSON, entry.getValue());
+            }
+        }
+        for (final String key : DEVICE_FIELDS) {
+            final Object value = getDeviceValue(device, key);
+            if (value != null && !BreinUtil.containsValue(additional.get(key))) {
+                writer.name(key);
+                BreinJsonUtil.writeValue(writer, BreinBase.GSON, value);
+            }
+        }
+        writer.endObject();
 
-        // check or create userAgent
-        handleUserAgent();
+        writer.endObject();
+    }
 
-        // add the additional-data, if there is any
-        if (this.additionalMap != null) {
-            userRequestData.put(ADDITIONAL_FIELD, BreinMapUtil.copyMap(this.additionalMap));
+    private static Object getDeviceValue(final BreinDeviceContext.Snapshot device, final String key) {
+        if (UserAdditionalField.USER_AGENT.getName().equals(key)) {
+            return device.getUserAgent();
+        } else if (BreinDeviceContext.LOCATION_FIELD.equals(key)) {
+            return device.getLocation();
+        } else if (BreinDeviceContext.NETWORK_FIELD.equals(key)) {
+            return device.getNetwork();
+        } else {
+            return null;
         }
     }
 
@@ -666,7 +631,7 @@ public class BreinUser {
      */
     public void handleUserAgent() {
         final String userAgent = this.getUserAgent();
-        if (userAgent == null || userAgent.length() != 0) {
+        if (userAgent == null || userAgent.length() == 0) {
             setUserAgent(createUserAgent());
         }
     }
@@ -719,7 +684,7 @@ public class BreinUser {
      * @return       T the value
      */
     protected <T> T getUserAdditionalField(final UserAdditionalField field) {
-        return get(field.getName());
+        return get(field.getName(), true);
     }
 
 
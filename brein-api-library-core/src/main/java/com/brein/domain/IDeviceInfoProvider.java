@@ -0,0 +1,25 @@
+package com.brein.domain;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Detects the information about the device which is cached by the {@link BreinDeviceContext}, i.e., the location, the
+ * network and the user agent. The methods are called whenever a cached value expired.
+ */
+public interface IDeviceInfoProvider {
+
+    /**
+     * @return JsonObject the location of the device, {@code null} if not available
+     */
+    JsonObject detectLocation();
+
+    /**
+     * @return JsonObject the information about the network, {@code null} if not available
+     */
+    JsonObject detectNetwork();
+
+    /**
+     * @return String the user agent, {@code null} if not available
+     */
+    String createUserAgent();
+}
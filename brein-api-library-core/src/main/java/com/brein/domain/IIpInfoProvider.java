@@ -0,0 +1,21 @@
+package com.brein.domain;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Provides the information about the external ip-address of the device (see {@link BreinIpInfo}), e.g., by requesting
+ * a web-service.
+ */
+public interface IIpInfoProvider {
+
+    /**
+     * Resolves the information, the method is called within a background thread.
+     *
+     * @return Map the information, the ip-address must be provided as {@link BreinIpInfo#IP_FIELD}, the timezone (if
+     * available) as {@link BreinIpInfo#TIMEZONE_FIELD}
+     *
+     * @throws IOException if the information cannot be resolved
+     */
+    Map<String, Object> resolve() throws IOException;
+}
@@ -0,0 +1,266 @@
+package com.brein.engine;
+
+import com.brein.api.BreinBase;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.util.BreinJsonUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the request bodies of activities and hands them over as one batch, whenever the batch reaches the
+ * configured number of activities, number of bytes or age. The bodies are created when the activity is added, i.e.,
+ * each activity keeps its own {@code unixTimestamp} (and signature).
+ */
+public class BreinActivityBatcher {
+
+    /**
+     * Handles a batch which is ready to be sent, the handler is called without holding any lock of the batcher.
+     */
+    public interface IFlushHandler {
+
+        /**
+         * @param batch List the activities of the batch, in the order they were added
+         */
+        void flush(List<Entry> batch);
+    }
+
+    /**
+     * An activity within a batch
+     */
+    public static class Entry {
+        private final byte[] body;
+        private final ICallback<BreinResult> callback;
+
+        public Entry(final byte[] body, final ICallback<BreinResult> callback) {
+            this.body = body;
+            this.callback = callback;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public ICallback<BreinResult> getCallback() {
+            return callback;
+        }
+    }
+
+    private static final String ACTIVITIES_FIELD = "activities";
+
+    private final int maxSize;
+    private final int maxBytes;
+    private final long interval;
+    private final IFlushHandler handler;
+
+    /**
+     * timer used to flush a batch after the interval
+     */
+    private final ScheduledThreadPoolExecutor timer;
+
+    private List<Entry> entries = new ArrayList<>();
+    private int bytes = 0;
+    private ScheduledFuture<?> scheduledFlush = null;
+    private boolean closed = false;
+
+    /**
+     * Creates the batcher based on the settings of the configuration
+     *
+     * @param config  BreinConfig contains the batch settings
+     * @param handler IFlushHandler handles the batches
+     */
+    public BreinActivityBatcher(final BreinConfig config, final IFlushHandler handler) {
+        this(config.getActivityBatchSize(),
+                config.getActivityBatchMaxBytes(),
+                config.getActivityBatchInterval(),
+                handler);
+    }
+
+    /**
+     * Creates the batcher
+     *
+     * @param maxSize  int maximal number of activities within a batch
+     * @param maxBytes int maximal size of a batch (sum of the sizes of the bodies)
+     * @param interval long maximal time in ms an activity waits within a batch
+     * @param handler  IFlushHandler handles the batches
+     */
+    public BreinActivityBatcher(final int maxSize,
+                                final int maxBytes,
+                                final long interval,
+                                final IFlushHandler handler) {
+        this.maxSize = Math.max(1, maxSize);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.interval = Math.max(1, interval);
+        this.handler = handler;
+
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "breinify-batch");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.timer.setKeepAliveTime(BreinConfig.DEFAULT_EXECUTOR_KEEP_ALIVE, TimeUnit.MILLISECONDS);
+        this.timer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Adds the activity to the current batch, the batch is handed over if it is full afterwards.
+     *
+     * @param body     byte[] the request body (UTF-8) of the activity
+     * @param callback ICallback informed with the result of the batch, may be {@code null}
+     *
+     * @return {@code true} if the activity was added, {@code false} if the batcher is closed
+     */
+    public boolean add(final byte[] body, final ICallback<BreinResult> callback) {
+        final List<List<Entry>> ready = new ArrayList<>(2);
+
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+
+            // the activity does not fit anymore, so send the current batch first
+            if (!entries.isEmpty() && bytes + body.length > maxBytes) {
+                ready.add(takeBatch());
+            }
+
+            entries.add(new Entry(body, callback));
+            bytes += body.length;
+
+            if (entries.size() >= maxSize || bytes >= maxBytes) {
+                ready.add(takeBatch());
+            } else if (scheduledFlush == null) {
+                scheduledFlush = timer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush();
+                    }
+                }, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        for (final List<Entry> batch : ready) {
+            handler.flush(batch);
+        }
+
+        return true;
+    }
+
+    /**
+     * Hands the current batch over, if there is any.
+     */
+    public void flush() {
+        final List<Entry> batch;
+        synchronized (this) {
+            batch = takeBatch();
+        }
+
+        if (!batch.isEmpty()) {
+            handler.flush(batch);
+        }
+    }
+
+    /**
+     * Hands the current batch over and stops the batcher, activities added afterwards are rejected.
+     */
+    public void close() {
+        final List<Entry> batch;
+        synchronized (this) {
+            batch = takeBatch();
+            closed = true;
+        }
+
+        timer.shutdownNow();
+        if (!batch.isEmpty()) {
+            handler.flush(batch);
+        }
+    }
+
+    /**
+     * @return int the number of activities within the current batch
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private List<Entry> takeBatch() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Entry> batch = entries;
+        entries = new ArrayList<>();
+        bytes = 0;
+
+        return batch;
+    }
+
+    /**
+     * Creates the body of the bulk request, i.e., the bodies of the activities are embedded unchanged as array.
+     *
+     * @param config BreinConfig the configuration (api-key and secret)
+     * @param batch  List the activities to send
+     *
+     * @return byte[] the request body (JSON, UTF-8)
+     */
+    public static byte[] createBulkBody(final BreinConfig config, final List<Entry> batch) {
+        final long unixTimestamp = System.currentTimeMillis() / 1000L;
+
+        final StringBuilder header = new StringBuilder(128);
+        header.append("{\"").append(BreinBase.API_KEY_FIELD).append("\":")
+                .append(BreinBase.GSON.toJson(config.getApiKey()))
+                .append(",\"").append(BreinBase.UNIX_TIMESTAMP_FIELD).append("\":").append(unixTimestamp)
+                .append(",\"").append(ACTIVITIES_FIELD).append("\":[");
+
+        final StringBuilder footer = new StringBuilder(128);
+        footer.append(']');
+        if (config.isSign()) {
+            final String signature = config.getSigner().message()
+                    .append(unixTimestamp)
+                    .append(batch.size())
+                    .sign();
+            footer.append(",\"").append(BreinBase.SIGNATURE_FIELD).append("\":")
+                    .append(BreinBase.GSON.toJson(signature))
+                    .append(",\"").append(BreinBase.SIGNATURE_TYPE_FIELD).append("\":\"HmacSHA256\"");
+        }
+        footer.append('}');
+
+        final byte[] headerBytes = header.toString().getBytes(BreinJsonUtil.UTF8);
+        final byte[] footerBytes = footer.toString().getBytes(BreinJsonUtil.UTF8);
+
+        int length = headerBytes.length + footerBytes.length + Math.max(0, batch.size() - 1);
+        for (final Entry entry : batch) {
+            length += entry.getBody().length;
+        }
+
+        final byte[] body = new byte[length];
+        System.arraycopy(headerBytes, 0, body, 0, headerBytes.length);
+        int pos = headerBytes.length;
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                body[pos++] = ',';
+            }
+
+            final byte[] entryBody = batch.get(i).getBody();
+            System.arraycopy(entryBody, 0, body, pos, entryBody.length);
+            pos += entryBody.length;
+        }
+        System.arraycopy(footerBytes, 0, body, pos, footerBytes.length);
+
+        return body;
+    }
+}
@@ -0,0 +1,549 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+import com.brein.util.BreinLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Disk-backed, append-only journal of activity requests that could not be sent. The journal is split into segment
+ * files, each record is written as {@code [length][createdAt][crc32][payload]} and validated when read. When the
+ * journal is replayed, the records are sent in order of creation, the ones which still cannot be sent are moved into
+ * the current segment (compaction) and the replayed segments are removed. The journal is bounded by the total size of
+ * all segments and by the age of the records.
+ * <p>
+ * All file operations are executed by a single background thread, i.e., appending never blocks the caller.
+ */
+public class BreinActivityJournal {
+
+    private static final String TAG = "BreinActivityJournal";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    /**
+     * size of the record header, i.e., length (int), creation time (long) and checksum (int)
+     */
+    private static final int HEADER_SIZE = 4 + 8 + 4;
+
+    /**
+     * records larger than this are considered to be corrupted
+     */
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+
+    /**
+     * Sends a journaled request
+     */
+    public interface ISender {
+
+        /**
+         * Sends the request synchronously
+         *
+         * @param url  String the fully qualified url of the request
+         * @param body byte[] the request body (UTF-8)
+         *
+         * @return {@code true} if the request is done (i.e., it was sent or can never be sent), {@code false} if it
+         * should be kept for a later replay
+         */
+        boolean send(final String url, final byte[] body);
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final long maxAge;
+    private final long segmentSize;
+
+    /**
+     * the single thread executing all file operations
+     */
+    private final ExecutorService io;
+
+    /**
+     * indicates that there are records waiting to be replayed
+     */
+    private volatile boolean pending = false;
+
+    /**
+     * flag set while a replay triggered by {@link #replayIfPending(ISender)} waits for execution
+     */
+    private final AtomicBoolean replayScheduled = new AtomicBoolean(false);
+
+    // the following fields are only accessed by the io thread
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+    private boolean opened = false;
+    private long currentSequence = 0;
+    private long currentSize = 0;
+    private long totalSize = 0;
+    private DataOutputStream out = null;
+
+    /**
+     * Creates the journal based on the offline queue settings of the configuration
+     *
+     * @param config BreinConfig contains the settings
+     */
+    public BreinActivityJournal(final BreinConfig config) {
+        this(config.getOfflineQueueDirectory(),
+                config.getOfflineQueueMaxBytes(),
+                config.getOfflineQueueMaxAge(),
+                config.getOfflineQueueSegmentSize());
+    }
+
+    /**
+     * Creates the journal
+     *
+     * @param directory   File the directory to store the segments in
+     * @param maxBytes    long maximal size of all segments
+     * @param maxAge      long maximal age (in ms) of a record, older records are dropped
+     * @param segmentSize long size of a segment, when exceeded a new segment is started
+     */
+    public BreinActivityJournal(final File directory,
+                                final long maxBytes,
+                                final long maxAge,
+                                final long segmentSize) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+        this.segmentSize = Math.max(HEADER_SIZE, Math.min(segmentSize, maxBytes));
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                BreinConfig.DEFAULT_EXECUTOR_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "breinify-journal");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.io = executor;
+    }
+
+    /**
+     * Appends the request to the journal (asynchronously).
+     *
+     * @param url  String the fully qualified url of the request
+     * @param body byte[] the request body (UTF-8)
+     */
+    public void append(final String url, final byte[] body) {
+        this.pending = true;
+        submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                open();
+                write(System.currentTimeMillis(), encode(url, body));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Replays the journal (asynchronously), i.e., the records are passed to the {@code sender} in the order they were
+     * added. The replay stops with the first record the sender could not send, this record and all following ones are
+     * kept for the next replay.
+     *
+     * @param sender ISender used to send the records
+     *
+     * @return Future the number of records sent
+     */
+    public Future<Integer> replay(final ISender sender) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws IOException {
+                replayScheduled.set(false);
+                open();
+                return replaySegments(sender);
+            }
+        });
+    }
+
+    /**
+     * Replays the journal (asynchronously) if there are pending records and no other replay is waiting to be
+     * executed, i.e., several calls in a row lead to a single replay.
+     *
+     * @param sender ISender used to send the records
+     *
+     * @return boolean {@code true} if a replay was scheduled, otherwise {@code false}
+     */
+    public boolean replayIfPending(final ISender sender) {
+        if (pending && replayScheduled.compareAndSet(false, true)) {
+            replay(sender);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Waits until all previously submitted operations are executed.
+     *
+     * @param timeoutInMs long maximal time to wait
+     */
+    public void flush(final long timeoutInMs) {
+        try {
+            submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    if (out != null) {
+                        out.flush();
+                    }
+                    return null;
+                }
+            }).get(timeoutInMs, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final Exception e) {
+            BreinLogger.w(TAG, "Unable to flush the journal", e);
+        }
+    }
+
+    /**
+     * Closes the journal, already submitted operations are executed before.
+     *
+     * @param timeoutInMs long maximal time to wait for pending operations
+     */
+    public void close(final long timeoutInMs) {
+        submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                closeSegment();
+                return null;
+            }
+        });
+        this.io.shutdown();
+
+        try {
+            this.io.awaitTermination(timeoutInMs, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return boolean true if there are records which may have to be replayed
+     */
+    public boolean hasPending() {
+        return pending;
+    }
+
+    /**
+     * @return File the directory the segments are stored in
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    protected <T> Future<T> submit(final Callable<T> task) {
+        return this.io.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try {
+                    return task.call();
+                } catch (final Exception e) {
+                    BreinLogger.w(TAG, "Journal operation failed", e);
+                    closeSegment();
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /*
+     * Everything below is executed by the io thread only.
+     */
+
+    private void open() throws IOException {
+        if (opened) {
+            return;
+        } else if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create journal directory: " + directory);
+        }
+
+        final File[] files = directory.listFiles();
+        final long now = System.currentTimeMillis();
+        if (files != null) {
+            for (final File file : files) {
+                final long sequence = parseSequence(file.getName());
+                if (sequence < 0) {
+                    continue;
+                } else if (now - file.lastModified() > maxAge || file.length() == 0) {
+
+                    // the newest record of the segment is too old (or there is none)
+                    delete(file);
+                } else {
+                    segments.put(sequence, file);
+                    totalSize += file.length();
+                }
+            }
+        }
+
+        currentSequence = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        pending = !segments.isEmpty();
+        opened = true;
+    }
+
+    private int replaySegments(final ISender sender) throws IOException {
+
+        // new records are written to a new segment
+        rollSegment();
+
+        final long now = System.currentTimeMillis();
+        final List<Long> replayed = new ArrayList<>(segments.headMap(currentSequence - 1).keySet());
+
+        int sent = 0;
+        int expired = 0;
+        boolean stopped = false;
+        for (final Long sequence : replayed) {
+            final File segment = segments.get(sequence);
+            if (segment == null) {
+
+                // the segment was dropped to keep the journal within its bounds
+                continue;
+            }
+
+            for (final Record record : read(segment)) {
+                if (now - record.createdAt > maxAge) {
+                    expired++;
+                } else if (stopped) {
+                    write(record.createdAt, record.payload);
+                } else {
+                    final int separator = indexOf(record.payload, (byte) '\n');
+                    if (separator < 0 || sender.send(new String(record.payload, 0, separator, UTF8),
+                            Arrays.copyOfRange(record.payload, separator + 1, record.payload.length))) {
+                        sent++;
+                    } else {
+                        stopped = true;
+                        write(record.createdAt, record.payload);
+                    }
+                }
+            }
+
+            segments.remove(sequence);
+            totalSize -= segment.length();
+            delete(segment);
+        }
+
+        pending = currentSize > 0;
+        if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+            BreinLogger.d(TAG, "Replayed journal, sent: " + sent + ", expired: " + expired + ", kept: " + pending);
+        }
+
+        return sent;
+    }
+
+    private void write(final long createdAt, final byte[] payload) throws IOException {
+        final int recordSize = HEADER_SIZE + payload.length;
+        if (payload.length > MAX_RECORD_SIZE || recordSize > maxBytes) {
+            BreinLogger.w(TAG, "Dropping record of " + payload.length + " bytes, exceeds the journal limits");
+            return;
+        } else if (out == null || (currentSize > 0 && currentSize + recordSize > segmentSize)) {
+            rollSegment();
+        }
+
+        final CRC32 crc = new CRC32();
+        updateCrc(crc, createdAt);
+        crc.update(payload, 0, payload.length);
+
+        out.writeInt(payload.length);
+        out.writeLong(createdAt);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+        out.flush();
+
+        currentSize += recordSize;
+        totalSize += recordSize;
+        pending = true;
+
+        enforceMaxBytes();
+    }
+
+    private List<Record> read(final File segment) {
+        final List<Record> records = new ArrayList<>();
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (final EOFException e) {
+                    break;
+                }
+
+                if (length < 0 || length > MAX_RECORD_SIZE) {
+                    BreinLogger.w(TAG, "Corrupted record length in " + segment + ", skipping remaining records");
+                    break;
+                }
+
+                final long createdAt = in.readLong();
+                final int checksum = in.readInt();
+                final byte[] payload = new byte[length];
+                in.readFully(payload);
+
+                final CRC32 crc = new CRC32();
+                updateCrc(crc, createdAt);
+                crc.update(payload, 0, payload.length);
+                if ((int) crc.getValue() != checksum) {
+                    BreinLogger.w(TAG, "Checksum mismatch in " + segment + ", skipping remaining records");
+                    break;
+                }
+
+                records.add(new Record(createdAt, payload));
+            }
+        } catch (final EOFException e) {
+            BreinLogger.w(TAG, "Truncated record in " + segment + ", skipping remaining records");
+        } catch (final IOException e) {
+            BreinLogger.w(TAG, "Unable to read segment " + segment, e);
+        } finally {
+            closeQuietly(in);
+        }
+
+        return records;
+    }
+
+    private void rollSegment() throws IOException {
+        closeSegment();
+
+        final File segment = new File(directory, SEGMENT_PREFIX + String.format("%019d", currentSequence)
+                + SEGMENT_SUFFIX);
+        segments.put(currentSequence, segment);
+        currentSequence++;
+        currentSize = 0;
+
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(segment, true)));
+    }
+
+    private void closeSegment() {
+        closeQuietly(out);
+        out = null;
+
+        // remove an empty segment right away
+        if (!segments.isEmpty()) {
+            final Map.Entry<Long, File> last = segments.lastEntry();
+            if (last.getValue().length() == 0) {
+                segments.remove(last.getKey());
+                delete(last.getValue());
+            }
+        }
+    }
+
+    private void enforceMaxBytes() throws IOException {
+        while (totalSize > maxBytes && !segments.isEmpty()) {
+            final Map.Entry<Long, File> oldest = segments.firstEntry();
+
+            // the current segment is removed last, a new one is started in that case
+            if (oldest.getKey() == currentSequence - 1) {
+                closeQuietly(out);
+                out = null;
+                currentSize = 0;
+            }
+
+            final long size = oldest.getValue().length();
+            segments.remove(oldest.getKey());
+            delete(oldest.getValue());
+            totalSize -= size;
+            BreinLogger.w(TAG, "Journal exceeds " + maxBytes + " bytes, dropped segment with " + size + " bytes");
+        }
+
+        if (out == null) {
+            rollSegment();
+        }
+    }
+
+    private static byte[] encode(final String url, final byte[] body) {
+        final byte[] urlBytes = url.getBytes(UTF8);
+        final byte[] payload = new byte[urlBytes.length + 1 + body.length];
+
+        System.arraycopy(urlBytes, 0, payload, 0, urlBytes.length);
+        payload[urlBytes.length] = '\n';
+        System.arraycopy(body, 0, payload, urlBytes.length + 1, body.length);
+
+        return payload;
+    }
+
+    private static int indexOf(final byte[] values, final byte value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static void updateCrc(final CRC32 crc, final long value) {
+        for (int i = 56; i >= 0; i -= 8) {
+            crc.update((int) (value >>> i) & 0xFF);
+        }
+    }
+
+    private static long parseSequence(final String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void delete(final File file) {
+        if (file.exists() && !file.delete()) {
+            BreinLogger.w(TAG, "Unable to delete " + file);
+        }
+    }
+
+    private static void closeQuietly(final java.io.Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (final IOException e) {
+            // nothing to do
+        }
+    }
+
+    /**
+     * A record read from a segment
+     */
+    private static class Record {
+        private final long createdAt;
+        private final byte[] payload;
+
+        Record(final long createdAt, final byte[] payload) {
+            this.createdAt = createdAt;
+            this.payload = payload;
+        }
+    }
+}
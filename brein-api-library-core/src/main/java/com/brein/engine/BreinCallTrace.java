@@ -0,0 +1,135 @@
+package com.brein.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The trace of a single call, passes the events of the call (with its correlation id and the current timestamp) to
+ * the {@link BreinEventListener}. A call which is not sampled uses {@link #NONE}, which ignores all events, i.e., no
+ * timestamp is taken.
+ */
+public final class BreinCallTrace {
+
+    /**
+     * trace of calls which are not sampled
+     */
+    public static final BreinCallTrace NONE = new BreinCallTrace(BreinEventListener.NONE, 0, false);
+
+    /**
+     * the correlation ids of the traced calls
+     */
+    private static final AtomicLong CALL_IDS = new AtomicLong();
+
+    private final BreinEventListener listener;
+    private final long callId;
+    private final boolean enabled;
+
+    private BreinCallTrace(final BreinEventListener listener, final long callId, final boolean enabled) {
+        this.listener = listener;
+        this.callId = callId;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts the trace of a call, if the listener samples it.
+     *
+     * @param listener BreinEventListener the listener, may be {@code null}
+     * @param endpoint String the endpoint of the call, e.g. {@code /activity}
+     *
+     * @return BreinCallTrace the trace of the call, {@link #NONE} if the call is not traced
+     */
+    public static BreinCallTrace start(final BreinEventListener listener, final String endpoint) {
+        if (listener == null || listener == BreinEventListener.NONE || !listener.isSampled(endpoint)) {
+            return NONE;
+        }
+
+        final BreinCallTrace trace = new BreinCallTrace(listener, CALL_IDS.incrementAndGet(), true);
+        listener.callStart(trace.callId, endpoint, System.nanoTime());
+        return trace;
+    }
+
+    /**
+     * @return boolean {@code true} if the events of the call are passed to a listener
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return long the correlation id of the call, {@code 0} if the call is not traced
+     */
+    public long getCallId() {
+        return callId;
+    }
+
+    public void serializationStart() {
+        if (enabled) {
+            listener.serializationStart(callId, System.nanoTime());
+        }
+    }
+
+    public void serializationEnd(final int bytes) {
+        if (enabled) {
+            listener.serializationEnd(callId, bytes, System.nanoTime());
+        }
+    }
+
+    public void attemptStart(final int attempt) {
+        if (enabled) {
+            listener.attemptStart(callId, attempt, System.nanoTime());
+        }
+    }
+
+    public void connectStart() {
+        if (enabled) {
+            listener.connectStart(callId, System.nanoTime());
+        }
+    }
+
+    public void connectEnd() {
+        if (enabled) {
+            listener.connectEnd(callId, System.nanoTime());
+        }
+    }
+
+    public void requestBodyEnd(final int bytes) {
+        if (enabled) {
+            listener.requestBodyEnd(callId, bytes, System.nanoTime());
+        }
+    }
+
+    public void responseHeadersEnd(final int statusCode) {
+        if (enabled) {
+            listener.responseHeadersEnd(callId, statusCode, System.nanoTime());
+        }
+    }
+
+    public void attemptFailed(final int attempt, final int statusCode) {
+        if (enabled) {
+            listener.attemptFailed(callId, attempt, statusCode, System.nanoTime());
+        }
+    }
+
+    public void parseStart() {
+        if (enabled) {
+            listener.parseStart(callId, System.nanoTime());
+        }
+    }
+
+    public void parseEnd() {
+        if (enabled) {
+            listener.parseEnd(callId, System.nanoTime());
+        }
+    }
+
+    public void callEnd() {
+        if (enabled) {
+            listener.callEnd(callId, System.nanoTime());
+        }
+    }
+
+    public void callFailed() {
+        if (enabled) {
+            listener.callFailed(callId, System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.brein.engine;
+
+import com.brein.api.BreinRequestException;
+import com.brein.api.ICallback;
+import com.brein.api.IRequestCallback;
+import com.brein.domain.BreinResult;
+
+import java.net.HttpURLConnection;
+
+/**
+ * Informs the callbacks of the requests. An {@link IRequestCallback} is informed about the reason of a failure and
+ * may abandon its request, any other {@link ICallback} receives {@code null} if the request failed.
+ */
+public final class BreinCallbacks {
+
+    private BreinCallbacks() {
+        // utility class
+    }
+
+    /**
+     * Informs the callback about the response of the backend.
+     *
+     * @param callback   ICallback the callback to inform, may be {@code null}
+     * @param result     BreinResult the result read from the response, {@code null} if it could not be read
+     * @param statusCode int the status code of the response
+     */
+    public static void respond(final ICallback<BreinResult> callback, final BreinResult result, final int statusCode) {
+        if (callback == null) {
+            return;
+        }
+
+        if (result != null) {
+            callback.callback(result);
+        } else if (statusCode == HttpURLConnection.HTTP_OK) {
+            fail(callback, new BreinRequestException(BreinRequestException.Reason.INVALID_RESPONSE, statusCode,
+                    "The response could not be read"));
+        } else {
+            fail(callback, new BreinRequestException(BreinRequestException.Reason.HTTP_STATUS, statusCode,
+                    "The request failed with status: " + statusCode));
+        }
+    }
+
+    /**
+     * Informs the callback about the failure of the request.
+     *
+     * @param callback ICallback the callback to inform, may be {@code null}
+     * @param error    BreinRequestException the reason of the failure
+     */
+    @SuppressWarnings("unchecked")
+    public static void fail(final ICallback<BreinResult> callback, final BreinRequestException error) {
+        if (callback instanceof IRequestCallback) {
+            ((IRequestCallback<BreinResult>) callback).onError(error);
+        } else if (callback != null) {
+            callback.callback(null);
+        }
+    }
+
+    /**
+     * @param callback ICallback the callback of the request, may be {@code null}
+     *
+     * @return boolean {@code true} if the callback does not wait for the result anymore, i.e., the request need not
+     * be sent
+     */
+    public static boolean isDone(final ICallback<?> callback) {
+        return callback instanceof IRequestCallback && ((IRequestCallback<?>) callback).isDone();
+    }
+
+    /**
+     * Sets the action aborting the request, if the callback is able to abandon its request.
+     *
+     * @param callback ICallback the callback of the request, may be {@code null}
+     * @param action   Runnable the action aborting the request
+     */
+    public static void setCancelAction(final ICallback<?> callback, final Runnable action) {
+        if (callback instanceof IRequestCallback) {
+            ((IRequestCallback<?>) callback).setCancelAction(action);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.brein.engine;
+
+/**
+ * Circuit breaker of a single endpoint. The breaker keeps the outcomes of the last requests (a window of a fixed
+ * number of requests); if the rate of failed requests reaches the threshold, the circuit is opened and further
+ * requests fail fast, i.e., without opening a connection. After the open duration, a single trial request is let
+ * through (half-open): if it succeeds the circuit is closed again, otherwise it is opened for another open duration.
+ * <p>
+ * A request is considered as failed, if it could not be sent or the backend answered with a status code indicating a
+ * temporary failure (see {@link HttpUrlRestEngine#isRetryable(int)}); every attempt of a retried request counts.
+ */
+public class BreinCircuitBreaker {
+
+    /**
+     * The states of the breaker
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Informed whenever the state of a breaker changes
+     */
+    public interface IStateListener {
+
+        /**
+         * @param breaker BreinCircuitBreaker the breaker which changed its state
+         * @param from    State the previous state
+         * @param to      State the new state
+         */
+        void onStateChange(final BreinCircuitBreaker breaker, final State from, final State to);
+    }
+
+    private final String endpoint;
+    private final double failureRateThreshold;
+    private final int minimumRequests;
+    private final long openDuration;
+    private final IStateListener listener;
+
+    /**
+     * outcomes of the last requests ({@code true} if failed), used as ring buffer
+     */
+    private final boolean[] window;
+    private int windowPos = 0;
+    private int windowCount = 0;
+    private int windowFailures = 0;
+
+    private State state = State.CLOSED;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+    private long rejectedCount = 0;
+
+    /**
+     * Creates the breaker
+     *
+     * @param endpoint             String the endpoint the breaker is used for
+     * @param failureRateThreshold double the rate of failed requests (0.0 to 1.0) which opens the circuit
+     * @param windowSize           int the number of requests the rate is determined for
+     * @param minimumRequests      int the minimal number of requests within the window before the circuit is opened
+     * @param openDuration         long the time in ms the circuit is kept open
+     * @param listener             IStateListener informed about state changes, may be {@code null}
+     */
+    public BreinCircuitBreaker(final String endpoint,
+                               final double failureRateThreshold,
+                               final int windowSize,
+                               final int minimumRequests,
+                               final long openDuration,
+                               final IStateListener listener) {
+        this.endpoint = endpoint;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumRequests = Math.max(1, Math.min(this.window.length, minimumRequests));
+        this.openDuration = Math.max(0, openDuration);
+        this.listener = listener;
+    }
+
+    /**
+     * Checks if the circuit rejects requests at the moment, i.e., it is open and the open duration did not pass so
+     * far. The check does not change the state of the breaker.
+     *
+     * @return boolean {@code true} if requests fail fast
+     */
+    public synchronized boolean isRejecting() {
+        return state == State.OPEN && now() - openedAt < openDuration;
+    }
+
+    /**
+     * Checks if a request may be sent. If so, the outcome of the request must be reported using {@link #onSuccess()}
+     * or {@link #onFailure()}.
+     *
+     * @return boolean {@code true} if the request may be sent, {@code false} if it should fail fast
+     */
+    public boolean allowRequest() {
+        State from = null;
+        final boolean allowed;
+
+        synchronized (this) {
+            if (state == State.OPEN && now() - openedAt >= openDuration) {
+                from = state;
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+            }
+
+            if (state == State.CLOSED) {
+                allowed = true;
+            } else if (state == State.HALF_OPEN && !trialInFlight) {
+                trialInFlight = true;
+                allowed = true;
+            } else {
+                rejectedCount++;
+                allowed = false;
+            }
+        }
+
+        if (from != null) {
+            notifyListener(from, State.HALF_OPEN);
+        }
+        return allowed;
+    }
+
+    /**
+     * Records a successful request.
+     */
+    public void onSuccess() {
+        record(false);
+    }
+
+    /**
+     * Records a failed request.
+     */
+    public void onFailure() {
+        record(true);
+    }
+
+    /**
+     * Closes the circuit and forgets the recorded requests.
+     */
+    public void reset() {
+        final State from;
+        synchronized (this) {
+            from = state;
+            close();
+        }
+
+        if (from != State.CLOSED) {
+            notifyListener(from, State.CLOSED);
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return double the rate of failed requests within the current window, {@code 0.0} if no request was recorded
+     */
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0.0 : windowFailures / (double) windowCount;
+    }
+
+    /**
+     * @return long the number of requests which failed fast so far
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return endpoint + ": " + state + ", failure rate: " + getFailureRate() + ", rejected: " + rejectedCount;
+    }
+
+    /**
+     * @return long the current time in ms, used to determine the open duration
+     */
+    protected long now() {
+        return System.nanoTime() / 1000000L;
+    }
+
+    private void record(final boolean failed) {
+        final State from;
+        final State to;
+
+        synchronized (this) {
+            from = state;
+
+            if (state == State.HALF_OPEN) {
+                if (failed) {
+                    open();
+                } else {
+                    close();
+                }
+            } else if (state == State.CLOSED) {
+                if (windowCount == window.length) {
+                    windowFailures -= window[windowPos] ? 1 : 0;
+                } else {
+                    windowCount++;
+                }
+                window[windowPos] = failed;
+                windowFailures += failed ? 1 : 0;
+                windowPos = (windowPos + 1) % window.length;
+
+                if (windowCount >= minimumRequests && getFailureRate() >= failureRateThreshold) {
+                    open();
+                }
+            }
+
+            // outcomes of requests sent before the circuit was opened are ignored
+            to = state;
+        }
+
+        if (from != to) {
+            notifyListener(from, to);
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = now();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        windowPos = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private void notifyListener(final State from, final State to) {
+        if (listener != null) {
+            listener.onStateChange(this, from, to);
+        }
+    }
+}
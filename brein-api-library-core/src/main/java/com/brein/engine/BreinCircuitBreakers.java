@@ -0,0 +1,63 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The circuit breakers of the endpoints, a breaker is created (based on the configuration) with the first request of
+ * its endpoint.
+ */
+public class BreinCircuitBreakers {
+
+    private final ConcurrentHashMap<String, BreinCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private volatile BreinConfig config = new BreinConfig();
+
+    /**
+     * Sets the configuration used to create the breakers, the already created breakers are dropped.
+     *
+     * @param config BreinConfig the configuration
+     */
+    public void configure(final BreinConfig config) {
+        this.config = config == null ? new BreinConfig() : config;
+        this.breakers.clear();
+    }
+
+    /**
+     * Retrieves the breaker of the endpoint, creates it if not available so far.
+     *
+     * @param endpoint String the endpoint, e.g. {@code /activity}
+     *
+     * @return BreinCircuitBreaker the breaker, {@code null} if circuit breakers are disabled
+     */
+    public BreinCircuitBreaker get(final String endpoint) {
+        final BreinConfig current = this.config;
+        if (endpoint == null || !current.isCircuitBreakerEnabled()) {
+            return null;
+        }
+
+        BreinCircuitBreaker breaker = this.breakers.get(endpoint);
+        if (breaker == null) {
+            final BreinCircuitBreaker created = new BreinCircuitBreaker(endpoint,
+                    current.getCircuitBreakerFailureRateThreshold(),
+                    current.getCircuitBreakerWindowSize(),
+                    current.getCircuitBreakerMinimumRequests(),
+                    current.getCircuitBreakerOpenDuration(),
+                    current.getCircuitBreakerListener());
+            breaker = this.breakers.putIfAbsent(endpoint, created);
+            breaker = breaker == null ? created : breaker;
+        }
+
+        return breaker;
+    }
+
+    /**
+     * @return Map the breakers created so far, by endpoint
+     */
+    public Map<String, BreinCircuitBreaker> getAll() {
+        return Collections.unmodifiableMap(this.breakers);
+    }
+}
@@ -0,0 +1,238 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+
+/**
+ * Adaptive limit of the requests in flight. The limit is adjusted with every response, based on the measured round
+ * trip time (RTT) compared to the minimal RTT observed:
+ * <ul>
+ * <li>as long as the RTT stays within the tolerance of the minimal RTT, the limit grows (by about the square root of
+ * the limit), as more requests can be sent without being queued somewhere,</li>
+ * <li>if the RTT exceeds the tolerance, requests are queued (by the network or the backend) and the limit shrinks
+ * proportionally (gradient),</li>
+ * <li>if a request fails (e.g., a timeout or a throttled request), the limit is decreased multiplicatively.</li>
+ * </ul>
+ * The minimal RTT is determined anew after a window of responses, so the limiter adapts to a changed network (e.g.,
+ * switching from Wi-Fi to a mobile network). The limit only grows while it is used, i.e., at least half of the
+ * permits are taken.
+ */
+public class BreinConcurrencyLimiter {
+
+    /**
+     * number of responses after which the minimal RTT is determined anew
+     */
+    public static final int DEFAULT_RTT_WINDOW = 100;
+
+    /**
+     * weight of a new limit, the limit is smoothed to not overreact to a single response
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * the limit is multiplied with this ratio, whenever a request failed
+     */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * the smallest gradient applied, i.e., the limit is at most halved by a single response
+     */
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final int rttWindow;
+
+    private double limit;
+    private int inFlight = 0;
+
+    private long minRtt = -1;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private int windowSamples = 0;
+    private double smoothedRtt = 0.0;
+
+    /**
+     * Creates the limiter based on the settings of the configuration, the limit starts with the core pool size. The
+     * limits are clamped to the max pool size, i.e., the limiter never asks for more threads than configured.
+     *
+     * @param config BreinConfig contains the limiter settings
+     */
+    public BreinConcurrencyLimiter(final BreinConfig config) {
+        this(config.getExecutorCorePoolSize(),
+                Math.min(config.getConcurrencyLimitMin(), config.getExecutorMaxPoolSize()),
+                Math.min(config.getConcurrencyLimitMax(), config.getExecutorMaxPoolSize()),
+                config.getConcurrencyLimitRttTolerance(),
+                DEFAULT_RTT_WINDOW);
+    }
+
+    /**
+     * Creates the limiter
+     *
+     * @param initialLimit int the limit used until the first responses are received
+     * @param minLimit     int the smallest limit
+     * @param maxLimit     int the largest limit
+     * @param rttTolerance double the factor the RTT may exceed the minimal RTT, before requests are considered queued
+     * @param rttWindow    int number of responses after which the minimal RTT is determined anew
+     */
+    public BreinConcurrencyLimiter(final int initialLimit,
+                                   final int minLimit,
+                                   final int maxLimit,
+                                   final double rttTolerance,
+                                   final int rttWindow) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.rttTolerance = Math.max(1.0, rttTolerance);
+        this.rttWindow = Math.max(1, rttWindow);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Takes a permit to send a request, if the limit is not reached. A taken permit must be returned using {@link
+     * #release(long, boolean)}.
+     *
+     * @return boolean {@code true} if the request may be sent, otherwise {@code false}
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight < getLimit()) {
+            inFlight++;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the permit of a request and adjusts the limit.
+     *
+     * @param rttInNanos long the time from sending the request to receiving the response, {@code -1} if the request
+     *                   was not sent (the limit is not adjusted in that case)
+     * @param dropped    boolean {@code true} if the request failed, e.g., timed out or was throttled
+     */
+    public synchronized void release(final long rttInNanos, final boolean dropped) {
+        final int used = inFlight;
+        inFlight = Math.max(0, inFlight - 1);
+
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else if (rttInNanos > 0) {
+            sample(rttInNanos, used);
+        }
+    }
+
+    /**
+     * @return int the current limit of requests in flight
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return int the number of requests in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return long the minimal RTT in ns, {@code -1} if no response was received so far
+     */
+    public synchronized long getMinRtt() {
+        return minRtt;
+    }
+
+    /**
+     * @return long the smoothed RTT of the last responses in ns, {@code -1} if no response was received so far
+     */
+    public synchronized long getSmoothedRtt() {
+        return smoothedRtt == 0.0 ? -1 : (long) smoothedRtt;
+    }
+
+    /**
+     * Retrieves a snapshot of the current state of the limiter
+     *
+     * @param waitingCount int the number of requests waiting for a permit
+     *
+     * @return Statistics the current values
+     */
+    public synchronized Statistics getStatistics(final int waitingCount) {
+        return new Statistics(getLimit(), inFlight, waitingCount, getMinRtt(), getSmoothedRtt());
+    }
+
+    private void sample(final long rtt, final int used) {
+        smoothedRtt = smoothedRtt == 0.0 ? rtt : smoothedRtt * (1.0 - SMOOTHING) + rtt * SMOOTHING;
+
+        // the minimal RTT of the current window replaces the one of the previous window
+        windowMinRtt = Math.min(windowMinRtt, rtt);
+        minRtt = minRtt < 0 ? rtt : Math.min(minRtt, rtt);
+        if (++windowSamples >= rttWindow) {
+            minRtt = windowMinRtt;
+            windowMinRtt = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+
+        final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * minRtt / rtt));
+
+        // the limit is not increased if it is not used, i.e., the application does not send enough requests
+        if (gradient >= 1.0 && used * 2 < getLimit()) {
+            return;
+        }
+
+        final double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = limit * (1.0 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.min(maxLimit, Math.max(minLimit, limit));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getStatistics(0).toString();
+    }
+
+    /**
+     * Immutable snapshot of the limiter statistics
+     */
+    public static class Statistics {
+        private final int limit;
+        private final int inFlight;
+        private final int waitingCount;
+        private final long minRtt;
+        private final long smoothedRtt;
+
+        public Statistics(final int limit,
+                          final int inFlight,
+                          final int waitingCount,
+                          final long minRtt,
+                          final long smoothedRtt) {
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.waitingCount = waitingCount;
+            this.minRtt = minRtt;
+            this.smoothedRtt = smoothedRtt;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getWaitingCount() {
+            return waitingCount;
+        }
+
+        public long getMinRtt() {
+            return minRtt;
+        }
+
+        public long getSmoothedRtt() {
+            return smoothedRtt;
+        }
+
+        @Override
+        public String toString() {
+            return "limit: " + limit + ", in flight: " + inFlight + ", waiting: " + waitingCount +
+                    ", min rtt: " + (minRtt / 1000000L) + "ms, smoothed rtt: " + (smoothedRtt / 1000000L) + "ms";
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinBase;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinRecommendation;
+import com.brein.api.BreinTemporalData;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.util.BreinLogger;
+import com.brein.util.BreinUtil;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the Rest Engines (see {@link BreinRestEngineRegistry}) and provides the methods to
+ * invoke activity and lookup calls. The engine is selected by the configuration, optionally per endpoint.
+ */
+public class BreinEngine {
+
+    /**
+     * creation of rest com.brein.engine, i.e., the default engine of the configuration
+     */
+    private volatile IRestEngine restEngine = null;
+
+    /**
+     * the engines created so far by type
+     */
+    private final Map<BreinEngineType, IRestEngine> engines = new EnumMap<>(BreinEngineType.class);
+
+    /**
+     * circuit breakers of the endpoints
+     */
+    private final BreinCircuitBreakers circuitBreakers = new BreinCircuitBreakers();
+
+    /**
+     * compressor of the request bodies, records the ratio per endpoint
+     */
+    private final BreinRequestCompressor requestCompressor = new BreinRequestCompressor();
+
+    /**
+     * metrics of the requests per endpoint
+     */
+    private final BreinMetrics metrics = new BreinMetrics();
+
+    /**
+     * listener informed about the phases of the requests, passed to every rest engine
+     */
+    private volatile BreinEventListener eventListener = BreinEventListener.NONE;
+
+    /**
+     * cache of temporalData results, {@code null} if disabled
+     */
+    private volatile BreinTemporalDataCache temporalDataCache = null;
+
+    /**
+     * stale-while-revalidate cache of recommendation results, {@code null} if disabled
+     */
+    private volatile BreinRecommendationCache recommendationCache = null;
+
+    /**
+     * coalesces identical requests in flight, {@code null} if disabled
+     */
+    private volatile BreinSingleFlight singleFlight = null;
+
+    /**
+     * Creates the com.brein.engine
+     */
+    public BreinEngine() {
+        restEngine = getRestEngine(null, BreinRestEngineRegistry.DEFAULT_TYPE);
+        metrics.registerGauge(BreinMetrics.QUEUED_GAUGE, new BreinMetrics.IGauge() {
+            @Override
+            public long getValue() {
+                return getQueuedCount();
+            }
+        });
+        metrics.registerGauge(BreinMetrics.CONCURRENCY_LIMIT_GAUGE, new BreinMetrics.IGauge() {
+            @Override
+            public long getValue() {
+                return getConcurrencyLimit();
+            }
+        });
+    }
+
+    /**
+     * sends an activity to the breinify server
+     *
+     * @param activity data
+     */
+    public void sendActivity(final BreinActivity activity) {
+        if (activity != null) {
+            restEngine.doRequest(activity);
+        }
+    }
+
+    /**
+     * performs a lookup. This will be delegated to the
+     * configured restEngine.
+     *
+     * @param breinLookup contains the appropriate data for the lookup
+     *                    request
+     * @return if succeeded a BreinResponse object or  null
+     */
+    public BreinResult performLookUp(final BreinLookup breinLookup) {
+        if (breinLookup != null) {
+            return restEngine.doLookup(breinLookup);
+        }
+        return null;
+    }
+
+    /**
+     * returns the brein com.brein.engine
+     *
+     * @return com.brein.engine itself, i.e., the default engine of the configuration
+     */
+    public IRestEngine getRestEngine() {
+        return restEngine;
+    }
+
+    /**
+     * returns the engine of the type, the engine is created (and configured) if not done so far
+     *
+     * @param config BreinConfig the configuration used to configure a created engine, may be {@code null}
+     * @param type   BreinEngineType the type, if not available the default type is used
+     *
+     * @return IRestEngine the engine
+     */
+    public IRestEngine getRestEngine(final BreinConfig config, final BreinEngineType type) {
+        final BreinEngineType resolved = getRestEngineType(type);
+
+        synchronized (engines) {
+            IRestEngine engine = engines.get(resolved);
+            if (engine == null) {
+                engine = BreinRestEngineRegistry.create(resolved);
+                engine.setCircuitBreakers(circuitBreakers);
+                engine.setRequestCompressor(requestCompressor);
+                engine.setMetrics(metrics);
+                engine.setEventListener(eventListener);
+                if (config != null) {
+                    engine.configure(config);
+                }
+                engines.put(resolved, engine);
+            }
+            return engine;
+        }
+    }
+
+    /**
+     * configuration of com.brein.engine
+     *
+     * @param breinConfig configuration object
+     */
+    public void configure(final BreinConfig breinConfig) {
+        if (breinConfig != null && breinConfig.getLogLevel() != null) {
+            BreinLogger.setLevel(breinConfig.getLogLevel());
+        }
+        circuitBreakers.configure(breinConfig);
+        requestCompressor.configure(breinConfig);
+        metrics.configure(breinConfig);
+        eventListener = breinConfig == null || breinConfig.getEventListener() == null ?
+                BreinEventListener.NONE : breinConfig.getEventListener();
+        temporalDataCache = breinConfig != null && breinConfig.isTemporalDataCacheEnabled() ?
+                new BreinTemporalDataCache(breinConfig) : null;
+        recommendationCache = breinConfig != null && breinConfig.isRecommendationCacheEnabled() ?
+                new BreinRecommendationCache(breinConfig) : null;
+        singleFlight = breinConfig != null && breinConfig.isSingleFlightEnabled() ?
+                new BreinSingleFlight() : null;
+
+        if (breinConfig != null) {
+            restEngine = getRestEngine(null, breinConfig.getRestEngineType());
+        }
+        for (final IRestEngine engine : getRestEngines()) {
+            engine.setEventListener(eventListener);
+            engine.configure(breinConfig);
+        }
+    }
+
+    /**
+     * Determines the type of the engine used for the requested type, i.e., the default type if the requested one is
+     * not available.
+     *
+     * @param engine BreinEngineType the requested type
+     *
+     * @return BreinEngineType the type used
+     */
+    BreinEngineType getRestEngineType(final BreinEngineType engine) {
+        return BreinRestEngineRegistry.resolve(engine);
+    }
+    
+    /**
+     * Sends the request using the rest engine. If the circuit of the endpoint is open, the request fails fast, i.e.,
+     * an activity is stored within the offline queue (if enabled) and the callback is informed with {@code null}.
+     * A cached temporalData result is passed to the callback without sending a request (within the worker pool, like
+     * any other result), a cached recommendation result is passed right away (within the calling thread, so the first
+     * screen can be rendered) and refreshed in the background. Identical requests in flight
+     * (except activities) share one call, i.e., the result is passed to the callbacks of all of them.
+     *
+     * @param config   BreinConfig the configuration used to send the request
+     * @param data     BreinBase the request
+     * @param callback ICallback informed with the result, may be {@code null}
+     */
+    public void invoke(final BreinConfig config, final BreinBase data, final ICallback<BreinResult> callback) {
+        if (data instanceof BreinTemporalData && temporalDataCache != null) {
+            invokeTemporalData(config, (BreinTemporalData) data, callback);
+        } else if (data instanceof BreinRecommendation && recommendationCache != null) {
+            invokeRecommendation(config, (BreinRecommendation) data, callback);
+        } else {
+            send(config, data, callback);
+        }
+    }
+
+    /**
+     * Retrieves the cache of recommendation results.
+     *
+     * @return BreinRecommendationCache the cache, {@code null} if disabled or not configured so far
+     */
+    public BreinRecommendationCache getRecommendationCache() {
+        return recommendationCache;
+    }
+
+    /**
+     * Retrieves the coalescing of identical requests in flight.
+     *
+     * @return BreinSingleFlight the single-flight, {@code null} if disabled or not configured so far
+     */
+    public BreinSingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Retrieves the cache of temporalData results.
+     *
+     * @return BreinTemporalDataCache the cache, {@code null} if disabled or not configured so far
+     */
+    public BreinTemporalDataCache getTemporalDataCache() {
+        return temporalDataCache;
+    }
+
+    /**
+     * Serves the temporalData request from the cache, if possible. A cached result is passed to the callback within
+     * the worker pool, i.e., the callback is informed within the same threads as without the cache.
+     *
+     * @param config   BreinConfig the configuration used to send the request
+     * @param data     BreinTemporalData the request
+     * @param callback ICallback informed with the result, may be {@code null}
+     */
+    protected void invokeTemporalData(final BreinConfig config,
+                                      final BreinTemporalData data,
+                                      final ICallback<BreinResult> callback) {
+        final BreinTemporalDataCache cache = temporalDataCache;
+        final String key = cache == null ? null : cache.createKey(data);
+
+        final BreinResult cached = key == null ? null : cache.get(key);
+        if (key == null) {
+            send(config, data, callback);
+        } else if (cached == null) {
+            send(config, data, cache.caching(key, callback));
+        } else {
+            getEngine(config, data).respond(config, cached, callback);
+        }
+    }
+
+    /**
+     * Serves the recommendation request from the cache (stale-while-revalidate), if possible. A cached result is
+     * passed to the callback right away and refreshed in the background, i.e., the callback is not informed about
+     * the refreshed result. A request not cached in memory while the results stored on disk are still loaded is
+     * served after the loading (within the loading thread), so the calling thread never waits for the disk.
+     *
+     * @param config   BreinConfig the configuration used to send the request
+     * @param data     BreinRecommendation the request
+     * @param callback ICallback informed with the result, may be {@code null}
+     */
+    protected void invokeRecommendation(final BreinConfig config,
+                                        final BreinRecommendation data,
+                                        final ICallback<BreinResult> callback) {
+        final BreinRecommendationCache cache = recommendationCache;
+        final String key = cache == null ? null : cache.createKey(data);
+
+        final BreinResult cached = key == null ? null : cache.get(key);
+        if (key == null) {
+            send(config, data, callback);
+        } else if (cached == null && !cache.isLoaded()) {
+            cache.whenLoaded(new Runnable() {
+                @Override
+                public void run() {
+                    invokeRecommendation(config, data, callback);
+                }
+            });
+        } else if (cached == null) {
+            send(config, data, cache.caching(key, callback));
+        } else {
+            if (callback != null) {
+                callback.callback(cached);
+            }
+            if (cache.startRefresh(key)) {
+                send(config, data, cache.caching(key, null));
+            }
+        }
+    }
+
+    /**
+     * Sends the request, unless the circuit of the endpoint is open. A request (except an activity) identical to one
+     * in flight is not sent, it receives the result of the one in flight instead. The body used to detect identical
+     * requests is passed to the rest engine, i.e., the request is serialized only once.
+     *
+     * @param config   BreinConfig the configuration used to send the request
+     * @param data     BreinBase the request
+     * @param callback ICallback informed with the result, may be {@code null}
+     */
+    protected void send(final BreinConfig config, final BreinBase data, final ICallback<BreinResult> callback) {
+        final String endpoint = getEndpoint(config, data);
+        final BreinCircuitBreaker breaker = circuitBreakers.get(endpoint);
+        if (breaker != null && breaker.isRejecting()) {
+            metrics.onRejected(endpoint);
+            getEngine(config, data).rejectRequest(config, data, callback);
+            return;
+        }
+
+        final BreinSingleFlight flight = data instanceof BreinActivity ? null : singleFlight;
+        final byte[] requestBody = flight == null || config == null || data == null ? null : createRequestBody(data);
+        final String key = requestBody == null ? null : flight.createKey(endpoint, requestBody);
+        if (key == null) {
+            getEngine(config, data).invokeRequest(config, data, requestBody, callback);
+        } else {
+            final ICallback<BreinResult> shared = flight.join(key, callback);
+            if (shared == null) {
+                return;
+            }
+
+            try {
+                getEngine(config, data).invokeRequest(config, data, requestBody, shared);
+            } catch (final RuntimeException e) {
+                flight.abandon(key);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Creates the body of the request, an invalid request is reported by the rest engine instead.
+     *
+     * @param data BreinBase the request
+     *
+     * @return byte[] the body, {@code null} if it cannot be created
+     */
+    private byte[] createRequestBody(final BreinBase data) {
+        try {
+            return BreinUtil.getRequestBytes(data);
+        } catch (final RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves the circuit breaker of the endpoint, e.g., to observe its state.
+     *
+     * @param endpoint String the endpoint, e.g. {@code /activity}
+     *
+     * @return BreinCircuitBreaker the breaker, {@code null} if circuit breakers are disabled
+     */
+    public BreinCircuitBreaker getCircuitBreaker(final String endpoint) {
+        return circuitBreakers.get(endpoint);
+    }
+
+    /**
+     * @return BreinCircuitBreakers the circuit breakers of the endpoints
+     */
+    public BreinCircuitBreakers getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    /**
+     * @return BreinRequestCompressor the compressor of the request bodies, e.g., to observe the ratio per endpoint
+     */
+    public BreinRequestCompressor getRequestCompressor() {
+        return requestCompressor;
+    }
+
+    /**
+     * @return BreinMetrics the metrics of the requests, e.g., to retrieve a snapshot of the latency per endpoint
+     */
+    public BreinMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Determines the endpoint the request is sent to, i.e., batched activities are sent to the bulk endpoint.
+     *
+     * @param config BreinConfig the configuration used to send the request
+     * @param data   BreinBase the request
+     *
+     * @return String the endpoint
+     */
+    protected String getEndpoint(final BreinConfig config, final BreinBase data) {
+        if (config == null || data == null) {
+            return null;
+        } else if (data instanceof BreinActivity && config.isActivityBatchingEnabled()) {
+            return config.getBulkActivityEndpoint();
+        } else {
+            return data.getEndPoint(config);
+        }
+    }
+
+    /**
+     * Determines the engine sending the request, i.e., the engine configured for the endpoint. Activities are always
+     * sent by the default engine, which keeps the batches and the offline queue.
+     *
+     * @param config BreinConfig the configuration used to send the request
+     * @param data   BreinBase the request
+     *
+     * @return IRestEngine the engine
+     */
+    protected IRestEngine getEngine(final BreinConfig config, final BreinBase data) {
+        final IRestEngine defaultEngine = restEngine;
+        if (config == null || data == null || data instanceof BreinActivity) {
+            return defaultEngine;
+        }
+
+        final BreinEngineType type = config.getRestEngineType(data.getEndPoint(config));
+        if (type == null || type == config.getRestEngineType()) {
+            return defaultEngine;
+        } else {
+            return getRestEngine(config, type);
+        }
+    }
+
+    /**
+     * Determines the number of requests waiting for a worker of the pool or a permit of the limiter, over all engines.
+     *
+     * @return long the number of queued requests
+     */
+    protected long getQueuedCount() {
+        long queued = 0;
+        for (final IRestEngine engine : getRestEngines()) {
+            final BreinRequestExecutor.Statistics poolStatistics = engine.getPoolStatistics();
+            if (poolStatistics != null) {
+                queued += poolStatistics.getQueueSize();
+            }
+            final BreinConcurrencyLimiter.Statistics limiterStatistics = engine.getConcurrencyStatistics();
+            if (limiterStatistics != null) {
+                queued += limiterStatistics.getWaitingCount();
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * @return long the current limit of requests in flight over all rest engines, {@code 0} if no engine limits its
+     * requests
+     */
+    protected long getConcurrencyLimit() {
+        long limit = 0;
+        for (final IRestEngine engine : getRestEngines()) {
+            final BreinConcurrencyLimiter.Statistics limiterStatistics = engine.getConcurrencyStatistics();
+            if (limiterStatistics != null) {
+                limit += limiterStatistics.getLimit();
+            }
+        }
+        return limit;
+    }
+
+    private List<IRestEngine> getRestEngines() {
+        synchronized (engines) {
+            return new ArrayList<>(engines.values());
+        }
+    }
+
+    /**
+     * provides the statistics of the worker pool of the rest engine
+     *
+     * @return BreinRequestExecutor.Statistics current values, {@code null} if no pool is running
+     */
+    public BreinRequestExecutor.Statistics getPoolStatistics() {
+        return restEngine.getPoolStatistics();
+    }
+
+    /**
+     * provides the statistics of the adaptive limit of requests in flight, e.g., the current limit
+     *
+     * @return BreinConcurrencyLimiter.Statistics current values, {@code null} if the limit is disabled or no pool is
+     * running
+     */
+    public BreinConcurrencyLimiter.Statistics getConcurrencyStatistics() {
+        return restEngine.getConcurrencyStatistics();
+    }
+
+    /**
+     * sends the activities collected so far (if batching is enabled)
+     */
+    public void flush() {
+        restEngine.flush();
+    }
+
+    /**
+     * sends the activities stored within the offline queue (if enabled), the queue is replayed in the background
+     */
+    public void replayOfflineQueue() {
+        restEngine.replayOfflineQueue();
+    }
+
+    /**
+     * terminates the rest engine, i.e., already queued requests are sent and the worker pool is stopped
+     */
+    public void terminate() {
+        for (final IRestEngine engine : getRestEngines()) {
+            engine.terminate();
+        }
+    }
+
+}
@@ -5,5 +5,7 @@ package com.brein.engine;
  */
 public enum BreinEngineType {
     HTTP_URL_CONNECTION_ENGINE,
+    OK_HTTP_ENGINE,
+    NIO_ENGINE,
     NO_ENGINE
 }
@@ -0,0 +1,130 @@
+package com.brein.engine;
+
+/**
+ * Informed about the phases of a request (a call), e.g., to find out whether the latency is caused by the
+ * serialization, the connect, the backend, or the parsing of the response. All events of a call carry the same
+ * correlation id and a monotonic timestamp (see {@link System#nanoTime()}); the methods are called within the thread
+ * executing the phase, so they should return quickly.
+ * <p>
+ * The events of a call are:
+ * <ul>
+ * <li>{@code callStart}, {@code serializationStart}, {@code serializationEnd} (the signature is created while the
+ * body is serialized)</li>
+ * <li>for every attempt: {@code attemptStart}, {@code connectStart}, {@code connectEnd}, {@code requestBodyEnd},
+ * {@code responseHeadersEnd} (i.e., the time to the first byte), or {@code attemptFailed}</li>
+ * <li>{@code parseStart}, {@code parseEnd}, if the response is read</li>
+ * <li>{@code callEnd} or {@code callFailed}</li>
+ * </ul>
+ * An activity sent within a batch ends when it is added to the batch, the batch itself is a call of the bulk endpoint.
+ * The non-blocking engine does not report the connect, its {@code responseHeadersEnd} is reported when the whole
+ * response is received.
+ * <p>
+ * Only the calls for which {@link #isSampled(String)} returns {@code true} are traced, the default listener ({@link
+ * #NONE}) traces none, i.e., neither timestamps are taken nor objects allocated.
+ */
+public abstract class BreinEventListener {
+
+    /**
+     * listener tracing no call
+     */
+    public static final BreinEventListener NONE = new BreinEventListener() {
+        @Override
+        public boolean isSampled(final String endpoint) {
+            return false;
+        }
+    };
+
+    /**
+     * Decides if a call is traced, called once when the call starts.
+     *
+     * @param endpoint String the endpoint of the call, e.g. {@code /activity}
+     *
+     * @return boolean {@code true} if the events of the call are passed to the listener
+     */
+    public boolean isSampled(final String endpoint) {
+        return true;
+    }
+
+    /**
+     * @param callId   long the correlation id of the call
+     * @param endpoint String the endpoint of the call, e.g. {@code /activity}
+     * @param nanoTime long the timestamp of the event
+     */
+    public void callStart(final long callId, final String endpoint, final long nanoTime) {
+    }
+
+    public void serializationStart(final long callId, final long nanoTime) {
+    }
+
+    /**
+     * @param callId   long the correlation id of the call
+     * @param bytes    int the size of the serialized body in bytes
+     * @param nanoTime long the timestamp of the event
+     */
+    public void serializationEnd(final long callId, final int bytes, final long nanoTime) {
+    }
+
+    /**
+     * @param callId   long the correlation id of the call
+     * @param attempt  int the number of the attempt, starting with {@code 1}
+     * @param nanoTime long the timestamp of the event
+     */
+    public void attemptStart(final long callId, final int attempt, final long nanoTime) {
+    }
+
+    public void connectStart(final long callId, final long nanoTime) {
+    }
+
+    /**
+     * Called when the connection is established, i.e., including the resolution of the host and the TLS handshake
+     * (if not reused).
+     *
+     * @param callId   long the correlation id of the call
+     * @param nanoTime long the timestamp of the event
+     */
+    public void connectEnd(final long callId, final long nanoTime) {
+    }
+
+    /**
+     * @param callId   long the correlation id of the call
+     * @param bytes    int the size of the body in bytes (before a compression)
+     * @param nanoTime long the timestamp of the event
+     */
+    public void requestBodyEnd(final long callId, final int bytes, final long nanoTime) {
+    }
+
+    /**
+     * @param callId     long the correlation id of the call
+     * @param statusCode int the status code of the response
+     * @param nanoTime   long the timestamp of the event
+     */
+    public void responseHeadersEnd(final long callId, final int statusCode, final long nanoTime) {
+    }
+
+    /**
+     * @param callId     long the correlation id of the call
+     * @param attempt    int the number of the attempt, starting with {@code 1}
+     * @param statusCode int the status code of the response, {@code -1} if no response was received
+     * @param nanoTime   long the timestamp of the event
+     */
+    public void attemptFailed(final long callId, final int attempt, final int statusCode, final long nanoTime) {
+    }
+
+    public void parseStart(final long callId, final long nanoTime) {
+    }
+
+    public void parseEnd(final long callId, final long nanoTime) {
+    }
+
+    public void callEnd(final long callId, final long nanoTime) {
+    }
+
+    /**
+     * Called if the call failed, i.e., all attempts failed or the request was rejected.
+     *
+     * @param callId   long the correlation id of the call
+     * @param nanoTime long the timestamp of the event
+     */
+    public void callFailed(final long callId, final long nanoTime) {
+    }
+}
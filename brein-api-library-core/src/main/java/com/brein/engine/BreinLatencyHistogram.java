@@ -0,0 +1,149 @@
+package com.brein.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies with fixed buckets (see {@link #BOUNDS}), recording a value neither allocates nor locks. The
+ * percentiles are estimated by the upper bound of the bucket containing them.
+ */
+public class BreinLatencyHistogram {
+
+    /**
+     * upper bounds in ms of the buckets, the last bucket contains all larger latencies
+     */
+    private static final long[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000};
+
+    private static final long NANOS_PER_MILLI = 1000L * 1000L;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency, negative values are ignored.
+     *
+     * @param latencyInNanos long the latency in ns
+     */
+    public void record(final long latencyInNanos) {
+        if (latencyInNanos < 0) {
+            return;
+        }
+
+        this.counts.incrementAndGet(getBucket(latencyInNanos));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(latencyInNanos);
+
+        long current = this.max.get();
+        while (latencyInNanos > current && !this.max.compareAndSet(current, latencyInNanos)) {
+            current = this.max.get();
+        }
+    }
+
+    /**
+     * @return Snapshot the current values of the histogram
+     */
+    public Snapshot snapshot() {
+        final long[] values = new long[this.counts.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.counts.get(i);
+        }
+        return new Snapshot(values, this.count.get(), this.sum.get(), this.max.get());
+    }
+
+    /**
+     * @return long[] the upper bounds in ms of the buckets, the last bucket (not contained) has no upper bound
+     */
+    public static long[] getBounds() {
+        return BOUNDS.clone();
+    }
+
+    private static int getBucket(final long latencyInNanos) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (latencyInNanos <= BOUNDS[i] * NANOS_PER_MILLI) {
+                return i;
+            }
+        }
+        return BOUNDS.length;
+    }
+
+    /**
+     * The values of a histogram at a point in time
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        public Snapshot(final long[] counts, final long count, final long sum, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return long[] the number of latencies per bucket (see {@link BreinLatencyHistogram#getBounds()})
+         */
+        public long[] getCounts() {
+            return counts.clone();
+        }
+
+        /**
+         * @return long the number of recorded latencies
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return double the mean latency in ms, {@code 0.0} if nothing was recorded
+         */
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count / NANOS_PER_MILLI;
+        }
+
+        /**
+         * @return double the maximal latency in ms
+         */
+        public double getMax() {
+            return (double) max / NANOS_PER_MILLI;
+        }
+
+        /**
+         * Estimates the percentile, i.e., the upper bound of the bucket containing it (or the maximal latency if it is
+         * smaller).
+         *
+         * @param percentile double the percentile, e.g. {@code 0.99}
+         *
+         * @return double the latency in ms, {@code 0.0} if nothing was recorded
+         */
+        public double getPercentile(final double percentile) {
+            long total = 0;
+            for (final long bucketCount : counts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0.0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < BOUNDS.length ? Math.min(BOUNDS[i], getMax()) : getMax();
+                }
+            }
+            return getMax();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, mean %.1fms, p50 %.0fms, p90 %.0fms, p99 %.0fms, max %.1fms", count,
+                    getMean(), getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), getMax());
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+import com.brein.util.BreinLogger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of the requests per endpoint, i.e., a latency histogram, counters of the requests, failures and
+ * rejections, the payload sizes, and the requests in flight. Further gauges (e.g., the queued requests, see {@link
+ * #QUEUED_GAUGE}) can be registered. The attempts are recorded by the rest engines and forwarded to the listener of
+ * the configuration (see {@link BreinConfig#setMetricsListener(IBreinMetricsListener)}).
+ * <p>
+ * Recording an attempt does neither allocate nor lock (after the first request of an endpoint), a {@link Snapshot}
+ * provides the values at a point in time, e.g., to send the health of the library to a backend.
+ */
+public class BreinMetrics {
+
+    private static final String TAG = "BreinMetrics";
+
+    /**
+     * name of the gauge providing the number of requests waiting for a worker or a permit
+     */
+    public static final String QUEUED_GAUGE = "queued";
+
+    /**
+     * name of the gauge providing the current adaptive limit of requests in flight (see {@link
+     * BreinConcurrencyLimiter})
+     */
+    public static final String CONCURRENCY_LIMIT_GAUGE = "concurrencyLimit";
+
+    /**
+     * Provides the current value of a gauge
+     */
+    public interface IGauge {
+
+        /**
+         * @return long the current value
+         */
+        long getValue();
+    }
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, IGauge> gauges = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = true;
+    private volatile IBreinMetricsListener listener = null;
+
+    /**
+     * Applies the settings of the configuration, the recorded values are kept.
+     *
+     * @param config BreinConfig the configuration
+     */
+    public void configure(final BreinConfig config) {
+        final BreinConfig current = config == null ? new BreinConfig() : config;
+        this.enabled = current.isMetricsEnabled();
+        this.listener = current.getMetricsListener();
+    }
+
+    /**
+     * Registers a gauge, a gauge registered with the same name before is replaced.
+     *
+     * @param name  String the name of the gauge, e.g. {@link #QUEUED_GAUGE}
+     * @param gauge IGauge the gauge, {@code null} to remove the gauge
+     */
+    public void registerGauge(final String name, final IGauge gauge) {
+        if (gauge == null) {
+            this.gauges.remove(name);
+        } else {
+            this.gauges.put(name, gauge);
+        }
+    }
+
+    /**
+     * Records an attempt being sent.
+     *
+     * @param endpoint     String the endpoint, e.g. {@code /activity}
+     * @param requestBytes int the size of the request body in bytes
+     */
+    public void onSent(final String endpoint, final int requestBytes) {
+        if (!this.enabled || endpoint == null) {
+            return;
+        }
+
+        get(endpoint).onSent(requestBytes);
+
+        final IBreinMetricsListener current = this.listener;
+        if (current != null) {
+            try {
+                current.onSent(endpoint, requestBytes);
+            } catch (final RuntimeException e) {
+                BreinLogger.w(TAG, "Metrics listener failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Records the completion of an attempt.
+     *
+     * @param endpoint       String the endpoint, e.g. {@code /activity}
+     * @param statusCode     int the status code of the response, {@code -1} if no response was received
+     * @param latencyInNanos long the time from sending the attempt until the status code was available
+     */
+    public void onCompleted(final String endpoint, final int statusCode, final long latencyInNanos) {
+        if (!this.enabled || endpoint == null) {
+            return;
+        }
+
+        get(endpoint).onCompleted(statusCode, latencyInNanos);
+
+        final IBreinMetricsListener current = this.listener;
+        if (current != null) {
+            try {
+                current.onCompleted(endpoint, statusCode, latencyInNanos);
+            } catch (final RuntimeException e) {
+                BreinLogger.w(TAG, "Metrics listener failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Records a request failing without being sent.
+     *
+     * @param endpoint String the endpoint, e.g. {@code /activity}
+     */
+    public void onRejected(final String endpoint) {
+        if (!this.enabled || endpoint == null) {
+            return;
+        }
+
+        get(endpoint).rejected.incrementAndGet();
+
+        final IBreinMetricsListener current = this.listener;
+        if (current != null) {
+            try {
+                current.onRejected(endpoint);
+            } catch (final RuntimeException e) {
+                BreinLogger.w(TAG, "Metrics listener failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * @return Snapshot the current values of all endpoints and gauges
+     */
+    public Snapshot getSnapshot() {
+        final Map<String, EndpointSnapshot> endpointSnapshots = new HashMap<>();
+        for (final Map.Entry<String, EndpointMetrics> entry : this.endpoints.entrySet()) {
+            endpointSnapshots.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+
+        final Map<String, Long> gaugeValues = new HashMap<>();
+        for (final Map.Entry<String, IGauge> entry : this.gauges.entrySet()) {
+            gaugeValues.put(entry.getKey(), entry.getValue().getValue());
+        }
+
+        return new Snapshot(System.currentTimeMillis(), endpointSnapshots, gaugeValues);
+    }
+
+    /**
+     * @param endpoint String the endpoint, e.g. {@code /activity}
+     *
+     * @return EndpointSnapshot the current values of the endpoint, {@code null} if no request was recorded
+     */
+    public EndpointSnapshot getSnapshot(final String endpoint) {
+        final EndpointMetrics metrics = endpoint == null ? null : this.endpoints.get(endpoint);
+        return metrics == null ? null : metrics.snapshot(endpoint);
+    }
+
+    /**
+     * Removes the recorded values of all endpoints, the gauges are kept.
+     */
+    public void reset() {
+        this.endpoints.clear();
+    }
+
+    private EndpointMetrics get(final String endpoint) {
+        EndpointMetrics metrics = this.endpoints.get(endpoint);
+        if (metrics == null) {
+            final EndpointMetrics created = new EndpointMetrics();
+            metrics = this.endpoints.putIfAbsent(endpoint, created);
+            metrics = metrics == null ? created : metrics;
+        }
+        return metrics;
+    }
+
+    /**
+     * The values of all endpoints and gauges at a point in time
+     */
+    public static class Snapshot {
+        private final long timestamp;
+        private final Map<String, EndpointSnapshot> endpoints;
+        private final Map<String, Long> gauges;
+
+        public Snapshot(final long timestamp,
+                        final Map<String, EndpointSnapshot> endpoints,
+                        final Map<String, Long> gauges) {
+            this.timestamp = timestamp;
+            this.endpoints = Collections.unmodifiableMap(endpoints);
+            this.gauges = Collections.unmodifiableMap(gauges);
+        }
+
+        /**
+         * @return long the time (in ms since the epoch) the snapshot was taken
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return Map the values by endpoint
+         */
+        public Map<String, EndpointSnapshot> getEndpoints() {
+            return endpoints;
+        }
+
+        /**
+         * @param endpoint String the endpoint, e.g. {@code /activity}
+         *
+         * @return EndpointSnapshot the values of the endpoint, {@code null} if no request was recorded
+         */
+        public EndpointSnapshot getEndpoint(final String endpoint) {
+            return endpoints.get(endpoint);
+        }
+
+        /**
+         * @return Map the values of the registered gauges by name
+         */
+        public Map<String, Long> getGauges() {
+            return gauges;
+        }
+
+        /**
+         * @return long the number of requests in flight over all endpoints
+         */
+        public long getInFlight() {
+            long inFlight = 0;
+            for (final EndpointSnapshot endpoint : endpoints.values()) {
+                inFlight += endpoint.getInFlight();
+            }
+            return inFlight;
+        }
+
+        /**
+         * @return long the number of requests waiting for a worker or a permit, {@code 0} if not available
+         */
+        public long getQueued() {
+            final Long queued = gauges.get(QUEUED_GAUGE);
+            return queued == null ? 0 : queued;
+        }
+
+        /**
+         * @return long the current adaptive limit of requests in flight, {@code 0} if not available
+         */
+        public long getConcurrencyLimit() {
+            final Long limit = gauges.get(CONCURRENCY_LIMIT_GAUGE);
+            return limit == null ? 0 : limit;
+        }
+
+        @Override
+        public String toString() {
+            return "in flight: " + getInFlight() + ", gauges: " + gauges + ", endpoints: " + endpoints.values();
+        }
+    }
+
+    /**
+     * The values of an endpoint at a point in time
+     */
+    public static class EndpointSnapshot {
+        private final String endpoint;
+        private final long requests;
+        private final long failures;
+        private final long rejected;
+        private final int inFlight;
+        private final long requestBytes;
+        private final long maxRequestBytes;
+        private final BreinLatencyHistogram.Snapshot latency;
+
+        public EndpointSnapshot(final String endpoint,
+                                final long requests,
+                                final long failures,
+                                final long rejected,
+                                final int inFlight,
+                                final long requestBytes,
+                                final long maxRequestBytes,
+                                final BreinLatencyHistogram.Snapshot latency) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.failures = failures;
+            this.rejected = rejected;
+            this.inFlight = inFlight;
+            this.requestBytes = requestBytes;
+            this.maxRequestBytes = maxRequestBytes;
+            this.latency = latency;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * @return long the number of attempts sent, including the retries
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return long the number of attempts without response or with a status code of at least {@code 400}
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return long the number of requests failed without being sent
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return int the number of attempts in flight
+         */
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return long the total size in bytes of the request bodies sent
+         */
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        /**
+         * @return long the size in bytes of the largest request body sent
+         */
+        public long getMaxRequestBytes() {
+            return maxRequestBytes;
+        }
+
+        /**
+         * @return double the mean size in bytes of the request bodies sent
+         */
+        public double getMeanRequestBytes() {
+            return requests == 0 ? 0.0 : (double) requestBytes / requests;
+        }
+
+        /**
+         * @return BreinLatencyHistogram.Snapshot the latencies of the completed attempts
+         */
+        public BreinLatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d sent, %d failed, %d rejected, %d in flight, %.0f bytes on average, %s",
+                    endpoint, requests, failures, rejected, inFlight, getMeanRequestBytes(), latency);
+        }
+    }
+
+    /**
+     * The recorded values of an endpoint
+     */
+    private static class EndpointMetrics {
+        private final BreinLatencyHistogram latency = new BreinLatencyHistogram();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong requestBytes = new AtomicLong();
+        private final AtomicLong maxRequestBytes = new AtomicLong();
+
+        void onSent(final int bytes) {
+            this.requests.incrementAndGet();
+            this.inFlight.incrementAndGet();
+            this.requestBytes.addAndGet(bytes);
+
+            long current = this.maxRequestBytes.get();
+            while (bytes > current && !this.maxRequestBytes.compareAndSet(current, bytes)) {
+                current = this.maxRequestBytes.get();
+            }
+        }
+
+        void onCompleted(final int statusCode, final long latencyInNanos) {
+            this.inFlight.decrementAndGet();
+            this.latency.record(latencyInNanos);
+            if (statusCode < 0 || statusCode >= 400) {
+                this.failures.incrementAndGet();
+            }
+        }
+
+        EndpointSnapshot snapshot(final String endpoint) {
+            return new EndpointSnapshot(endpoint, this.requests.get(), this.failures.get(), this.rejected.get(),
+                    Math.max(0, this.inFlight.get()), this.requestBytes.get(), this.maxRequestBytes.get(),
+                    this.latency.snapshot());
+        }
+    }
+}
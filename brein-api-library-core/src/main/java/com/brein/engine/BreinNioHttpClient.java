@@ -0,0 +1,1404 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+import com.brein.util.BreinLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+/**
+ * HTTP/1.1 client based on non-blocking sockets. A single event-loop thread connects, sends the requests and reads the
+ * responses of all connections, so the number of requests in flight does not depend on the number of threads. Every
+ * connection carries one request at a time and is kept alive for further requests to the same host; {@code https}
+ * is supported using an {@link SSLEngine} per connection. Host names are resolved by a separate thread (and kept
+ * for 30 seconds), so a slow name server does not stall the other connections.
+ * <p>
+ * The handlers are informed within the event loop, i.e., they must not block (the {@link NioRestEngine} hands the
+ * results over to its worker pool).
+ */
+public class BreinNioHttpClient {
+
+    private static final String TAG = "BreinNioHttpClient";
+
+    /**
+     * Informed about the outcome of a request, exactly one of the methods is called (within the event loop).
+     */
+    public interface IResponseHandler {
+
+        /**
+         * @param response Response the response received
+         */
+        void completed(final Response response);
+
+        /**
+         * @param e    IOException the reason the request failed, e.g., a {@code SocketTimeoutException}
+         * @param sent boolean {@code true} if the request was sent completely, i.e., the server may have processed it
+         */
+        void failed(final IOException e, final boolean sent);
+    }
+
+    /**
+     * time in ms an idle connection is kept alive
+     */
+    private static final long KEEP_ALIVE_DURATION = 30000;
+
+    /**
+     * time in ms between the checks of the timeouts, while requests are in flight
+     */
+    private static final long TIMEOUT_CHECK_INTERVAL = 100;
+
+    /**
+     * time in ms to wait for the event loop when closed
+     */
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    /**
+     * time in ms a resolved address of a host is used for new connections
+     */
+    private static final long RESOLUTION_TTL = 30000;
+
+    /**
+     * maximal number of threads resolving host names
+     */
+    private static final int RESOLVER_THREADS = 2;
+
+    /**
+     * maximal size of the status line and headers of a response
+     */
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final Selector selector;
+    private final Thread loop;
+    private final int maxConnections;
+    private final int maxWaiting;
+    private final int maxResponseSize;
+
+    /**
+     * requests handed over to the event loop
+     */
+    private final Queue<Exchange> submitted = new ConcurrentLinkedQueue<>();
+
+    /**
+     * requests waiting for a connection, only used by the event loop
+     */
+    private final Deque<Exchange> waiting = new ArrayDeque<>();
+
+    /**
+     * idle connections per host, only used by the event loop
+     */
+    private final Map<String, Deque<Connection>> idle = new HashMap<>();
+
+    /**
+     * all open connections, only used by the event loop
+     */
+    private final Set<Connection> connections = new HashSet<>();
+
+    /**
+     * resolutions handed back to the event loop
+     */
+    private final Queue<Resolution> resolutions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * the resolved addresses per host, only used by the event loop
+     */
+    private final Map<String, Resolution> resolved = new HashMap<>();
+
+    /**
+     * requests waiting for the address of their host, only used by the event loop
+     */
+    private final Map<String, List<Exchange>> resolving = new HashMap<>();
+
+    private final ThreadPoolExecutor resolver;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final Object idleLock = new Object();
+
+    private volatile boolean closed = false;
+
+    /**
+     * the current time (in ns) of the event loop
+     */
+    private long now = System.nanoTime();
+
+    private SSLContext sslContext = null;
+
+    /**
+     * Creates the client and starts its event loop.
+     *
+     * @param maxConnections  int the maximal number of open connections, i.e., requests in flight
+     * @param maxWaiting      int the maximal number of requests waiting for a connection
+     * @param maxResponseSize int the maximal size of a response body in bytes, larger bodies are dropped
+     * @param threadName      String the name of the event-loop thread
+     *
+     * @throws IOException if the selector cannot be opened
+     */
+    public BreinNioHttpClient(final int maxConnections,
+                              final int maxWaiting,
+                              final int maxResponseSize,
+                              final String threadName) throws IOException {
+        this.maxConnections = Math.max(1, maxConnections);
+        this.maxWaiting = Math.max(0, maxWaiting);
+        this.maxResponseSize = maxResponseSize;
+        this.selector = Selector.open();
+
+        this.resolver = new ThreadPoolExecutor(RESOLVER_THREADS, RESOLVER_THREADS,
+                BreinConfig.DEFAULT_EXECUTOR_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, threadName + "-resolver");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.resolver.allowCoreThreadTimeOut(true);
+
+        this.loop = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, threadName);
+        this.loop.setDaemon(true);
+        this.loop.start();
+    }
+
+    /**
+     * Sends the body as {@code POST} request with the content type {@code application/json}.
+     *
+     * @param fullUrl           String the url to send the request to ({@code http} or {@code https})
+     * @param requestBody       byte[] the body of the request
+     * @param contentEncoding   String the encoding of the body, e.g. {@code gzip}; {@code null} if not encoded
+     * @param connectionTimeout int the time in ms to wait for a connection
+     * @param readTimeout       int the time in ms to wait for (the next part of) the response
+     * @param handler           IResponseHandler informed about the outcome
+     *
+     * @return boolean {@code true} if the request is sent, {@code false} if the client is closed or too many requests
+     * are waiting (the handler is not informed in that case)
+     *
+     * @throws IOException if the url is not valid
+     */
+    public boolean post(final String fullUrl,
+                        final byte[] requestBody,
+                        final String contentEncoding,
+                        final int connectionTimeout,
+                        final int readTimeout,
+                        final IResponseHandler handler) throws IOException {
+        final Exchange exchange = new Exchange(new URL(fullUrl), requestBody, contentEncoding, connectionTimeout,
+                readTimeout, handler);
+
+        if (this.inFlight.incrementAndGet() > this.maxConnections + this.maxWaiting || this.closed) {
+            done();
+            return false;
+        }
+
+        this.submitted.add(exchange);
+        if (this.closed && this.submitted.remove(exchange)) {
+            done();
+            return false;
+        }
+
+        this.selector.wakeup();
+        return true;
+    }
+
+    /**
+     * Waits until all requests are completed.
+     *
+     * @param timeoutInMs long maximal time to wait
+     *
+     * @return boolean {@code true} if no request is in flight anymore
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIdle(final long timeoutInMs) throws InterruptedException {
+        final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMs);
+
+        synchronized (this.idleLock) {
+            while (this.inFlight.get() > 0) {
+                final long remaining = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                this.idleLock.wait(remaining);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Stops the event loop and closes all connections, the requests in flight fail.
+     */
+    public void close() {
+        this.closed = true;
+        this.selector.wakeup();
+
+        if (Thread.currentThread() != this.loop) {
+            try {
+                this.loop.join(CLOSE_TIMEOUT);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // requests handed over while the loop stopped
+        failSubmitted();
+    }
+
+    /**
+     * @return boolean {@code true} if the client was closed
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * @return int the number of requests sent or waiting, which are not completed so far
+     */
+    public int getInFlightCount() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * @return int the number of open connections, including the idle ones
+     */
+    public int getOpenConnectionCount() {
+        return this.openConnections.get();
+    }
+
+    private void runLoop() {
+        try {
+            while (!this.closed) {
+                this.selector.select(getSelectTimeout());
+                this.now = System.nanoTime();
+
+                final Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+
+                Exchange exchange;
+                while ((exchange = this.submitted.poll()) != null) {
+                    exchange.deadline = this.now + TimeUnit.MILLISECONDS.toNanos(exchange.connectionTimeout);
+                    this.waiting.add(exchange);
+                }
+
+                Resolution resolution;
+                while ((resolution = this.resolutions.poll()) != null) {
+                    onResolved(resolution);
+                }
+
+                dispatch();
+                expire();
+            }
+        } catch (final IOException | RuntimeException e) {
+            BreinLogger.e(TAG, "The event loop failed: " + e);
+        } finally {
+            this.closed = true;
+            shutdown();
+        }
+    }
+
+    private long getSelectTimeout() {
+        if (this.inFlight.get() > 0) {
+            return TIMEOUT_CHECK_INTERVAL;
+        } else if (!this.connections.isEmpty()) {
+            return KEEP_ALIVE_DURATION;
+        } else {
+            return 0;
+        }
+    }
+
+    private void handle(final SelectionKey key) {
+        final Connection conn = (Connection) key.attachment();
+        try {
+            if (key.isValid() && key.isConnectable()) {
+                conn.finishConnect();
+            }
+            if (key.isValid() && key.isWritable()) {
+                conn.write();
+            }
+            if (key.isValid() && key.isReadable()) {
+                conn.read();
+            }
+        } catch (final IOException | RuntimeException e) {
+            conn.fail(e instanceof IOException ? (IOException) e : new IOException(e), true);
+        }
+    }
+
+    /**
+     * Assigns the waiting requests to connections, in the order of their arrival. A request to a host without a
+     * resolved address waits for the resolution, without blocking the other requests.
+     */
+    private void dispatch() {
+        while (!this.waiting.isEmpty()) {
+            final Exchange exchange = this.waiting.peek();
+
+            // a request sent again (see Connection#fail) uses a new connection, other kept alive ones may be closed too
+            Connection conn = exchange.resent ? null : pollIdle(exchange.address);
+            if (conn == null) {
+                final InetAddress address = getResolved(exchange.host);
+                if (address == null) {
+                    this.waiting.poll();
+                    requestResolution(exchange);
+                    continue;
+                } else if (this.connections.size() >= this.maxConnections && !closeIdle()) {
+                    return;
+                }
+
+                this.waiting.poll();
+                try {
+                    conn = open(exchange, address);
+                } catch (final IOException | RuntimeException e) {
+                    complete(exchange, null, e instanceof IOException ? (IOException) e : new IOException(e));
+                    continue;
+                }
+            } else {
+                this.waiting.poll();
+            }
+
+            try {
+                conn.start(exchange);
+            } catch (final IOException | RuntimeException e) {
+                conn.fail(e instanceof IOException ? (IOException) e : new IOException(e), true);
+            }
+        }
+    }
+
+    /**
+     * Fails the requests exceeding their timeout and closes connections idle for too long.
+     */
+    private void expire() {
+        final List<Connection> expired = new ArrayList<>();
+        final long keepAlive = TimeUnit.MILLISECONDS.toNanos(KEEP_ALIVE_DURATION);
+        for (final Connection conn : this.connections) {
+            if (conn.exchange != null ? this.now - conn.exchange.deadline >= 0 : this.now - conn.idleSince >= keepAlive) {
+                expired.add(conn);
+            }
+        }
+
+        for (final Connection conn : expired) {
+            if (conn.exchange == null) {
+                conn.close();
+            } else {
+                conn.fail(new SocketTimeoutException("Request to " + conn.exchange.url + " timed out"), false);
+            }
+        }
+
+        final Iterator<Exchange> it = this.waiting.iterator();
+        while (it.hasNext()) {
+            final Exchange exchange = it.next();
+            if (this.now - exchange.deadline >= 0) {
+                it.remove();
+                complete(exchange, null, new SocketTimeoutException("No connection to " + exchange.url + " available"));
+            }
+        }
+
+        for (final Map.Entry<String, List<Exchange>> entry : this.resolving.entrySet()) {
+            final Iterator<Exchange> resolvingIt = entry.getValue().iterator();
+            while (resolvingIt.hasNext()) {
+                final Exchange exchange = resolvingIt.next();
+                if (this.now - exchange.deadline >= 0) {
+                    resolvingIt.remove();
+                    complete(exchange, null, new SocketTimeoutException("Unable to resolve " + entry.getKey() +
+                            " in time"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the address of the host, i.e., looks it up using the name service. The method is called by a
+     * separate thread, never by the event loop.
+     *
+     * @param host String the host to resolve
+     *
+     * @return InetAddress the address of the host
+     *
+     * @throws IOException if the host is unknown
+     */
+    protected InetAddress resolve(final String host) throws IOException {
+        return InetAddress.getByName(host);
+    }
+
+    /**
+     * @param host String the host
+     *
+     * @return InetAddress the resolved address of the host, {@code null} if the host must be resolved (again)
+     */
+    private InetAddress getResolved(final String host) {
+        final Resolution resolution = this.resolved.get(host);
+        if (resolution == null) {
+            return null;
+        } else if (this.now - resolution.resolvedAt >= TimeUnit.MILLISECONDS.toNanos(RESOLUTION_TTL)) {
+            this.resolved.remove(host);
+            return null;
+        } else {
+            return resolution.address;
+        }
+    }
+
+    /**
+     * Hands the resolution of the host of the request over to the resolver, requests to the same host share a single
+     * resolution. The request is dispatched again (or failed) once the resolution is handed back.
+     *
+     * @param exchange Exchange the request waiting for the address of its host
+     */
+    private void requestResolution(final Exchange exchange) {
+        final String host = exchange.host;
+        List<Exchange> exchanges = this.resolving.get(host);
+        if (exchanges != null) {
+            exchanges.add(exchange);
+            return;
+        }
+
+        exchanges = new ArrayList<>();
+        exchanges.add(exchange);
+        this.resolving.put(host, exchanges);
+
+        try {
+            this.resolver.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Resolution resolution;
+                    try {
+                        resolution = new Resolution(host, resolve(host), null);
+                    } catch (final IOException e) {
+                        resolution = new Resolution(host, null, e);
+                    } catch (final RuntimeException e) {
+                        resolution = new Resolution(host, null, new IOException(e));
+                    }
+
+                    resolutions.add(resolution);
+                    selector.wakeup();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            this.resolving.remove(host);
+            complete(exchange, null, new IOException("Unable to resolve " + host + ", the client is closed"));
+        }
+    }
+
+    /**
+     * Keeps the resolved address and dispatches the requests waiting for it (before any other waiting request), or
+     * fails them if the host could not be resolved.
+     *
+     * @param resolution Resolution the resolution handed back by the resolver
+     */
+    private void onResolved(final Resolution resolution) {
+        final List<Exchange> exchanges = this.resolving.remove(resolution.host);
+        if (resolution.address != null) {
+            resolution.resolvedAt = this.now;
+            this.resolved.put(resolution.host, resolution);
+        }
+        if (exchanges == null) {
+            return;
+        } else if (resolution.address == null) {
+            for (final Exchange exchange : exchanges) {
+                complete(exchange, null, resolution.error);
+            }
+        } else {
+            for (int i = exchanges.size() - 1; i >= 0; i--) {
+                this.waiting.addFirst(exchanges.get(i));
+            }
+        }
+    }
+
+    private Connection open(final Exchange exchange, final InetAddress address) throws IOException {
+        final SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+
+            final SSLEngine engine = exchange.secure ? createEngine(exchange.host, exchange.port) : null;
+            final Connection conn = new Connection(exchange.address, exchange.host, channel, engine);
+
+            // the address is resolved already (see #resolve), i.e., connecting does not block the event loop
+            final boolean connected = channel.connect(new InetSocketAddress(address, exchange.port));
+            conn.selectionKey = channel.register(this.selector,
+                    connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, conn);
+            this.connections.add(conn);
+            this.openConnections.incrementAndGet();
+
+            if (connected) {
+                conn.onConnected();
+            }
+            return conn;
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private SSLEngine createEngine(final String host, final int port) throws IOException {
+        if (this.sslContext == null) {
+            try {
+                this.sslContext = SSLContext.getDefault();
+            } catch (final NoSuchAlgorithmException e) {
+                throw new SSLException("TLS is not supported", e);
+            }
+        }
+
+        final SSLEngine engine = this.sslContext.createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+
+        // Android verifies the host name after the handshake (see Connection#verify), the endpoint identification is
+        // not available on older versions
+        if (!isAndroid()) {
+            final SSLParameters parameters = engine.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+            engine.setSSLParameters(parameters);
+        }
+
+        return engine;
+    }
+
+    private Connection pollIdle(final String address) {
+        final Deque<Connection> conns = this.idle.get(address);
+        final Connection conn = conns == null ? null : conns.pollLast();
+        if (conns != null && conns.isEmpty()) {
+            this.idle.remove(address);
+        }
+        return conn;
+    }
+
+    /**
+     * Closes the longest idle connection (of any host) to open a new one.
+     *
+     * @return boolean {@code true} if a connection was closed
+     */
+    private boolean closeIdle() {
+        Connection oldest = null;
+        for (final Deque<Connection> conns : this.idle.values()) {
+            final Connection conn = conns.peekFirst();
+            if (conn != null && (oldest == null || conn.idleSince - oldest.idleSince < 0)) {
+                oldest = conn;
+            }
+        }
+
+        if (oldest == null) {
+            return false;
+        }
+        oldest.close();
+        return true;
+    }
+
+    private void complete(final Exchange exchange, final Response response, final IOException e) {
+        try {
+            if (response == null) {
+                exchange.handler.failed(e, exchange.sent);
+            } else {
+                exchange.handler.completed(response);
+            }
+        } catch (final RuntimeException handlerException) {
+            BreinLogger.e(TAG, "The handler of " + exchange.url + " failed: " + handlerException);
+        } finally {
+            done();
+        }
+    }
+
+    private void done() {
+        if (this.inFlight.decrementAndGet() <= 0) {
+            synchronized (this.idleLock) {
+                this.idleLock.notifyAll();
+            }
+        }
+    }
+
+    private void shutdown() {
+        final IOException e = new IOException("The client is closed");
+        for (final Connection conn : new ArrayList<>(this.connections)) {
+            final Exchange exchange = conn.exchange;
+            conn.exchange = null;
+            conn.close();
+            if (exchange != null) {
+                complete(exchange, null, e);
+            }
+        }
+
+        Exchange exchange;
+        while ((exchange = this.waiting.poll()) != null) {
+            complete(exchange, null, e);
+        }
+        for (final List<Exchange> exchanges : this.resolving.values()) {
+            for (final Exchange resolvingExchange : exchanges) {
+                complete(resolvingExchange, null, e);
+            }
+        }
+        this.resolving.clear();
+        this.resolver.shutdownNow();
+        failSubmitted();
+
+        try {
+            this.selector.close();
+        } catch (final IOException closeException) {
+            // nothing to do, the client is closed anyways
+        }
+    }
+
+    private void failSubmitted() {
+        Exchange exchange;
+        while ((exchange = this.submitted.poll()) != null) {
+            complete(exchange, null, new IOException("The client is closed"));
+        }
+    }
+
+    private static boolean isAndroid() {
+        return "Dalvik".equals(System.getProperty("java.vm.name"));
+    }
+
+    /**
+     * The response of a request.
+     */
+    public static class Response {
+        private final int statusCode;
+        private final Map<String, String> headers;
+        private final byte[] body;
+
+        /**
+         * @param statusCode int the status code
+         * @param headers    Map the headers, the names in lower case
+         * @param body       byte[] the body, {@code null} if it exceeded the maximal size
+         */
+        public Response(final int statusCode, final Map<String, String> headers, final byte[] body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @param name String the name of the header (case insensitive)
+         *
+         * @return String the value of the header, {@code null} if not available
+         */
+        public String getHeader(final String name) {
+            return headers.get(name.toLowerCase(Locale.US));
+        }
+
+        /**
+         * @return byte[] the body, {@code null} if it exceeded the maximal size of a response
+         */
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * A request and the state of its delivery
+     */
+    private static class Exchange {
+        private final URL url;
+        private final String host;
+        private final int port;
+        private final boolean secure;
+        private final String address;
+        private final byte[] request;
+        private final int connectionTimeout;
+        private final int readTimeout;
+        private final IResponseHandler handler;
+
+        /**
+         * time (in ns) the current step of the request times out
+         */
+        private long deadline;
+
+        /**
+         * flag if the request was sent again, because a kept alive connection was closed by the server
+         */
+        private boolean resent = false;
+
+        /**
+         * flag if the request was written completely (to the current connection)
+         */
+        private boolean sent = false;
+
+        Exchange(final URL url,
+                 final byte[] body,
+                 final String contentEncoding,
+                 final int connectionTimeout,
+                 final int readTimeout,
+                 final IResponseHandler handler) throws IOException {
+            final String protocol = url.getProtocol().toLowerCase(Locale.US);
+            if (!"http".equals(protocol) && !"https".equals(protocol)) {
+                throw new IOException("Unsupported protocol: " + protocol);
+            }
+
+            this.url = url;
+            this.host = url.getHost();
+            this.port = url.getPort() < 0 ? url.getDefaultPort() : url.getPort();
+            this.secure = "https".equals(protocol);
+            this.address = protocol + "://" + this.host + ":" + this.port;
+            this.connectionTimeout = connectionTimeout;
+            this.readTimeout = readTimeout;
+            this.handler = handler;
+
+            final String path = url.getFile() == null || url.getFile().isEmpty() ? "/" : url.getFile();
+            final String head = "POST " + path + " HTTP/1.1\r\n" +
+                    "Host: " + this.host + (url.getPort() < 0 ? "" : ":" + url.getPort()) + "\r\n" +
+                    "Content-Type: application/json\r\n" +
+                    (contentEncoding == null ? "" : "Content-Encoding: " + contentEncoding + "\r\n") +
+                    "Accept: application/json\r\n" +
+                    "Content-Length: " + body.length + "\r\n" +
+                    "Connection: keep-alive\r\n" +
+                    "\r\n";
+            final byte[] headBytes = head.getBytes(ASCII);
+
+            this.request = new byte[headBytes.length + body.length];
+            System.arraycopy(headBytes, 0, this.request, 0, headBytes.length);
+            System.arraycopy(body, 0, this.request, headBytes.length, body.length);
+        }
+    }
+
+    /**
+     * The (failed) resolution of the address of a host
+     */
+    private static class Resolution {
+        private final String host;
+        private final InetAddress address;
+        private final IOException error;
+
+        /**
+         * time (in ns) the resolution was handed back to the event loop
+         */
+        private long resolvedAt;
+
+        Resolution(final String host, final InetAddress address, final IOException error) {
+            this.host = host;
+            this.address = address;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A connection to a host, driven by the event loop
+     */
+    private class Connection {
+        private final String address;
+        private final String host;
+        private final SocketChannel channel;
+        private final SSLEngine engine;
+        private final ResponseParser parser = new ResponseParser(maxResponseSize);
+
+        private SelectionKey selectionKey;
+        private ByteBuffer netIn;
+        private ByteBuffer netOut;
+        private ByteBuffer appIn;
+
+        private boolean connected = false;
+        private boolean handshaken;
+        private int completed = 0;
+        private long idleSince;
+
+        private Exchange exchange = null;
+        private ByteBuffer out = null;
+        private boolean received = false;
+
+        Connection(final String address, final String host, final SocketChannel channel, final SSLEngine engine) {
+            this.address = address;
+            this.host = host;
+            this.channel = channel;
+            this.engine = engine;
+            this.handshaken = engine == null;
+            this.idleSince = now;
+
+            if (engine != null) {
+                this.netIn = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+                this.netOut = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+                this.netOut.limit(0);
+                this.appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+            }
+        }
+
+        void start(final Exchange exchange) throws IOException {
+            this.exchange = exchange;
+            this.out = ByteBuffer.wrap(exchange.request);
+            this.received = false;
+            this.parser.reset();
+
+            if (this.connected && this.handshaken) {
+                exchange.deadline = now + TimeUnit.MILLISECONDS.toNanos(exchange.readTimeout);
+                write();
+            } else {
+                exchange.deadline = now + TimeUnit.MILLISECONDS.toNanos(exchange.connectionTimeout);
+            }
+        }
+
+        void finishConnect() throws IOException {
+            if (this.channel.finishConnect()) {
+                onConnected();
+            }
+        }
+
+        void onConnected() throws IOException {
+            this.connected = true;
+            if (this.engine == null) {
+                onHandshaken();
+            } else {
+                this.engine.beginHandshake();
+            }
+            write();
+        }
+
+        void write() throws IOException {
+            if (!this.connected) {
+                return;
+            }
+
+            if (this.engine == null) {
+                if (this.out != null && this.out.hasRemaining()) {
+                    this.channel.write(this.out);
+                }
+            } else {
+                wrap();
+            }
+
+            if (this.exchange != null && this.out != null && this.handshaken && !this.out.hasRemaining() &&
+                    (this.engine == null || !this.netOut.hasRemaining())) {
+                this.exchange.sent = true;
+            }
+            updateInterest();
+        }
+
+        void read() throws IOException {
+            final int read;
+            if (this.engine == null) {
+                readBuffer.clear();
+                read = this.channel.read(readBuffer);
+                readBuffer.flip();
+                consume(readBuffer);
+            } else {
+                read = this.channel.read(this.netIn);
+                this.netIn.flip();
+                try {
+                    unwrap();
+                } finally {
+                    this.netIn.compact();
+                }
+            }
+
+            if (read < 0) {
+                onEndOfStream();
+            } else if (this.channel.isOpen()) {
+                write();
+            }
+        }
+
+        /**
+         * Produces the TLS records (handshake or request) and writes them, as long as the socket accepts them.
+         */
+        private void wrap() throws IOException {
+            while (true) {
+                if (this.netOut.hasRemaining()) {
+                    this.channel.write(this.netOut);
+                    if (this.netOut.hasRemaining()) {
+                        return;
+                    }
+                }
+
+                final SSLEngineResult.HandshakeStatus status = this.engine.getHandshakeStatus();
+                if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    runTasks();
+                    continue;
+                }
+
+                final boolean hasData = this.handshaken && this.out != null && this.out.hasRemaining();
+                if (status != SSLEngineResult.HandshakeStatus.NEED_WRAP && !hasData) {
+                    return;
+                }
+
+                this.netOut.clear();
+                final SSLEngineResult result = this.engine.wrap(this.out == null ? EMPTY : this.out, this.netOut);
+                this.netOut.flip();
+
+                if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    this.netOut = ByteBuffer.allocate(this.engine.getSession().getPacketBufferSize());
+                    this.netOut.limit(0);
+                } else if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new SSLException("The TLS session is closed");
+                }
+                onHandshakeStatus(result.getHandshakeStatus());
+            }
+        }
+
+        /**
+         * Decrypts the TLS records received, the decrypted data is passed to the parser.
+         */
+        private void unwrap() throws IOException {
+            while (this.channel.isOpen()) {
+                this.appIn.clear();
+                final SSLEngineResult result = this.engine.unwrap(this.netIn, this.appIn);
+                this.appIn.flip();
+                if (this.appIn.hasRemaining()) {
+                    consume(this.appIn);
+                }
+
+                switch (result.getStatus()) {
+                    case BUFFER_UNDERFLOW:
+                        final int packetSize = this.engine.getSession().getPacketBufferSize();
+                        if (packetSize > this.netIn.capacity()) {
+                            final ByteBuffer larger = ByteBuffer.allocate(packetSize);
+                            larger.put(this.netIn);
+                            larger.flip();
+                            this.netIn = larger;
+                        }
+                        return;
+                    case BUFFER_OVERFLOW:
+                        this.appIn = ByteBuffer.allocate(this.engine.getSession().getApplicationBufferSize());
+                        continue;
+                    case CLOSED:
+                        onEndOfStream();
+                        return;
+                    default:
+                        break;
+                }
+
+                onHandshakeStatus(result.getHandshakeStatus());
+                if (this.engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    runTasks();
+                }
+                if (this.engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                    wrap();
+                }
+
+                if (!this.netIn.hasRemaining() || (result.bytesConsumed() == 0 && result.bytesProduced() == 0)) {
+                    return;
+                }
+            }
+        }
+
+        private void runTasks() {
+            // the tasks are short (e.g. verifying the certificates), they are run within the event loop
+            Runnable task;
+            while ((task = this.engine.getDelegatedTask()) != null) {
+                task.run();
+            }
+        }
+
+        private void onHandshakeStatus(final SSLEngineResult.HandshakeStatus status) throws IOException {
+            if (status == SSLEngineResult.HandshakeStatus.FINISHED && !this.handshaken) {
+                verify();
+                onHandshaken();
+            }
+        }
+
+        private void onHandshaken() {
+            this.handshaken = true;
+            if (this.exchange != null) {
+                this.exchange.deadline = now + TimeUnit.MILLISECONDS.toNanos(this.exchange.readTimeout);
+            }
+        }
+
+        /**
+         * Verifies the host name of the certificate, on Android the endpoint identification of the engine is not
+         * used (see {@link #createEngine(String, int)}).
+         */
+        private void verify() throws SSLPeerUnverifiedException {
+            if (isAndroid() && !HttpsURLConnection.getDefaultHostnameVerifier().verify(this.host,
+                    this.engine.getSession())) {
+                throw new SSLPeerUnverifiedException("The certificate does not match " + this.host);
+            }
+        }
+
+        private void consume(final ByteBuffer data) throws IOException {
+            if (!data.hasRemaining()) {
+                return;
+            } else if (this.exchange == null) {
+                throw new IOException("Unexpected data received from " + this.address);
+            }
+
+            this.received = true;
+            this.exchange.deadline = now + TimeUnit.MILLISECONDS.toNanos(this.exchange.readTimeout);
+            if (this.parser.feed(data)) {
+                finish(!data.hasRemaining() && this.parser.isKeepAlive());
+            }
+        }
+
+        private void onEndOfStream() throws IOException {
+            if (this.exchange == null) {
+                close();
+            } else if (this.parser.finish()) {
+                finish(false);
+            } else {
+                throw new EOFException("The connection to " + this.address + " was closed");
+            }
+        }
+
+        private void finish(final boolean keepAlive) {
+            final Exchange finished = this.exchange;
+            final Response response = this.parser.getResponse();
+            this.exchange = null;
+            this.out = null;
+            this.completed++;
+
+            if (keepAlive && !closed) {
+                this.idleSince = now;
+                Deque<Connection> conns = idle.get(this.address);
+                if (conns == null) {
+                    conns = new ArrayDeque<>();
+                    idle.put(this.address, conns);
+                }
+                conns.addLast(this);
+                updateInterest();
+            } else {
+                close();
+            }
+
+            complete(finished, response, null);
+        }
+
+        /**
+         * Closes the connection, the request is sent again on another connection if a kept alive connection was
+         * closed by the server before any response was received (and the request is not timed out).
+         *
+         * @param e      IOException the reason
+         * @param resend boolean {@code true} if the request may be sent again
+         */
+        void fail(final IOException e, final boolean resend) {
+            final Exchange failed = this.exchange;
+            this.exchange = null;
+            close();
+
+            // the address may have changed, it is resolved again for the next connection
+            if (!this.connected) {
+                resolved.remove(this.host);
+            }
+
+            if (failed == null) {
+                return;
+            } else if (resend && this.completed > 0 && !this.received && !failed.resent && !closed) {
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "Kept alive connection to " + this.address +
+                            " was closed, sending the request again");
+                }
+                failed.resent = true;
+                failed.sent = false;
+                failed.deadline = now + TimeUnit.MILLISECONDS.toNanos(failed.connectionTimeout);
+                waiting.addFirst(failed);
+            } else {
+                complete(failed, null, e);
+            }
+        }
+
+        void close() {
+            if (connections.remove(this)) {
+                openConnections.decrementAndGet();
+            }
+
+            final Deque<Connection> conns = idle.get(this.address);
+            if (conns != null && conns.remove(this) && conns.isEmpty()) {
+                idle.remove(this.address);
+            }
+
+            if (this.selectionKey != null) {
+                this.selectionKey.cancel();
+            }
+            try {
+                this.channel.close();
+            } catch (final IOException e) {
+                // nothing to do, the connection is not used anymore
+            }
+        }
+
+        private void updateInterest() {
+            if (!this.selectionKey.isValid()) {
+                return;
+            }
+
+            int ops = SelectionKey.OP_READ;
+            if (this.engine == null) {
+                if (this.out != null && this.out.hasRemaining()) {
+                    ops |= SelectionKey.OP_WRITE;
+                }
+            } else if (this.netOut.hasRemaining() ||
+                    this.engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP ||
+                    (this.handshaken && this.out != null && this.out.hasRemaining())) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            this.selectionKey.interestOps(ops);
+        }
+    }
+
+    /**
+     * Incremental parser of a HTTP/1.1 response, the body may be sent with a {@code Content-Length}, chunked or
+     * until the connection is closed.
+     */
+    private static class ResponseParser {
+
+        private enum State {
+            STATUS_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK, CHUNK_END, TRAILERS, BODY_UNTIL_CLOSED, DONE
+        }
+
+        private final int maxResponseSize;
+        private final StringBuilder line = new StringBuilder();
+        private final Map<String, String> headers = new HashMap<>();
+
+        private State state;
+        private int headSize;
+        private int statusCode;
+        private boolean keepAlive;
+        private long remaining;
+        private boolean exceeded;
+        private ByteArrayOutputStream body;
+
+        ResponseParser(final int maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+            reset();
+        }
+
+        void reset() {
+            this.state = State.STATUS_LINE;
+            this.line.setLength(0);
+            this.headers.clear();
+            this.headSize = 0;
+            this.statusCode = -1;
+            this.keepAlive = true;
+            this.remaining = 0;
+            this.exceeded = false;
+            this.body = null;
+        }
+
+        /**
+         * @param data ByteBuffer the data received
+         *
+         * @return boolean {@code true} if the response is complete (or its body exceeds the maximal size)
+         *
+         * @throws IOException if the response is not valid
+         */
+        boolean feed(final ByteBuffer data) throws IOException {
+            while (data.hasRemaining() && this.state != State.DONE && !this.exceeded) {
+                switch (this.state) {
+                    case BODY:
+                    case CHUNK:
+                        final int length = (int) Math.min(this.remaining, data.remaining());
+                        append(data, length);
+                        this.remaining -= length;
+                        if (this.remaining == 0) {
+                            this.state = this.state == State.BODY ? State.DONE : State.CHUNK_END;
+                        }
+                        break;
+                    case BODY_UNTIL_CLOSED:
+                        append(data, data.remaining());
+                        break;
+                    default:
+                        final String current = readLine(data);
+                        if (current != null) {
+                            onLine(current);
+                        }
+                        break;
+                }
+            }
+
+            return this.state == State.DONE || this.exceeded;
+        }
+
+        /**
+         * Called if the connection is closed by the server.
+         *
+         * @return boolean {@code true} if the response is complete, i.e., its body was sent until the connection
+         * was closed
+         */
+        boolean finish() {
+            if (this.state == State.BODY_UNTIL_CLOSED) {
+                this.state = State.DONE;
+            }
+            return this.state == State.DONE;
+        }
+
+        boolean isKeepAlive() {
+            return this.keepAlive && !this.exceeded;
+        }
+
+        Response getResponse() {
+            final byte[] bytes = this.exceeded ? null : (this.body == null ? new byte[0] : this.body.toByteArray());
+            return new Response(this.statusCode, new HashMap<>(this.headers), bytes);
+        }
+
+        private String readLine(final ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                final char c = (char) (data.get() & 0xff);
+                if (++this.headSize > MAX_HEAD_SIZE) {
+                    throw new IOException("The head of the response exceeds " + MAX_HEAD_SIZE + " bytes");
+                } else if (c == '\n') {
+                    final int end = this.line.length();
+                    final String result = this.line.substring(0, end > 0 && this.line.charAt(end - 1) == '\r' ?
+                            end - 1 : end);
+                    this.line.setLength(0);
+                    return result;
+                } else {
+                    this.line.append(c);
+                }
+            }
+
+            return null;
+        }
+
+        private void onLine(final String current) throws IOException {
+            switch (this.state) {
+                case STATUS_LINE:
+                    final String[] parts = current.split(" ", 3);
+                    if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+                        throw new IOException("Invalid status line: " + current);
+                    }
+                    try {
+                        this.statusCode = Integer.parseInt(parts[1]);
+                    } catch (final NumberFormatException e) {
+                        throw new IOException("Invalid status line: " + current);
+                    }
+                    this.keepAlive = !"HTTP/1.0".equals(parts[0]);
+                    this.state = State.HEADERS;
+                    break;
+                case HEADERS:
+                    if (current.isEmpty()) {
+                        onHeaders();
+                    } else {
+                        final int separator = current.indexOf(':');
+                        if (separator > 0) {
+                            final String name = current.substring(0, separator).trim().toLowerCase(Locale.US);
+                            final String value = current.substring(separator + 1).trim();
+                            final String previous = this.headers.get(name);
+                            this.headers.put(name, previous == null ? value : previous + ", " + value);
+                        }
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    final int extension = current.indexOf(';');
+                    try {
+                        this.remaining = Long.parseLong((extension < 0 ? current : current.substring(0, extension))
+                                .trim(), 16);
+                    } catch (final NumberFormatException e) {
+                        throw new IOException("Invalid chunk size: " + current);
+                    }
+                    this.state = this.remaining == 0 ? State.TRAILERS : State.CHUNK;
+                    break;
+                case CHUNK_END:
+                    if (!current.isEmpty()) {
+                        throw new IOException("Invalid end of chunk: " + current);
+                    }
+                    this.state = State.CHUNK_SIZE;
+                    break;
+                case TRAILERS:
+                    if (current.isEmpty()) {
+                        this.state = State.DONE;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void onHeaders() throws IOException {
+
+            // informational responses (e.g. 100 Continue) are followed by the actual response
+            if (this.statusCode >= 100 && this.statusCode < 200) {
+                this.state = State.STATUS_LINE;
+                this.headers.clear();
+                return;
+            }
+
+            final String connection = this.headers.get("connection");
+            if (connection != null) {
+                this.keepAlive = this.keepAlive ? !"close".equalsIgnoreCase(connection) :
+                        "keep-alive".equalsIgnoreCase(connection);
+            }
+
+            final String transferEncoding = this.headers.get("transfer-encoding");
+            final String contentLength = this.headers.get("content-length");
+            if (this.statusCode == 204 || this.statusCode == 304) {
+                this.state = State.DONE;
+            } else if (transferEncoding != null && transferEncoding.toLowerCase(Locale.US).contains("chunked")) {
+                this.body = new ByteArrayOutputStream();
+                this.state = State.CHUNK_SIZE;
+            } else if (contentLength != null) {
+                try {
+                    this.remaining = Long.parseLong(contentLength.trim());
+                } catch (final NumberFormatException e) {
+                    throw new IOException("Invalid content length: " + contentLength);
+                }
+
+                if (this.remaining > this.maxResponseSize) {
+                    BreinLogger.w(TAG, "Response of " + this.remaining + " bytes exceeds the maximal size of " +
+                            this.maxResponseSize + " bytes");
+                    this.exceeded = true;
+                } else {
+                    this.body = new ByteArrayOutputStream((int) this.remaining);
+                    this.state = this.remaining == 0 ? State.DONE : State.BODY;
+                }
+            } else {
+                this.body = new ByteArrayOutputStream();
+                this.keepAlive = false;
+                this.state = State.BODY_UNTIL_CLOSED;
+            }
+        }
+
+        private void append(final ByteBuffer data, final int length) {
+            if (this.body.size() + length > this.maxResponseSize) {
+                BreinLogger.w(TAG, "Response exceeds the maximal size of " + this.maxResponseSize + " bytes");
+                this.exceeded = true;
+                data.position(data.position() + length);
+                return;
+            }
+
+            if (data.hasArray()) {
+                this.body.write(data.array(), data.arrayOffset() + data.position(), length);
+                data.position(data.position() + length);
+            } else {
+                final byte[] bytes = new byte[length];
+                data.get(bytes);
+                this.body.write(bytes, 0, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package com.brein.engine;
+
+import com.brein.api.BreinRecommendation;
+import com.brein.api.BreinRequestException;
+import com.brein.api.ICallback;
+import com.brein.api.IRequestCallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.domain.BreinUser;
+import com.brein.util.BreinLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stale-while-revalidate cache of recommendation results. A cached result is returned right away and refreshed in the
+ * background (if it is older than the refresh interval), i.e., the next request receives the refreshed result. The
+ * key of a request consists of the user (user id, email and device id, or the session id if none of those is set),
+ * the category and the number of recommendations.
+ * <p>
+ * The results are kept in memory (bounded, the least recently used one is evicted first) and, if a directory is
+ * configured, on disk, so that a cold start can render recommendations before the network answers. The results
+ * stored on disk are loaded in the background when the cache is created, i.e., {@link #get(String)} never touches the
+ * disk and can be called from the UI thread; results older than the maximal age are never served.
+ */
+public class BreinRecommendationCache {
+
+    private static final String TAG = "BreinRecommendationCache";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String FILE_SUFFIX = ".recommendation";
+    private static final char SEPARATOR = '|';
+
+    private final int maxSize;
+    private final long refreshInterval;
+    private final long maxAge;
+    private final File directory;
+
+    private final LinkedHashMap<String, CachedResult> entries;
+
+    /**
+     * single (daemon) thread loading the results from disk, {@code null} if kept in memory only
+     */
+    private final Executor io;
+
+    /**
+     * released as soon as the results stored on disk are loaded
+     */
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    /**
+     * keys of the results currently refreshed, so a result is refreshed at most once at a time
+     */
+    private final Set<String> refreshing = new HashSet<>();
+
+    /**
+     * serializes the writes of the results to disk, the loading of the directory holds it as well
+     */
+    private final Object writeLock = new Object();
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * Creates the cache based on the settings of the configuration
+     *
+     * @param config BreinConfig contains the cache settings
+     */
+    public BreinRecommendationCache(final BreinConfig config) {
+        this(config.getRecommendationCacheSize(),
+                config.getRecommendationCacheRefreshInterval(),
+                config.getRecommendationCacheMaxAge(),
+                config.getRecommendationCacheDirectory());
+    }
+
+    /**
+     * Creates the cache
+     *
+     * @param maxSize         int the maximal number of cached results (in memory and on disk)
+     * @param refreshInterval long the time in ms a result is served without being refreshed
+     * @param maxAge          long the maximal age in ms of a served result
+     * @param directory       File the directory to persist the results in, {@code null} to keep them in memory only
+     */
+    public BreinRecommendationCache(final int maxSize,
+                                    final long refreshInterval,
+                                    final long maxAge,
+                                    final File directory) {
+        this.maxSize = Math.max(1, maxSize);
+        this.refreshInterval = Math.max(0, refreshInterval);
+        this.maxAge = maxAge;
+        this.directory = directory;
+
+        this.entries = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedResult> eldest) {
+                if (size() > BreinRecommendationCache.this.maxSize) {
+                    delete(eldest.getKey());
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        };
+
+        if (directory == null) {
+            this.io = null;
+            this.loaded.countDown();
+        } else {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                    BreinConfig.DEFAULT_EXECUTOR_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "breinify-recommendations");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            this.io = executor;
+            this.io.execute(new Runnable() {
+                @Override
+                public void run() {
+                    load();
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates the key of the request.
+     *
+     * @param data BreinRecommendation the request
+     *
+     * @return String the key, {@code null} if the request does not identify a user
+     */
+    public String createKey(final BreinRecommendation data) {
+        final BreinUser user = data.getUser();
+
+        final StringBuilder key = new StringBuilder();
+        if (user.getUserId() != null || user.getEmail() != null || user.getDeviceId() != null) {
+            key.append(user.getUserId()).append(SEPARATOR)
+                    .append(user.getEmail()).append(SEPARATOR)
+                    .append(user.getDeviceId());
+        } else if (user.getSessionId() != null) {
+            key.append(user.getSessionId());
+        } else {
+            return null;
+        }
+
+        return key.append(SEPARATOR).append(data.getCategory())
+                .append(SEPARATOR).append(data.getNumberOfRecommendations())
+                .toString();
+    }
+
+    /**
+     * Retrieves the cached result from memory, i.e., a result stored on disk is found only after it was loaded (see
+     * {@link #whenLoaded(Runnable)}).
+     *
+     * @param key String the key of the request
+     *
+     * @return BreinResult the result, {@code null} if not cached or too old
+     */
+    public synchronized BreinResult get(final String key) {
+        final CachedResult entry = this.entries.get(key);
+        if (entry == null || now() - entry.storedAt > this.maxAge) {
+            this.missCount++;
+            return null;
+        } else {
+            this.hitCount++;
+            return entry.result;
+        }
+    }
+
+    /**
+     * @return boolean {@code true} if the results stored on disk are loaded (or no directory is configured)
+     */
+    public boolean isLoaded() {
+        return this.loaded.getCount() == 0;
+    }
+
+    /**
+     * Runs the action as soon as the results stored on disk are loaded, i.e., right away (within the calling thread)
+     * if loaded already, otherwise within the thread loading the results.
+     *
+     * @param action Runnable the action to run
+     */
+    public void whenLoaded(final Runnable action) {
+        if (isLoaded()) {
+            action.run();
+        } else {
+            // the loading is the first task of the single thread, so the action runs afterwards
+            this.io.execute(action);
+        }
+    }
+
+    /**
+     * Waits until the results stored on disk are loaded.
+     *
+     * @param timeout long the maximal time to wait
+     * @param unit    TimeUnit the unit of the timeout
+     *
+     * @return boolean {@code true} if loaded, {@code false} if the time elapsed
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitLoaded(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.loaded.await(timeout, unit);
+    }
+
+    /**
+     * Checks if the cached result should be refreshed, i.e., it is older than the refresh interval and not refreshed
+     * at the moment. If so, the refresh is marked as started and must be finished by caching the result (see {@link
+     * #caching(String, ICallback)}).
+     *
+     * @param key String the key of the request
+     *
+     * @return boolean {@code true} if the result should be refreshed
+     */
+    public synchronized boolean startRefresh(final String key) {
+        final CachedResult entry = this.entries.get(key);
+        if (entry != null && now() - entry.storedAt < this.refreshInterval) {
+            return false;
+        } else {
+            return this.refreshing.add(key);
+        }
+    }
+
+    /**
+     * Caches the result of a request (in memory and on disk)
+     *
+     * @param key    String the key of the request
+     * @param result BreinResult the result, {@code null} is not cached
+     */
+    public void put(final String key, final BreinResult result) {
+        if (key == null || result == null) {
+            return;
+        }
+
+        final CachedResult entry = new CachedResult(key, result, now());
+        synchronized (this) {
+            this.entries.put(key, entry);
+        }
+        synchronized (this.writeLock) {
+            write(key, entry);
+        }
+    }
+
+    /**
+     * Wraps the callback of a request, so that its result is cached. A started refresh is finished, when the result is
+     * received.
+     *
+     * @param key      String the key of the request
+     * @param callback ICallback the callback of the request, may be {@code null}
+     *
+     * @return ICallback the callback caching the result
+     */
+    public ICallback<BreinResult> caching(final String key, final ICallback<BreinResult> callback) {
+        return new IRequestCallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                put(key, data);
+                synchronized (BreinRecommendationCache.this) {
+                    refreshing.remove(key);
+                }
+
+                if (callback != null) {
+                    callback.callback(data);
+                }
+            }
+
+            @Override
+            public void onError(final BreinRequestException error) {
+                synchronized (BreinRecommendationCache.this) {
+                    refreshing.remove(key);
+                }
+
+                BreinCallbacks.fail(callback, error);
+            }
+
+            @Override
+            public boolean isDone() {
+                return BreinCallbacks.isDone(callback);
+            }
+
+            @Override
+            public void setCancelAction(final Runnable action) {
+                BreinCallbacks.setCancelAction(callback, action);
+            }
+        };
+    }
+
+    /**
+     * Removes all cached results, including the ones stored on disk
+     */
+    public synchronized void clear() {
+        for (final String key : this.entries.keySet()) {
+            delete(key);
+        }
+        this.entries.clear();
+
+        final File[] files = listFiles();
+        for (final File file : files) {
+            if (!file.delete()) {
+                BreinLogger.w(TAG, "Unable to delete " + file);
+            }
+        }
+    }
+
+    /**
+     * @return int the number of results kept in memory
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return long the number of requests served from the cache
+     */
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * @return long the number of requests not found within the cache
+     */
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * @return long the current time in ms, used to determine the age of a result
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Creates and prunes (i.e., too old results and results exceeding the maximal size are removed) the directory and
+     * loads the remaining results into memory; a result cached in the meantime is not replaced.
+     */
+    private void load() {
+        try {
+            synchronized (this.writeLock) {
+                createDirectory();
+
+                // the oldest result is loaded first, so the newest one is the most recently used
+                final File[] files = prune();
+                for (int i = files.length - 1; i >= 0; i--) {
+                    final CachedResult entry = read(files[i]);
+                    if (entry == null) {
+                        continue;
+                    }
+
+                    synchronized (this) {
+                        if (!this.entries.containsKey(entry.key)) {
+                            this.entries.put(entry.key, entry);
+                        }
+                    }
+                }
+            }
+        } catch (final RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to load the cached recommendations: " + e);
+        } finally {
+            this.loaded.countDown();
+        }
+    }
+
+    private CachedResult read(final File file) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+            // the key is stored to detect a collision of the file names
+            final String key = in.readUTF();
+            if (!file.getName().equals(hash(key) + FILE_SUFFIX)) {
+                return null;
+            }
+
+            final long storedAt = in.readLong();
+            final byte[] json = new byte[in.readInt()];
+            in.readFully(json);
+
+            return new CachedResult(key, new BreinResult(new String(json, UTF8)), storedAt);
+        } catch (final IOException | RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to read the cached recommendations " + file + ": " + e);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    private void write(final String key, final CachedResult entry) {
+        final File file = getFile(key);
+        if (file == null) {
+            return;
+        }
+
+        // a result may be cached before the directory was loaded (and created)
+        createDirectory();
+
+        // the result is written to a temporary file first, so a crash never leaves a partially written result
+        final File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            final byte[] json = BreinResult.GSON.toJson(entry.result.getMap()).getBytes(UTF8);
+
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeUTF(key);
+            out.writeLong(entry.storedAt);
+            out.writeInt(json.length);
+            out.write(json);
+            out.close();
+            out = null;
+
+            if (!tmp.renameTo(file)) {
+                BreinLogger.w(TAG, "Unable to store the cached recommendations " + file);
+            }
+        } catch (final IOException | RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to write the cached recommendations " + file + ": " + e);
+        } finally {
+            close(out);
+            if (tmp.exists() && !tmp.delete()) {
+                BreinLogger.w(TAG, "Unable to delete " + tmp);
+            }
+        }
+    }
+
+    private void delete(final String key) {
+        final File file = getFile(key);
+        if (file != null && file.exists() && !file.delete()) {
+            BreinLogger.w(TAG, "Unable to delete " + file);
+        }
+    }
+
+    private void createDirectory() {
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            BreinLogger.w(TAG, "Unable to create the directory " + this.directory);
+        }
+    }
+
+    private File getFile(final String key) {
+        return this.directory == null ? null : new File(this.directory, hash(key) + FILE_SUFFIX);
+    }
+
+    /**
+     * Removes the too old results and the results exceeding the maximal size.
+     *
+     * @return File[] the remaining files, the newest one first
+     */
+    private File[] prune() {
+        final File[] files = listFiles();
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File f1, final File f2) {
+                return Long.compare(f2.lastModified(), f1.lastModified());
+            }
+        });
+
+        final long now = now();
+        int remaining = 0;
+        for (int i = 0; i < files.length; i++) {
+            if (i < this.maxSize && now - files[i].lastModified() <= this.maxAge) {
+                files[remaining++] = files[i];
+            } else if (!files[i].delete()) {
+                BreinLogger.w(TAG, "Unable to delete " + files[i]);
+            }
+        }
+
+        return Arrays.copyOf(files, remaining);
+    }
+
+    private File[] listFiles() {
+        final File[] files = this.directory == null ? null : this.directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.endsWith(FILE_SUFFIX);
+            }
+        });
+
+        return files == null ? new File[0] : files;
+    }
+
+    private static String hash(final String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF8));
+
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            return Integer.toHexString(key.hashCode());
+        }
+    }
+
+    private static void close(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (final IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    private static class CachedResult {
+        private final String key;
+        private final BreinResult result;
+        private final long storedAt;
+
+        CachedResult(final String key, final BreinResult result, final long storedAt) {
+            this.key = key;
+            this.result = result;
+            this.storedAt = storedAt;
+        }
+    }
+}
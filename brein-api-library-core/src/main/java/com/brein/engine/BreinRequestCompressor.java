@@ -0,0 +1,311 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the request bodies using gzip ({@code Content-Encoding: gzip}), if enabled and the body exceeds the
+ * configured threshold. The deflater writes directly to the output stream of the request, i.e., the compressed body
+ * is not buffered.
+ * <p>
+ * The ratio achieved is recorded per endpoint. The bodies of an endpoint which do not compress well (on average more
+ * than {@link #MAX_RATIO} of their original size) are sent uncompressed, every {@link #PROBE_INTERVAL}-th body is still
+ * compressed to notice a changed ratio.
+ */
+public class BreinRequestCompressor {
+
+    /**
+     * value of the {@code Content-Encoding} header of a compressed body
+     */
+    public static final String CONTENT_ENCODING = "gzip";
+
+    /**
+     * ratio (compressed to original size) above which the compression is not considered worth it
+     */
+    public static final double MAX_RATIO = 0.9;
+
+    /**
+     * number of compressed bodies of an endpoint, before its ratio is considered
+     */
+    public static final int MIN_SAMPLES = 8;
+
+    /**
+     * every n-th body of an endpoint with a bad ratio is compressed anyways
+     */
+    public static final int PROBE_INTERVAL = 32;
+
+    /**
+     * weight of the latest ratio within the average ratio of an endpoint
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final ConcurrentHashMap<String, EndpointStatistics> statistics = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = false;
+    private volatile int threshold = Integer.MAX_VALUE;
+
+    /**
+     * Applies the settings of the configuration, the recorded ratios are dropped.
+     *
+     * @param config BreinConfig the configuration
+     */
+    public void configure(final BreinConfig config) {
+        final BreinConfig current = config == null ? new BreinConfig() : config;
+        this.enabled = current.isRequestCompressionEnabled();
+        this.threshold = Math.max(0, current.getRequestCompressionThreshold());
+        this.statistics.clear();
+    }
+
+    /**
+     * Checks if the body of a request to the endpoint is compressed, a request sent uncompressed is recorded.
+     *
+     * @param endpoint String the endpoint, e.g. {@code /activities}
+     * @param length   int the size of the body in bytes
+     *
+     * @return boolean {@code true} if the body should be compressed
+     */
+    public boolean shouldCompress(final String endpoint, final int length) {
+        if (!this.enabled || endpoint == null) {
+            return false;
+        }
+
+        final EndpointStatistics endpointStatistics = get(endpoint);
+        if (length < this.threshold || !endpointStatistics.isWorthIt()) {
+            endpointStatistics.recordUncompressed();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes the compressed body to the stream and records the ratio achieved, the stream is closed afterwards.
+     *
+     * @param endpoint String the endpoint, e.g. {@code /activities}
+     * @param body     byte[] the uncompressed body
+     * @param out      OutputStream the stream to write to, e.g., the one of the connection
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(final String endpoint, final byte[] body, final OutputStream out) throws IOException {
+        final CountingOutputStream counting = new CountingOutputStream(out);
+        final GZIPOutputStream gzip = new GZIPOutputStream(counting, BUFFER_SIZE);
+        try {
+            gzip.write(body);
+            gzip.finish();
+        } finally {
+            gzip.close();
+        }
+
+        if (endpoint != null) {
+            get(endpoint).recordCompressed(body.length, counting.count);
+        }
+    }
+
+    /**
+     * Compresses the body, see {@link #write(String, byte[], OutputStream)}.
+     *
+     * @param endpoint String the endpoint, e.g. {@code /activities}
+     * @param body     byte[] the uncompressed body
+     *
+     * @return byte[] the compressed body
+     */
+    public byte[] compress(final String endpoint, final byte[] body) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try {
+            write(endpoint, body, out);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to compress in memory", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param endpoint String the endpoint, e.g. {@code /activity}
+     *
+     * @return Statistics the compression statistics of the endpoint, {@code null} if no request was recorded
+     */
+    public Statistics getStatistics(final String endpoint) {
+        final EndpointStatistics endpointStatistics = this.statistics.get(endpoint);
+        return endpointStatistics == null ? null : endpointStatistics.snapshot(endpoint);
+    }
+
+    /**
+     * @return Map the compression statistics by endpoint
+     */
+    public Map<String, Statistics> getAll() {
+        final Map<String, Statistics> all = new HashMap<>();
+        for (final Map.Entry<String, EndpointStatistics> entry : this.statistics.entrySet()) {
+            all.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return all;
+    }
+
+    private EndpointStatistics get(final String endpoint) {
+        EndpointStatistics endpointStatistics = this.statistics.get(endpoint);
+        if (endpointStatistics == null) {
+            final EndpointStatistics created = new EndpointStatistics();
+            endpointStatistics = this.statistics.putIfAbsent(endpoint, created);
+            endpointStatistics = endpointStatistics == null ? created : endpointStatistics;
+        }
+        return endpointStatistics;
+    }
+
+    /**
+     * Compression statistics of an endpoint
+     */
+    public static class Statistics {
+        private final String endpoint;
+        private final long compressedCount;
+        private final long uncompressedCount;
+        private final long originalBytes;
+        private final long compressedBytes;
+        private final double averageRatio;
+
+        public Statistics(final String endpoint,
+                          final long compressedCount,
+                          final long uncompressedCount,
+                          final long originalBytes,
+                          final long compressedBytes,
+                          final double averageRatio) {
+            this.endpoint = endpoint;
+            this.compressedCount = compressedCount;
+            this.uncompressedCount = uncompressedCount;
+            this.originalBytes = originalBytes;
+            this.compressedBytes = compressedBytes;
+            this.averageRatio = averageRatio;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * @return long the number of bodies sent compressed
+         */
+        public long getCompressedCount() {
+            return compressedCount;
+        }
+
+        /**
+         * @return long the number of bodies sent uncompressed (below the threshold or because of a bad ratio)
+         */
+        public long getUncompressedCount() {
+            return uncompressedCount;
+        }
+
+        /**
+         * @return long the original size in bytes of the bodies sent compressed
+         */
+        public long getOriginalBytes() {
+            return originalBytes;
+        }
+
+        /**
+         * @return long the size in bytes of the compressed bodies
+         */
+        public long getCompressedBytes() {
+            return compressedBytes;
+        }
+
+        /**
+         * @return double the overall ratio of compressed to original size, {@code 1.0} if nothing was compressed
+         */
+        public double getRatio() {
+            return originalBytes == 0 ? 1.0 : (double) compressedBytes / originalBytes;
+        }
+
+        /**
+         * @return double the recent ratio of compressed to original size, used to decide if bodies are compressed
+         */
+        public double getAverageRatio() {
+            return averageRatio;
+        }
+
+        /**
+         * @return long the bytes saved by the compression
+         */
+        public long getSavedBytes() {
+            return originalBytes - compressedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d compressed (%d of %d bytes, ratio %.2f), %d uncompressed", endpoint,
+                    compressedCount, compressedBytes, originalBytes, getRatio(), uncompressedCount);
+        }
+    }
+
+    /**
+     * The recorded values of an endpoint
+     */
+    private static class EndpointStatistics {
+        private long compressedCount = 0;
+        private long uncompressedCount = 0;
+        private long originalBytes = 0;
+        private long compressedBytes = 0;
+        private double averageRatio = 1.0;
+        private long skipped = 0;
+
+        synchronized boolean isWorthIt() {
+            if (this.compressedCount < MIN_SAMPLES || this.averageRatio <= MAX_RATIO) {
+                return true;
+            }
+
+            // probe the endpoint from time to time, the bodies may compress better later on
+            return ++this.skipped % PROBE_INTERVAL == 0;
+        }
+
+        synchronized void recordUncompressed() {
+            this.uncompressedCount++;
+        }
+
+        synchronized void recordCompressed(final int original, final long compressed) {
+            final double ratio = original == 0 ? 1.0 : (double) compressed / original;
+            this.averageRatio = this.compressedCount == 0 ? ratio :
+                    SMOOTHING * ratio + (1.0 - SMOOTHING) * this.averageRatio;
+
+            this.compressedCount++;
+            this.originalBytes += original;
+            this.compressedBytes += compressed;
+        }
+
+        synchronized Statistics snapshot(final String endpoint) {
+            return new Statistics(endpoint, this.compressedCount, this.uncompressedCount, this.originalBytes,
+                    this.compressedBytes, this.averageRatio);
+        }
+    }
+
+    /**
+     * Counts the bytes written to the underlying stream
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded worker pool used by the rest engines to execute the requests. The pool is configured through the {@code
+ * BreinConfig} (core and max threads, queue capacity, thread priority and thread name prefix). Idle threads are
+ * released after the keep-alive time, so an idle application does not hold any threads.
+ * <p>
+ * Delayed tasks (e.g., retries) are kept by a single timer thread and handed over to the pool when they are due, so
+ * waiting never blocks a worker thread.
+ */
+public class BreinRequestExecutor {
+
+    /**
+     * the underlying pool
+     */
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * counts the tasks that could not be accepted, because the queue was full
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * the delayed tasks which were not handed over to the pool so far
+     */
+    private final Set<DelayedTask> delayedTasks =
+            Collections.newSetFromMap(new ConcurrentHashMap<DelayedTask, Boolean>());
+
+    /**
+     * hands the delayed tasks over to the pool, created with the first delayed task
+     */
+    private ScheduledThreadPoolExecutor timer = null;
+
+    private final String threadNamePrefix;
+    private final int threadPriority;
+
+    /**
+     * Creates the executor based on the settings of the configuration
+     *
+     * @param config BreinConfig contains the pool settings
+     */
+    public BreinRequestExecutor(final BreinConfig config) {
+        this(config.getExecutorCorePoolSize(),
+                config.getExecutorMaxPoolSize(),
+                config.getExecutorQueueCapacity(),
+                config.getExecutorThreadPriority(),
+                config.getExecutorThreadNamePrefix());
+    }
+
+    /**
+     * Creates the executor
+     *
+     * @param corePoolSize     int number of threads kept while requests are processed
+     * @param maxPoolSize      int maximal number of threads, used when the queue is full
+     * @param queueCapacity    int maximal number of requests waiting for a thread
+     * @param threadPriority   int priority of the worker threads
+     * @param threadNamePrefix String prefix of the worker thread names
+     */
+    public BreinRequestExecutor(final int corePoolSize,
+                                final int maxPoolSize,
+                                final int queueCapacity,
+                                final int threadPriority,
+                                final String threadNamePrefix) {
+        final int core = Math.max(1, corePoolSize);
+        final int max = Math.max(core, maxPoolSize);
+
+        this.pool = new ThreadPoolExecutor(core, max,
+                BreinConfig.DEFAULT_EXECUTOR_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, queueCapacity)),
+                new WorkerThreadFactory(threadNamePrefix, threadPriority));
+        this.pool.allowCoreThreadTimeOut(true);
+
+        this.threadNamePrefix = threadNamePrefix == null ? "" : threadNamePrefix;
+        this.threadPriority = threadPriority;
+    }
+
+    /**
+     * Executes the task within the pool.
+     *
+     * @param task Runnable the task to execute
+     *
+     * @return {@code true} if the task was accepted, {@code false} if the pool is saturated or shut down
+     */
+    public boolean execute(final Runnable task) {
+        try {
+            this.pool.execute(task);
+            return true;
+        } catch (final RejectedExecutionException e) {
+            this.rejectedCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Executes the task within the pool after the delay. If the pool does not accept the task when it is due, or the
+     * pool is shut down before the task is due, {@code onRejected} is run instead (within the calling thread of
+     * {@link #shutdown(long)} or the timer thread).
+     *
+     * @param task       Runnable the task to execute
+     * @param delayInMs  long the delay in ms
+     * @param onRejected Runnable run if the task is not executed, may be {@code null}
+     *
+     * @return {@code true} if the task was scheduled, {@code false} if the pool is shut down
+     */
+    public boolean schedule(final Runnable task, final long delayInMs, final Runnable onRejected) {
+        final DelayedTask delayedTask = new DelayedTask(task, onRejected);
+
+        synchronized (this) {
+            if (this.pool.isShutdown()) {
+                return false;
+            } else if (this.timer == null) {
+                this.timer = new ScheduledThreadPoolExecutor(1,
+                        new WorkerThreadFactory(this.threadNamePrefix + "timer-", this.threadPriority));
+                this.timer.setKeepAliveTime(BreinConfig.DEFAULT_EXECUTOR_KEEP_ALIVE, TimeUnit.MILLISECONDS);
+                this.timer.allowCoreThreadTimeOut(true);
+            }
+
+            this.delayedTasks.add(delayedTask);
+            try {
+                this.timer.schedule(delayedTask, Math.max(0, delayInMs), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (final RejectedExecutionException e) {
+                this.delayedTasks.remove(delayedTask);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return int the number of delayed tasks which are not due so far
+     */
+    public int getDelayedCount() {
+        return this.delayedTasks.size();
+    }
+
+    /**
+     * Stops accepting new tasks, lets the already queued ones finish and waits at most {@code timeoutInMs} for them.
+     * Delayed tasks which are not due so far are not executed, their {@code onRejected} is run instead.
+     *
+     * @param timeoutInMs long maximal time to wait for the queued tasks
+     *
+     * @return {@code true} if all tasks finished within the time, otherwise {@code false}
+     */
+    public boolean shutdown(final long timeoutInMs) {
+        synchronized (this) {
+            this.pool.shutdown();
+            if (this.timer != null) {
+                this.timer.shutdownNow();
+            }
+        }
+        for (final DelayedTask delayedTask : this.delayedTasks) {
+            delayedTask.reject();
+        }
+
+        try {
+            if (this.pool.awaitTermination(timeoutInMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.pool.shutdownNow();
+        return false;
+    }
+
+    /**
+     * @return boolean true if the executor does not accept tasks anymore
+     */
+    public boolean isShutdown() {
+        return this.pool.isShutdown();
+    }
+
+    /**
+     * Retrieves a snapshot of the current state of the pool
+     *
+     * @return Statistics the current values
+     */
+    public Statistics getStatistics() {
+        return new Statistics(this.pool.getPoolSize(),
+                this.pool.getActiveCount(),
+                this.pool.getLargestPoolSize(),
+                this.pool.getQueue().size(),
+                this.pool.getQueue().remainingCapacity(),
+                this.pool.getCompletedTaskCount(),
+                this.rejectedCount.get());
+    }
+
+    /**
+     * Immutable snapshot of the pool statistics
+     */
+    public static class Statistics {
+        private final int poolSize;
+        private final int activeCount;
+        private final int largestPoolSize;
+        private final int queueSize;
+        private final int remainingQueueCapacity;
+        private final long completedTaskCount;
+        private final long rejectedTaskCount;
+
+        public Statistics(final int poolSize,
+                          final int activeCount,
+                          final int largestPoolSize,
+                          final int queueSize,
+                          final int remainingQueueCapacity,
+                          final long completedTaskCount,
+                          final long rejectedTaskCount) {
+            this.poolSize = poolSize;
+            this.activeCount = activeCount;
+            this.largestPoolSize = largestPoolSize;
+            this.queueSize = queueSize;
+            this.remainingQueueCapacity = remainingQueueCapacity;
+            this.completedTaskCount = completedTaskCount;
+            this.rejectedTaskCount = rejectedTaskCount;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        public int getLargestPoolSize() {
+            return largestPoolSize;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public int getRemainingQueueCapacity() {
+            return remainingQueueCapacity;
+        }
+
+        public long getCompletedTaskCount() {
+            return completedTaskCount;
+        }
+
+        public long getRejectedTaskCount() {
+            return rejectedTaskCount;
+        }
+
+        @Override
+        public String toString() {
+            return "pool size: " + poolSize + ", active: " + activeCount + ", largest: " + largestPoolSize +
+                    ", queued: " + queueSize + ", remaining capacity: " + remainingQueueCapacity +
+                    ", completed: " + completedTaskCount + ", rejected: " + rejectedTaskCount;
+        }
+    }
+
+    /**
+     * Task handed over to the pool when it is due, the task is either executed or rejected, but never both
+     */
+    private class DelayedTask implements Runnable {
+        private final Runnable task;
+        private final Runnable onRejected;
+
+        DelayedTask(final Runnable task, final Runnable onRejected) {
+            this.task = task;
+            this.onRejected = onRejected;
+        }
+
+        @Override
+        public void run() {
+            if (delayedTasks.remove(this) && !execute(this.task) && this.onRejected != null) {
+                this.onRejected.run();
+            }
+        }
+
+        void reject() {
+            if (delayedTasks.remove(this) && this.onRejected != null) {
+                this.onRejected.run();
+            }
+        }
+    }
+
+    /**
+     * Creates named daemon threads with the configured priority
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String prefix;
+        private final int priority;
+
+        WorkerThreadFactory(final String prefix, final int priority) {
+            this.prefix = prefix == null ? "" : prefix;
+            this.priority = Math.min(Thread.MAX_PRIORITY, Math.max(Thread.MIN_PRIORITY, priority));
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        }
+    }
+}
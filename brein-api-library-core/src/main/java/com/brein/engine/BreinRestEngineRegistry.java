@@ -0,0 +1,148 @@
+package com.brein.engine;
+
+import com.brein.util.BreinLogger;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Registry of the rest engines available, i.e., a factory per {@link BreinEngineType}. The {@code HttpURLConnection}
+ * based and the non-blocking engine are always available, the OkHttp based engine if OkHttp is part of the
+ * application. Other transports can be plugged in by registering a factory for a type.
+ */
+public class BreinRestEngineRegistry {
+
+    private static final String TAG = "BreinRestEngineRegistry";
+
+    /**
+     * the type used if the requested one is not available
+     */
+    public static final BreinEngineType DEFAULT_TYPE = BreinEngineType.HTTP_URL_CONNECTION_ENGINE;
+
+    /**
+     * Creates a rest engine of a type.
+     */
+    public interface IFactory {
+
+        /**
+         * @return IRestEngine a new, not configured engine
+         */
+        IRestEngine create();
+    }
+
+    /**
+     * class required by the OkHttp based engine
+     */
+    private static final String OK_HTTP_CLIENT = "okhttp3.OkHttpClient";
+
+    private static final Map<BreinEngineType, IFactory> FACTORIES = new EnumMap<>(BreinEngineType.class);
+
+    static {
+        registerDefaults();
+    }
+
+    private BreinRestEngineRegistry() {
+    }
+
+    /**
+     * Registers the factory of the type, a factory registered before is replaced.
+     *
+     * @param type    BreinEngineType the type created by the factory
+     * @param factory IFactory the factory, {@code null} to remove the type
+     *
+     * @return IFactory the factory registered before, {@code null} if none
+     */
+    public static synchronized IFactory register(final BreinEngineType type, final IFactory factory) {
+        if (factory == null) {
+            return FACTORIES.remove(type);
+        } else {
+            return FACTORIES.put(type, factory);
+        }
+    }
+
+    /**
+     * Restores the factories of the engines provided by the library.
+     */
+    public static synchronized void registerDefaults() {
+        FACTORIES.clear();
+
+        FACTORIES.put(BreinEngineType.HTTP_URL_CONNECTION_ENGINE, new IFactory() {
+            @Override
+            public IRestEngine create() {
+                return new HttpUrlRestEngine();
+            }
+        });
+
+        FACTORIES.put(BreinEngineType.NIO_ENGINE, new IFactory() {
+            @Override
+            public IRestEngine create() {
+                return new NioRestEngine();
+            }
+        });
+
+        // the engine is not loaded at all, if OkHttp is missing
+        if (isClassAvailable(OK_HTTP_CLIENT)) {
+            FACTORIES.put(BreinEngineType.OK_HTTP_ENGINE, new IFactory() {
+                @Override
+                public IRestEngine create() {
+                    return new OkHttpRestEngine();
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks if an engine of the type can be created.
+     *
+     * @param type BreinEngineType the type
+     *
+     * @return boolean {@code true} if a factory is registered
+     */
+    public static synchronized boolean isAvailable(final BreinEngineType type) {
+        return type != null && FACTORIES.containsKey(type);
+    }
+
+    /**
+     * Determines the type of the engine used for the requested type, i.e., the type itself if available, otherwise
+     * the {@link #DEFAULT_TYPE}.
+     *
+     * @param type BreinEngineType the requested type, may be {@code null}
+     *
+     * @return BreinEngineType the type used
+     */
+    public static BreinEngineType resolve(final BreinEngineType type) {
+        if (type == null || isAvailable(type)) {
+            return type == null ? DEFAULT_TYPE : type;
+        }
+
+        BreinLogger.w(TAG, "The engine " + type + " is not available, using " + DEFAULT_TYPE);
+        return DEFAULT_TYPE;
+    }
+
+    /**
+     * Creates an engine of the requested type, if the type is not available an engine of the {@link #DEFAULT_TYPE}
+     * is created.
+     *
+     * @param type BreinEngineType the requested type
+     *
+     * @return IRestEngine a new, not configured engine
+     */
+    public static IRestEngine create(final BreinEngineType type) {
+        final IFactory factory;
+        synchronized (BreinRestEngineRegistry.class) {
+            final IFactory registered = FACTORIES.get(resolve(type));
+            factory = registered == null ? FACTORIES.get(DEFAULT_TYPE) : registered;
+        }
+
+        return factory == null ? new HttpUrlRestEngine() : factory.create();
+    }
+
+    private static boolean isClassAvailable(final String className) {
+        try {
+            Class.forName(className, false, BreinRestEngineRegistry.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
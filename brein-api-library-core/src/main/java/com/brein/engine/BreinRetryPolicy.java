@@ -0,0 +1,102 @@
+package com.brein.engine;
+
+import java.util.Random;
+
+/**
+ * Defines how often and when a failed request is sent again. The delay between two attempts grows exponentially and
+ * is randomized completely ("full jitter"), i.e., the delay before attempt {@code n + 1} is chosen uniformly between
+ * {@code 0} and {@code min(maxDelay, baseDelay * 2^(n - 1))}. Many devices failing at the same time (e.g., during an
+ * outage) do thereby not retry at the same time.
+ * <p>
+ * A {@code Retry-After} sent by the backend is honored, the randomized delay is added to it. If the backend asks to
+ * wait longer than {@code maxDelay}, the request is not retried (activities are kept within the offline queue, if
+ * enabled).
+ * <p>
+ * The policy limits the attempts of a request, the engines decide if a failed attempt is retried at all: an activity
+ * (which is not idempotent) is retried only if the backend did certainly not process it, i.e., it was not sent
+ * completely or the backend answered with {@code 429} or {@code 503} (see {@code HttpUrlRestEngine#isIdempotent}).
+ */
+public class BreinRetryPolicy {
+
+    /**
+     * policy which never retries a request
+     */
+    public static final BreinRetryPolicy NONE = new BreinRetryPolicy(1, 0, 0);
+
+    /**
+     * default maximal number of attempts (including the first one)
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * default delay in ms before the second attempt
+     */
+    public static final long DEFAULT_BASE_DELAY = 1000;
+
+    /**
+     * default maximal delay in ms between two attempts
+     */
+    public static final long DEFAULT_MAX_DELAY = 60000;
+
+    /**
+     * the default policy
+     */
+    public static final BreinRetryPolicy DEFAULT = new BreinRetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY,
+            DEFAULT_MAX_DELAY);
+
+    private static final Random RANDOM = new Random();
+
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+
+    /**
+     * Creates the policy
+     *
+     * @param maxAttempts int maximal number of attempts, including the first one
+     * @param baseDelay   long the delay in ms before the second attempt (before randomization)
+     * @param maxDelay    long maximal delay in ms between two attempts
+     */
+    public BreinRetryPolicy(final int maxAttempts, final long baseDelay, final long maxDelay) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelay = Math.max(0, baseDelay);
+        this.maxDelay = Math.max(this.baseDelay, maxDelay);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseDelay() {
+        return baseDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Determines the delay before the next attempt.
+     *
+     * @param attempt    int the number of the attempt which failed, starting with {@code 1}
+     * @param retryAfter long the time in ms the backend asked to wait, {@code -1} if not specified
+     *
+     * @return long the delay in ms, {@code -1} if the request should not be retried
+     */
+    public long getDelay(final int attempt, final long retryAfter) {
+        if (attempt >= maxAttempts || retryAfter > maxDelay) {
+            return -1;
+        }
+
+        // the exponent is limited to avoid an overflow, the delay is capped anyways
+        final long backoff = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 30));
+        final long jitter = backoff == 0 ? 0 : (long) (RANDOM.nextDouble() * (backoff + 1));
+
+        return retryAfter > 0 ? retryAfter + jitter : jitter;
+    }
+
+    @Override
+    public String toString() {
+        return "max attempts: " + maxAttempts + ", base delay: " + baseDelay + ", max delay: " + maxDelay;
+    }
+}
@@ -0,0 +1,367 @@
+package com.brein.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listener tracing 1-in-N calls, the durations of the phases of the last completed calls are kept (see {@link
+ * #getTraces()}), e.g., to find out where the time of slow requests is spent.
+ */
+public class BreinSamplingEventListener extends BreinEventListener {
+
+    /**
+     * default number of completed traces kept
+     */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final int sampleRate;
+    private final int capacity;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final ConcurrentHashMap<Long, Trace> running = new ConcurrentHashMap<>();
+    private final Deque<Trace> completed = new ArrayDeque<>();
+
+    /**
+     * @param sampleRate int every n-th call is traced, {@code 1} to trace all calls
+     */
+    public BreinSamplingEventListener(final int sampleRate) {
+        this(sampleRate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param sampleRate int every n-th call is traced, {@code 1} to trace all calls
+     * @param capacity   int the number of completed traces kept
+     */
+    public BreinSamplingEventListener(final int sampleRate, final int capacity) {
+        this.sampleRate = Math.max(1, sampleRate);
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public boolean isSampled(final String endpoint) {
+        return this.calls.getAndIncrement() % this.sampleRate == 0;
+    }
+
+    @Override
+    public void callStart(final long callId, final String endpoint, final long nanoTime) {
+        this.running.put(callId, new Trace(callId, endpoint, nanoTime));
+    }
+
+    @Override
+    public void serializationStart(final long callId, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.serializationStart(nanoTime);
+        }
+    }
+
+    @Override
+    public void serializationEnd(final long callId, final int bytes, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.serializationEnd(bytes, nanoTime);
+        }
+    }
+
+    @Override
+    public void attemptStart(final long callId, final int attempt, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.attemptStart(attempt, nanoTime);
+        }
+    }
+
+    @Override
+    public void connectStart(final long callId, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.connectStart(nanoTime);
+        }
+    }
+
+    @Override
+    public void connectEnd(final long callId, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.connectEnd(nanoTime);
+        }
+    }
+
+    @Override
+    public void requestBodyEnd(final long callId, final int bytes, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.requestBodyEnd(nanoTime);
+        }
+    }
+
+    @Override
+    public void responseHeadersEnd(final long callId, final int statusCode, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.responseHeadersEnd(statusCode, nanoTime);
+        }
+    }
+
+    @Override
+    public void attemptFailed(final long callId, final int attempt, final int statusCode, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.attemptFailed(statusCode);
+        }
+    }
+
+    @Override
+    public void parseStart(final long callId, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.parseStart(nanoTime);
+        }
+    }
+
+    @Override
+    public void parseEnd(final long callId, final long nanoTime) {
+        final Trace trace = this.running.get(callId);
+        if (trace != null) {
+            trace.parseEnd(nanoTime);
+        }
+    }
+
+    @Override
+    public void callEnd(final long callId, final long nanoTime) {
+        complete(callId, true, nanoTime);
+    }
+
+    @Override
+    public void callFailed(final long callId, final long nanoTime) {
+        complete(callId, false, nanoTime);
+    }
+
+    /**
+     * @return List the last completed traces, the oldest first
+     */
+    public List<Trace> getTraces() {
+        synchronized (this.completed) {
+            return new ArrayList<>(this.completed);
+        }
+    }
+
+    /**
+     * @return int the number of calls traced, but not completed so far
+     */
+    public int getRunningCount() {
+        return this.running.size();
+    }
+
+    /**
+     * Removes the completed traces.
+     */
+    public void clear() {
+        synchronized (this.completed) {
+            this.completed.clear();
+        }
+    }
+
+    private void complete(final long callId, final boolean succeeded, final long nanoTime) {
+        final Trace trace = this.running.remove(callId);
+        if (trace == null) {
+            return;
+        }
+
+        trace.end(succeeded, nanoTime);
+        synchronized (this.completed) {
+            if (this.completed.size() >= this.capacity) {
+                this.completed.poll();
+            }
+            this.completed.add(trace);
+        }
+    }
+
+    /**
+     * The timestamps of a traced call, the durations are in ns ({@code -1} if the phase was not reported)
+     */
+    public static class Trace {
+        private final long callId;
+        private final String endpoint;
+        private final long start;
+
+        private long serializationStart = -1;
+        private long serializationEnd = -1;
+        private long firstAttemptStart = -1;
+        private long attemptStart = -1;
+        private long connectStart = -1;
+        private long connectEnd = -1;
+        private long requestBodyEnd = -1;
+        private long responseHeadersEnd = -1;
+        private long parseStart = -1;
+        private long parseEnd = -1;
+        private long end = -1;
+        private int bytes = -1;
+        private int attempts = 0;
+        private int statusCode = -1;
+        private boolean succeeded = false;
+
+        Trace(final long callId, final String endpoint, final long start) {
+            this.callId = callId;
+            this.endpoint = endpoint;
+            this.start = start;
+        }
+
+        synchronized void serializationStart(final long nanoTime) {
+            this.serializationStart = nanoTime;
+        }
+
+        synchronized void serializationEnd(final int bytes, final long nanoTime) {
+            this.bytes = bytes;
+            this.serializationEnd = nanoTime;
+        }
+
+        synchronized void attemptStart(final int attempt, final long nanoTime) {
+            this.attempts = attempt;
+            this.attemptStart = nanoTime;
+            if (this.firstAttemptStart < 0) {
+                this.firstAttemptStart = nanoTime;
+            }
+
+            // the phases of a previous attempt are replaced
+            this.connectStart = -1;
+            this.connectEnd = -1;
+            this.requestBodyEnd = -1;
+            this.responseHeadersEnd = -1;
+        }
+
+        synchronized void connectStart(final long nanoTime) {
+            this.connectStart = nanoTime;
+        }
+
+        synchronized void connectEnd(final long nanoTime) {
+            this.connectEnd = nanoTime;
+        }
+
+        synchronized void requestBodyEnd(final long nanoTime) {
+            this.requestBodyEnd = nanoTime;
+        }
+
+        synchronized void responseHeadersEnd(final int statusCode, final long nanoTime) {
+            this.statusCode = statusCode;
+            this.responseHeadersEnd = nanoTime;
+        }
+
+        synchronized void attemptFailed(final int statusCode) {
+            this.statusCode = statusCode;
+        }
+
+        synchronized void parseStart(final long nanoTime) {
+            this.parseStart = nanoTime;
+        }
+
+        synchronized void parseEnd(final long nanoTime) {
+            this.parseEnd = nanoTime;
+        }
+
+        synchronized void end(final boolean succeeded, final long nanoTime) {
+            this.succeeded = succeeded;
+            this.end = nanoTime;
+        }
+
+        public long getCallId() {
+            return callId;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * @return int the size of the serialized body in bytes, {@code -1} if not serialized
+         */
+        public synchronized int getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return int the number of attempts sent
+         */
+        public synchronized int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * @return int the status code of the last attempt, {@code -1} if no response was received
+         */
+        public synchronized int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return boolean {@code true} if the call ended with a response
+         */
+        public synchronized boolean isSucceeded() {
+            return succeeded;
+        }
+
+        /**
+         * @return long the time to serialize (and sign) the body
+         */
+        public synchronized long getSerializationTime() {
+            return duration(serializationStart, serializationEnd);
+        }
+
+        /**
+         * @return long the time from the serialized body until the first attempt started, i.e., waiting for a worker
+         */
+        public synchronized long getQueueTime() {
+            return duration(serializationEnd, firstAttemptStart);
+        }
+
+        /**
+         * @return long the time to establish the connection of the last attempt
+         */
+        public synchronized long getConnectTime() {
+            return duration(connectStart, connectEnd);
+        }
+
+        /**
+         * @return long the time from the sent body (or the start of the last attempt) until the status code of the
+         * response was available
+         */
+        public synchronized long getTimeToFirstByte() {
+            return duration(requestBodyEnd < 0 ? attemptStart : requestBodyEnd, responseHeadersEnd);
+        }
+
+        /**
+         * @return long the time to parse the response
+         */
+        public synchronized long getParseTime() {
+            return duration(parseStart, parseEnd);
+        }
+
+        /**
+         * @return long the time from the start until the end of the call
+         */
+        public synchronized long getTotalTime() {
+            return duration(start, end);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("#%d %s: %s after %d attempt(s), status %d, total %.2fms (serialization %.2fms, " +
+                            "queue %.2fms, connect %.2fms, first byte %.2fms, parse %.2fms)", callId, endpoint,
+                    succeeded ? "succeeded" : "failed", attempts, statusCode, millis(getTotalTime()),
+                    millis(getSerializationTime()), millis(getQueueTime()), millis(getConnectTime()),
+                    millis(getTimeToFirstByte()), millis(getParseTime()));
+        }
+
+        private static long duration(final long from, final long to) {
+            return from < 0 || to < 0 ? -1 : to - from;
+        }
+
+        private static double millis(final long nanos) {
+            return nanos < 0 ? -1.0 : nanos / 1000000.0;
+        }
+    }
+}
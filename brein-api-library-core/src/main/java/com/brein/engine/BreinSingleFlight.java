@@ -0,0 +1,247 @@
+package com.brein.engine;
+
+import com.brein.api.BreinBase;
+import com.brein.api.BreinRequestException;
+import com.brein.api.ICallback;
+import com.brein.api.IRequestCallback;
+import com.brein.domain.BreinResult;
+import com.brein.util.BreinJsonUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Coalesces identical requests in flight (single-flight), i.e., a request sent while an identical one is in flight
+ * does not lead to another call, instead the result of the call in flight is passed to its callback as well. Two
+ * requests are identical, if they are sent to the same endpoint and the canonical payloads of their bodies are equal.
+ * The canonical payload is the body with sorted keys, without the values changing with every request (i.e., the
+ * timestamp and the signature). The key is created from the body sent, so the request is serialized only once.
+ * <p>
+ * The result is shared by all callbacks, i.e., it should not be modified. The request in flight is aborted (see {@link
+ * IRequestCallback#setCancelAction(Runnable)}) only if none of its callbacks waits for the result anymore.
+ */
+public class BreinSingleFlight {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * the requests in flight by key
+     */
+    private final Map<String, Flight> inFlight = new HashMap<>();
+
+    private long coalescedCount = 0;
+
+    /**
+     * Creates the key of the request, i.e., the endpoint and the canonical payload of the body sent. The canonical
+     * payload is the body with sorted keys, without the top-level values changing with every request (i.e., the
+     * timestamp and the signature).
+     *
+     * @param endpoint    String the endpoint the request is sent to
+     * @param requestBody byte[] the body (JSON) sent
+     *
+     * @return String the key, {@code null} if the body is not available or cannot be read
+     */
+    public String createKey(final String endpoint, final byte[] requestBody) {
+        if (requestBody == null || requestBody.length == 0) {
+            return null;
+        }
+
+        final Map<?, ?> payload;
+        try {
+            payload = BreinBase.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(requestBody),
+                    BreinJsonUtil.UTF8), Map.class);
+        } catch (final RuntimeException e) {
+            return null;
+        }
+
+        if (payload == null) {
+            return null;
+        }
+
+        final Map<Object, Object> canonical = canonicalize(payload);
+        canonical.remove(BreinBase.UNIX_TIMESTAMP_FIELD);
+        canonical.remove(BreinBase.SIGNATURE_FIELD);
+        canonical.remove(BreinBase.SIGNATURE_TYPE_FIELD);
+
+        return endpoint + SEPARATOR + BreinBase.GSON.toJson(canonical);
+    }
+
+    /**
+     * Joins the request in flight with the same key, or registers the request as the one in flight. The request in
+     * flight must be sent with the returned callback, if it cannot be sent at all, it must be abandoned (see {@link
+     * #abandon(String)}).
+     *
+     * @param key      String the key of the request
+     * @param callback ICallback the callback of the request, may be {@code null}
+     *
+     * @return ICallback the callback to send the request with, {@code null} if an identical request is in flight
+     * already, i.e., the request must not be sent
+     */
+    public ICallback<BreinResult> join(final String key, final ICallback<BreinResult> callback) {
+        final Flight joinedFlight;
+        final Flight flight = new Flight(callback);
+        synchronized (this) {
+            joinedFlight = this.inFlight.get(key);
+            if (joinedFlight == null) {
+                this.inFlight.put(key, flight);
+            } else {
+                if (callback != null) {
+                    joinedFlight.joined.add(callback);
+                }
+                this.coalescedCount++;
+            }
+        }
+
+        if (joinedFlight != null) {
+            BreinCallbacks.setCancelAction(callback, createCancelCheck(joinedFlight));
+            return null;
+        }
+
+        return new IRequestCallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                final List<ICallback<BreinResult>> joined = remove(key);
+
+                if (callback != null) {
+                    callback.callback(data);
+                }
+                for (final ICallback<BreinResult> joinedCallback : joined) {
+                    joinedCallback.callback(data);
+                }
+            }
+
+            @Override
+            public void onError(final BreinRequestException error) {
+                final List<ICallback<BreinResult>> joined = remove(key);
+
+                BreinCallbacks.fail(callback, error);
+                for (final ICallback<BreinResult> joinedCallback : joined) {
+                    BreinCallbacks.fail(joinedCallback, error);
+                }
+            }
+
+            @Override
+            public boolean isDone() {
+                return isAbandoned(flight);
+            }
+
+            @Override
+            public void setCancelAction(final Runnable action) {
+                synchronized (BreinSingleFlight.this) {
+                    flight.cancelAction = action;
+                }
+                BreinCallbacks.setCancelAction(callback, createCancelCheck(flight));
+            }
+        };
+    }
+
+    /**
+     * Abandons the request in flight, i.e., it could not be sent. The callbacks of the requests joined so far are
+     * informed about the failure.
+     *
+     * @param key String the key of the request
+     */
+    public void abandon(final String key) {
+        final BreinRequestException error = new BreinRequestException(BreinRequestException.Reason.REJECTED,
+                "The request joined could not be sent");
+        for (final ICallback<BreinResult> joinedCallback : remove(key)) {
+            BreinCallbacks.fail(joinedCallback, error);
+        }
+    }
+
+    /**
+     * @return int the number of distinct requests in flight
+     */
+    public synchronized int size() {
+        return this.inFlight.size();
+    }
+
+    /**
+     * @return long the number of requests which joined an identical request in flight
+     */
+    public synchronized long getCoalescedCount() {
+        return this.coalescedCount;
+    }
+
+    private synchronized List<ICallback<BreinResult>> remove(final String key) {
+        final Flight flight = this.inFlight.remove(key);
+        return flight == null ? new ArrayList<ICallback<BreinResult>>() : flight.joined;
+    }
+
+    /**
+     * @return boolean {@code true} if none of the callbacks of the request waits for the result anymore
+     */
+    private synchronized boolean isAbandoned(final Flight flight) {
+        if (!BreinCallbacks.isDone(flight.callback)) {
+            return false;
+        }
+        for (final ICallback<BreinResult> joinedCallback : flight.joined) {
+            if (!BreinCallbacks.isDone(joinedCallback)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the action run whenever a callback of the request is done, the request is aborted with the last one.
+     */
+    private Runnable createCancelCheck(final Flight flight) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                final Runnable action;
+                synchronized (BreinSingleFlight.this) {
+                    action = isAbandoned(flight) ? flight.cancelAction : null;
+                }
+
+                if (action != null) {
+                    action.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * Sorts the keys of the map (and of all nested maps), so that equal payloads lead to equal JSON.
+     */
+    private static Map<Object, Object> canonicalize(final Map<?, ?> map) {
+        final Map<Object, Object> sorted = new TreeMap<>();
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            sorted.put(String.valueOf(entry.getKey()), canonicalize(entry.getValue()));
+        }
+        return sorted;
+    }
+
+    private static Object canonicalize(final Object value) {
+        if (value instanceof Map) {
+            return canonicalize((Map<?, ?>) value);
+        } else if (value instanceof List) {
+            final List<Object> list = new ArrayList<>();
+            for (final Object element : (List<?>) value) {
+                list.add(canonicalize(element));
+            }
+            return list;
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * A request in flight, the fields are guarded by the single-flight
+     */
+    private static class Flight {
+        private final ICallback<BreinResult> callback;
+        private final List<ICallback<BreinResult>> joined = new ArrayList<>();
+        private Runnable cancelAction = null;
+
+        Flight(final ICallback<BreinResult> callback) {
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.brein.engine;
+
+import com.brein.api.BreinRequestException;
+import com.brein.api.BreinTemporalData;
+import com.brein.api.ICallback;
+import com.brein.api.IRequestCallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.domain.results.BreinTemporalDataResult;
+import com.brein.util.BreinGeoHash;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cache of temporalData results. The weather, holidays and location of an area barely change within minutes, so a
+ * result is reused for requests of the same area within the same time bucket. The key of a request consists of:
+ * <ul>
+ * <li>the geohash of the coordinates (with the configured precision, i.e., nearby coordinates share a result),</li>
+ * <li>the ip-address to look-up,</li>
+ * <li>the timezone and the localDateTime of the request,</li>
+ * <li>any other value of the location, e.g., the free-text location, the city, state and country, or the requested
+ * shape-types, and</li>
+ * <li>the time bucket, i.e., the current time divided by the time-to-live.</li>
+ * </ul>
+ * Requests without coordinates, ip-address or any other location are not cached, their result depends on the device
+ * sending the request. A request with a localDateTime is only served with the result of a request with the same
+ * localDateTime. A result expires after the time-to-live, but not later than the weather contained in it gets
+ * too old (based on {@link com.brein.domain.results.temporaldataparts.BreinWeatherResult#getLastMeasured()}). The
+ * number of results is bounded, the least recently used one is evicted first.
+ * <p>
+ * Cached results are shared by all callbacks served, i.e., they should not be modified.
+ */
+public class BreinTemporalDataCache {
+
+    private static final char SEPARATOR = '|';
+
+    private static final String LATITUDE_FIELD = "latitude";
+    private static final String LONGITUDE_FIELD = "longitude";
+
+    private final int maxSize;
+    private final long ttl;
+    private final int precision;
+    private final long maxWeatherAge;
+
+    private final LinkedHashMap<String, CachedResult> entries;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * Creates the cache based on the settings of the configuration
+     *
+     * @param config BreinConfig contains the cache settings
+     */
+    public BreinTemporalDataCache(final BreinConfig config) {
+        this(config.getTemporalDataCacheSize(),
+                config.getTemporalDataCacheTtl(),
+                config.getTemporalDataCacheGeohashPrecision(),
+                config.getTemporalDataCacheMaxWeatherAge());
+    }
+
+    /**
+     * Creates the cache
+     *
+     * @param maxSize       int the maximal number of cached results
+     * @param ttl           long the time in ms a result is cached (and the size of a time bucket)
+     * @param precision     int the precision of the geohash (1 to 12 characters)
+     * @param maxWeatherAge long the maximal age in ms of a cached weather measurement
+     */
+    public BreinTemporalDataCache(final int maxSize,
+                                  final long ttl,
+                                  final int precision,
+                                  final long maxWeatherAge) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttl = Math.max(1, ttl);
+        this.precision = precision;
+        this.maxWeatherAge = maxWeatherAge;
+
+        this.entries = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedResult> eldest) {
+                return size() > BreinTemporalDataCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Creates the key of the request.
+     *
+     * @param data BreinTemporalData the request
+     *
+     * @return String the key, {@code null} if the result of the request cannot be cached
+     */
+    public String createKey(final BreinTemporalData data) {
+        final Double latitude = data.getLatitude();
+        final Double longitude = data.getLongitude();
+        final String ipAddress = data.getLookUpIpAddress();
+
+        // the other values of the location (sorted by name), the coordinates are part of the key as geohash
+        final Map<String, Object> location = new TreeMap<>();
+        final Map<String, Object> requestedLocation = data.getUser().getAdditional("location");
+        if (requestedLocation != null) {
+            for (final Map.Entry<String, Object> entry : requestedLocation.entrySet()) {
+                if (entry.getValue() != null && !LATITUDE_FIELD.equals(entry.getKey()) &&
+                        !LONGITUDE_FIELD.equals(entry.getKey())) {
+                    location.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        final boolean hasCoordinates = latitude != null && longitude != null;
+        if (!hasCoordinates && ipAddress == null && location.isEmpty()) {
+            return null;
+        }
+
+        final StringBuilder key = new StringBuilder();
+        if (hasCoordinates) {
+            key.append(BreinGeoHash.encode(latitude, longitude, this.precision));
+        }
+        key.append(SEPARATOR).append(ipAddress == null ? "" : ipAddress);
+        key.append(SEPARATOR).append(valueOf(data.getUser().getTimezone()));
+        key.append(SEPARATOR).append(valueOf(data.getUser().getLocalDateTime()));
+        key.append(SEPARATOR).append(location);
+
+        return key.append(SEPARATOR).append(now() / this.ttl).toString();
+    }
+
+    /**
+     * Retrieves the cached result
+     *
+     * @param key String the key of the request
+     *
+     * @return BreinResult the result, {@code null} if not cached or expired
+     */
+    public synchronized BreinResult get(final String key) {
+        final CachedResult entry = this.entries.get(key);
+
+        if (entry == null) {
+            this.missCount++;
+            return null;
+        } else if (entry.expiresAt <= now()) {
+            this.entries.remove(key);
+            this.missCount++;
+            return null;
+        } else {
+            this.hitCount++;
+            return entry.result;
+        }
+    }
+
+    /**
+     * Caches the result of a request
+     *
+     * @param key    String the key of the request
+     * @param result BreinResult the result, {@code null} is not cached
+     */
+    public void put(final String key, final BreinResult result) {
+        if (key == null || result == null) {
+            return;
+        }
+
+        final long now = now();
+        long expiresAt = now + this.ttl;
+
+        // the result is not kept longer than the weather is up to date, if the weather is outdated already the
+        // backend cannot provide a newer one, so the time-to-live is used
+        final BreinTemporalDataResult temporalData = new BreinTemporalDataResult(result);
+        if (temporalData.hasWeather()) {
+            final Long lastMeasured = temporalData.getWeather().getLastMeasured();
+            if (lastMeasured != null) {
+                final long weatherExpiresAt = lastMeasured * 1000L + this.maxWeatherAge;
+                if (weatherExpiresAt > now) {
+                    expiresAt = Math.min(expiresAt, weatherExpiresAt);
+                }
+            }
+        }
+
+        synchronized (this) {
+            this.entries.put(key, new CachedResult(result, expiresAt));
+        }
+    }
+
+    /**
+     * Wraps the callback of a request, so that its result is cached.
+     *
+     * @param key      String the key of the request
+     * @param callback ICallback the callback of the request, may be {@code null}
+     *
+     * @return ICallback the callback caching the result
+     */
+    public ICallback<BreinResult> caching(final String key, final ICallback<BreinResult> callback) {
+        return new IRequestCallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                put(key, data);
+
+                if (callback != null) {
+                    callback.callback(data);
+                }
+            }
+
+            @Override
+            public void onError(final BreinRequestException error) {
+                BreinCallbacks.fail(callback, error);
+            }
+
+            @Override
+            public boolean isDone() {
+                return BreinCallbacks.isDone(callback);
+            }
+
+            @Override
+            public void setCancelAction(final Runnable action) {
+                BreinCallbacks.setCancelAction(callback, action);
+            }
+        };
+    }
+
+    /**
+     * Removes all cached results
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * @return int the number of cached results (including expired ones not removed so far)
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return long the number of requests served from the cache
+     */
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * @return long the number of requests not found within the cache
+     */
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * @return long the current time in ms, used to determine the time bucket and the expiration
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private static String valueOf(final Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static class CachedResult {
+        private final BreinResult result;
+        private final long expiresAt;
+
+        CachedResult(final BreinResult result, final long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
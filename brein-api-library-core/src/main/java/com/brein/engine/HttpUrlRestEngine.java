@@ -0,0 +1,1314 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinBase;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinRequestException;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.util.BreinLimitedInputStream;
+import com.brein.util.BreinLogger;
+import com.brein.util.BreinUtil;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Rest engine based on {@code HttpURLConnection}. The requests are executed within a bounded worker pool
+ * ({@link BreinRequestExecutor}), configured by the {@code BreinConfig}. If enabled, activities are collected and
+ * sent in batches ({@link BreinActivityBatcher}) and the number of requests in flight is limited adaptively ({@link
+ * BreinConcurrencyLimiter}).
+ */
+public class HttpUrlRestEngine implements IRestEngine {
+
+    private static final String TAG = "HttpUrlRestEngine";
+
+    /**
+     * constant for post method
+     */
+    private static final String POST_METHOD = "POST";
+
+    /**
+     * status code used for throttled requests (not defined by {@code HttpURLConnection})
+     */
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * header containing the time to wait before a throttled or failed request is sent again
+     */
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    /**
+     * header announcing the compression of the request body
+     */
+    protected static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * worker pool executing the requests, created with the first request
+     */
+    private volatile BreinRequestExecutor executor = null;
+
+    /**
+     * offline queue of activities which could not be sent, {@code null} if disabled
+     */
+    private volatile BreinActivityJournal journal = null;
+
+    /**
+     * sends the activities of the offline queue, using the configuration the queue was created with
+     */
+    private volatile BreinActivityJournal.ISender journalSender = null;
+
+    /**
+     * collects activities to be sent in batches, {@code null} if batching is disabled
+     */
+    private volatile BreinActivityBatcher batcher = null;
+
+    /**
+     * circuit breakers the outcomes of the requests are recorded with, {@code null} if disabled
+     */
+    private volatile BreinCircuitBreakers circuitBreakers = null;
+
+    /**
+     * compressor of the request bodies, {@code null} if the bodies are sent uncompressed
+     */
+    private volatile BreinRequestCompressor requestCompressor = null;
+
+    /**
+     * metrics the attempts of the requests are recorded with, {@code null} if none
+     */
+    private volatile BreinMetrics metrics = null;
+
+    /**
+     * listener informed about the phases of the requests, {@link BreinEventListener#NONE} if none
+     */
+    private volatile BreinEventListener eventListener = BreinEventListener.NONE;
+
+    /**
+     * adaptive limit of the requests in flight, {@code null} if disabled
+     */
+    private volatile BreinConcurrencyLimiter limiter = null;
+
+    /**
+     * requests waiting for a permit of the limiter
+     */
+    private final Deque<RetryingRequest> waiting = new ArrayDeque<>();
+
+    /**
+     * maximal number of requests waiting for a permit
+     */
+    private int waitingCapacity;
+
+    /**
+     * time in ms to wait for queued requests when terminated
+     */
+    private long terminationTimeout;
+
+    /**
+     * invokes the post request. Needs to run a thread.
+     *
+     * @param breinActivity data
+     */
+    @Override
+    public void doRequest(final BreinActivity breinActivity) {
+
+        // validate the input objects
+        BreinUtil.validate(breinActivity);
+
+        final BreinConfig config = BreinifyCore.getConfig();
+        final String endpoint = breinActivity.getEndPoint(config);
+        final BreinCallTrace trace = BreinCallTrace.start(this.eventListener, endpoint);
+
+        final String fullUrl = BreinUtil.getFullyQualifiedUrl(breinActivity);
+        trace.serializationStart();
+        final byte[] requestBody = BreinUtil.getRequestBytes(breinActivity);
+        trace.serializationEnd(requestBody.length);
+        if (BreinLogger.isLoggable(BreinLogger.Level.VERBOSE)) {
+            BreinLogger.v(TAG, "Request is: " + new String(requestBody, UTF8));
+        }
+        execute(config, new RetryingRequest(config, endpoint, fullUrl, requestBody, trace) {
+
+            @Override
+            protected void onResponse(final HttpURLConnection conn, final int statusCode) {
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "response is: " + statusCode);
+                }
+            }
+
+            @Override
+            protected void onFailure() {
+                if (!isPossiblyProcessed()) {
+                    journal(breinActivity, fullUrl, requestBody);
+                }
+            }
+        });
+    }
+
+    /**
+     * performs a lookup and provides details
+     *
+     * @param breinLookup contains request data
+     * @return response from Breinify
+     */
+    @Override
+    public BreinResult doLookup(final BreinLookup breinLookup) {
+
+        // validate the input objects
+        BreinUtil.validate(breinLookup);
+
+        final BreinConfig config = BreinifyCore.getConfig();
+        final String endpoint = breinLookup.getEndPoint(config);
+        final BreinCallTrace trace = BreinCallTrace.start(this.eventListener, endpoint);
+
+        final String fullUrl = BreinUtil.getFullyQualifiedUrl(breinLookup);
+        trace.serializationStart();
+        final byte[] requestBody = BreinUtil.getRequestBytes(breinLookup);
+        trace.serializationEnd(requestBody.length);
+        execute(config, new RetryingRequest(config, endpoint, fullUrl, requestBody, trace) {
+
+            @Override
+            protected void onResponse(final HttpURLConnection conn, final int statusCode) {
+                if (readResult(conn, statusCode, config.getMaxResponseSize()) == null) {
+                    if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                        BreinLogger.d(TAG, "doLookup - no result, response is: " + statusCode);
+                    }
+                }
+            }
+
+            @Override
+            protected void onFailure() {
+                BreinLogger.d(TAG, "doLookup - failed");
+            }
+        });
+
+        return null;
+    }
+
+    /**
+     * stops possible functionality (e.g. threads), already queued requests are sent before the pool is stopped
+     */
+    @Override
+    public void terminate() {
+        // the last batch is handed to the pool, before the pool is stopped
+        final BreinActivityBatcher currentBatcher;
+        synchronized (this) {
+            currentBatcher = this.batcher;
+            this.batcher = null;
+        }
+        if (currentBatcher != null) {
+            currentBatcher.close();
+        }
+
+        final BreinRequestExecutor current;
+        final BreinActivityJournal currentJournal;
+        synchronized (this) {
+            current = this.executor;
+            currentJournal = this.journal;
+            this.executor = null;
+            this.journal = null;
+        }
+
+        if (current != null) {
+            current.shutdown(this.terminationTimeout);
+        }
+
+        // requests still waiting for a permit are handled as failed, i.e., activities are kept in the offline queue
+        this.limiter = null;
+        while (true) {
+            final RetryingRequest request;
+            synchronized (this.waiting) {
+                request = this.waiting.poll();
+            }
+            if (request == null) {
+                break;
+            }
+            request.reject();
+        }
+        if (currentJournal != null) {
+            currentJournal.close(this.terminationTimeout);
+        }
+    }
+
+    /**
+     * provides the statistics of the worker pool
+     *
+     * @return BreinRequestExecutor.Statistics current values of the pool, {@code null} if no pool is running
+     */
+    @Override
+    public BreinRequestExecutor.Statistics getPoolStatistics() {
+        final BreinRequestExecutor current = this.executor;
+        return current == null ? null : current.getStatistics();
+    }
+
+    /**
+     * provides the statistics of the adaptive limit of requests in flight
+     *
+     * @return BreinConcurrencyLimiter.Statistics current values, {@code null} if the limit is disabled or no pool is
+     * running
+     */
+    @Override
+    public BreinConcurrencyLimiter.Statistics getConcurrencyStatistics() {
+        final BreinConcurrencyLimiter current = this.limiter;
+        if (current == null) {
+            return null;
+        }
+
+        synchronized (this.waiting) {
+            return current.getStatistics(this.waiting.size());
+        }
+    }
+
+    @Override
+    public IRestEngine getRestEngine(final BreinEngineType engine) {
+        return getRestEngineType(engine) == engine ? this : null;
+    }
+
+    @Override
+    public BreinEngineType getRestEngineType(final BreinEngineType engine) {
+        return BreinEngineType.HTTP_URL_CONNECTION_ENGINE;
+    }
+
+    /**
+     * configuration of the rest  client, creates the worker pool based on the configuration
+     */
+    @Override
+    public void configure(final BreinConfig breinConfig) {
+        getExecutor(breinConfig);
+    }
+
+    @Override
+    public void invokeRequest(final BreinConfig config, final BreinBase data, final ICallback<BreinResult> callback) {
+        invokeRequest(config, data, null, callback);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void invokeRequest(final BreinConfig config,
+                              final BreinBase data,
+                              final byte[] preparedBody,
+                              final ICallback<BreinResult> callback) {
+
+        // validate the input objects
+        BreinUtil.validate(data);
+
+        final String endpoint = data.getEndPoint(config);
+        final BreinCallTrace trace = BreinCallTrace.start(this.eventListener, endpoint);
+
+        final String fullUrl = BreinUtil.getFullyQualifiedUrl(data);
+        trace.serializationStart();
+        final byte[] requestBody = preparedBody == null ? BreinUtil.getRequestBytes(data) : preparedBody;
+        trace.serializationEnd(requestBody.length);
+        if (BreinLogger.isLoggable(BreinLogger.Level.VERBOSE)) {
+            BreinLogger.v(TAG, "InvokeRequest - request is:  " + new String(requestBody, UTF8));
+        }
+
+        // activities may be collected and sent later on within a batch
+        if (addToBatch(config, data, requestBody, callback)) {
+            trace.callEnd();
+            return;
+        }
+
+        final RetryingRequest request = new RetryingRequest(config, endpoint, fullUrl, requestBody, trace) {
+
+            @Override
+            protected void onResponse(final HttpURLConnection conn, final int statusCode) {
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "InvokeRequest - response is:  " + statusCode);
+                }
+                final BreinResult breinResponse = readResult(conn, statusCode, config.getMaxResponseSize());
+
+                BreinCallbacks.respond(callback, breinResponse, statusCode);
+            }
+
+            @Override
+            protected void onFailure() {
+                // a cancelled request is abandoned, one which may have been processed is not stored twice
+                if (!isCancelled() && !isPossiblyProcessed()) {
+                    journal(data, fullUrl, requestBody);
+                }
+
+                BreinCallbacks.fail(callback, getError());
+            }
+        };
+
+        // a cancelled callback (e.g. a future) aborts the request
+        BreinCallbacks.setCancelAction(callback, new Runnable() {
+            @Override
+            public void run() {
+                request.cancel();
+            }
+        });
+        execute(config, request);
+    }
+
+    @Override
+    public void respond(final BreinConfig config, final BreinResult result, final ICallback<BreinResult> callback) {
+        if (callback == null) {
+            return;
+        }
+
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                callback.callback(result);
+            }
+        };
+        if (!getExecutor(config).execute(task)) {
+            BreinLogger.w(TAG, "Worker pool is saturated or terminated, the callback is invoked by the calling thread");
+            task.run();
+        }
+    }
+
+    @Override
+    public void rejectRequest(final BreinConfig config, final BreinBase data, final ICallback<BreinResult> callback) {
+        getExecutor(config);
+        if (data instanceof BreinActivity && this.journal != null) {
+            journal(data, BreinUtil.getFullyQualifiedUrl(data), BreinUtil.getRequestBytes(data));
+        }
+
+        BreinCallbacks.fail(callback, new BreinRequestException(BreinRequestException.Reason.REJECTED,
+                "The circuit of the endpoint is open, the request is not sent"));
+    }
+
+    @Override
+    public void setCircuitBreakers(final BreinCircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public void setRequestCompressor(final BreinRequestCompressor requestCompressor) {
+        this.requestCompressor = requestCompressor;
+    }
+
+    @Override
+    public void setMetrics(final BreinMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void setEventListener(final BreinEventListener eventListener) {
+        this.eventListener = eventListener == null ? BreinEventListener.NONE : eventListener;
+    }
+
+    /**
+     * Sends the activities collected so far (if batching is enabled).
+     */
+    @Override
+    public void flush() {
+        final BreinActivityBatcher currentBatcher = this.batcher;
+        if (currentBatcher != null) {
+            currentBatcher.flush();
+        }
+    }
+
+    /**
+     * Adds the activity to the current batch, if batching is enabled.
+     *
+     * @param config      BreinConfig used to create the pool (if not done so far)
+     * @param data        BreinBase the data of the request
+     * @param requestBody byte[] the body of the request
+     * @param callback    ICallback informed when the batch is sent, may be {@code null}
+     *
+     * @return boolean {@code true} if the request is sent within a batch, {@code false} if it has to be sent directly
+     */
+    protected boolean addToBatch(final BreinConfig config,
+                                 final BreinBase data,
+                                 final byte[] requestBody,
+                                 final ICallback<BreinResult> callback) {
+        getExecutor(config);
+        final BreinActivityBatcher currentBatcher = this.batcher;
+        return currentBatcher != null && data instanceof BreinActivity && currentBatcher.add(requestBody, callback);
+    }
+
+    /**
+     * Sends the batch as one request to the bulk endpoint. If the batch cannot be sent, the activities are added to
+     * the offline queue one by one.
+     *
+     * @param config BreinConfig the configuration used to send the batch
+     * @param batch  List the activities to send
+     */
+    protected void sendBatch(final BreinConfig config, final List<BreinActivityBatcher.Entry> batch) {
+        final String fullUrl = config.getUrl() + config.getBulkActivityEndpoint();
+        final String activityUrl = config.getUrl() + config.getActivityEndpoint();
+        final BreinCallTrace trace = BreinCallTrace.start(this.eventListener, config.getBulkActivityEndpoint());
+        trace.serializationStart();
+        final byte[] requestBody = BreinActivityBatcher.createBulkBody(config, batch);
+        trace.serializationEnd(requestBody.length);
+        final int maxResponseSize = config.getMaxResponseSize();
+        if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+            BreinLogger.d(TAG, "Sending batch of " + batch.size() + " activities");
+        }
+
+        final RetryingRequest request = new RetryingRequest(config, config.getBulkActivityEndpoint(), fullUrl,
+                requestBody, trace) {
+
+            @Override
+            protected void onResponse(final HttpURLConnection conn, final int statusCode) {
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "Batch - response is: " + statusCode);
+                }
+                final BreinResult breinResponse = readResult(conn, statusCode, maxResponseSize);
+
+                for (final BreinActivityBatcher.Entry entry : batch) {
+                    BreinCallbacks.respond(entry.getCallback(), breinResponse, statusCode);
+                }
+            }
+
+            @Override
+            protected void onFailure() {
+                if (!isPossiblyProcessed()) {
+                    journalBatch(activityUrl, batch);
+                }
+
+                final BreinRequestException error = getError();
+                for (final BreinActivityBatcher.Entry entry : batch) {
+                    BreinCallbacks.fail(entry.getCallback(), error);
+                }
+            }
+        };
+
+        final BreinRequestExecutor current = this.executor;
+        if (current == null || !current.execute(request)) {
+            BreinLogger.w(TAG, "Batch rejected, worker pool is saturated or terminated: " + getPoolStatistics());
+            request.reject();
+        }
+    }
+
+    /**
+     * Adds the activities of the batch to the offline queue, if the queue is enabled.
+     *
+     * @param activityUrl String the url used to send a single activity
+     * @param batch       List the activities of the batch
+     */
+    protected void journalBatch(final String activityUrl, final List<BreinActivityBatcher.Entry> batch) {
+        final BreinActivityJournal current = this.journal;
+        if (current != null) {
+            for (final BreinActivityBatcher.Entry entry : batch) {
+                current.append(activityUrl, entry.getBody());
+            }
+        }
+    }
+
+    /**
+     * Reads the result of a successful request. The response is decoded (UTF-8) and parsed while it is read, a
+     * response exceeding the maximal size is dropped without reading it completely. A response which cannot be read
+     * or parsed leads to a {@code null} result, i.e., the request itself is still considered as sent.
+     *
+     * @param conn            HttpURLConnection the connection to read from
+     * @param statusCode      int the status code of the response
+     * @param maxResponseSize int the maximal size of the response in bytes
+     *
+     * @return BreinResult the result, {@code null} if the request was not successful or the response is not valid
+     */
+    protected BreinResult readResult(final HttpURLConnection conn, final int statusCode, final int maxResponseSize) {
+        if (statusCode != HttpURLConnection.HTTP_OK) {
+            return null;
+        } else if (conn.getContentLength() > maxResponseSize) {
+            BreinLogger.w(TAG, "Response of " + conn.getContentLength() + " bytes exceeds the maximal size of " +
+                    maxResponseSize + " bytes");
+            return null;
+        }
+
+        JsonReader reader = null;
+        try {
+            final InputStream in = new BreinLimitedInputStream(conn.getInputStream(), maxResponseSize);
+            reader = new JsonReader(new InputStreamReader(in, UTF8));
+
+            return BreinResult.fromJson(reader);
+        } catch (final IOException | RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to read the response: " + e);
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    // nothing to do, the connection is closed anyways
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the activities stored within the offline queue. The queue is replayed by the background thread of the
+     * queue, i.e., this method does not block.
+     */
+    @Override
+    public void replayOfflineQueue() {
+        final BreinActivityJournal current = this.journal;
+        if (current != null) {
+            current.replay(this.journalSender);
+        }
+    }
+
+    /**
+     * Creates the sender used to replay the offline queue. A record is kept only if the backend did certainly not
+     * process it (see {@link #isRetryable(int, boolean)}), i.e., it could not be sent completely or the backend
+     * answered with {@code 429} or {@code 503}; a record which may have been processed is dropped, so it is never
+     * duplicated.
+     *
+     * @param config BreinConfig the configuration the offline queue was created with
+     *
+     * @return BreinActivityJournal.ISender the sender
+     */
+    protected BreinActivityJournal.ISender createSender(final BreinConfig config) {
+        final int connectionTimeout = (int) config.getConnectionTimeout();
+        final int readTimeout = (int) config.getSocketTimeout();
+
+        return new BreinActivityJournal.ISender() {
+            @Override
+            public boolean send(final String url, final byte[] body) {
+                final HttpURLConnection conn;
+                try {
+                    conn = open(config.getActivityEndpoint(), url, body, connectionTimeout, readTimeout,
+                            BreinCallTrace.NONE);
+                } catch (final IOException e) {
+                    if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                        BreinLogger.d(TAG, "Replay of offline queue failed: " + e);
+                    }
+                    return false;
+                }
+
+                final int statusCode;
+                try {
+                    statusCode = conn.getResponseCode();
+                } catch (final IOException | RuntimeException e) {
+                    release(conn, false);
+                    BreinLogger.w(TAG, "Replayed activity dropped, it may have been processed: " + e);
+                    return true;
+                }
+
+                release(conn, true);
+                return !isRetryable(statusCode, false);
+            }
+        };
+    }
+
+    /**
+     * Opens the connection and sends the request body, the response can be read from the returned connection. The
+     * caller has to release the connection (see {@link #release(HttpURLConnection, boolean)}).
+     *
+     * @param endpoint          String the endpoint, used to decide if the body is compressed
+     * @param fullUrl           String the url to send the request to
+     * @param requestBody       byte[] the body of the request
+     * @param connectionTimeout int the connection timeout in ms
+     * @param readTimeout       int the read timeout in ms
+     * @param trace             BreinCallTrace the trace informed about the connect and the sent body
+     *
+     * @return HttpURLConnection the connection the request was sent with
+     *
+     * @throws IOException if the request could not be sent
+     */
+    protected HttpURLConnection open(final String endpoint,
+                                     final String fullUrl,
+                                     final byte[] requestBody,
+                                     final int connectionTimeout,
+                                     final int readTimeout,
+                                     final BreinCallTrace trace) throws IOException {
+        final HttpURLConnection conn = openConnection(new URL(fullUrl));
+        send(conn, endpoint, requestBody, connectionTimeout, readTimeout, trace);
+        return conn;
+    }
+
+    /**
+     * Sends the request body using the connection opened (see {@link #openConnection(URL)}), the connection is
+     * released if the request could not be sent. If the body is compressed, it is streamed through the deflater using
+     * chunked transfer encoding.
+     *
+     * @param conn              HttpURLConnection the connection to send the request with
+     * @param endpoint          String the endpoint, used to decide if the body is compressed
+     * @param requestBody       byte[] the body of the request
+     * @param connectionTimeout int the connection timeout in ms
+     * @param readTimeout       int the read timeout in ms
+     * @param trace             BreinCallTrace the trace informed about the connect and the sent body
+     *
+     * @throws IOException if the request could not be sent
+     */
+    protected void send(final HttpURLConnection conn,
+                        final String endpoint,
+                        final byte[] requestBody,
+                        final int connectionTimeout,
+                        final int readTimeout,
+                        final BreinCallTrace trace) throws IOException {
+        try {
+            conn.setReadTimeout(readTimeout);
+            conn.setConnectTimeout(connectionTimeout);
+            conn.setRequestMethod(POST_METHOD);
+            conn.setDoInput(true);
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setRequestProperty("Accept", "application/json");
+
+            final BreinRequestCompressor compressor = this.requestCompressor;
+            final boolean compressed = compressor != null && compressor.shouldCompress(endpoint, requestBody.length);
+            if (compressed) {
+                conn.setRequestProperty(CONTENT_ENCODING_HEADER, BreinRequestCompressor.CONTENT_ENCODING);
+                conn.setChunkedStreamingMode(0);
+            } else {
+                conn.setFixedLengthStreamingMode(requestBody.length);
+            }
+
+            trace.connectStart();
+            conn.connect();
+            trace.connectEnd();
+
+            if (compressed) {
+                compressor.write(endpoint, requestBody, conn.getOutputStream());
+            } else {
+                final OutputStream out = conn.getOutputStream();
+                out.write(requestBody);
+                out.close();
+            }
+            trace.requestBodyEnd(requestBody.length);
+        } catch (final IOException | RuntimeException e) {
+            release(conn, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the connection to the url, the request is not sent so far. Sub-classes may use another implementation of
+     * {@code HttpURLConnection}.
+     *
+     * @param url URL the url to connect to
+     *
+     * @return HttpURLConnection the connection
+     *
+     * @throws IOException if the connection cannot be opened
+     */
+    protected HttpURLConnection openConnection(final URL url) throws IOException {
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    /**
+     * Releases the connection after the response was read (or the request failed).
+     *
+     * @param conn      HttpURLConnection the connection to release
+     * @param responded boolean {@code true} if a response was received, i.e., its status code is available
+     */
+    protected void release(final HttpURLConnection conn, final boolean responded) {
+        conn.disconnect();
+    }
+
+    /**
+     * Determines the time the backend asked to wait before the request is sent again, i.e., the value of the {@code
+     * Retry-After} header (either in seconds or as date).
+     *
+     * @param conn HttpURLConnection the connection of the response
+     *
+     * @return long the time in ms, {@code -1} if not specified
+     */
+    protected long getRetryAfter(final HttpURLConnection conn) {
+        final String value = conn.getHeaderField(RETRY_AFTER_HEADER);
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000L;
+        } catch (final NumberFormatException e) {
+            final long date = conn.getHeaderFieldDate(RETRY_AFTER_HEADER, -1);
+            return date < 0 ? -1 : Math.max(0, date - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Hands the request over to the worker pool. If the pool is saturated the request is handled as failed, i.e.,
+     * activities are stored within the offline queue.
+     *
+     * @param config  BreinConfig used to create the pool (if not done so far)
+     * @param request RetryingRequest the request to execute
+     */
+    protected void execute(final BreinConfig config, final RetryingRequest request) {
+        if (!getExecutor(config).execute(request)) {
+            BreinLogger.w(TAG, "Request rejected, worker pool is saturated or terminated: " + getPoolStatistics());
+            request.reject();
+        }
+    }
+
+    /**
+     * Hands the waiting requests over to the worker pool, as long as the limiter grants permits.
+     */
+    protected void dispatchWaiting() {
+        final BreinConcurrencyLimiter currentLimiter = this.limiter;
+        if (currentLimiter == null) {
+            return;
+        }
+
+        while (true) {
+            final RetryingRequest request;
+            synchronized (this.waiting) {
+                if (this.waiting.isEmpty() || !currentLimiter.tryAcquire()) {
+                    return;
+                }
+                request = this.waiting.poll();
+            }
+
+            // the permit is taken on behalf of the request, it is returned when the attempt is done
+            request.permitLimiter = currentLimiter;
+            final BreinRequestExecutor current = this.executor;
+            if (current == null || !current.execute(request)) {
+                request.permitLimiter = null;
+                currentLimiter.release(-1, false);
+                request.reject();
+            }
+        }
+    }
+
+    /**
+     * Adds the request to the offline queue, if the queue is enabled and the request is an activity.
+     *
+     * @param data        BreinBase the data of the request
+     * @param fullUrl     String the url of the request
+     * @param requestBody byte[] the body of the request
+     */
+    protected void journal(final BreinBase data, final String fullUrl, final byte[] requestBody) {
+        final BreinActivityJournal current = this.journal;
+        if (current != null && data instanceof BreinActivity) {
+            current.append(fullUrl, requestBody);
+        }
+    }
+
+    /**
+     * Called whenever a request reached the backend, a pending offline queue is replayed in that case.
+     */
+    protected void onSent() {
+        final BreinActivityJournal current = this.journal;
+        if (current != null && current.hasPending()) {
+            current.replayIfPending(this.journalSender);
+        }
+    }
+
+    /**
+     * Checks if a request with the specified status code may succeed later on, i.e., server-side errors, timeouts
+     * and throttling.
+     *
+     * @param statusCode int the status code of the response
+     *
+     * @return boolean {@code true} if the request should be sent again later
+     */
+    protected boolean isRetryable(final int statusCode) {
+        return statusCode == HTTP_TOO_MANY_REQUESTS ||
+                statusCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT ||
+                statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+    }
+
+    /**
+     * Checks if a request with the specified status code may be sent again. A request which is not idempotent (see
+     * {@link #isIdempotent(BreinConfig, String)}) is sent again only if the backend did certainly not process it,
+     * i.e., it answered with {@code 429} or {@code 503}.
+     *
+     * @param statusCode int the status code of the response
+     * @param idempotent boolean {@code true} if the request can be sent twice without side effects
+     *
+     * @return boolean {@code true} if the request should be sent again later
+     */
+    protected boolean isRetryable(final int statusCode, final boolean idempotent) {
+        if (idempotent) {
+            return isRetryable(statusCode);
+        } else {
+            return statusCode == HTTP_TOO_MANY_REQUESTS || statusCode == HttpURLConnection.HTTP_UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Checks if a request to the endpoint can be sent twice without side effects. Activities are not idempotent, the
+     * backend would store a retried activity twice.
+     *
+     * @param config   BreinConfig the configuration defining the endpoints
+     * @param endpoint String the endpoint of the request
+     *
+     * @return boolean {@code true} if the request can be sent again, even if the backend may have processed it
+     */
+    protected boolean isIdempotent(final BreinConfig config, final String endpoint) {
+        return endpoint == null ||
+                (!endpoint.equals(config.getActivityEndpoint()) && !endpoint.equals(config.getBulkActivityEndpoint()));
+    }
+
+    /**
+     * Retrieves the worker pool, creates it (based on the specified configuration) if not available so far.
+     *
+     * @param config BreinConfig the configuration to create the pool
+     *
+     * @return BreinRequestExecutor the worker pool
+     */
+    protected BreinRequestExecutor getExecutor(final BreinConfig config) {
+        BreinRequestExecutor current = this.executor;
+        if (current == null) {
+            synchronized (this) {
+                current = this.executor;
+                if (current == null) {
+                    final BreinConfig poolConfig = config == null ? new BreinConfig() : config;
+                    current = new BreinRequestExecutor(poolConfig);
+
+                    // the limit never exceeds the configured pool (see BreinConcurrencyLimiter(BreinConfig))
+                    if (poolConfig.isConcurrencyLimitEnabled()) {
+                        this.limiter = new BreinConcurrencyLimiter(poolConfig);
+                        this.waitingCapacity = Math.max(1, poolConfig.getExecutorQueueCapacity());
+                    }
+                    this.terminationTimeout = poolConfig.getExecutorTerminationTimeout();
+                    if (poolConfig.isOfflineQueueEnabled()) {
+                        // the sender is set first, it is available as soon as the queue is
+                        this.journalSender = createSender(poolConfig);
+                        this.journal = new BreinActivityJournal(poolConfig);
+                    }
+                    if (poolConfig.isActivityBatchingEnabled()) {
+                        this.batcher = new BreinActivityBatcher(poolConfig, new BreinActivityBatcher.IFlushHandler() {
+                            @Override
+                            public void flush(final List<BreinActivityBatcher.Entry> batch) {
+                                sendBatch(poolConfig, batch);
+                            }
+                        });
+                    }
+                    this.executor = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @return BreinRequestExecutor the worker pool, {@code null} if no pool is running
+     */
+    protected BreinRequestExecutor getRunningExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * @return BreinCircuitBreakers the circuit breakers the outcomes are recorded with, {@code null} if disabled
+     */
+    protected BreinCircuitBreakers getCircuitBreakers() {
+        return this.circuitBreakers;
+    }
+
+    /**
+     * @return BreinRequestCompressor the compressor of the request bodies, {@code null} if disabled
+     */
+    protected BreinRequestCompressor getRequestCompressor() {
+        return this.requestCompressor;
+    }
+
+    /**
+     * @return BreinMetrics the metrics the attempts are recorded with, {@code null} if none
+     */
+    protected BreinMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * @return BreinEventListener the listener informed about the phases of the requests, never {@code null}
+     */
+    protected BreinEventListener getEventListener() {
+        return this.eventListener;
+    }
+
+    /**
+     * @return long the time in ms to wait for queued requests when terminated
+     */
+    protected long getTerminationTimeout() {
+        return this.terminationTimeout;
+    }
+
+    /**
+     * A request which is sent again according to the {@link BreinRetryPolicy} of its endpoint, if it fails
+     * temporarily (see {@link #isRetryable(int)}). The attempts are scheduled by the timer of the worker pool, so no
+     * worker thread waits for the next attempt. Exactly one of {@link #onResponse(HttpURLConnection, int)} and
+     * {@link #onFailure()} is called.
+     * <p>
+     * A request which is not idempotent (i.e., an activity, see {@link #isIdempotent(BreinConfig, String)}) is sent
+     * again only if the backend did certainly not process it: the request could not be sent completely (e.g., no
+     * connection was established) or the backend answered with {@code 429} or {@code 503}. Otherwise, e.g., if the
+     * response timed out, the request fails right away and {@link #isPossiblyProcessed()} is {@code true}.
+     * <p>
+     * The outcome of every attempt is recorded by the circuit breaker of the endpoint (and the metrics); while the
+     * circuit is open, the request fails without being sent. The phases of the attempts are passed to the trace of
+     * the request.
+     * <p>
+     * A cancelled request (see {@link #cancel()}) is not sent again, the connection of the attempt in flight is
+     * closed.
+     */
+    protected abstract class RetryingRequest implements Runnable {
+        private final BreinCallTrace trace;
+        private final String endpoint;
+        private final String fullUrl;
+        private final byte[] requestBody;
+        private final BreinRetryPolicy policy;
+        private final boolean idempotent;
+        private final BreinCircuitBreaker breaker;
+        private final int connectionTimeout;
+        private final int readTimeout;
+
+        private int attempt = 1;
+
+        /**
+         * {@code true} if the last attempt failed after the request was sent completely
+         */
+        private boolean possiblyProcessed = false;
+
+        /**
+         * the limiter the permit of the current attempt was taken from, {@code null} if no permit is taken
+         */
+        private BreinConcurrencyLimiter permitLimiter = null;
+
+        /**
+         * the status code of the last failed attempt, {@code -1} if no response was received
+         */
+        private int lastStatusCode = -1;
+
+        /**
+         * the exception of the last failed attempt, {@code null} if a response was received
+         */
+        private Exception lastException = null;
+
+        private boolean rejected = false;
+        private volatile boolean cancelled = false;
+
+        /**
+         * the connection of the attempt in flight, closed if the request is cancelled
+         */
+        private volatile HttpURLConnection connection = null;
+
+        /**
+         * @param config      BreinConfig the configuration used to send the request
+         * @param endpoint    String the endpoint, used to determine the retry policy
+         * @param fullUrl     String the url of the request
+         * @param requestBody byte[] the body of the request
+         */
+        protected RetryingRequest(final BreinConfig config,
+                                  final String endpoint,
+                                  final String fullUrl,
+                                  final byte[] requestBody) {
+            this(config, endpoint, fullUrl, requestBody, BreinCallTrace.NONE);
+        }
+
+        /**
+         * @param config      BreinConfig the configuration used to send the request
+         * @param endpoint    String the endpoint, used to determine the retry policy
+         * @param fullUrl     String the url of the request
+         * @param requestBody byte[] the body of the request
+         * @param trace       BreinCallTrace the trace of the request
+         */
+        protected RetryingRequest(final BreinConfig config,
+                                  final String endpoint,
+                                  final String fullUrl,
+                                  final byte[] requestBody,
+                                  final BreinCallTrace trace) {
+            this.trace = trace == null ? BreinCallTrace.NONE : trace;
+            this.endpoint = endpoint;
+            this.fullUrl = fullUrl;
+            this.requestBody = requestBody;
+            this.policy = config.getRetryPolicy(endpoint);
+            this.idempotent = isIdempotent(config, endpoint);
+
+            final BreinCircuitBreakers currentBreakers = circuitBreakers;
+            this.breaker = currentBreakers == null ? null : currentBreakers.get(endpoint);
+            this.connectionTimeout = (int) config.getConnectionTimeout();
+            this.readTimeout = (int) config.getSocketTimeout();
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                fail();
+                return;
+            } else if (!acquirePermit()) {
+                return;
+            }
+
+            if (breaker != null && !breaker.allowRequest()) {
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "Circuit of " + fullUrl + " is open, the request is not sent");
+                }
+                releasePermit(-1, false);
+                reject();
+                return;
+            }
+
+            final BreinMetrics currentMetrics = metrics;
+            if (currentMetrics != null) {
+                currentMetrics.onSent(endpoint, requestBody.length);
+            }
+            trace.attemptStart(attempt);
+
+            HttpURLConnection conn = null;
+            final int statusCode;
+            final long start = System.nanoTime();
+            try {
+                // the connection is known before the request is sent, i.e., cancelling closes it while it is sent
+                final HttpURLConnection opened = openConnection(new URL(fullUrl));
+                this.connection = opened;
+                if (cancelled) {
+                    release(opened, false);
+                    throw new InterruptedIOException("The request was cancelled");
+                }
+                send(opened, endpoint, requestBody, connectionTimeout, readTimeout, trace);
+                conn = opened;
+                if (cancelled) {
+                    throw new InterruptedIOException("The request was cancelled");
+                }
+                statusCode = conn.getResponseCode();
+                trace.responseHeadersEnd(statusCode);
+            } catch (final IOException | RuntimeException e) {
+                this.connection = null;
+                if (cancelled) {
+                    trace.attemptFailed(attempt, -1);
+                    if (conn != null) {
+                        release(conn, false);
+                    }
+                    releasePermit(-1, false);
+                    fail();
+                    return;
+                }
+
+                lastStatusCode = -1;
+                lastException = e;
+                if (currentMetrics != null) {
+                    currentMetrics.onCompleted(endpoint, -1, System.nanoTime() - start);
+                }
+                trace.attemptFailed(attempt, -1);
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "Attempt " + attempt + " of " + fullUrl + " failed: " + e);
+                }
+                if (conn != null) {
+                    release(conn, false);
+                }
+                if (breaker != null) {
+                    breaker.onFailure();
+                }
+                releasePermit(-1, true);
+
+                // the connection is available only if the request was sent completely, i.e., the response failed
+                possiblyProcessed = conn != null;
+                if (possiblyProcessed && !idempotent) {
+                    fail();
+                } else {
+                    retry(-1);
+                }
+                return;
+            }
+            final long rtt = System.nanoTime() - start;
+            if (currentMetrics != null) {
+                currentMetrics.onCompleted(endpoint, statusCode, rtt);
+            }
+
+            final long retryAfter;
+            try {
+                if (!isRetryable(statusCode)) {
+                    if (breaker != null) {
+                        breaker.onSuccess();
+                    }
+                    onSent();
+                    onResponse(conn, statusCode);
+                    trace.callEnd();
+                    return;
+                }
+
+                if (breaker != null) {
+                    breaker.onFailure();
+                }
+                trace.attemptFailed(attempt, statusCode);
+                lastStatusCode = statusCode;
+                lastException = null;
+                possiblyProcessed = !isRetryable(statusCode, false);
+                retryAfter = getRetryAfter(conn);
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "Attempt " + attempt + " of " + fullUrl + " failed with status: " + statusCode);
+                }
+            } finally {
+                this.connection = null;
+                release(conn, true);
+
+                // the permit is kept while the response is read, a retryable status is a sign of an overload
+                releasePermit(rtt, isRetryable(statusCode));
+            }
+
+            if (possiblyProcessed && !idempotent) {
+                fail();
+            } else {
+                retry(retryAfter);
+            }
+        }
+
+        /**
+         * Takes a permit of the limiter for the attempt. If none is available, the request waits for a permit, i.e.,
+         * it is handed over to the pool again as soon as another request returned its permit.
+         *
+         * @return boolean {@code true} if the attempt can be sent, {@code false} if it is waiting or was rejected
+         */
+        private boolean acquirePermit() {
+            final BreinConcurrencyLimiter currentLimiter = limiter;
+            if (permitLimiter != null || currentLimiter == null) {
+                return true;
+            } else if (currentLimiter.tryAcquire()) {
+                permitLimiter = currentLimiter;
+                return true;
+            }
+
+            final boolean queued;
+            synchronized (waiting) {
+                queued = waiting.size() < waitingCapacity && waiting.add(this);
+            }
+
+            if (queued) {
+                dispatchWaiting();
+            } else {
+                BreinLogger.w(TAG, "Request rejected, too many requests are waiting: " + getConcurrencyStatistics());
+                reject();
+            }
+            return false;
+        }
+
+        /**
+         * Returns the permit taken for the attempt (if any) and hands waiting requests over to the pool.
+         *
+         * @param rttInNanos long the round trip time of the attempt, {@code -1} if it was not sent
+         * @param dropped    boolean {@code true} if the attempt failed
+         */
+        private void releasePermit(final long rttInNanos, final boolean dropped) {
+            final BreinConcurrencyLimiter currentLimiter = permitLimiter;
+            if (currentLimiter != null) {
+                permitLimiter = null;
+                currentLimiter.release(rttInNanos, dropped);
+                dispatchWaiting();
+            }
+        }
+
+        /**
+         * Called if the backend answered with a status code which does not indicate a temporary failure.
+         *
+         * @param conn       HttpURLConnection the connection to read the response from
+         * @param statusCode int the status code of the response
+         */
+        protected abstract void onResponse(final HttpURLConnection conn, final int statusCode);
+
+        /**
+         * Called if the request could not be sent, after all attempts failed or if the request was rejected.
+         */
+        protected abstract void onFailure();
+
+        /**
+         * Handles the request as failed without sending (another attempt of) it, e.g., because the pool is saturated.
+         */
+        protected void reject() {
+            final BreinMetrics currentMetrics = metrics;
+            if (currentMetrics != null) {
+                currentMetrics.onRejected(endpoint);
+            }
+            rejected = true;
+            fail();
+        }
+
+        /**
+         * Cancels the request, i.e., it is not sent again and the connection of the attempt in flight is closed. The
+         * request fails (see {@link #onFailure()}), unless the response was received already.
+         */
+        public void cancel() {
+            cancelled = true;
+
+            final HttpURLConnection current = this.connection;
+            if (current != null) {
+                current.disconnect();
+            }
+        }
+
+        /**
+         * @return boolean {@code true} if the request was cancelled, see {@link #cancel()}
+         */
+        protected boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Checks if the backend may have processed the failed request, i.e., the last attempt failed after the request
+         * was sent completely (e.g., the response timed out or the backend answered with a server error). Such an
+         * activity is not added to the offline queue, so it is never stored twice.
+         *
+         * @return boolean {@code true} if the request may have been processed
+         */
+        protected boolean isPossiblyProcessed() {
+            return possiblyProcessed;
+        }
+
+        /**
+         * Describes why the request failed, to be used within {@link #onFailure()}.
+         *
+         * @return BreinRequestException the reason of the failure
+         */
+        protected BreinRequestException getError() {
+            if (cancelled) {
+                return new BreinRequestException(BreinRequestException.Reason.CANCELLED,
+                        "The request to " + fullUrl + " was cancelled");
+            } else if (rejected) {
+                return new BreinRequestException(BreinRequestException.Reason.REJECTED,
+                        "The request to " + fullUrl + " was rejected");
+            } else if (lastStatusCode > 0) {
+                return new BreinRequestException(BreinRequestException.Reason.HTTP_STATUS, lastStatusCode,
+                        "The request to " + fullUrl + " failed with status: " + lastStatusCode);
+            } else if (lastException != null) {
+                return new BreinRequestException(BreinRequestException.Reason.CONNECTION,
+                        "The request to " + fullUrl + " failed", lastException);
+            } else {
+                return new BreinRequestException(BreinRequestException.Reason.CONNECTION,
+                        "The request to " + fullUrl + " failed");
+            }
+        }
+
+        /**
+         * Reads the result of the response (see {@link HttpUrlRestEngine#readResult(HttpURLConnection, int, int)}),
+         * the parsing is passed to the trace of the request.
+         *
+         * @param conn            HttpURLConnection the connection to read from
+         * @param statusCode      int the status code of the response
+         * @param maxResponseSize int the maximal size of the response in bytes
+         *
+         * @return BreinResult the result, {@code null} if the request was not successful or the response is not valid
+         */
+        protected BreinResult readResult(final HttpURLConnection conn,
+                                         final int statusCode,
+                                         final int maxResponseSize) {
+            trace.parseStart();
+            final BreinResult result = HttpUrlRestEngine.this.readResult(conn, statusCode, maxResponseSize);
+            trace.parseEnd();
+            return result;
+        }
+
+        private void fail() {
+            trace.callFailed();
+            onFailure();
+        }
+
+        private void retry(final long retryAfter) {
+            final long delay = policy.getDelay(attempt, retryAfter);
+            final BreinRequestExecutor current = executor;
+            if (cancelled || delay < 0 || current == null || (breaker != null && breaker.isRejecting())) {
+                fail();
+                return;
+            }
+
+            attempt++;
+            final boolean scheduled = current.schedule(this, delay, new Runnable() {
+                @Override
+                public void run() {
+                    fail();
+                }
+            });
+            if (!scheduled) {
+                fail();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.brein.engine;
+
+/**
+ * Informed about every attempt of a request, e.g., to forward the metrics to another system. The methods are called
+ * within the thread sending the request (a worker of the pool or the event loop), so they should return quickly.
+ */
+public interface IBreinMetricsListener {
+
+    /**
+     * Called when an attempt is sent.
+     *
+     * @param endpoint     String the endpoint, e.g. {@code /activity}
+     * @param requestBytes int the size of the (uncompressed) request body in bytes
+     */
+    void onSent(final String endpoint, final int requestBytes);
+
+    /**
+     * Called when an attempt is completed, i.e., the status code of the response is available or the attempt failed.
+     *
+     * @param endpoint       String the endpoint, e.g. {@code /activity}
+     * @param statusCode     int the status code of the response, {@code -1} if no response was received
+     * @param latencyInNanos long the time from sending the attempt until the status code was available
+     */
+    void onCompleted(final String endpoint, final int statusCode, final long latencyInNanos);
+
+    /**
+     * Called when a request fails without being sent, e.g., because the circuit of the endpoint is open or the worker
+     * pool is saturated.
+     *
+     * @param endpoint String the endpoint, e.g. {@code /activity}
+     */
+    void onRejected(final String endpoint);
+}
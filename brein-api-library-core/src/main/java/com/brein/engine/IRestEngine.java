@@ -0,0 +1,160 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinBase;
+import com.brein.api.BreinException;
+import com.brein.api.BreinLookup;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+
+
+/**
+ * Interface for all possible rest  engines
+ */
+public interface IRestEngine {
+
+    /**
+     * configures the rest engine
+     *
+     * @param breinConfig configuration object
+     */
+    void configure(final BreinConfig breinConfig);
+
+    /**
+     * invokes the post request
+     *
+     * @param breinActivity data
+     */
+    void doRequest(final BreinActivity breinActivity) throws BreinException;
+
+    /**
+     * performs a lookup and provides details
+     *
+     * @param breinLookup contains request data
+     * @return response from Breinify
+     */
+    BreinResult doLookup(final BreinLookup breinLookup) throws BreinException;
+
+    /**
+     * terminates the rest engine
+     */
+    void terminate();
+
+    /**
+     * Retrieves the rest engine, if it is of the specified type
+     *
+     * @param engine BreinEngineType contains the engine
+     * @return IRestEngine instance, {@code null} if the engine is of another type
+     */
+    IRestEngine getRestEngine(final BreinEngineType engine);
+
+    /**
+     * Retrieves the type of the rest engine
+     * @param engine BreinEngineType contains type of engine
+     * @return BreinEngineType the type of this engine
+     */
+    BreinEngineType getRestEngineType(final BreinEngineType engine);
+
+    /**
+     * Retrieves the statistics of the worker pool used by the engine
+     *
+     * @return BreinRequestExecutor.Statistics current values, {@code null} if the engine has no running pool
+     */
+    BreinRequestExecutor.Statistics getPoolStatistics();
+
+    /**
+     * Retrieves the statistics of the adaptive limit of requests in flight used by the engine
+     *
+     * @return BreinConcurrencyLimiter.Statistics current values, {@code null} if the engine does not limit requests
+     */
+    BreinConcurrencyLimiter.Statistics getConcurrencyStatistics();
+
+    /**
+     * Sends the activities collected so far (if batching is enabled).
+     */
+    void flush();
+
+    /**
+     * Sends the activities stored within the offline queue (if the queue is enabled).
+     */
+    void replayOfflineQueue();
+
+    /**
+     * invokes request
+     * @param config    BreinConfig contains the configuration object
+     * @param data      BreinBase contains the obect to send
+     * @param callback  ICallback contains the callback handler
+     */
+    void invokeRequest(final BreinConfig config,
+                           final BreinBase data,
+                           final ICallback<BreinResult> callback);
+
+    /**
+     * Invokes the request with a body created already (e.g., to create the key of the single-flight), i.e., the
+     * request is not serialized again.
+     *
+     * @param config      BreinConfig contains the configuration object
+     * @param data        BreinBase contains the object to send
+     * @param requestBody byte[] the body of {@code data} (see {@link com.brein.util.BreinUtil#getRequestBytes}),
+     *                    {@code null} to create it
+     * @param callback    ICallback contains the callback handler
+     */
+    void invokeRequest(final BreinConfig config,
+                       final BreinBase data,
+                       final byte[] requestBody,
+                       final ICallback<BreinResult> callback);
+
+    /**
+     * Passes a result available without sending a request (e.g., a cached one) to the callback. The callback is
+     * informed within the worker pool, like the result of a request sent.
+     *
+     * @param config    BreinConfig contains the configuration object
+     * @param result    BreinResult the result to pass
+     * @param callback  ICallback contains the callback handler
+     */
+    void respond(final BreinConfig config,
+                 final BreinResult result,
+                 final ICallback<BreinResult> callback);
+
+    /**
+     * Handles the request as failed without sending it, i.e., an activity is stored within the offline queue (if
+     * enabled) and the callback is informed with {@code null} (within the calling thread).
+     *
+     * @param config    BreinConfig contains the configuration object
+     * @param data      BreinBase contains the object which is not sent
+     * @param callback  ICallback contains the callback handler
+     */
+    void rejectRequest(final BreinConfig config,
+                       final BreinBase data,
+                       final ICallback<BreinResult> callback);
+
+    /**
+     * Sets the circuit breakers the outcomes of the requests are recorded with.
+     *
+     * @param circuitBreakers BreinCircuitBreakers the breakers, {@code null} to disable the breakers
+     */
+    void setCircuitBreakers(final BreinCircuitBreakers circuitBreakers);
+
+    /**
+     * Sets the compressor of the request bodies.
+     *
+     * @param requestCompressor BreinRequestCompressor the compressor, {@code null} to send all bodies uncompressed
+     */
+    void setRequestCompressor(final BreinRequestCompressor requestCompressor);
+
+    /**
+     * Sets the metrics the attempts of the requests are recorded with.
+     *
+     * @param metrics BreinMetrics the metrics, {@code null} to record nothing
+     */
+    void setMetrics(final BreinMetrics metrics);
+
+    /**
+     * Sets the listener informed about the phases of the requests (see {@link BreinEventListener}).
+     *
+     * @param eventListener BreinEventListener the listener, {@code null} to trace no request
+     */
+    void setEventListener(final BreinEventListener eventListener);
+
+}
@@ -0,0 +1,661 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinBase;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinRequestException;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.util.BreinLogger;
+import com.brein.util.BreinUtil;
+import com.google.gson.stream.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Rest engine based on non-blocking sockets ({@link BreinNioHttpClient}), i.e., a single event-loop thread sends all
+ * requests and reads their responses, so hundreds of requests can be in flight without a thread per request. The
+ * callbacks are not invoked by the event loop, they are handed over to the worker pool of the engine.
+ * <p>
+ * Batching, retries, the circuit breakers, the compression and the offline queue behave like within the {@link
+ * HttpUrlRestEngine} (the offline queue is replayed using {@code HttpURLConnection} by the thread of the queue), a
+ * compressed body is kept in memory for all attempts of the request. The adaptive limit of requests in flight is not
+ * applied, the number of connections is limited instead (see {@link BreinConfig#setNioMaxConnections(int)}).
+ */
+public class NioRestEngine extends HttpUrlRestEngine {
+
+    private static final String TAG = "NioRestEngine";
+
+    /**
+     * header containing the time to wait before a throttled or failed request is sent again
+     */
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    /**
+     * format of a date within a header, e.g. {@code Wed, 21 Oct 2015 07:28:00 GMT}
+     */
+    private static final String HEADER_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * client sending the requests, created with the first request
+     */
+    private volatile BreinNioHttpClient client = null;
+
+    /**
+     * invokes the post request, the request is sent by the event loop
+     *
+     * @param breinActivity data
+     */
+    @Override
+    public void doRequest(final BreinActivity breinActivity) {
+        invokeRequest(BreinifyCore.getConfig(), breinActivity, null);
+    }
+
+    /**
+     * performs a lookup, the result is not available synchronously
+     *
+     * @param breinLookup contains request data
+     * @return {@code null}, use {@link #invokeRequest(BreinConfig, BreinBase, ICallback)} to retrieve the result
+     */
+    @Override
+    public BreinResult doLookup(final BreinLookup breinLookup) {
+        invokeRequest(BreinifyCore.getConfig(), breinLookup, null);
+        return null;
+    }
+
+    /**
+     * stops the event loop, the requests in flight are completed before (waiting at most the termination timeout of
+     * the worker pool)
+     */
+    @Override
+    public void terminate() {
+        flush();
+        closeClient();
+        super.terminate();
+
+        // the last batch may have been sent while the worker pool was stopped
+        closeClient();
+    }
+
+    /**
+     * The adaptive limit is not applied by this engine.
+     *
+     * @return {@code null}
+     */
+    @Override
+    public BreinConcurrencyLimiter.Statistics getConcurrencyStatistics() {
+        return null;
+    }
+
+    @Override
+    public BreinEngineType getRestEngineType(final BreinEngineType engine) {
+        return BreinEngineType.NIO_ENGINE;
+    }
+
+    /**
+     * configuration of the rest client, creates the worker pool and starts the event loop
+     */
+    @Override
+    public void configure(final BreinConfig breinConfig) {
+        super.configure(breinConfig);
+        getClient(breinConfig);
+    }
+
+    @Override
+    public void invokeRequest(final BreinConfig config, final BreinBase data, final ICallback<BreinResult> callback) {
+        invokeRequest(config, data, null, callback);
+    }
+
+    @Override
+    public void invokeRequest(final BreinConfig config,
+                              final BreinBase data,
+                              final byte[] preparedBody,
+                              final ICallback<BreinResult> callback) {
+
+        // validate the input objects
+        BreinUtil.validate(data);
+
+        final String endpoint = data.getEndPoint(config);
+        final BreinCallTrace trace = BreinCallTrace.start(getEventListener(), endpoint);
+
+        final String fullUrl = BreinUtil.getFullyQualifiedUrl(data);
+        trace.serializationStart();
+        final byte[] requestBody = preparedBody == null ? BreinUtil.getRequestBytes(data) : preparedBody;
+        trace.serializationEnd(requestBody.length);
+        if (BreinLogger.isLoggable(BreinLogger.Level.VERBOSE)) {
+            BreinLogger.v(TAG, "InvokeRequest - request is:  " + new String(requestBody, UTF8));
+        }
+
+        // activities may be collected and sent later on within a batch
+        if (addToBatch(config, data, requestBody, callback)) {
+            trace.callEnd();
+            return;
+        }
+
+        final NioRequest request = new NioRequest(config, endpoint, fullUrl, requestBody, trace) {
+
+            @Override
+            protected void onResponse(final BreinNioHttpClient.Response response) {
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "InvokeRequest - response is:  " + response.getStatusCode());
+                }
+                final BreinResult breinResponse = readResult(response);
+
+                BreinCallbacks.respond(callback, breinResponse, response.getStatusCode());
+            }
+
+            @Override
+            protected void onFailure() {
+                // a cancelled request is abandoned, one which may have been processed is not stored twice
+                if (!isCancelled() && !isPossiblyProcessed()) {
+                    journal(data, fullUrl, requestBody);
+                }
+
+                BreinCallbacks.fail(callback, getError());
+            }
+        };
+
+        // a cancelled callback (e.g. a future) aborts the request
+        BreinCallbacks.setCancelAction(callback, new Runnable() {
+            @Override
+            public void run() {
+                request.cancel();
+            }
+        });
+        request.run();
+    }
+
+    @Override
+    protected void sendBatch(final BreinConfig config, final List<BreinActivityBatcher.Entry> batch) {
+        final String fullUrl = config.getUrl() + config.getBulkActivityEndpoint();
+        final String activityUrl = config.getUrl() + config.getActivityEndpoint();
+        final BreinCallTrace trace = BreinCallTrace.start(getEventListener(), config.getBulkActivityEndpoint());
+        trace.serializationStart();
+        final byte[] requestBody = BreinActivityBatcher.createBulkBody(config, batch);
+        trace.serializationEnd(requestBody.length);
+        if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+            BreinLogger.d(TAG, "Sending batch of " + batch.size() + " activities");
+        }
+
+        new NioRequest(config, config.getBulkActivityEndpoint(), fullUrl, requestBody, trace) {
+
+            @Override
+            protected void onResponse(final BreinNioHttpClient.Response response) {
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "Batch - response is: " + response.getStatusCode());
+                }
+                final BreinResult breinResponse = readResult(response);
+
+                for (final BreinActivityBatcher.Entry entry : batch) {
+                    BreinCallbacks.respond(entry.getCallback(), breinResponse, response.getStatusCode());
+                }
+            }
+
+            @Override
+            protected void onFailure() {
+                if (!isPossiblyProcessed()) {
+                    journalBatch(activityUrl, batch);
+                }
+
+                final BreinRequestException error = getError();
+                for (final BreinActivityBatcher.Entry entry : batch) {
+                    BreinCallbacks.fail(entry.getCallback(), error);
+                }
+            }
+        }.run();
+    }
+
+    /**
+     * @return BreinNioHttpClient the client used, {@code null} if the engine is not configured or terminated
+     */
+    public BreinNioHttpClient getClient() {
+        return this.client;
+    }
+
+    /**
+     * Retrieves the client, creates it (based on the specified configuration) if not available so far.
+     *
+     * @param config BreinConfig the configuration to create the client
+     *
+     * @return BreinNioHttpClient the client, {@code null} if it cannot be created
+     */
+    protected BreinNioHttpClient getClient(final BreinConfig config) {
+        BreinNioHttpClient current = this.client;
+        if (current == null) {
+            synchronized (this) {
+                current = this.client;
+                if (current == null) {
+                    final BreinConfig clientConfig = config == null ? new BreinConfig() : config;
+                    try {
+                        current = new BreinNioHttpClient(clientConfig.getNioMaxConnections(),
+                                clientConfig.getExecutorQueueCapacity(),
+                                clientConfig.getMaxResponseSize(),
+                                clientConfig.getExecutorThreadNamePrefix() + "nio");
+                        this.client = current;
+                    } catch (final IOException e) {
+                        BreinLogger.e(TAG, "Unable to start the event loop: " + e);
+                    }
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Reads the result of a successful request, a response which cannot be parsed (or exceeded the maximal size)
+     * leads to a {@code null} result.
+     *
+     * @param response BreinNioHttpClient.Response the response
+     *
+     * @return BreinResult the result, {@code null} if the request was not successful or the response is not valid
+     */
+    protected BreinResult readResult(final BreinNioHttpClient.Response response) {
+        if (response.getStatusCode() != HttpURLConnection.HTTP_OK || response.getBody() == null) {
+            return null;
+        }
+
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(response.getBody()), UTF8));
+            return BreinResult.fromJson(reader);
+        } catch (final IOException | RuntimeException e) {
+            BreinLogger.w(TAG, "Unable to read the response: " + e);
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    // nothing to do, the body is kept in memory
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines the time the backend asked to wait before the request is sent again, i.e., the value of the {@code
+     * Retry-After} header (either in seconds or as date).
+     *
+     * @param response BreinNioHttpClient.Response the response
+     *
+     * @return long the time in ms, {@code -1} if not specified
+     */
+    protected long getRetryAfter(final BreinNioHttpClient.Response response) {
+        final String value = response.getHeader(RETRY_AFTER_HEADER);
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000L;
+        } catch (final NumberFormatException e) {
+            try {
+                final SimpleDateFormat format = new SimpleDateFormat(HEADER_DATE_FORMAT, Locale.US);
+                format.setTimeZone(TimeZone.getTimeZone("GMT"));
+                return Math.max(0, format.parse(value.trim()).getTime() - System.currentTimeMillis());
+            } catch (final ParseException parseException) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Runs the task within the worker pool, i.e., not within the event loop. If the pool is saturated or terminated,
+     * the task is run within the calling thread, so that no callback is lost.
+     *
+     * @param task Runnable the task to run
+     */
+    protected void dispatch(final Runnable task) {
+        final BreinRequestExecutor current = getRunningExecutor();
+        if (current == null || !current.execute(task)) {
+            BreinLogger.w(TAG, "Worker pool is saturated or terminated, the callback is invoked by the event loop");
+            task.run();
+        }
+    }
+
+    private void closeClient() {
+        final BreinNioHttpClient current;
+        synchronized (this) {
+            current = this.client;
+            this.client = null;
+        }
+
+        if (current != null) {
+            try {
+                current.awaitIdle(getTerminationTimeout());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            current.close();
+        }
+    }
+
+    /**
+     * A request which is sent again according to the {@link BreinRetryPolicy} of its endpoint, if it fails
+     * temporarily (see {@link #isRetryable(int)}). The attempts are sent by the event loop and scheduled by the timer
+     * of the worker pool. Exactly one of {@link #onResponse(BreinNioHttpClient.Response)} and {@link #onFailure()} is
+     * called, always within the worker pool (unless the pool is saturated).
+     * <p>
+     * Like a {@link HttpUrlRestEngine.RetryingRequest}, an activity is sent again only if the backend did certainly
+     * not process it, i.e., it was not sent completely or the backend answered with {@code 429} or {@code 503}.
+     * <p>
+     * The outcome of every attempt is recorded by the circuit breaker of the endpoint (and the metrics); while the
+     * circuit is open, the request fails without being sent. The phases of the attempts are passed to the trace of
+     * the request.
+     * <p>
+     * A cancelled request (see {@link #cancel()}) is not sent again, an exchange in flight is still completed by the
+     * event loop, i.e., the client does not abort it.
+     */
+    protected abstract class NioRequest implements Runnable, BreinNioHttpClient.IResponseHandler {
+        private final BreinCallTrace trace;
+        private final BreinConfig config;
+        private final String endpoint;
+        private final String fullUrl;
+        private final byte[] requestBody;
+        private final String contentEncoding;
+        private final int requestBytes;
+        private final BreinRetryPolicy policy;
+        private final boolean idempotent;
+        private final BreinCircuitBreaker breaker;
+        private final int connectionTimeout;
+        private final int readTimeout;
+
+        private int attempt = 1;
+
+        /**
+         * the time the current attempt was sent (see {@link System#nanoTime()})
+         */
+        private volatile long sentAt;
+
+        /**
+         * the status code of the last failed attempt, {@code -1} if no response was received
+         */
+        private volatile int lastStatusCode = -1;
+
+        /**
+         * the exception of the last failed attempt, {@code null} if a response was received
+         */
+        private volatile Exception lastException = null;
+
+        /**
+         * {@code true} if the last attempt failed after the request was sent completely
+         */
+        private volatile boolean possiblyProcessed = false;
+
+        private volatile boolean rejected = false;
+        private volatile boolean cancelled = false;
+
+        /**
+         * @param config      BreinConfig the configuration used to send the request
+         * @param endpoint    String the endpoint, used to determine the retry policy
+         * @param fullUrl     String the url of the request
+         * @param requestBody byte[] the body of the request
+         * @param trace       BreinCallTrace the trace of the request
+         */
+        protected NioRequest(final BreinConfig config,
+                             final String endpoint,
+                             final String fullUrl,
+                             final byte[] requestBody,
+                             final BreinCallTrace trace) {
+            this.trace = trace == null ? BreinCallTrace.NONE : trace;
+            this.config = config;
+            this.endpoint = endpoint;
+            this.fullUrl = fullUrl;
+            this.policy = config.getRetryPolicy(endpoint);
+            this.idempotent = isIdempotent(config, endpoint);
+            this.requestBytes = requestBody.length;
+
+            // the body is compressed once, every attempt sends the same compressed body
+            final BreinRequestCompressor compressor = getRequestCompressor();
+            if (compressor != null && compressor.shouldCompress(endpoint, requestBody.length)) {
+                this.requestBody = compressor.compress(endpoint, requestBody);
+                this.contentEncoding = BreinRequestCompressor.CONTENT_ENCODING;
+            } else {
+                this.requestBody = requestBody;
+                this.contentEncoding = null;
+            }
+
+            final BreinCircuitBreakers currentBreakers = getCircuitBreakers();
+            this.breaker = currentBreakers == null ? null : currentBreakers.get(endpoint);
+            this.connectionTimeout = (int) config.getConnectionTimeout();
+            this.readTimeout = (int) config.getSocketTimeout();
+        }
+
+        /**
+         * Hands the attempt over to the event loop.
+         */
+        @Override
+        public void run() {
+            if (cancelled) {
+                fail();
+                return;
+            } else if (breaker != null && !breaker.allowRequest()) {
+                if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                    BreinLogger.d(TAG, "Circuit of " + fullUrl + " is open, the request is not sent");
+                }
+                reject();
+                return;
+            }
+
+            getExecutor(config);
+            final BreinNioHttpClient current = getClient(config);
+            final BreinMetrics metrics = getMetrics();
+            if (metrics != null) {
+                metrics.onSent(endpoint, requestBytes);
+            }
+            this.sentAt = System.nanoTime();
+            trace.attemptStart(attempt);
+
+            boolean sent;
+            try {
+                sent = current != null && current.post(fullUrl, requestBody, contentEncoding, connectionTimeout,
+                        readTimeout, this);
+            } catch (final IOException e) {
+                BreinLogger.w(TAG, "Unable to send the request to " + fullUrl + ": " + e);
+                sent = false;
+            }
+
+            if (!sent) {
+                BreinLogger.w(TAG, "Request rejected, too many requests are waiting for a connection");
+                recordCompleted(-1);
+                trace.attemptFailed(attempt, -1);
+                rejected = true;
+                fail();
+            }
+        }
+
+        @Override
+        public void completed(final BreinNioHttpClient.Response response) {
+            final int statusCode = response.getStatusCode();
+            recordCompleted(statusCode);
+            trace.responseHeadersEnd(statusCode);
+            if (!isRetryable(statusCode)) {
+                if (breaker != null) {
+                    breaker.onSuccess();
+                }
+                onSent();
+                dispatch(new Runnable() {
+                    @Override
+                    public void run() {
+                        onResponse(response);
+                        trace.callEnd();
+                    }
+                });
+                return;
+            }
+
+            if (breaker != null) {
+                breaker.onFailure();
+            }
+            trace.attemptFailed(attempt, statusCode);
+            lastStatusCode = statusCode;
+            lastException = null;
+            possiblyProcessed = !isRetryable(statusCode, false);
+            if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                BreinLogger.d(TAG, "Attempt " + attempt + " of " + fullUrl + " failed with status: " + statusCode);
+            }
+            if (possiblyProcessed && !idempotent) {
+                fail();
+            } else {
+                retry(getRetryAfter(response));
+            }
+        }
+
+        @Override
+        public void failed(final IOException e, final boolean sent) {
+            recordCompleted(-1);
+            trace.attemptFailed(attempt, -1);
+            if (BreinLogger.isLoggable(BreinLogger.Level.DEBUG)) {
+                BreinLogger.d(TAG, "Attempt " + attempt + " of " + fullUrl + " failed: " + e);
+            }
+            if (breaker != null) {
+                breaker.onFailure();
+            }
+            lastStatusCode = -1;
+            lastException = e;
+            possiblyProcessed = sent;
+            if (possiblyProcessed && !idempotent) {
+                fail();
+            } else {
+                retry(-1);
+            }
+        }
+
+        /**
+         * Called if the backend answered with a status code which does not indicate a temporary failure.
+         *
+         * @param response BreinNioHttpClient.Response the response
+         */
+        protected abstract void onResponse(final BreinNioHttpClient.Response response);
+
+        /**
+         * Called if the request could not be sent, after all attempts failed or if the request was rejected.
+         */
+        protected abstract void onFailure();
+
+        /**
+         * Reads the result of the response (see {@link NioRestEngine#readResult(BreinNioHttpClient.Response)}), the
+         * parsing is passed to the trace of the request.
+         *
+         * @param response BreinNioHttpClient.Response the response
+         *
+         * @return BreinResult the result, {@code null} if the request was not successful or the response is not valid
+         */
+        protected BreinResult readResult(final BreinNioHttpClient.Response response) {
+            trace.parseStart();
+            final BreinResult result = NioRestEngine.this.readResult(response);
+            trace.parseEnd();
+            return result;
+        }
+
+        private void recordCompleted(final int statusCode) {
+            final BreinMetrics metrics = getMetrics();
+            if (metrics != null) {
+                metrics.onCompleted(endpoint, statusCode, System.nanoTime() - this.sentAt);
+            }
+        }
+
+        /**
+         * Cancels the request, i.e., it is not sent again. The request fails (see {@link #onFailure()}), unless the
+         * response was received already.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return boolean {@code true} if the request was cancelled, see {@link #cancel()}
+         */
+        protected boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Checks if the backend may have processed the failed request, see {@link
+         * HttpUrlRestEngine.RetryingRequest#isPossiblyProcessed()}.
+         *
+         * @return boolean {@code true} if the request may have been processed
+         */
+        protected boolean isPossiblyProcessed() {
+            return possiblyProcessed;
+        }
+
+        /**
+         * Describes why the request failed, to be used within {@link #onFailure()}.
+         *
+         * @return BreinRequestException the reason of the failure
+         */
+        protected BreinRequestException getError() {
+            if (cancelled) {
+                return new BreinRequestException(BreinRequestException.Reason.CANCELLED,
+                        "The request to " + fullUrl + " was cancelled");
+            } else if (rejected) {
+                return new BreinRequestException(BreinRequestException.Reason.REJECTED,
+                        "The request to " + fullUrl + " was rejected");
+            } else if (lastStatusCode > 0) {
+                return new BreinRequestException(BreinRequestException.Reason.HTTP_STATUS, lastStatusCode,
+                        "The request to " + fullUrl + " failed with status: " + lastStatusCode);
+            } else if (lastException != null) {
+                return new BreinRequestException(BreinRequestException.Reason.CONNECTION,
+                        "The request to " + fullUrl + " failed", lastException);
+            } else {
+                return new BreinRequestException(BreinRequestException.Reason.CONNECTION,
+                        "The request to " + fullUrl + " failed");
+            }
+        }
+
+        private void reject() {
+            final BreinMetrics metrics = getMetrics();
+            if (metrics != null) {
+                metrics.onRejected(endpoint);
+            }
+            rejected = true;
+            fail();
+        }
+
+        private void fail() {
+            dispatch(new Runnable() {
+                @Override
+                public void run() {
+                    trace.callFailed();
+                    onFailure();
+                }
+            });
+        }
+
+        private void retry(final long retryAfter) {
+            final long delay = policy.getDelay(attempt, retryAfter);
+            final BreinRequestExecutor current = getRunningExecutor();
+            if (cancelled || delay < 0 || current == null || (breaker != null && breaker.isRejecting())) {
+                fail();
+                return;
+            }
+
+            attempt++;
+            final boolean scheduled = current.schedule(this, delay, new Runnable() {
+                @Override
+                public void run() {
+                    trace.callFailed();
+                    onFailure();
+                }
+            });
+            if (!scheduled) {
+                fail();
+            }
+        }
+    }
+}
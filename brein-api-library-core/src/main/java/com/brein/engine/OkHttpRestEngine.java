@@ -0,0 +1,345 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
+/**
+ * Rest engine based on OkHttp, i.e., the connections are pooled and HTTP/2 is used if supported by the backend (so
+ * that the requests in flight share a single connection). The engine behaves like the {@link HttpUrlRestEngine}
+ * (worker pool, retries, batching, offline queue, adaptive limit), only the requests are sent as OkHttp {@link Call}.
+ * Cancelling a request cancels its call, even while it is sent.
+ * <p>
+ * OkHttp is not a dependency of the library, the application has to add {@code com.squareup.okhttp3:okhttp} (3.12 or
+ * later) to use the engine, see {@link BreinRestEngineRegistry}.
+ */
+public class OkHttpRestEngine extends HttpUrlRestEngine {
+
+    /**
+     * time in ms an idle connection is kept within the pool
+     */
+    private static final long KEEP_ALIVE_DURATION = 5L * 60L * 1000L;
+
+    /**
+     * default maximal number of idle connections kept within the pool, if not configured
+     */
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    /**
+     * the client sending the calls, created with the first request
+     */
+    private volatile OkHttpClient client = null;
+
+    private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+
+    @Override
+    public void configure(final BreinConfig breinConfig) {
+        if (breinConfig != null) {
+            synchronized (this) {
+                // every worker may keep its connection
+                this.maxIdleConnections = Math.max(breinConfig.getExecutorMaxPoolSize(),
+                        breinConfig.getConcurrencyLimitMax());
+            }
+        }
+        super.configure(breinConfig);
+    }
+
+    @Override
+    public BreinEngineType getRestEngineType(final BreinEngineType engine) {
+        return BreinEngineType.OK_HTTP_ENGINE;
+    }
+
+    @Override
+    public void terminate() {
+        super.terminate();
+
+        final OkHttpClient current;
+        synchronized (this) {
+            current = this.client;
+            this.client = null;
+        }
+        if (current != null) {
+            current.connectionPool().evictAll();
+            current.dispatcher().executorService().shutdown();
+        }
+    }
+
+    @Override
+    protected HttpURLConnection openConnection(final URL url) throws IOException {
+        return new CallConnection(url);
+    }
+
+    /**
+     * Sends the request as call of the client, i.e., the method returns as soon as the headers of the response are
+     * received. A compressed body is sent with its length (no chunked transfer encoding).
+     */
+    @Override
+    protected void send(final HttpURLConnection conn,
+                        final String endpoint,
+                        final byte[] requestBody,
+                        final int connectionTimeout,
+                        final int readTimeout,
+                        final BreinCallTrace trace) throws IOException {
+        final CallConnection callConn = (CallConnection) conn;
+
+        final BreinRequestCompressor compressor = getRequestCompressor();
+        final boolean compressed = compressor != null && compressor.shouldCompress(endpoint, requestBody.length);
+        if (compressed) {
+            callConn.setRequestProperty(CONTENT_ENCODING_HEADER, BreinRequestCompressor.CONTENT_ENCODING);
+        }
+        final SentBody body = new SentBody(compressed ? compressor.compress(endpoint, requestBody) : requestBody);
+
+        final Request.Builder builder = new Request.Builder()
+                .url(callConn.getURL())
+                .header("Accept", "application/json")
+                .post(body);
+        for (final Map.Entry<String, String> property : callConn.properties.entrySet()) {
+            builder.header(property.getKey(), property.getValue());
+        }
+
+        trace.connectStart();
+        try {
+            callConn.execute(getClient(connectionTimeout, readTimeout).newCall(builder.build()), body);
+        } catch (final IOException | RuntimeException e) {
+            release(conn, false);
+            throw e;
+        }
+        trace.connectEnd();
+        trace.requestBodyEnd(requestBody.length);
+    }
+
+    /**
+     * The response is closed, i.e., its connection is returned to the pool (if the response is consumed or small
+     * enough to be skipped). The call of a failed request is cancelled.
+     */
+    @Override
+    protected void release(final HttpURLConnection conn, final boolean responded) {
+        if (responded) {
+            ((CallConnection) conn).close();
+        } else {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * @return OkHttpClient the client used, {@code null} if no request was sent so far
+     */
+    public OkHttpClient getClient() {
+        return this.client;
+    }
+
+    /**
+     * Retrieves the client with the specified timeouts, a client with other timeouts shares the connection pool.
+     */
+    private OkHttpClient getClient(final int connectionTimeout, final int readTimeout) {
+        OkHttpClient current = this.client;
+        if (current == null) {
+            synchronized (this) {
+                current = this.client;
+                if (current == null) {
+                    current = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(this.maxIdleConnections, KEEP_ALIVE_DURATION,
+                                    TimeUnit.MILLISECONDS))
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            .connectTimeout(connectionTimeout, TimeUnit.MILLISECONDS)
+                            .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                            .writeTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                            .build();
+                    this.client = current;
+                }
+            }
+        }
+
+        if (current.connectTimeoutMillis() == connectionTimeout && current.readTimeoutMillis() == readTimeout) {
+            return current;
+        } else {
+            return current.newBuilder()
+                    .connectTimeout(connectionTimeout, TimeUnit.MILLISECONDS)
+                    .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                    .writeTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+    }
+
+    /**
+     * The body of a request, which remembers if it was written completely
+     */
+    private static class SentBody extends RequestBody {
+        private final byte[] content;
+        private volatile boolean written = false;
+
+        SentBody(final byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return JSON;
+        }
+
+        @Override
+        public long contentLength() {
+            return this.content.length;
+        }
+
+        @Override
+        public void writeTo(final BufferedSink sink) throws IOException {
+            sink.write(this.content);
+            this.written = true;
+        }
+    }
+
+    /**
+     * Presents the call of a request as {@code HttpURLConnection}, so that the requests are sent and retried like
+     * the ones of the {@link HttpUrlRestEngine}. Disconnecting cancels the call.
+     */
+    private static class CallConnection extends HttpURLConnection {
+        private final Map<String, String> properties = new HashMap<>();
+
+        private volatile Call call = null;
+        private volatile boolean disconnected = false;
+
+        private Response response = null;
+
+        /**
+         * the failure of a call which was sent completely, i.e., the response failed
+         */
+        private IOException failure = null;
+
+        CallConnection(final URL url) {
+            super(url);
+        }
+
+        /**
+         * Executes the call, a failure after the body was sent is reported when the response is read.
+         */
+        void execute(final Call call, final SentBody body) throws IOException {
+            this.call = call;
+            if (this.disconnected) {
+                call.cancel();
+                throw new InterruptedIOException("The request was cancelled");
+            }
+
+            try {
+                this.response = call.execute();
+                this.connected = true;
+            } catch (final IOException e) {
+                if (!body.written) {
+                    throw e;
+                }
+                this.failure = e;
+                this.connected = true;
+            }
+        }
+
+        void close() {
+            final Response current = this.response;
+            if (current != null) {
+                current.close();
+            }
+        }
+
+        @Override
+        public void setRequestProperty(final String key, final String value) {
+            this.properties.put(key, value);
+        }
+
+        @Override
+        public void addRequestProperty(final String key, final String value) {
+            this.properties.put(key, value);
+        }
+
+        @Override
+        public String getRequestProperty(final String key) {
+            return this.properties.get(key);
+        }
+
+        @Override
+        public void connect() throws IOException {
+            // the call is executed when the request is sent
+        }
+
+        @Override
+        public void disconnect() {
+            this.disconnected = true;
+
+            final Call current = this.call;
+            if (current != null) {
+                current.cancel();
+            }
+            close();
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+
+        @Override
+        public int getResponseCode() throws IOException {
+            return getResponse().code();
+        }
+
+        @Override
+        public String getResponseMessage() throws IOException {
+            return getResponse().message();
+        }
+
+        @Override
+        public String getHeaderField(final String name) {
+            return this.response == null ? null : this.response.header(name);
+        }
+
+        @Override
+        public int getContentLength() {
+            final ResponseBody body = this.response == null ? null : this.response.body();
+            final long length = body == null ? -1 : body.contentLength();
+            return length > Integer.MAX_VALUE ? -1 : (int) length;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            final ResponseBody body = getResponse().body();
+            if (body == null) {
+                throw new IOException("The response of " + getURL() + " has no body");
+            }
+            return body.byteStream();
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            final ResponseBody body = this.response == null ? null : this.response.body();
+            return body == null || this.response.code() < HTTP_BAD_REQUEST ? null : body.byteStream();
+        }
+
+        private Response getResponse() throws IOException {
+            if (this.failure != null) {
+                throw this.failure;
+            } else if (this.response == null) {
+                throw new IOException("The request to " + getURL() + " was not sent");
+            }
+            return this.response;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.brein.util;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Map keeping its entries as an unmodifiable snapshot, every modification creates a new snapshot which is published
+ * using compare-and-set. Readers never lock and always see a consistent snapshot, concurrent writers never lock and
+ * never lose an update. Intended for the small maps of a request, which are read far more often than modified.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class BreinCopyOnWriteMap<K, V> extends AbstractMap<K, V> {
+
+    private final AtomicReference<Map<K, V>> snapshot;
+
+    /**
+     * Creates an empty map
+     */
+    public BreinCopyOnWriteMap() {
+        this.snapshot = new AtomicReference<>(Collections.<K, V>emptyMap());
+    }
+
+    private BreinCopyOnWriteMap(final Map<K, V> snapshot) {
+        this.snapshot = new AtomicReference<>(snapshot);
+    }
+
+    /**
+     * Retrieves the current entries, the returned map is unmodifiable and never changes.
+     *
+     * @return Map the current entries
+     */
+    public Map<K, V> snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Creates an independent copy of this map, the copy shares the current snapshot, i.e., no entries are copied.
+     *
+     * @return BreinCopyOnWriteMap the copy
+     */
+    public BreinCopyOnWriteMap<K, V> copy() {
+        return new BreinCopyOnWriteMap<>(snapshot.get());
+    }
+
+    @Override
+    public V get(final Object key) {
+        return snapshot.get().get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return snapshot.get().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.get().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return snapshot.get().isEmpty();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return snapshot.get().entrySet();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return snapshot.get().keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return snapshot.get().values();
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        while (true) {
+            final Map<K, V> current = snapshot.get();
+            final Map<K, V> modified = new HashMap<>(current);
+            final V previous = modified.put(key, value);
+
+            if (snapshot.compareAndSet(current, Collections.unmodifiableMap(modified))) {
+                return previous;
+            }
+        }
+    }
+
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> map) {
+        while (true) {
+            final Map<K, V> current = snapshot.get();
+            final Map<K, V> modified = new HashMap<>(current);
+            modified.putAll(map);
+
+            if (snapshot.compareAndSet(current, Collections.unmodifiableMap(modified))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public V remove(final Object key) {
+        while (true) {
+            final Map<K, V> current = snapshot.get();
+            if (!current.containsKey(key)) {
+                return null;
+            }
+
+            final Map<K, V> modified = new HashMap<>(current);
+            final V previous = modified.remove(key);
+
+            if (snapshot.compareAndSet(current, Collections.unmodifiableMap(modified))) {
+                return previous;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        snapshot.set(Collections.<K, V>emptyMap());
+    }
+}
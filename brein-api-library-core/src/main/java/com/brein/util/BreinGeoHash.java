@@ -0,0 +1,66 @@
+package com.brein.util;
+
+/**
+ * Encodes geo-coordinates as geohash, i.e., a string identifying a cell of the grid of the specified precision. Nearby
+ * coordinates share the same hash (or at least a common prefix), e.g., a precision of 5 identifies a cell of about 5km
+ * x 5km, a precision of 6 a cell of about 1.2km x 0.6km.
+ */
+public class BreinGeoHash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /**
+     * the maximal precision supported, i.e., 12 characters (60 bits)
+     */
+    public static final int MAX_PRECISION = 12;
+
+    private BreinGeoHash() {
+    }
+
+    /**
+     * Encodes the coordinates
+     *
+     * @param latitude  double the latitude (-90 to 90)
+     * @param longitude double the longitude (-180 to 180)
+     * @param precision int the number of characters of the hash (1 to 12)
+     *
+     * @return String the geohash
+     */
+    public static String encode(final double latitude, final double longitude, final int precision) {
+        final int length = Math.min(MAX_PRECISION, Math.max(1, precision));
+        final char[] hash = new char[length];
+
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+
+        // the bits alternate between longitude and latitude, starting with the longitude
+        boolean even = true;
+        for (int i = 0; i < length; i++) {
+            int value = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                value <<= 1;
+                if (even) {
+                    final double mid = (minLon + maxLon) / 2.0;
+                    if (longitude >= mid) {
+                        value |= 1;
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    final double mid = (minLat + maxLat) / 2.0;
+                    if (latitude >= mid) {
+                        value |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                even = !even;
+            }
+            hash[i] = BASE32[value];
+        }
+
+        return new String(hash);
+    }
+}
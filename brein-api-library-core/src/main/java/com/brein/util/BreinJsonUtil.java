@@ -0,0 +1,247 @@
+package com.brein.util;
+
+import com.brein.api.BreinBase;
+import com.brein.domain.BreinConfig;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Helper to stream request bodies as UTF-8 encoded JSON. The bodies are encoded directly into a buffer which is pooled
+ * per thread, so creating a body does not need any intermediate map, string or char-array.
+ */
+public class BreinJsonUtil {
+
+    public static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * buffers growing beyond this size are not kept within the pool
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private static final ThreadLocal<RequestBuffer> BUFFERS = new ThreadLocal<RequestBuffer>() {
+        @Override
+        protected RequestBuffer initialValue() {
+            return new RequestBuffer();
+        }
+    };
+
+    private BreinJsonUtil() {
+    }
+
+    /**
+     * Creates the UTF-8 encoded request body of the {@code data}.
+     *
+     * @param data   BreinBase the request to create the body for
+     * @param config BreinConfig the configuration used to create the body
+     *
+     * @return byte[] the request body (JSON)
+     *
+     * @throws IOException if the body cannot be written
+     */
+    public static byte[] toBytes(final BreinBase data, final BreinConfig config) throws IOException {
+        final RequestBuffer buffer = BUFFERS.get();
+        buffer.reset();
+
+        try {
+            final JsonWriter writer = data.getGson().newJsonWriter(buffer);
+            data.writeRequestData(config, writer);
+            writer.flush();
+
+            return buffer.toByteArray();
+        } finally {
+            if (buffer.capacity() > MAX_POOLED_BUFFER_SIZE) {
+                BUFFERS.remove();
+            }
+        }
+    }
+
+    /**
+     * Writes any value of a request, i.e., strings, numbers, booleans, maps, collections and {@code JsonElement}
+     * instances are written directly, any other value is written using the {@code gson} instance.
+     *
+     * @param writer JsonWriter the writer to write to
+     * @param gson   Gson used for values which are not written directly
+     * @param value  Object the value to write
+     *
+     * @throws IOException if the value cannot be written
+     */
+    public static void writeValue(final JsonWriter writer, final Gson gson, final Object value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else if (value instanceof String) {
+            writer.value((String) value);
+        } else if (value instanceof Number) {
+            writer.value((Number) value);
+        } else if (value instanceof Boolean) {
+            writer.value((Boolean) value);
+        } else if (value instanceof Character) {
+            writer.value(value.toString());
+        } else if (value instanceof Map) {
+            writer.beginObject();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writer.name(String.valueOf(entry.getKey()));
+                writeValue(writer, gson, entry.getValue());
+            }
+            writer.endObject();
+        } else if (value instanceof Collection) {
+            writer.beginArray();
+            for (final Object element : (Collection<?>) value) {
+                writeValue(writer, gson, element);
+            }
+            writer.endArray();
+        } else if (value instanceof JsonElement) {
+            gson.toJson((JsonElement) value, writer);
+        } else {
+            gson.toJson(value, value.getClass(), writer);
+        }
+    }
+
+    /**
+     * Writes the entries of the map, which contain a value (see {@link BreinUtil#containsValue(Object)}).
+     *
+     * @param writer JsonWriter the writer to write to
+     * @param gson   Gson used for values which are not written directly
+     * @param map    Map the entries to write, may be {@code null}
+     * @param skip   String keys which are not written
+     *
+     * @throws IOException if the entries cannot be written
+     */
+    public static void writeEntries(final JsonWriter writer,
+                                    final Gson gson,
+                                    final Map<String, Object> map,
+                                    final String... skip) throws IOException {
+        if (map == null) {
+            return;
+        }
+
+        for (final Map.Entry<String, Object> entry : map.entrySet()) {
+            if (!BreinUtil.containsValue(entry.getValue()) || contains(skip, entry.getKey())) {
+                continue;
+            }
+
+            writer.name(entry.getKey());
+            writeValue(writer, gson, entry.getValue());
+        }
+    }
+
+    private static boolean contains(final String[] values, final String value) {
+        for (final String candidate : values) {
+            if (candidate.equals(value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * The pooled buffer, a {@code Writer} encoding the written characters directly as UTF-8 into a growing byte-array.
+     */
+    private static class RequestBuffer extends Writer {
+        private byte[] buf = new byte[INITIAL_BUFFER_SIZE];
+        private int count = 0;
+
+        /**
+         * a high surrogate written as last character, waiting for its low surrogate
+         */
+        private int highSurrogate = -1;
+
+        void reset() {
+            count = 0;
+            highSurrogate = -1;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        @Override
+        public void write(final int c) {
+            encode((char) c);
+        }
+
+        @Override
+        public void write(final char[] chars, final int off, final int len) {
+            ensureCapacity(len);
+            for (int i = off; i < off + len; i++) {
+                encode(chars[i]);
+            }
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            ensureCapacity(len);
+            for (int i = off; i < off + len; i++) {
+                encode(str.charAt(i));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void encode(final char c) {
+            if (highSurrogate != -1) {
+                final int high = highSurrogate;
+                highSurrogate = -1;
+
+                if (Character.isLowSurrogate(c)) {
+                    final int codePoint = Character.toCodePoint((char) high, c);
+                    ensureCapacity(4);
+                    buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                    return;
+                }
+
+                // unpaired surrogate, replaced like the default encoder does
+                ensureCapacity(1);
+                buf[count++] = '?';
+            }
+
+            if (c < 0x80) {
+                ensureCapacity(1);
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                ensureCapacity(1);
+                buf[count++] = '?';
+            } else {
+                ensureCapacity(3);
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        private void ensureCapacity(final int additional) {
+            if (count + additional > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.brein.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream failing as soon as more than the specified number of bytes are read, used to guard against huge responses.
+ */
+public class BreinLimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count = 0;
+
+    /**
+     * Creates the stream
+     *
+     * @param in    InputStream the stream to read from
+     * @param limit long the maximal number of bytes which can be read
+     */
+    public BreinLimitedInputStream(final InputStream in, final long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int value = super.read();
+        if (value != -1) {
+            count(1);
+        }
+
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long skipped = super.skip(n);
+        count(skipped);
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return long the number of bytes read so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    private void count(final long read) throws IOException {
+        count += read;
+        if (count > limit) {
+            throw new IOException("Limit of " + limit + " bytes exceeded");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.brein.util;
+
+import java.io.PrintStream;
+
+/**
+ * Logging facade of the library. A message is only built and passed to the sink, if its level is enabled, i.e.,
+ * expensive messages should be guarded by {@link #isLoggable(Level)} or passed as {@link IMessage}. By default, only
+ * warnings and errors are logged; request and response bodies (which may contain personal data) are logged on
+ * {@link Level#VERBOSE} only. {@link Level#OFF} disables the logging completely.
+ * <p>
+ * The messages are passed to the console, unless another sink is set (on Android, the messages are passed to logcat
+ * as soon as {@code Breinify} of the Android module is used).
+ */
+public final class BreinLogger {
+
+    /**
+     * The levels of the messages, ordered by their severity
+     */
+    public enum Level {
+        VERBOSE,
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR,
+        OFF
+    }
+
+    /**
+     * Receives the messages of enabled levels
+     */
+    public interface ISink {
+
+        /**
+         * @param level   Level the level of the message
+         * @param tag     String the tag of the message, i.e., the component logging it
+         * @param message String the message
+         * @param t       Throwable the cause of the message, may be {@code null}
+         */
+        void log(final Level level, final String tag, final String message, final Throwable t);
+    }
+
+    /**
+     * A message built only if its level is enabled
+     */
+    public interface IMessage {
+
+        /**
+         * @return String the message
+         */
+        String get();
+    }
+
+    /**
+     * default level of the messages logged
+     */
+    public static final Level DEFAULT_LEVEL = Level.WARN;
+
+    /**
+     * sink writing to {@code System.out} (or {@code System.err} for warnings and errors)
+     */
+    public static final ISink CONSOLE = new ISink() {
+        @Override
+        public void log(final Level level, final String tag, final String message, final Throwable t) {
+            final PrintStream out = level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+            out.println(level.name().charAt(0) + "/" + tag + ": " + message);
+            if (t != null) {
+                t.printStackTrace(out);
+            }
+        }
+    };
+
+    private static volatile Level level = DEFAULT_LEVEL;
+    private static volatile ISink defaultSink = CONSOLE;
+    private static volatile ISink sink = CONSOLE;
+
+    private BreinLogger() {
+        // nothing to create
+    }
+
+    /**
+     * Sets the minimal level of the logged messages.
+     *
+     * @param newLevel Level the level, {@link Level#OFF} to log nothing
+     */
+    public static void setLevel(final Level newLevel) {
+        level = newLevel == null ? DEFAULT_LEVEL : newLevel;
+    }
+
+    /**
+     * @return Level the minimal level of the logged messages
+     */
+    public static Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the sink receiving the messages.
+     *
+     * @param newSink ISink the sink, {@code null} to use the default sink of the platform
+     */
+    public static synchronized void setSink(final ISink newSink) {
+        sink = newSink == null ? defaultSink : newSink;
+    }
+
+    /**
+     * Sets the default sink of the platform, it replaces the current sink unless another one was set explicitly (see
+     * {@link #setSink(ISink)}).
+     *
+     * @param newDefaultSink ISink the sink used by default
+     */
+    public static synchronized void setDefaultSink(final ISink newDefaultSink) {
+        if (newDefaultSink == null) {
+            return;
+        } else if (sink == defaultSink) {
+            sink = newDefaultSink;
+        }
+        defaultSink = newDefaultSink;
+    }
+
+    /**
+     * @param messageLevel Level the level of a message
+     *
+     * @return boolean {@code true} if messages of the level are logged
+     */
+    public static boolean isLoggable(final Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != Level.OFF;
+    }
+
+    public static void v(final String tag, final String message) {
+        log(Level.VERBOSE, tag, message, null);
+    }
+
+    public static void v(final String tag, final IMessage message) {
+        log(Level.VERBOSE, tag, message);
+    }
+
+    public static void d(final String tag, final String message) {
+        log(Level.DEBUG, tag, message, null);
+    }
+
+    public static void d(final String tag, final IMessage message) {
+        log(Level.DEBUG, tag, message);
+    }
+
+    public static void d(final String tag, final String message, final Throwable t) {
+        log(Level.DEBUG, tag, message, t);
+    }
+
+    public static void i(final String tag, final String message) {
+        log(Level.INFO, tag, message, null);
+    }
+
+    public static void w(final String tag, final String message) {
+        log(Level.WARN, tag, message, null);
+    }
+
+    public static void w(final String tag, final String message, final Throwable t) {
+        log(Level.WARN, tag, message, t);
+    }
+
+    public static void e(final String tag, final String message) {
+        log(Level.ERROR, tag, message, null);
+    }
+
+    public static void e(final String tag, final String message, final Throwable t) {
+        log(Level.ERROR, tag, message, t);
+    }
+
+    /**
+     * Logs the message, if its level is enabled.
+     *
+     * @param messageLevel Level the level of the message
+     * @param tag          String the tag of the message
+     * @param message      String the message
+     * @param t            Throwable the cause, may be {@code null}
+     */
+    public static void log(final Level messageLevel, final String tag, final String message, final Throwable t) {
+        if (isLoggable(messageLevel)) {
+            sink.log(messageLevel, tag, message, t);
+        }
+    }
+
+    /**
+     * Builds and logs the message, if its level is enabled.
+     *
+     * @param messageLevel Level the level of the message
+     * @param tag          String the tag of the message
+     * @param message      IMessage the message
+     */
+    public static void log(final Level messageLevel, final String tag, final IMessage message) {
+        if (isLoggable(messageLevel)) {
+            sink.log(messageLevel, tag, message.get(), null);
+        }
+    }
+}
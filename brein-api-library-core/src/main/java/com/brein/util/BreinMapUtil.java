@@ -39,8 +39,8 @@ public class BreinMapUtil {
             return Collections.emptyList();
         }
 
-        final List<Object> copy = new ArrayList<>();
-        for (Object value : copy) {
+        final List<Object> copy = new ArrayList<>(source.size());
+        for (Object value : source) {
             copy.add(copyValue(value));
         }
 
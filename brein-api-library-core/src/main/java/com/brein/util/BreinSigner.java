@@ -0,0 +1,270 @@
+package com.brein.util;
+
+import com.brein.api.BreinException;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Creates the HmacSHA256 signatures of the requests for one secret. A {@code Mac} is created and keyed once per thread,
+ * so signing is thread-safe without any locking and without recomputing the key schedule. The message can be written
+ * into a per-thread {@link Message} buffer, i.e., no intermediate {@code String} is needed.
+ */
+public class BreinSigner {
+
+    public static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * number of signers kept within the cache used by {@link #forSecret(String)}
+     */
+    private static final int MAX_CACHED_SIGNERS = 16;
+
+    private static final ConcurrentMap<String, BreinSigner> SIGNERS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Message> MESSAGES = new ThreadLocal<Message>() {
+        @Override
+        protected Message initialValue() {
+            return new Message();
+        }
+    };
+
+    private final SecretKeySpec key;
+
+    private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                final Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Unable to find needed algorithm!", e);
+            } catch (final InvalidKeyException e) {
+                throw new IllegalStateException("Unable to create signature!", e);
+            }
+        }
+    };
+
+    /**
+     * Creates a signer for the specified secret
+     *
+     * @param secret String the secret used to sign
+     */
+    public BreinSigner(final String secret) {
+        if (secret == null) {
+            throw new BreinException("Illegal value for secret in method generateSignature");
+        }
+
+        this.key = new SecretKeySpec(secret.getBytes(BreinJsonUtil.UTF8), ALGORITHM);
+    }
+
+    /**
+     * Retrieves a cached signer for the secret, the signer is created if needed.
+     *
+     * @param secret String the secret used to sign
+     *
+     * @return BreinSigner the signer of the secret
+     */
+    public static BreinSigner forSecret(final String secret) {
+        if (secret == null) {
+            throw new BreinException("Illegal value for secret in method generateSignature");
+        }
+
+        BreinSigner signer = SIGNERS.get(secret);
+        if (signer == null) {
+            if (SIGNERS.size() >= MAX_CACHED_SIGNERS) {
+                SIGNERS.clear();
+            }
+
+            signer = new BreinSigner(secret);
+            final BreinSigner existing = SIGNERS.putIfAbsent(secret, signer);
+            if (existing != null) {
+                signer = existing;
+            }
+        }
+
+        return signer;
+    }
+
+    /**
+     * Provides the (cleared) message buffer of the current thread, the buffer is signed using {@link Message#sign()}.
+     * The buffer must not be used after it was signed, or by another thread.
+     *
+     * @return Message the empty message buffer
+     */
+    public Message message() {
+        final Message message = MESSAGES.get();
+        message.reset(this);
+
+        return message;
+    }
+
+    /**
+     * Signs the specified message (UTF-8 encoded).
+     *
+     * @param message String the message to sign
+     *
+     * @return String the Base64 encoded signature
+     */
+    public String sign(final String message) {
+        if (message == null) {
+            throw new BreinException("Illegal value for message in method generateSignature");
+        }
+
+        return message().append(message).sign();
+    }
+
+    /**
+     * Signs the bytes of the specified range.
+     *
+     * @param message byte[] contains the message
+     * @param offset  int the first byte of the message
+     * @param length  int the number of bytes of the message
+     *
+     * @return String the Base64 encoded signature
+     */
+    public String sign(final byte[] message, final int offset, final int length) {
+        final Mac mac = macs.get();
+        mac.update(message, offset, length);
+
+        return Base64.encodeBytes(mac.doFinal());
+    }
+
+    /**
+     * Signs the remaining bytes of the buffer, the position of the buffer is moved to its limit.
+     *
+     * @param message ByteBuffer contains the message
+     *
+     * @return String the Base64 encoded signature
+     */
+    public String sign(final ByteBuffer message) {
+        final Mac mac = macs.get();
+        mac.update(message);
+
+        return Base64.encodeBytes(mac.doFinal());
+    }
+
+    /**
+     * Reusable buffer to write the message to sign, numbers are written in their decimal form (like
+     * {@code String.valueOf}), strings are written UTF-8 encoded.
+     */
+    public static class Message {
+        private static final int MAX_POOLED_SIZE = 1024;
+
+        private byte[] buf = new byte[64];
+        private int count = 0;
+        private BreinSigner signer = null;
+
+        private void reset(final BreinSigner signer) {
+            if (buf.length > MAX_POOLED_SIZE) {
+                buf = new byte[64];
+            }
+
+            this.count = 0;
+            this.signer = signer;
+        }
+
+        /**
+         * @param value String the value to append, {@code null} is appended as {@code "null"}
+         *
+         * @return Message the message itself
+         */
+        public Message append(final String value) {
+            final String str = String.valueOf(value);
+            final int length = str.length();
+
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                final char c = str.charAt(i);
+                if (c >= 0x80) {
+                    // not only ASCII, so let the default encoder handle the remaining part
+                    return append(str.substring(i).getBytes(BreinJsonUtil.UTF8));
+                }
+
+                buf[count++] = (byte) c;
+            }
+
+            return this;
+        }
+
+        /**
+         * @param value long the value to append
+         *
+         * @return Message the message itself
+         */
+        public Message append(final long value) {
+            if (value == Long.MIN_VALUE) {
+                return append(Long.toString(value));
+            }
+
+            ensureCapacity(20);
+
+            long remaining = value;
+            if (remaining < 0) {
+                buf[count++] = '-';
+                remaining = -remaining;
+            }
+
+            final int start = count;
+            do {
+                buf[count++] = (byte) ('0' + remaining % 10);
+                remaining /= 10;
+            } while (remaining > 0);
+
+            // the digits are written in reverse order
+            for (int i = start, j = count - 1; i < j; i++, j--) {
+                final byte tmp = buf[i];
+                buf[i] = buf[j];
+                buf[j] = tmp;
+            }
+
+            return this;
+        }
+
+        /**
+         * @param value char the (ASCII) character to append
+         *
+         * @return Message the message itself
+         */
+        public Message append(final char value) {
+            if (value >= 0x80) {
+                return append(String.valueOf(value));
+            }
+
+            ensureCapacity(1);
+            buf[count++] = (byte) value;
+
+            return this;
+        }
+
+        /**
+         * Signs the message written so far, using the signer which provided the message.
+         *
+         * @return String the Base64 encoded signature
+         */
+        public String sign() {
+            return signer.sign(buf, 0, count);
+        }
+
+        private Message append(final byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+
+            return this;
+        }
+
+        private void ensureCapacity(final int additional) {
+            if (count + additional > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + additional));
+            }
+        }
+    }
+}
@@ -2,41 +2,26 @@ package com.brein.util;
 
 import com.brein.api.BreinBase;
 import com.brein.api.BreinException;
-import com.brein.api.Breinify;
+import com.brein.api.BreinifyCore;
 import com.brein.domain.BreinConfig;
 import com.brein.domain.BreinIpInfo;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.charset.Charset;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Random;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-
 /**
  * Utility class
  */
 public class BreinUtil {
 
     private static final String AB = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private static final Mac mac;
     private static final Random RANDOM = new Random();
 
     private BreinUtil() {}
 
-    static {
-        try {
-            mac = Mac.getInstance("HmacSHA256");
-        } catch (final NoSuchAlgorithmException e) {
-            throw new IllegalStateException("Unable to find needed algorithm!", e);
-        }
-    }
-
     /**
      * Verifies if the object contains a value
      * Return false in case of:
@@ -117,16 +102,7 @@ public class BreinUtil {
             throw new BreinException("Illegal value for secret in method generateSignature");
         }
 
-        try {
-            byte[] e = secret.getBytes(Charset.forName("UTF-8"));
-            SecretKeySpec secretKey = new SecretKeySpec(e, "HmacSHA256");
-            mac.init(secretKey);
-            byte[] hmacData = mac.doFinal(message.getBytes(Charset.forName("UTF-8")));
-            return Base64.encodeBytes(hmacData);
-
-        } catch (final InvalidKeyException e) {
-            throw new IllegalStateException("Unable to create signature!", e);
-        }
+        return BreinSigner.forSecret(secret).sign(message);
     }
 
     /**
@@ -191,7 +167,7 @@ public class BreinUtil {
      */
     public static void validateConfig(final BreinBase breinBase) {
 
-        final BreinConfig breinConfig = Breinify.getConfig();
+        final BreinConfig breinConfig = BreinifyCore.getConfig();
         if (null == breinConfig) {
             throw new BreinException(BreinException.CONFIG_VALIDATION_FAILED);
         }
@@ -204,7 +180,7 @@ public class BreinUtil {
      * @return full url
      */
     public static String getFullyQualifiedUrl(final BreinBase breinBase) {
-        final BreinConfig breinConfig = Breinify.getConfig();
+        final BreinConfig breinConfig = BreinifyCore.getConfig();
 
         final String url = breinConfig.getUrl();
         if (null == url) {
@@ -223,13 +199,34 @@ public class BreinUtil {
      */
     public static String getRequestBody(final BreinBase breinBase) {
 
-        final String requestBody = breinBase.prepareRequestData(Breinify.getConfig());
+        final String requestBody = breinBase.prepareRequestData(BreinifyCore.getConfig());
         if (!BreinUtil.containsValue(requestBody)) {
             throw new BreinException(BreinException.REQUEST_BODY_FAILED);
         }
         return requestBody;
     }
 
+    /**
+     * retrieves the UTF-8 encoded request body of the object, the body is streamed into a pooled buffer
+     *
+     * @param breinBase object to use
+     * @return request as json (UTF-8)
+     */
+    public static byte[] getRequestBytes(final BreinBase breinBase) {
+
+        final byte[] requestBody;
+        try {
+            requestBody = BreinJsonUtil.toBytes(breinBase, BreinifyCore.getConfig());
+        } catch (final IOException e) {
+            throw new BreinException(BreinException.REQUEST_BODY_FAILED);
+        }
+
+        if (requestBody.length == 0) {
+            throw new BreinException(BreinException.REQUEST_BODY_FAILED);
+        }
+        return requestBody;
+    }
+
     /**
      * Invokes validation of BreinBase object, configuration and url.
      * The "validator" will throw an exception in case of any mis-behaviour.
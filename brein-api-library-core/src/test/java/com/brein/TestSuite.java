@@ -0,0 +1,64 @@
+package com.brein;
+
+import com.brein.activity.TestActivityBody;
+import com.brein.api.TestFutures;
+import com.brein.api.TestStress;
+import com.brein.config.TestConfig;
+import com.brein.domain.TestDeviceContext;
+import com.brein.domain.TestDomain;
+import com.brein.domain.TestIpInfo;
+import com.brein.engine.TestActivityBatcher;
+import com.brein.engine.TestActivityJournal;
+import com.brein.engine.TestCircuitBreaker;
+import com.brein.engine.TestConcurrencyLimiter;
+import com.brein.engine.TestEngines;
+import com.brein.engine.TestMetrics;
+import com.brein.engine.TestRecommendationCache;
+import com.brein.engine.TestRequestCompression;
+import com.brein.engine.TestRequestExecutor;
+import com.brein.engine.TestResponseParsing;
+import com.brein.engine.TestRetries;
+import com.brein.engine.TestSingleFlight;
+import com.brein.engine.TestTemporalDataCache;
+import com.brein.engine.TestTracing;
+import com.brein.server.TestStandInServer;
+import com.brein.util.TestLogger;
+import com.brein.util.TestSigner;
+import com.brein.util.TestUtil;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+/**
+ * Test suite for all java api  tests
+ */
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+        TestActivityBody.class,
+        TestFutures.class,
+        TestStress.class,
+        TestConfig.class,
+        TestDeviceContext.class,
+        TestDomain.class,
+        TestIpInfo.class,
+        TestActivityBatcher.class,
+        TestActivityJournal.class,
+        TestCircuitBreaker.class,
+        TestConcurrencyLimiter.class,
+        TestEngines.class,
+        TestMetrics.class,
+        TestRecommendationCache.class,
+        TestRequestCompression.class,
+        TestRequestExecutor.class,
+        TestResponseParsing.class,
+        TestRetries.class,
+        TestSingleFlight.class,
+        TestTemporalDataCache.class,
+        TestTracing.class,
+        TestStandInServer.class,
+        TestLogger.class,
+        TestSigner.class,
+        TestUtil.class
+})
+public class TestSuite {
+}
@@ -1,7 +1,7 @@
 package com.brein.activity;
 
 import com.brein.api.BreinActivity;
-import com.brein.api.Breinify;
+import com.brein.api.BreinifyCore;
 import com.brein.api.ICallback;
 import com.brein.domain.BreinActivityType;
 import com.brein.domain.BreinConfig;
@@ -80,7 +80,7 @@ public class TestActivity {
     public void setUp() {
 
         final BreinConfig breinConfig = new BreinConfig(VALID_API_KEY, VALID_SECRET);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
     }
 
     /**
@@ -0,0 +1,128 @@
+package com.brein.activity;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinifyCore;
+import com.brein.domain.BreinConfig;
+import com.brein.server.BreinStubIpInfoProvider;
+import com.brein.util.BreinJsonUtil;
+import com.google.gson.Gson;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the streamed request body of an activity
+ */
+public class TestActivityBody {
+
+    private static final int WARM_UP = 2000;
+    private static final int ITERATIONS = 10000;
+
+    private BreinConfig config;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        BreinStubIpInfoProvider.install();
+
+        config = new BreinConfig("5d8b-064c-f007-4f92-a8dc-d06b-56b4-fad8", "lmcoj4k27hbbszzyiqamhg==")
+                .setDefaultCategory("home");
+        BreinifyCore.setConfig(config);
+    }
+
+    /**
+     * The streamed body contains the same data as the body created from the request map.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSameBody() throws IOException {
+        final BreinActivity activity = createActivity();
+
+        final Gson gson = new Gson();
+        final Map<String, Object> expected = gson.fromJson(activity.prepareRequestData(config), Map.class);
+        final Map<String, Object> streamed = gson.fromJson(
+                new String(BreinJsonUtil.toBytes(activity, config), BreinJsonUtil.UTF8), Map.class);
+
+        assertEquals(expected, streamed);
+        assertEquals("home", ((Map<String, Object>) streamed.get("activity")).get("category"));
+        assertEquals("10.0.0.1", streamed.get("ipAddress"));
+        assertEquals(1500000000.0, streamed.get("unixTimestamp"));
+        assertTrue(streamed.containsKey("signature"));
+    }
+
+    /**
+     * Non-ASCII values are written as UTF-8.
+     */
+    @Test
+    public void testUtf8() throws IOException {
+        final BreinActivity activity = createActivity().setDescription("Grüße aus Köln ☃ \uD83D\uDE00");
+
+        final String body = new String(BreinJsonUtil.toBytes(activity, config), BreinJsonUtil.UTF8);
+        assertTrue(body.contains("Grüße aus Köln ☃ \uD83D\uDE00"));
+    }
+
+    /**
+     * Measures the bytes allocated per activity body, the streamed body allocates at most half of the map based one
+     * (see {@code RequestBenchmark} for the allocation rates).
+     */
+    @Test
+    public void testAllocations() throws IOException {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        final BreinActivity activity = createActivity();
+        final long threadId = Thread.currentThread().getId();
+
+        int length = 0;
+        for (int i = 0; i < WARM_UP; i++) {
+            length += activity.prepareRequestData(config).getBytes(BreinJsonUtil.UTF8).length;
+            length += BreinJsonUtil.toBytes(activity, config).length;
+        }
+
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            length += activity.prepareRequestData(config).getBytes(BreinJsonUtil.UTF8).length;
+        }
+        final long mapBytes = (threadBean.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+
+        start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            length += BreinJsonUtil.toBytes(activity, config).length;
+        }
+        final long streamedBytes = (threadBean.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+
+        assertTrue(length > 0);
+        assertTrue("allocated bytes per activity, map: " + mapBytes + ", streamed: " + streamedBytes,
+                streamedBytes <= mapBytes / 2);
+    }
+
+    private BreinActivity createActivity() {
+        final BreinActivity activity = new BreinActivity()
+                .setActivityType("checkOut")
+                .setDescription("checkout of the cart")
+                .setUnixTimestamp(1500000000L)
+                .setClientIpAddress("10.0.0.1");
+        activity.setTag("productPrices", Arrays.asList(24.99, 9.99));
+        activity.setTag("productIds", Arrays.asList("125689", "982361"));
+        activity.setTag("productQuantities", Arrays.asList(1, 2));
+
+        activity.setUser("email", "diane.keng@breinify.com");
+        activity.setUser("sessionId", "966542c6-2399-11e7-93ae-92361f002671");
+        activity.setAdditional("referrer", "https://www.breinify.com/");
+        activity.setAdditional("timezone", "America/Los_Angeles");
+
+        return activity;
+    }
+}
@@ -114,7 +114,7 @@ public class TestApi {
          */
         try {
             Thread.sleep(1000);
-            Breinify.shutdown();
+            BreinifyCore.shutdown();
         } catch (final InterruptedException e) {
             e.printStackTrace();
         }
@@ -135,12 +135,12 @@ public class TestApi {
     @Test
     public void testLogin() {
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         breinUser.setFirstName("User");
         breinUser.setLastName("Name");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 breinActivityType,
                 breinCategoryType,
                 "Login-Description",
@@ -153,12 +153,12 @@ public class TestApi {
     @Test
     public void testWithoutCategoryType() {
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         breinUser.setFirstName("User");
         breinUser.setLastName("Name");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 breinActivityType,
                 null,
                 "Login-Description",
@@ -174,12 +174,12 @@ public class TestApi {
 
         final String description = "Login-Description";
         final BreinConfig config = new BreinConfig(null, VALID_SIGNATURE);
-        Breinify.setConfig(config);
+        BreinifyCore.setConfig(config);
 
         breinUser.setFirstName("User")
                 .setLastName("Name");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 breinActivityType,
                 breinCategoryType,
                 description,
@@ -189,7 +189,7 @@ public class TestApi {
     @Test
     public void testWithoutCallback() {
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.LOGIN,
                 BreinCategoryType.HOME,
                 "Login-Description", null);
@@ -202,7 +202,7 @@ public class TestApi {
     public void testWithoutSecret() {
 
         final BreinConfig config = new BreinConfig(VALID_SIGNATURE_API_KEY, null);
-        Breinify.setConfig(config);
+        BreinifyCore.setConfig(config);
     }
 
     /**
@@ -222,12 +222,12 @@ public class TestApi {
             e.printStackTrace();
         }
 
-        Breinify.setConfig(config);
+        BreinifyCore.setConfig(config);
 
         breinUser.setFirstName("User");
         breinUser.setLastName("Name");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 breinActivityType,
                 breinCategoryType,
                 description,
@@ -245,12 +245,12 @@ public class TestApi {
 
         config.setActivityEndpoint("/wrongEndPoint");
 
-        Breinify.setConfig(config);
+        BreinifyCore.setConfig(config);
 
         breinUser.setFirstName("User");
         breinUser.setLastName("Name");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 breinActivityType,
                 breinCategoryType,
                 description,
@@ -277,11 +277,11 @@ public class TestApi {
 
         final String description = "Logout-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         breinUser.setDateOfBirth(12, 31, 2008);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 breinActivityType,
                 breinCategoryType,
                 description,
@@ -296,9 +296,9 @@ public class TestApi {
 
         final String description = "Search-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.SEARCH,
                 breinCategoryType,
                 description,
@@ -313,9 +313,9 @@ public class TestApi {
 
         final String description = "AddToCart-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.ADD_TO_CART,
                 breinCategoryType,
                 description,
@@ -330,9 +330,9 @@ public class TestApi {
 
         final String description = "RemoveFromCart-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.REMOVE_FROM_CART,
                 breinCategoryType,
                 description,
@@ -347,9 +347,9 @@ public class TestApi {
 
         final String description = "Select-Product-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.SELECT_PRODUCT,
                 breinCategoryType,
                 description,
@@ -364,9 +364,9 @@ public class TestApi {
 
         final String description = "Other-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.OTHER,
                 breinCategoryType,
                 description,
@@ -381,9 +381,9 @@ public class TestApi {
 
         final String description = "Other-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.OTHER,
                 breinCategoryType,
                 description,
@@ -398,7 +398,7 @@ public class TestApi {
 
         // set configuration
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         // user data
         final BreinUser breinUser = new BreinUser("User.Name@email.com")
@@ -413,7 +413,7 @@ public class TestApi {
                 .setIpAddress("10.11.12.130")
                 .setUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/46.0.2486.0 Safari/537.36 Edge/13.10586");
 
-        final BreinActivity breinActivity = Breinify.getBreinActivity();
+        final BreinActivity breinActivity = BreinifyCore.getBreinActivity();
 
         // just in case you want to set the unixTimestamp
         breinActivity.setUnixTimestamp(System.currentTimeMillis() / 1000L);
@@ -428,7 +428,7 @@ public class TestApi {
         breinActivity.setTag("nr", 3000);
         breinActivity.setTag("sortid", "1.0");
 
-        Breinify.activity(breinActivity, restCallback);
+        BreinifyCore.activity(breinActivity, restCallback);
     }
 
     /**
@@ -440,7 +440,7 @@ public class TestApi {
 
         // set configuration
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         // user data
         final BreinUser breinUser = new BreinUser("User.Name@email.com")
@@ -454,7 +454,7 @@ public class TestApi {
                 .setReferrer("https://sample.com.au/track")
                 .setUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/46.0.2486.0 Safari/537.36 Edge/13.10586");
 
-        Breinify.activity(breinUser, BreinActivityType.PAGEVISIT, BreinCategoryType.APPAREL, "Description", restCallback);
+        BreinifyCore.activity(breinUser, BreinActivityType.PAGEVISIT, BreinCategoryType.APPAREL, "Description", restCallback);
     }
 
     /**
@@ -482,10 +482,10 @@ public class TestApi {
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE);
 
         breinConfig.setSecret(secret);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         // invoke activity call
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 "login",
                 "home",
                 "Login-Description",
@@ -501,8 +501,8 @@ public class TestApi {
         final String wrongSecret = "ThisIsAWrongSecret";
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, wrongSecret);
 
-        Breinify.setConfig(breinConfig);
-        Breinify.activity(breinUser,
+        BreinifyCore.setConfig(breinConfig);
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.LOGIN,
                 BreinCategoryType.HOME,
                 "Login-Description",
@@ -522,22 +522,22 @@ public class TestApi {
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE)
                 .setDefaultCategory("DEF-CAT-TYPE");
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         final BreinUser breinUser = new BreinUser()
                 .setSessionId("SESS-ID-IS-THIS");
 
-        Breinify.activity(breinUser, "ACT-TYPE", "CAT-TYPE", "DESC", restCallback);
-        Breinify.activity(breinUser, "ACT-TYPE", "", "DESC", restCallback);
-        Breinify.activity(breinUser, "ACT-TYPE", null, "DESC", restCallback);
-        Breinify.activity(breinUser, "ACT-TYPE", "bla", null, restCallback);
-        Breinify.activity(breinUser, "ACT-TYPE", "bla", "Desc", null);
+        BreinifyCore.activity(breinUser, "ACT-TYPE", "CAT-TYPE", "DESC", restCallback);
+        BreinifyCore.activity(breinUser, "ACT-TYPE", "", "DESC", restCallback);
+        BreinifyCore.activity(breinUser, "ACT-TYPE", null, "DESC", restCallback);
+        BreinifyCore.activity(breinUser, "ACT-TYPE", "bla", null, restCallback);
+        BreinifyCore.activity(breinUser, "ACT-TYPE", "bla", "Desc", null);
     }
 
     @Test
     public void testTemporalData() {
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         final BreinUser breinUser = new BreinUser("fred.firestone@email.com")
                 .setFirstName("Fred")
@@ -556,7 +556,7 @@ public class TestApi {
     public void testRecommendation() {
 
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         final BreinUser breinUser = new BreinUser()
                 .setEmail("tester.breinify@email.com")
@@ -567,14 +567,14 @@ public class TestApi {
                 .setUser(breinUser)
                 .setNumberOfRecommendations(numberOfRecommendations);
 
-        Breinify.recommendation(recommendation, restCallback);
+        BreinifyCore.recommendation(recommendation, restCallback);
     }
 
     @Test
     public void testForDocSendingReadArticle() {
 
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
 
         final BreinUser breinUser = new BreinUser();
@@ -583,14 +583,14 @@ public class TestApi {
                 .setActivityType("readArticle")
                 .setDescription("A Homebody Persident Sits Out His Honeymoon Period");
 
-        Breinify.activity(breinActivity);
+        BreinifyCore.activity(breinActivity);
     }
 
     @Test
     public void testForDocTemporalDataUserInfo() {
 
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
 
         BreinTemporalData breinTemporalData = new BreinTemporalData()
@@ -624,7 +624,7 @@ public class TestApi {
     public void testForDocTemporalDataGeocoding() {
 
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         final BreinTemporalData breinTemporalData = new BreinTemporalData()
                 .setLocation("The Big Apple");
@@ -648,7 +648,7 @@ public class TestApi {
     public void testForDocTemporalDataReverseGeoCoding() {
 
         final BreinConfig breinConfig = new BreinConfig(VALID_SIGNATURE_API_KEY, VALID_SIGNATURE);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         final BreinTemporalData breinTemporalData = new BreinTemporalData()
                 .setLatitude(37.7609295)
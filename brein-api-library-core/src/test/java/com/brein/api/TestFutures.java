@@ -0,0 +1,233 @@
+package com.brein.api;
+
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDimension;
+import com.brein.domain.BreinResult;
+import com.brein.engine.BreinRetryPolicy;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the future-based API, the endpoints are replaced by a local stand-in server
+ */
+public class TestFutures {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+    private Brein brein;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer()
+                .setResponseBody(BreinStandInServer.LOOKUP_ENDPOINT, "{\"firstname\":{\"result\":\"Diane\"}}");
+
+        config = new BreinConfig("TEST-API-KEY")
+                .setRetryPolicy(BreinRetryPolicy.NONE)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        brein = new Brein().setConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        brein.shutdown();
+        server.stop();
+    }
+
+    /**
+     * The future is done with the result, a callback added later on is informed right away.
+     */
+    @Test
+    public void testResult() throws Exception {
+        final BreinFuture<BreinResult> future = brein.lookupAsync(lookup("test@breinify.com"));
+
+        final BreinResult result = future.get(5, TimeUnit.SECONDS);
+        assertNotNull(result);
+        assertTrue(future.isDone());
+        assertTrue(future.isSucceeded());
+        assertNull(future.getError());
+
+        final Results later = new Results();
+        future.then(later);
+        assertSame(result, later.get());
+    }
+
+    /**
+     * A failed request leads to an explicit error, a plain callback still receives {@code null}.
+     */
+    @Test
+    public void testErrors() throws Exception {
+        server.setStatusCode(403);
+
+        final BreinFuture<BreinResult> future = brein.lookupAsync(lookup("test@breinify.com"));
+        final BreinRequestException error = awaitError(future);
+        assertEquals(BreinRequestException.Reason.HTTP_STATUS, error.getReason());
+        assertEquals(403, error.getStatusCode());
+        assertSame(error, future.getError());
+        assertFalse(future.isSucceeded());
+
+        final Results results = new Results();
+        brein.lookup(lookup("test@breinify.com"), results);
+        assertNull(results.get());
+
+        // no response at all
+        server.stop();
+        final BreinRequestException connectionError = awaitError(brein.lookupAsync(lookup("test@breinify.com")));
+        assertEquals(BreinRequestException.Reason.CONNECTION, connectionError.getReason());
+        assertEquals(-1, connectionError.getStatusCode());
+        assertNotNull(connectionError.getCause());
+    }
+
+    /**
+     * Cancelling aborts the request in flight, i.e., the worker does not wait for the response.
+     */
+    @Test
+    public void testCancel() throws Exception {
+        server.setLatency(3000, 3000);
+
+        final BreinFuture<BreinResult> future = brein.lookupAsync(lookup("test@breinify.com"));
+        awaitReceived(1);
+
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertTrue(future.isDone());
+        assertFalse(future.cancel(true));
+        assertEquals(BreinRequestException.Reason.CANCELLED, future.getError().getReason());
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("the future is cancelled");
+        } catch (final CancellationException e) {
+            // expected
+        }
+        awaitIdle();
+
+        // a request of a future cancelled already is not sent at all
+        final BreinFuture<BreinResult> cancelled = new BreinFuture<>();
+        cancelled.cancel(false);
+        brein.getEngine().invoke(config, lookup("other@breinify.com"), cancelled);
+        awaitIdle();
+        assertEquals(1, server.getReceivedCount());
+    }
+
+    /**
+     * A timed out future fails and aborts its request, waiting for a future does not time it out.
+     */
+    @Test
+    public void testTimeout() throws Exception {
+        server.setLatency(3000, 3000);
+
+        final BreinFuture<BreinResult> future = brein.lookupAsync(lookup("test@breinify.com"));
+        try {
+            future.get(50, TimeUnit.MILLISECONDS);
+            fail("no result is received so far");
+        } catch (final TimeoutException e) {
+            assertFalse(future.isDone());
+        }
+
+        final long start = System.currentTimeMillis();
+        future.setTimeout(200, TimeUnit.MILLISECONDS);
+        final BreinRequestException error = awaitError(future);
+        assertEquals(BreinRequestException.Reason.TIMEOUT, error.getReason());
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertFalse(future.isCancelled());
+        awaitIdle();
+    }
+
+    /**
+     * A request shared by identical lookups (single-flight) is aborted only if all futures are cancelled.
+     */
+    @Test
+    public void testSharedRequest() throws Exception {
+        server.setLatency(500, 500);
+
+        final BreinFuture<BreinResult> first = brein.lookupAsync(lookup("test@breinify.com"));
+        final BreinFuture<BreinResult> second = brein.lookupAsync(lookup("test@breinify.com"));
+        first.cancel(true);
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getReceivedCount());
+
+        server.setLatency(3000, 3000);
+        final BreinFuture<BreinResult> third = brein.lookupAsync(lookup("other@breinify.com"));
+        final BreinFuture<BreinResult> fourth = brein.lookupAsync(lookup("other@breinify.com"));
+        awaitReceived(2);
+        third.cancel(true);
+        fourth.cancel(true);
+        awaitIdle();
+    }
+
+    private BreinRequestException awaitError(final BreinFuture<BreinResult> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("the request is expected to fail");
+            return null;
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof BreinRequestException);
+            return (BreinRequestException) e.getCause();
+        }
+    }
+
+    private void awaitReceived(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (server.getReceivedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.getReceivedCount());
+    }
+
+    /**
+     * Waits until no worker is busy, i.e., the requests in flight are aborted (long before the latency elapsed).
+     */
+    private void awaitIdle() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 1000;
+        while (brein.getEngine().getPoolStatistics().getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, brein.getEngine().getPoolStatistics().getActiveCount());
+    }
+
+    private BreinLookup lookup(final String email) {
+        final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+        lookup.setUser("email", email);
+        return lookup;
+    }
+
+    /**
+     * Collects the result passed to the callback
+     */
+    private static class Results implements ICallback<BreinResult> {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile BreinResult result;
+
+        @Override
+        public void callback(final BreinResult data) {
+            result = data;
+            latch.countDown();
+        }
+
+        BreinResult get() throws InterruptedException {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            return result;
+        }
+    }
+}
@@ -64,7 +64,7 @@ public class TestHttpUrlConnectionApi {
     public static void tearDown() {
         try {
             Thread.sleep(1000);
-            Breinify.shutdown();
+            BreinifyCore.shutdown();
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -84,12 +84,12 @@ public class TestHttpUrlConnectionApi {
     @Test
     public void testLogin() {
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         breinUser.setFirstName("Marco");
         breinUser.setLastName("Recchioni");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.LOGIN,
                 BreinCategoryType.HOME,
                 "Login-Description",
@@ -106,12 +106,12 @@ public class TestHttpUrlConnectionApi {
         final String description = "Login-Description";
 
         final BreinConfig config = new BreinConfig(null, VALID_SECRET);
-        Breinify.setConfig(config);
+        BreinifyCore.setConfig(config);
 
         breinUser.setFirstName("Marco");
         breinUser.setLastName("Recchioni");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.LOGIN,
                 breinCategoryType,
                 description,
@@ -129,12 +129,12 @@ public class TestHttpUrlConnectionApi {
 
         final BreinConfig config = new BreinConfig(VALID_API_KEY, null);
 
-        Breinify.setConfig(config);
+        BreinifyCore.setConfig(config);
 
         breinUser.setFirstName("Marco");
         breinUser.setLastName("Recchioni");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.LOGIN,
                 breinCategoryType,
                 description,
@@ -158,12 +158,12 @@ public class TestHttpUrlConnectionApi {
             e.printStackTrace();
         }
 
-        Breinify.setConfig(config);
+        BreinifyCore.setConfig(config);
 
         breinUser.setFirstName("Marco");
         breinUser.setLastName("Recchioni");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.LOGIN,
                 breinCategoryType,
                 description,
@@ -181,12 +181,12 @@ public class TestHttpUrlConnectionApi {
         BreinConfig config = new BreinConfig(VALID_API_KEY, VALID_SECRET);
         config.setActivityEndpoint("/wrongEndPoint");
 
-        Breinify.setConfig(config);
+        BreinifyCore.setConfig(config);
 
         breinUser.setFirstName("Marco");
         breinUser.setLastName("Recchioni");
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.LOGIN,
                 breinCategoryType,
                 description,restCallback);
@@ -212,11 +212,11 @@ public class TestHttpUrlConnectionApi {
 
         final String description = "Logout-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
         breinUser.setDateOfBirth(12, 31, 2008);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.LOGOUT,
                 breinCategoryType,
                 description, restCallback);
@@ -230,9 +230,9 @@ public class TestHttpUrlConnectionApi {
 
         final String description = "Search-Description";
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
 
-        Breinify.activity(breinUser,
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.SEARCH,
                 breinCategoryType,
                 description, restCallback);
@@ -246,8 +246,8 @@ public class TestHttpUrlConnectionApi {
 
         final String description = "AddToCart-Description";
 
-        Breinify.setConfig(breinConfig);
-        Breinify.activity(breinUser,
+        BreinifyCore.setConfig(breinConfig);
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.ADD_TO_CART,
                 breinCategoryType,
                 description, restCallback);
@@ -261,8 +261,8 @@ public class TestHttpUrlConnectionApi {
 
         final String description = "RemoveFromCart-Description";
 
-        Breinify.setConfig(breinConfig);
-        Breinify.activity(breinUser,
+        BreinifyCore.setConfig(breinConfig);
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.REMOVE_FROM_CART,
                 breinCategoryType,
                 description, restCallback);
@@ -276,8 +276,8 @@ public class TestHttpUrlConnectionApi {
 
         final String description = "Select-Product-Description";
 
-        Breinify.setConfig(breinConfig);
-        Breinify.activity(breinUser,
+        BreinifyCore.setConfig(breinConfig);
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.SELECT_PRODUCT,
                 breinCategoryType,
                 description, restCallback);
@@ -291,8 +291,8 @@ public class TestHttpUrlConnectionApi {
 
         final String description = "Other-Description";
 
-        Breinify.setConfig(breinConfig);
-        Breinify.activity(breinUser,
+        BreinifyCore.setConfig(breinConfig);
+        BreinifyCore.activity(breinUser,
                 BreinActivityType.OTHER,
                 breinCategoryType,
                 description, restCallback);
@@ -0,0 +1,164 @@
+package com.brein.api;
+
+import com.brein.domain.BreinConfig;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Multi-threaded tests of the static facade, the shared activity and user are modified and sent concurrently. The
+ * endpoints are replaced by a local stand-in server, the throughput is measured by the {@code SnapshotBenchmark}.
+ */
+public class TestStress {
+
+    private static final int THREADS = 8;
+    private static final int ACTIVITIES_PER_THREAD = 250;
+    private static final String SECRET = "lmcoj4k27hbbszzyiqamhg==";
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer(SECRET);
+
+        config = new BreinConfig("TEST-API-KEY", SECRET)
+                .setBaseUrl(server.getUrl())
+                .setActivityBatchingEnabled(true)
+                .setActivityBatchSize(100)
+                .setExecutorQueueCapacity(THREADS * ACTIVITIES_PER_THREAD);
+
+        BreinifyCore.shutdown();
+        BreinifyCore.setConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        BreinifyCore.shutdown();
+        server.stop();
+    }
+
+    /**
+     * A snapshot is not affected by changes of the activity or user it was taken from, and vice versa.
+     */
+    @Test
+    public void testSnapshot() {
+        final BreinActivity activity = new BreinActivity()
+                .setActivityType("login")
+                .setUnixTimestamp(1500000000L)
+                .setTag("productId", "1");
+        activity.setUser("email", "first@breinify.com");
+
+        final BreinActivity snapshot = activity.snapshot();
+
+        activity.setActivityType("logout").setTag("productId", "2").setUser("email", "second@breinify.com");
+        activity.setUnixTimestamp(1600000000L);
+        snapshot.setDescription("snapshot only");
+
+        assertEquals("login", snapshot.getActivityType());
+        assertEquals("1", snapshot.getTagsMap().get("productId"));
+        assertEquals("first@breinify.com", snapshot.getUser().getEmail());
+        assertEquals(1500000000L, snapshot.getUnixTimestamp());
+        assertNull(activity.getDescription());
+        assertEquals("second@breinify.com", activity.getUser().getEmail());
+    }
+
+    /**
+     * Concurrent producers modify the shared user and send activities, each sent activity contains the values of its
+     * producer as they were at the time the activity was sent. No activity is lost or sent twice.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConcurrentActivities() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            final List<Future<?>> producers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                producers.add(pool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+
+                        for (int i = 0; i < ACTIVITIES_PER_THREAD; i++) {
+                            BreinifyCore.getUser().setAdditional("producer" + thread, i);
+                            BreinifyCore.getBreinActivity().setTag("producer" + thread, i);
+                            BreinifyCore.activity(thread + "-" + i);
+                        }
+
+                        return null;
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (final Future<?> producer : producers) {
+                producer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        BreinifyCore.flush();
+        final int expected = THREADS * ACTIVITIES_PER_THREAD;
+        final long end = System.currentTimeMillis() + 30000;
+        while (countActivities() < expected && System.currentTimeMillis() < end) {
+            Thread.sleep(50);
+        }
+
+        final Set<String> types = new HashSet<>();
+        final List<Map<String, Object>> requests = server.getRequests(BreinStandInServer.BULK_ACTIVITY_ENDPOINT);
+        for (final Map<String, Object> request : requests) {
+            for (final Map<String, Object> activity : (List<Map<String, Object>>) request.get("activities")) {
+                final String type = (String) ((Map<String, Object>) activity.get("activity")).get("type");
+                assertTrue("activity " + type + " sent twice", types.add(type));
+
+                final String[] parts = type.split("-");
+                final double nr = Double.parseDouble(parts[1]);
+
+                final Map<String, Object> user = (Map<String, Object>) activity.get("user");
+                final Map<String, Object> additional = (Map<String, Object>) user.get("additional");
+                assertEquals(nr, ((Number) additional.get("producer" + parts[0])).doubleValue(), 0.0);
+
+                final Map<String, Object> tags = (Map<String, Object>) ((Map<String, Object>) activity.get("activity"))
+                        .get("tags");
+                assertEquals(nr, ((Number) tags.get("producer" + parts[0])).doubleValue(), 0.0);
+            }
+        }
+        assertEquals(expected, types.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private int countActivities() {
+        int count = 0;
+        final List<Map<String, Object>> requests = server.getRequests(BreinStandInServer.BULK_ACTIVITY_ENDPOINT);
+        for (final Map<String, Object> request : requests) {
+            count += ((List<Object>) request.get("activities")).size();
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,27 @@
+package com.brein.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of the request hot path with the gc profiler, i.e., the allocation rate per operation is
+ * reported next to the time per operation. The benchmarks are part of the unit test sources of the core module, i.e.,
+ * they run on a plain JVM without any android classes; start this class from the IDE using the unit test classpath.
+ * <p>
+ * The first argument optionally selects the benchmarks to run (a regular expression, e.g. {@code
+ * RequestBenchmark.create.*}), by default all benchmarks of this package are run.
+ */
+public class BreinBenchmarks {
+
+    public static void main(final String[] args) throws RunnerException {
+        final String include = args.length > 0 ? args[0] : BreinBenchmarks.class.getPackage().getName() + ".*";
+
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .build()).run();
+    }
+}
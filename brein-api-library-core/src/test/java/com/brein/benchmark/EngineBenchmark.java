@@ -0,0 +1,116 @@
+package com.brein.benchmark;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDimension;
+import com.brein.domain.BreinResult;
+import com.brein.engine.BreinEngine;
+import com.brein.engine.BreinEngineType;
+import com.brein.server.BreinLoadHarness;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rest engines against the local stand-in server (with a latency of 5 to 20 milliseconds), i.e.,
+ * the time needed to complete a batch of 8 requests per request in flight. The blocking engines use a thread per
+ * request in flight (the adaptive limit is disabled), the non-blocking one a single thread; all of them may open a
+ * connection per request in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+
+    private static final int REQUESTS_PER_FLIGHT = 8;
+
+    @Param({"HTTP_URL_CONNECTION_ENGINE", "NIO_ENGINE", "OK_HTTP_ENGINE"})
+    public BreinEngineType type;
+
+    @Param({"1", "8", "256"})
+    public int inFlight;
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+    private BreinEngine engine;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer().setLatency(5, 20);
+        config = new BreinConfig("TEST-API-KEY")
+                .setActivityBatchingEnabled(false)
+                .setExecutorQueueCapacity(1000)
+                .setConcurrencyLimitEnabled(false)
+                .setExecutorCorePoolSize(inFlight)
+                .setExecutorMaxPoolSize(inFlight)
+                .setNioMaxConnections(inFlight)
+                .setRestEngineType(type)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        engine = new BreinEngine();
+        engine.configure(config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.terminate();
+        server.stop();
+    }
+
+    @Benchmark
+    public BreinLoadHarness.Result lookups() throws InterruptedException {
+        return run(new BreinLoadHarness.Request() {
+            @Override
+            public void send(final int nr, final ICallback<BreinResult> callback) {
+                final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+                lookup.setUser("email", "user" + nr + "@breinify.com");
+                engine.invoke(config, lookup, callback);
+            }
+        });
+    }
+
+    @Benchmark
+    public BreinLoadHarness.Result activities() throws InterruptedException {
+        return run(new BreinLoadHarness.Request() {
+            @Override
+            public void send(final int nr, final ICallback<BreinResult> callback) {
+                final BreinActivity activity = new BreinActivity().setActivityType("login");
+                activity.setUser("email", "user" + nr + "@breinify.com");
+                engine.invoke(config, activity, callback);
+            }
+        });
+    }
+
+    private BreinLoadHarness.Result run(final BreinLoadHarness.Request request) throws InterruptedException {
+        final int requests = REQUESTS_PER_FLIGHT * inFlight;
+        final BreinLoadHarness.Result result = new BreinLoadHarness(inFlight, 30000).run(requests, request);
+        if (result.getCompleted() != requests || result.getFailed() > 0) {
+            throw new IllegalStateException("The requests failed: " + result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package com.brein.benchmark;
+
+import com.brein.api.BreinActivity;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinUser;
+import com.brein.server.BreinStubIpInfoProvider;
+import com.brein.util.Base64;
+import com.brein.util.BreinJsonUtil;
+import com.brein.util.BreinMapUtil;
+import com.brein.util.BreinUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the creation of a request, i.e., the serialization of the request data and its signature.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBenchmark {
+
+    private static final String SECRET = "lmcoj4k27hbbszzyiqamhg==";
+
+    private BreinConfig config;
+    private BreinActivity activity;
+    private BreinUser user;
+    private Map<String, Object> requestData;
+    private byte[] digest;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        BreinStubIpInfoProvider.install();
+
+        config = new BreinConfig("TEST-API-KEY", SECRET);
+
+        user = new BreinUser("user@breinify.com")
+                .setFirstName("Diane")
+                .setLastName("Keng")
+                .setSessionId("966542c6-2399-11e7-93ae-92361f002671")
+                .setUserAgent("Mozilla/5.0 (Linux; Android 7.0)");
+        user.setAdditional("referrer", "https://www.breinify.com/");
+
+        activity = new BreinActivity()
+                .setActivityType("checkOut")
+                .setCategory("apparel")
+                .setDescription("Checking out")
+                .setTag("productIds", new String[]{"125689", "982361"})
+                .setTag("productPrices", new double[]{134.23, 15.13});
+        activity.setUser(user);
+        activity.setUnixTimestamp(1500000000L);
+
+        requestData = new HashMap<>();
+        activity.prepareRequestData(config, requestData);
+        user.prepareRequestData(config, requestData);
+        requestData.put("unixTimestamp", 1500000000L);
+
+        digest = new byte[32];
+        for (int i = 0; i < digest.length; i++) {
+            digest[i] = (byte) (i * 31);
+        }
+    }
+
+    @Benchmark
+    public String prepareRequestData() {
+        return activity.prepareRequestData(config);
+    }
+
+    @Benchmark
+    public byte[] writeRequestData() throws IOException {
+        return BreinJsonUtil.toBytes(activity, config);
+    }
+
+    @Benchmark
+    public Map<String, Object> prepareUserRequestData() {
+        final Map<String, Object> data = new HashMap<>();
+        user.prepareRequestData(config, data);
+        return data;
+    }
+
+    @Benchmark
+    public String createActivitySignature() {
+        return activity.createSignature(config, requestData);
+    }
+
+    @Benchmark
+    public String generateSignature() {
+        return BreinUtil.generateSignature("checkOut15000000001", SECRET);
+    }
+
+    @Benchmark
+    public String encodeBase64() {
+        return Base64.encodeBytes(digest);
+    }
+
+    @Benchmark
+    public Map<String, Object> copyMap() {
+        return BreinMapUtil.copyMap(requestData);
+    }
+
+    @Benchmark
+    public Object getNestedValue() {
+        return BreinMapUtil.getNestedValue(requestData, "user", "additional", "userAgent");
+    }
+}
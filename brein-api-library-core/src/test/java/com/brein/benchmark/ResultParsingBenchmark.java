@@ -0,0 +1,77 @@
+package com.brein.benchmark;
+
+import com.brein.domain.BreinResult;
+import com.brein.domain.results.BreinTemporalDataResult;
+import com.brein.util.BreinJsonUtil;
+import com.google.gson.stream.JsonReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the parsing of a typical temporal data response, from a String and from the response stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultParsingBenchmark {
+
+    private static final String RESPONSE = "{" +
+            "\"weather\":{\"description\":\"clear sky\",\"temperatureCelsius\":18.8,\"temperatureFahrenheit\":65.8," +
+            "\"temperatureKelvin\":291.95,\"precipitation\":{\"precipitationType\":\"none\"},\"windStrength\":1.5," +
+            "\"lastMeasured\":1500000000,\"cloudCover\":1.0,\"measuredAt\":{\"lat\":37.39,\"lon\":-122.08}}," +
+            "\"time\":{\"timezone\":\"America/Los_Angeles\",\"localFormatIso8601\":\"2017-07-13T19:40:00-07:00\"," +
+            "\"epochFormatIso8601\":\"2017-07-14T02:40:00Z\",\"localYear\":2017,\"localMonth\":6," +
+            "\"localDay\":13,\"localHour\":19,\"localMinute\":40,\"localSecond\":0,\"epoch\":1500000000}," +
+            "\"location\":{\"country\":\"US\",\"state\":\"CA\",\"city\":\"Mountain View\",\"granularity\":\"city\"," +
+            "\"lat\":37.39,\"lon\":-122.08}," +
+            "\"holidays\":[{\"types\":[\"PUBLIC_HOLIDAY\"],\"source\":\"Government\",\"holiday\":\"Independence Day\"}," +
+            "{\"types\":[\"OBSERVANCE\"],\"source\":\"Government\",\"holiday\":\"Bastille Day\"}]," +
+            "\"events\":[{\"name\":\"Grüße aus Köln ☃\",\"startTime\":1500000000,\"endTime\":1500007200," +
+            "\"category\":\"music\",\"size\":500,\"location\":{\"lat\":37.39,\"lon\":-122.08}}]" +
+            "}";
+
+    private static final byte[] RESPONSE_BYTES = RESPONSE.getBytes(BreinJsonUtil.UTF8);
+
+    @Benchmark
+    public BreinResult parseString() {
+        return new BreinResult(RESPONSE);
+    }
+
+    @Benchmark
+    public BreinResult parseStream() throws IOException {
+        final JsonReader reader = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(RESPONSE_BYTES), BreinJsonUtil.UTF8));
+        try {
+            return BreinResult.fromJson(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public void parseTemporalData(final Blackhole blackhole) throws IOException {
+        final BreinTemporalDataResult result = new BreinTemporalDataResult(parseStream());
+
+        blackhole.consume(result.getWeather());
+        blackhole.consume(result.getLocation());
+        blackhole.consume(result.getHolidays());
+        blackhole.consume(result.getEvents());
+    }
+}
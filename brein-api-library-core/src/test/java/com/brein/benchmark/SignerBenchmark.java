@@ -0,0 +1,63 @@
+package com.brein.benchmark;
+
+import com.brein.util.Base64;
+import com.brein.util.BreinJsonUtil;
+import com.brein.util.BreinSigner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Benchmarks of the signatures created concurrently, for the signer and for a shared {@code Mac} which is keyed for
+ * every signature (the former implementation, synchronized to be correct). The number of threads can be changed using
+ * the {@code -t} option of JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SignerBenchmark {
+
+    private static final String SECRET = "lmcoj4k27hbbszzyiqamhg==";
+
+    private BreinSigner signer;
+    private Mac shared;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        signer = BreinSigner.forSecret(SECRET);
+        shared = Mac.getInstance(BreinSigner.ALGORITHM);
+    }
+
+    @Benchmark
+    public String signer() {
+        return signer.message().append("checkOut").append(System.currentTimeMillis() / 1000L).append(1).sign();
+    }
+
+    @Benchmark
+    public String sharedMac() throws GeneralSecurityException {
+        final String message = String.format("%s%d%d", "checkOut", System.currentTimeMillis() / 1000L, 1);
+        synchronized (shared) {
+            shared.init(new SecretKeySpec(SECRET.getBytes(BreinJsonUtil.UTF8), BreinSigner.ALGORITHM));
+            return Base64.encodeBytes(shared.doFinal(message.getBytes(BreinJsonUtil.UTF8)));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.brein.benchmark;
+
+import com.brein.api.BreinActivity;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinUser;
+import com.brein.server.BreinStubIpInfoProvider;
+import com.brein.util.BreinJsonUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark of the activities, which are snapshot and serialized while the shared user is modified concurrently. The
+ * number of threads can be changed using the {@code -t} option of JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private static final String SECRET = "lmcoj4k27hbbszzyiqamhg==";
+
+    private final AtomicInteger producers = new AtomicInteger();
+
+    private BreinConfig config;
+    private BreinActivity activity;
+    private BreinUser user;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        BreinStubIpInfoProvider.install();
+
+        config = new BreinConfig("TEST-API-KEY", SECRET);
+        activity = new BreinActivity().setCategory("apparel");
+        user = new BreinUser("user@breinify.com").setSessionId("966542c6-2399-11e7-93ae-92361f002671");
+    }
+
+    @Benchmark
+    public byte[] snapshot(final Producer producer) throws IOException {
+        user.setAdditional(producer.name, producer.count++);
+
+        final BreinActivity snapshot = activity.snapshot()
+                .setUser(user.snapshot())
+                .setActivityType("pageVisit");
+        return BreinJsonUtil.toBytes(snapshot, config);
+    }
+
+    /**
+     * The value modified by a single thread
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        private String name;
+        private long count = 0;
+
+        @Setup
+        public void setUp(final SnapshotBenchmark benchmark) {
+            name = "producer" + benchmark.producers.getAndIncrement();
+        }
+    }
+}
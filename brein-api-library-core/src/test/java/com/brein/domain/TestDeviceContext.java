@@ -0,0 +1,169 @@
+package com.brein.domain;
+
+import com.brein.api.BreinActivity;
+import com.brein.server.BreinStubIpInfoProvider;
+import com.brein.util.BreinJsonUtil;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests of the cached device information
+ */
+public class TestDeviceContext {
+
+    private BreinConfig config;
+    private CountingDeviceContext context;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        BreinStubIpInfoProvider.install();
+
+        config = new BreinConfig("TEST-API-KEY");
+        context = new CountingDeviceContext();
+    }
+
+    /**
+     * The values are detected once and read from the cache afterwards.
+     */
+    @Test
+    public void testCachedValues() {
+        final BreinDeviceContext.Snapshot first = context.getSnapshot(config);
+        for (int i = 0; i < 100; i++) {
+            assertSame(first, context.getSnapshot(config));
+        }
+
+        assertEquals(1, context.locations);
+        assertEquals(1, context.networks);
+        assertEquals(1, context.userAgents);
+        assertEquals("agent-1", first.getUserAgent());
+    }
+
+    /**
+     * Each value is detected again, after its time to live passed.
+     */
+    @Test
+    public void testTimeToLive() {
+        config.setDeviceNetworkTtl(0);
+
+        for (int i = 0; i < 10; i++) {
+            context.getSnapshot(config);
+        }
+
+        assertEquals(1, context.locations);
+        assertEquals(10, context.networks);
+        assertEquals(1, context.userAgents);
+    }
+
+    /**
+     * An invalidated value is detected again, the other values are kept.
+     */
+    @Test
+    public void testInvalidate() {
+        context.getSnapshot(config);
+
+        context.invalidateNetwork();
+        context.getSnapshot(config);
+        context.getSnapshot(config);
+        assertEquals(1, context.locations);
+        assertEquals(2, context.networks);
+
+        context.invalidateLocation();
+        final BreinDeviceContext.Snapshot snapshot = context.getSnapshot(config);
+        assertEquals(2, context.locations);
+        assertEquals(2, context.networks);
+        assertEquals(2.0, snapshot.getLocation().get("latitude").getAsDouble(), 0.0);
+        assertEquals(1, context.userAgents);
+    }
+
+    /**
+     * The values are detected by the provider of the platform.
+     */
+    @Test
+    public void testProvider() {
+        final BreinDeviceContext context = new BreinDeviceContext();
+        assertNull(context.getSnapshot(config).getLocation());
+
+        final JsonObject location = new JsonObject();
+        context.setProvider(new IDeviceInfoProvider() {
+            @Override
+            public JsonObject detectLocation() {
+                return location;
+            }
+
+            @Override
+            public JsonObject detectNetwork() {
+                return null;
+            }
+
+            @Override
+            public String createUserAgent() {
+                return "provided-agent";
+            }
+        });
+        assertSame(location, context.getSnapshot(config).getLocation());
+        assertEquals("provided-agent", context.getSnapshot(config).getUserAgent());
+
+        context.setProvider(null);
+        assertNull(context.getSnapshot(config).getLocation());
+    }
+
+    /**
+     * The request contains the cached user agent, unless a user agent is set.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRequestData() throws IOException {
+        final BreinActivity activity = new BreinActivity()
+                .setActivityType("login")
+                .setUser("email", "test@breinify.com");
+
+        Map<String, Object> body = new Gson().fromJson(
+                new String(BreinJsonUtil.toBytes(activity, config), BreinJsonUtil.UTF8), Map.class);
+        Map<String, Object> additional = (Map<String, Object>) ((Map<String, Object>) body.get("user"))
+                .get("additional");
+        assertEquals(BreinDeviceContext.getInstance().getSnapshot(config).getUserAgent(), additional.get("userAgent"));
+
+        activity.getUser().setUserAgent("my-agent");
+        body = new Gson().fromJson(new String(BreinJsonUtil.toBytes(activity, config), BreinJsonUtil.UTF8), Map.class);
+        additional = (Map<String, Object>) ((Map<String, Object>) body.get("user")).get("additional");
+        assertEquals("my-agent", additional.get("userAgent"));
+        assertEquals("my-agent", activity.getUser().getUserAgent());
+    }
+
+    private static class CountingDeviceContext extends BreinDeviceContext {
+        private int locations = 0;
+        private int networks = 0;
+        private int userAgents = 0;
+
+        @Override
+        protected JsonObject detectLocation() {
+            locations++;
+
+            final JsonObject location = new JsonObject();
+            location.addProperty("latitude", (double) locations);
+            return location;
+        }
+
+        @Override
+        protected JsonObject detectNetwork() {
+            networks++;
+            return new JsonObject();
+        }
+
+        @Override
+        protected String createUserAgent() {
+            userAgents++;
+            return "agent-" + userAgents;
+        }
+    }
+}
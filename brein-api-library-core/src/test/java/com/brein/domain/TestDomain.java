@@ -1,7 +1,7 @@
 package com.brein.domain;
 
 import com.brein.api.BreinActivity;
-import com.brein.api.Breinify;
+import com.brein.api.BreinifyCore;
 
 import org.junit.BeforeClass;
 import org.junit.Ignore;
@@ -43,7 +43,7 @@ public class TestDomain {
                 .setLastName("Maroni");
 
         final BreinActivity breinActivity = new BreinActivity();
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
         breinActivity.setUser(breinUser);
         breinActivity.setActivityType(BreinActivityType.LOGIN);
         breinActivity.setDescription("Super-Description");
@@ -63,7 +63,7 @@ public class TestDomain {
         final BreinUser breinUser = new BreinUser();
         final BreinActivity breinActivity = new BreinActivity();
 
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
         breinActivity.setUser(breinUser);
         breinActivity.setActivityType(BreinActivityType.LOGIN);
         breinActivity.setDescription("Super-Description");
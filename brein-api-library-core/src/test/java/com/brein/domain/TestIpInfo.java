@@ -0,0 +1,193 @@
+package com.brein.domain;
+
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the resolution of the external ip-address, the service is replaced by a local stub provider
+ */
+public class TestIpInfo {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    private File file;
+    private BreinStubIpInfoProvider provider;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("brein-ip-info", ".json");
+        assertTrue(file.delete());
+
+        provider = new BreinStubIpInfoProvider("74.115.209.58");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Concurrent accesses lead to a single resolution, the ip-address is available afterwards.
+     */
+    @Test
+    public void testSingleFlight() throws InterruptedException {
+        provider.setLatency(200);
+        final BreinIpInfo info = new BreinIpInfo(config());
+
+        final CountDownLatch done = new CountDownLatch(8);
+        for (int i = 0; i < 8; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    info.getExternalIp();
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        await(info);
+        assertEquals("74.115.209.58", info.getExternalIp());
+        assertEquals("America/Los_Angeles", info.getTimezone());
+        assertEquals(1, provider.getResolveCount());
+        assertEquals(1, provider.getMaxInFlight());
+    }
+
+    /**
+     * The persisted ip-address is available right after a restart, even if it cannot be resolved.
+     */
+    @Test
+    public void testPersisted() throws InterruptedException {
+        final BreinIpInfo info = new BreinIpInfo(config().setIpInfoFile(file));
+        info.getExternalIp();
+        await(info);
+        assertTrue(file.exists());
+
+        provider.setFailing(true);
+        final BreinIpInfo restarted = new BreinIpInfo(config().setIpInfoFile(file));
+        assertEquals("74.115.209.58", restarted.getExternalIp());
+        assertEquals(info.getResolvedAt(), restarted.getResolvedAt());
+    }
+
+    /**
+     * Outdated and invalidated ip-addresses are served until the refresh is finished.
+     */
+    @Test
+    public void testRefresh() throws InterruptedException {
+        final Clock clock = new Clock(0);
+        final BreinIpInfo info = clock.info(config());
+        info.getExternalIp();
+        await(info);
+        assertEquals("74.115.209.58", info.getExternalIp());
+
+        // within the time to live the ip-address is not resolved again
+        provider.setIpAddress("74.115.209.59").setLatency(200);
+        clock.time += HOUR - 1;
+        assertEquals("74.115.209.58", info.getExternalIp());
+        assertFalse(info.isRefreshing());
+
+        clock.time += 1;
+        assertEquals("74.115.209.58", info.getExternalIp());
+        await(info);
+        assertEquals("74.115.209.59", info.getExternalIp());
+        assertEquals(2, provider.getResolveCount());
+
+        // a changed connectivity leads to a refresh
+        provider.setIpAddress("74.115.209.60");
+        info.invalidate();
+        assertEquals("74.115.209.59", info.getExternalIp());
+        await(info);
+        assertEquals("74.115.209.60", info.getExternalIp());
+        assertEquals(3, provider.getResolveCount());
+    }
+
+    /**
+     * A failed resolution is retried after a minute, or as soon as the connectivity changes.
+     */
+    @Test
+    public void testRetry() throws InterruptedException {
+        provider.setFailing(true);
+        final Clock clock = new Clock(0);
+        final BreinIpInfo info = clock.info(config());
+
+        assertNull(info.getExternalIp());
+        await(info);
+        assertNull(info.getExternalIp());
+        await(info);
+        assertEquals(1, provider.getResolveCount());
+
+        clock.time += 60L * 1000L;
+        info.getExternalIp();
+        await(info);
+        assertEquals(2, provider.getResolveCount());
+
+        provider.setFailing(false);
+        info.invalidate();
+        await(info);
+        assertEquals("74.115.209.58", info.getExternalIp());
+        assertEquals(3, provider.getResolveCount());
+    }
+
+    /**
+     * A replaced provider resolves the ip-address right away, even after a failure of the former one.
+     */
+    @Test
+    public void testReplacedProvider() throws InterruptedException {
+        provider.setFailing(true);
+        final BreinIpInfo info = new BreinIpInfo(config());
+        info.getExternalIp();
+        await(info);
+
+        final BreinStubIpInfoProvider other = new BreinStubIpInfoProvider("74.115.209.61");
+        info.configure(config().setIpInfoProvider(other));
+        await(info);
+        assertEquals("74.115.209.61", info.getExternalIp());
+        assertEquals(1, other.getResolveCount());
+
+        // the same provider configured again does not lead to a refresh
+        info.configure(config().setIpInfoProvider(other));
+        await(info);
+        assertEquals(1, other.getResolveCount());
+    }
+
+    private BreinConfig config() {
+        return new BreinConfig().setIpInfoProvider(provider).setIpInfoTtl(HOUR);
+    }
+
+    private void await(final BreinIpInfo info) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        while (info.isRefreshing() && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+        assertFalse(info.isRefreshing());
+    }
+
+    private static class Clock {
+        private volatile long time;
+
+        Clock(final long time) {
+            this.time = time;
+        }
+
+        BreinIpInfo info(final BreinConfig config) {
+            return new BreinIpInfo(config) {
+                @Override
+                protected long now() {
+                    return time;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+import com.brein.util.BreinJsonUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the batched activity upload, the bulk endpoint is replaced by a local stand-in server
+ */
+public class TestActivityBatcher {
+
+    private BreinStandInServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * A batch is handed over as soon as it contains the configured number of activities.
+     */
+    @Test
+    public void testFlushOnSize() {
+        final List<List<BreinActivityBatcher.Entry>> batches = new CopyOnWriteArrayList<>();
+        final BreinActivityBatcher batcher = new BreinActivityBatcher(3, 1024 * 1024, 60000, collect(batches));
+
+        for (int i = 0; i < 7; i++) {
+            assertTrue(batcher.add(bytes("{\"nr\":" + i + "}"), null));
+        }
+
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals("{\"nr\":3}", new String(batches.get(1).get(0).getBody(), BreinJsonUtil.UTF8));
+        assertEquals(1, batcher.size());
+
+        batcher.close();
+        assertEquals(3, batches.size());
+        assertFalse(batcher.add(bytes("{}"), null));
+    }
+
+    /**
+     * A batch never exceeds the configured number of bytes, unless a single activity is larger.
+     */
+    @Test
+    public void testFlushOnBytes() {
+        final List<List<BreinActivityBatcher.Entry>> batches = new CopyOnWriteArrayList<>();
+        final BreinActivityBatcher batcher = new BreinActivityBatcher(100, 25, 60000, collect(batches));
+
+        batcher.add(bytes("{\"value\":\"0123456789\"}"), null);
+        assertEquals(0, batches.size());
+
+        // does not fit anymore, the first one is sent
+        batcher.add(bytes("{\"value\":\"0123456789\"}"), null);
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+
+        // larger than the limit, sent on its own
+        batcher.add(bytes("{\"value\":\"0123456789012345678901234567890123456789\"}"), null);
+        assertEquals(3, batches.size());
+        assertEquals(0, batcher.size());
+
+        batcher.close();
+    }
+
+    /**
+     * A batch is handed over after the interval, even if it is not full.
+     */
+    @Test
+    public void testFlushOnTime() throws InterruptedException {
+        final CountDownLatch flushed = new CountDownLatch(1);
+        final BreinActivityBatcher batcher = new BreinActivityBatcher(100, 1024 * 1024, 50,
+                new BreinActivityBatcher.IFlushHandler() {
+                    @Override
+                    public void flush(final List<BreinActivityBatcher.Entry> batch) {
+                        assertEquals(2, batch.size());
+                        flushed.countDown();
+                    }
+                });
+
+        batcher.add(bytes("{\"nr\":0}"), null);
+        batcher.add(bytes("{\"nr\":1}"), null);
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, batcher.size());
+
+        batcher.close();
+    }
+
+    /**
+     * The activities are sent as one bulk request, each keeping its own timestamp.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBulkRequest() throws InterruptedException {
+        final BreinConfig config = new BreinConfig("TEST-API-KEY")
+                .setActivityBatchingEnabled(true)
+                .setActivityBatchSize(5)
+                .setActivityBatchInterval(60000)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        final HttpUrlRestEngine engine = new HttpUrlRestEngine();
+        engine.configure(config);
+
+        final CountDownLatch callbacks = new CountDownLatch(6);
+        final ICallback<BreinResult> callback = new ICallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                assertNotNull(data);
+                callbacks.countDown();
+            }
+        };
+
+        for (int i = 0; i < 6; i++) {
+            final BreinActivity activity = new BreinActivity()
+                    .setActivityType("test")
+                    .setUnixTimestamp(1500000000L + i);
+            activity.setUser("email", "test@breinify.com");
+            engine.invokeRequest(config, activity, callback);
+        }
+
+        // the last activity is sent when the app goes to the background
+        engine.flush();
+        assertTrue(callbacks.await(5, TimeUnit.SECONDS));
+        engine.terminate();
+
+        assertEquals(0, server.getRequests(BreinStandInServer.ACTIVITY_ENDPOINT).size());
+        assertEquals(2, server.getRequests(BreinStandInServer.BULK_ACTIVITY_ENDPOINT).size());
+
+        final Set<Long> timestamps = new HashSet<>();
+        int count = 0;
+        final List<Map<String, Object>> requests = server.getRequests(BreinStandInServer.BULK_ACTIVITY_ENDPOINT);
+        for (final Map<String, Object> request : requests) {
+            assertEquals("TEST-API-KEY", request.get("apiKey"));
+            for (final Map<String, Object> activity : (List<Map<String, Object>>) request.get("activities")) {
+                timestamps.add(((Number) activity.get("unixTimestamp")).longValue());
+                assertEquals("test", ((Map<String, Object>) activity.get("activity")).get("type"));
+                count++;
+            }
+        }
+        assertEquals(6, count);
+        assertEquals(6, timestamps.size());
+        assertTrue(timestamps.contains(1500000000L));
+    }
+
+    private byte[] bytes(final String value) {
+        return value.getBytes(BreinJsonUtil.UTF8);
+    }
+
+    private BreinActivityBatcher.IFlushHandler collect(final List<List<BreinActivityBatcher.Entry>> batches) {
+        return new BreinActivityBatcher.IFlushHandler() {
+            @Override
+            public void flush(final List<BreinActivityBatcher.Entry> batch) {
+                batches.add(new ArrayList<>(batch));
+            }
+        };
+    }
+}
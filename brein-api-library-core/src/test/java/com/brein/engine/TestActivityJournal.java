@@ -0,0 +1,247 @@
+package com.brein.engine;
+
+import com.brein.api.BreinifyCore;
+import com.brein.domain.BreinConfig;
+import com.brein.util.BreinJsonUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the persistent offline queue of activities
+ */
+public class TestActivityJournal {
+
+    private static final long MAX_AGE = 60 * 60 * 1000;
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("brein-journal", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Records survive a restart and are replayed in the order they were added.
+     */
+    @Test
+    public void testAppendAndReplay() throws Exception {
+        final BreinActivityJournal journal = new BreinActivityJournal(directory, 1024 * 1024, MAX_AGE, 256);
+        for (int i = 0; i < 20; i++) {
+            journal.append("http://localhost/activity", bytes("{\"nr\":" + i + "}"));
+        }
+        journal.close(5000);
+
+        final BreinActivityJournal reopened = new BreinActivityJournal(directory, 1024 * 1024, MAX_AGE, 256);
+        final RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        assertEquals(20, (int) reopened.replay(sender).get(5, TimeUnit.SECONDS));
+        assertFalse(reopened.hasPending());
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("{\"nr\":" + i + "}", sender.bodies.get(i));
+        }
+        assertEquals("http://localhost/activity", sender.urls.get(0));
+
+        // nothing left to replay
+        assertEquals(0, (int) reopened.replay(sender).get(5, TimeUnit.SECONDS));
+        reopened.close(5000);
+    }
+
+    /**
+     * If the sender fails, the failed record and all following ones are kept for the next replay.
+     */
+    @Test
+    public void testFailedRecordsAreKept() throws Exception {
+        final BreinActivityJournal journal = new BreinActivityJournal(directory, 1024 * 1024, MAX_AGE, 128);
+        for (int i = 0; i < 10; i++) {
+            journal.append("http://localhost/activity", bytes("{\"nr\":" + i + "}"));
+        }
+
+        final RecordingSender failing = new RecordingSender(4);
+        assertEquals(4, (int) journal.replay(failing).get(5, TimeUnit.SECONDS));
+        assertTrue(journal.hasPending());
+
+        final RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        assertEquals(6, (int) journal.replay(sender).get(5, TimeUnit.SECONDS));
+        assertEquals("{\"nr\":4}", sender.bodies.get(0));
+        assertEquals("{\"nr\":9}", sender.bodies.get(5));
+        assertFalse(journal.hasPending());
+        journal.close(5000);
+    }
+
+    /**
+     * A corrupted record and everything after it within the segment is skipped.
+     */
+    @Test
+    public void testCorruptedRecord() throws Exception {
+        final BreinActivityJournal journal = new BreinActivityJournal(directory, 1024 * 1024, MAX_AGE, 1024 * 1024);
+        journal.append("http://localhost/activity", bytes("{\"nr\":0}"));
+        journal.append("http://localhost/activity", bytes("{\"nr\":1}"));
+        journal.close(5000);
+
+        final File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+
+        // flip the last byte of the second record
+        final RandomAccessFile file = new RandomAccessFile(files[0], "rw");
+        try {
+            file.seek(file.length() - 1);
+            final int value = file.read();
+            file.seek(file.length() - 1);
+            file.write(value ^ 0xFF);
+        } finally {
+            file.close();
+        }
+
+        final BreinActivityJournal reopened = new BreinActivityJournal(directory, 1024 * 1024, MAX_AGE, 1024 * 1024);
+        final RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        assertEquals(1, (int) reopened.replay(sender).get(5, TimeUnit.SECONDS));
+        assertEquals("{\"nr\":0}", sender.bodies.get(0));
+        reopened.close(5000);
+    }
+
+    /**
+     * Records older than the maximal age are not sent.
+     */
+    @Test
+    public void testExpiredRecords() throws Exception {
+        final BreinActivityJournal journal = new BreinActivityJournal(directory, 1024 * 1024, 50, 1024 * 1024);
+        journal.append("http://localhost/activity", bytes("{\"nr\":0}"));
+        journal.flush(5000);
+
+        Thread.sleep(100);
+
+        final RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        assertEquals(0, (int) journal.replay(sender).get(5, TimeUnit.SECONDS));
+        assertTrue(sender.bodies.isEmpty());
+        assertFalse(journal.hasPending());
+        journal.close(5000);
+    }
+
+    /**
+     * The journal never exceeds its size, the oldest records are dropped first.
+     */
+    @Test
+    public void testMaxBytes() throws Exception {
+        final BreinActivityJournal journal = new BreinActivityJournal(directory, 1024, MAX_AGE, 256);
+        for (int i = 0; i < 500; i++) {
+            journal.append("http://localhost/activity", bytes("{\"nr\":" + i + "}"));
+        }
+        journal.flush(5000);
+
+        long size = 0;
+        for (final File file : directory.listFiles()) {
+            size += file.length();
+        }
+        assertTrue("journal has " + size + " bytes", size <= 1024);
+
+        final RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        final int sent = journal.replay(sender).get(5, TimeUnit.SECONDS);
+        assertTrue(sent > 0 && sent < 500);
+        assertEquals("{\"nr\":499}", sender.bodies.get(sent - 1));
+        journal.close(5000);
+    }
+
+    /**
+     * Several requested replays in a row lead to a single replay.
+     */
+    @Test
+    public void testReplayIfPending() throws InterruptedException, ExecutionException, TimeoutException {
+        final BreinActivityJournal journal = new BreinActivityJournal(directory, 1024 * 1024, MAX_AGE, 1024);
+        final RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        assertFalse(journal.replayIfPending(sender));
+
+        journal.append("http://localhost/activity", bytes("{\"nr\":0}"));
+        int scheduled = 0;
+        for (int i = 0; i < 10; i++) {
+            if (journal.replayIfPending(sender)) {
+                scheduled++;
+            }
+        }
+        journal.flush(5000);
+
+        assertTrue(scheduled >= 1);
+        assertEquals(1, sender.bodies.size());
+        assertEquals(0, (int) journal.replay(sender).get(5, TimeUnit.SECONDS));
+        journal.close(5000);
+    }
+
+    /**
+     * The offline queue of an engine is replayed with the configuration it was created with, not the global one.
+     */
+    @Test
+    public void testSenderUsesQueueConfig() {
+        BreinifyCore.setConfig(new BreinConfig("OTHER-API-KEY").setBaseUrl("http://localhost:1/"));
+
+        final BreinConfig config = new BreinConfig("TEST-API-KEY").setOfflineQueueDirectory(directory);
+        final List<BreinConfig> configs = new ArrayList<>();
+        final HttpUrlRestEngine engine = new HttpUrlRestEngine() {
+            @Override
+            protected BreinActivityJournal.ISender createSender(final BreinConfig senderConfig) {
+                configs.add(senderConfig);
+                return super.createSender(senderConfig);
+            }
+        };
+
+        try {
+            engine.getExecutor(config);
+            assertEquals(1, configs.size());
+            assertSame(config, configs.get(0));
+        } finally {
+            engine.terminate();
+        }
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(BreinJsonUtil.UTF8);
+    }
+
+    private static class RecordingSender implements BreinActivityJournal.ISender {
+        private final List<String> urls = new ArrayList<>();
+        private final List<String> bodies = new ArrayList<>();
+        private final int successes;
+
+        RecordingSender(final int successes) {
+            this.successes = successes;
+        }
+
+        @Override
+        public boolean send(final String url, final byte[] body) {
+            if (bodies.size() >= successes) {
+                return false;
+            }
+
+            urls.add(url);
+            bodies.add(new String(body, BreinJsonUtil.UTF8));
+            return true;
+        }
+    }
+}
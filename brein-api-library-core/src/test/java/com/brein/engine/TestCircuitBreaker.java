@@ -0,0 +1,164 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the circuit breakers, the endpoints are replaced by a local stand-in server injecting failures
+ */
+public class TestCircuitBreaker {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+    private BreinEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer();
+
+        config = new BreinConfig("TEST-API-KEY")
+                .setRetryPolicy(BreinRetryPolicy.NONE)
+                .setCircuitBreakerWindowSize(5)
+                .setCircuitBreakerMinimumRequests(5)
+                .setCircuitBreakerOpenDuration(500)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        engine = new BreinEngine();
+        engine.configure(config);
+    }
+
+    @After
+    public void tearDown() {
+        engine.terminate();
+        server.stop();
+    }
+
+    /**
+     * The breaker opens when the failure rate is reached, lets a single trial request through after the open
+     * duration and closes if the trial succeeds.
+     */
+    @Test
+    public void testStates() {
+        final List<String> changes = new CopyOnWriteArrayList<>();
+        final long[] clock = new long[]{0};
+        final BreinCircuitBreaker breaker = new BreinCircuitBreaker("/activity", 0.5, 4, 4, 100,
+                new BreinCircuitBreaker.IStateListener() {
+                    @Override
+                    public void onStateChange(final BreinCircuitBreaker breaker,
+                                              final BreinCircuitBreaker.State from,
+                                              final BreinCircuitBreaker.State to) {
+                        changes.add(from + "->" + to);
+                    }
+                }) {
+            @Override
+            protected long now() {
+                return clock[0];
+            }
+        };
+
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        assertEquals(BreinCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+        assertEquals(BreinCircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isRejecting());
+        assertFalse(breaker.allowRequest());
+
+        // a failed trial opens the circuit again
+        clock[0] = 100;
+        assertFalse(breaker.isRejecting());
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(BreinCircuitBreaker.State.OPEN, breaker.getState());
+
+        // a successful trial closes the circuit
+        clock[0] = 200;
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(BreinCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate(), 0.0);
+        assertEquals(2, breaker.getRejectedCount());
+
+        assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]",
+                changes.toString());
+    }
+
+    /**
+     * While the endpoint fails, requests fail fast without reaching the server, the circuit is closed again when
+     * the endpoint recovered.
+     */
+    @Test
+    public void testFailFast() throws InterruptedException {
+        server.setErrorRate(1.0);
+
+        assertEquals(5, send(5).size());
+        assertEquals(5, server.getReceivedCount());
+
+        final BreinCircuitBreaker breaker = engine.getCircuitBreaker(config.getActivityEndpoint());
+        assertNotNull(breaker);
+        assertEquals(BreinCircuitBreaker.State.OPEN, breaker.getState());
+
+        for (final BreinResult result : send(20)) {
+            assertNull(result);
+        }
+        assertEquals(5, server.getReceivedCount());
+
+        // the endpoint recovered, the trial request closes the circuit
+        server.setErrorRate(0.0);
+        Thread.sleep(600);
+
+        final List<BreinResult> results = send(1);
+        assertNotNull(results.get(0));
+        assertEquals(6, server.getReceivedCount());
+        assertEquals(BreinCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * Sends the activities one after another, so that the outcome of each request is recorded before the next is sent.
+     */
+    private List<BreinResult> send(final int count) throws InterruptedException {
+        final List<BreinResult> results = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            final BreinActivity activity = new BreinActivity().setActivityType("login");
+            activity.setUser("email", "test@breinify.com");
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            engine.invoke(config, activity, new ICallback<BreinResult>() {
+                @Override
+                public void callback(final BreinResult data) {
+                    results.add(data);
+                    latch.countDown();
+                }
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+
+        return results;
+    }
+}
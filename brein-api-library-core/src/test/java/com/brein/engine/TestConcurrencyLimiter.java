@@ -0,0 +1,177 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the adaptive limit of requests in flight
+ */
+public class TestConcurrencyLimiter {
+
+    private static final long MS = 1000000L;
+
+    /**
+     * The limit grows up to the largest limit, as long as the round trip time stays flat.
+     */
+    @Test
+    public void testGrowsWhileLatencyIsFlat() {
+        final BreinConcurrencyLimiter limiter = new BreinConcurrencyLimiter(1, 1, 16, 2.0, 100);
+
+        for (int i = 0; i < 100; i++) {
+            sendAll(limiter, 10 * MS);
+        }
+        assertEquals(16, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * The limit shrinks if the round trip time increases, i.e., requests are queued.
+     */
+    @Test
+    public void testBacksOffWhenQueueing() {
+        final BreinConcurrencyLimiter limiter = new BreinConcurrencyLimiter(16, 1, 16, 2.0, 1000);
+        sendAll(limiter, 10 * MS);
+        assertEquals(16, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            sendAll(limiter, 100 * MS);
+        }
+        assertTrue(limiter.getLimit() <= 4);
+        assertTrue(limiter.getLimit() >= 1);
+    }
+
+    /**
+     * A failed request decreases the limit multiplicatively, down to the smallest limit.
+     */
+    @Test
+    public void testDropped() {
+        final BreinConcurrencyLimiter limiter = new BreinConcurrencyLimiter(10, 2, 16, 2.0, 100);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(-1, true);
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(-1, true);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    /**
+     * The limit is not increased, if the permits are not used.
+     */
+    @Test
+    public void testNotUsed() {
+        final BreinConcurrencyLimiter limiter = new BreinConcurrencyLimiter(4, 1, 16, 2.0, 100);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(10 * MS, false);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    /**
+     * The minimal round trip time is determined anew, i.e., the limit grows again after the network changed.
+     */
+    @Test
+    public void testNetworkChanged() {
+        final BreinConcurrencyLimiter limiter = new BreinConcurrencyLimiter(4, 1, 16, 2.0, 50);
+        for (int i = 0; i < 5; i++) {
+            sendAll(limiter, 10 * MS);
+        }
+        assertEquals(10 * MS, limiter.getMinRtt());
+
+        // the network got slower, the requests seem to be queued until the window is determined anew
+        for (int i = 0; i < 10; i++) {
+            sendAll(limiter, 200 * MS);
+        }
+        assertEquals(10 * MS, limiter.getMinRtt());
+        assertTrue(limiter.getLimit() <= 4);
+
+        for (int i = 0; i < 20; i++) {
+            sendAll(limiter, 200 * MS);
+        }
+        assertEquals(200 * MS, limiter.getMinRtt());
+        assertEquals(16, limiter.getLimit());
+    }
+
+    /**
+     * Requests exceeding the limit wait for a permit and are sent, the limit grows while the latency of the backend
+     * stays the same.
+     */
+    @Test
+    public void testEngine() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        final BreinStandInServer server = new BreinStandInServer().setLatency(20, 20);
+        final BreinConfig config = new BreinConfig("TEST-API-KEY")
+                .setExecutorCorePoolSize(1)
+                .setConcurrencyLimitMax(8)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        final HttpUrlRestEngine engine = new HttpUrlRestEngine();
+        engine.configure(config);
+        assertEquals(1, engine.getConcurrencyStatistics().getLimit());
+
+        try {
+            final int count = 200;
+            final CountDownLatch latch = new CountDownLatch(count);
+            final AtomicInteger failed = new AtomicInteger();
+            for (int i = 0; i < count; i++) {
+                final BreinActivity activity = new BreinActivity().setActivityType("login");
+                activity.setUser("email", "test@breinify.com");
+
+                engine.invokeRequest(config, activity, new ICallback<BreinResult>() {
+                    @Override
+                    public void callback(final BreinResult data) {
+                        if (data == null) {
+                            failed.incrementAndGet();
+                        }
+                        latch.countDown();
+                    }
+                });
+            }
+
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            assertEquals(0, failed.get());
+            assertEquals(count, server.getReceivedCount());
+
+            final BreinConcurrencyLimiter.Statistics statistics = engine.getConcurrencyStatistics();
+            assertTrue(statistics.toString(), statistics.getLimit() > 1);
+            assertEquals(0, statistics.getWaitingCount());
+        } finally {
+            engine.terminate();
+            server.stop();
+        }
+    }
+
+    /**
+     * Takes all available permits and releases them with the specified round trip time.
+     */
+    private void sendAll(final BreinConcurrencyLimiter limiter, final long rtt) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rtt, false);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinBase;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDimension;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinLoadHarness;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the selection of the rest engines, including a load of every available engine against the local stand-in
+ * server (the throughput and latency are measured by the {@code EngineBenchmark})
+ */
+public class TestEngines {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer();
+        config = new BreinConfig("TEST-API-KEY")
+                .setActivityBatchingEnabled(false)
+                .setExecutorQueueCapacity(1000)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        BreinRestEngineRegistry.registerDefaults();
+        server.stop();
+    }
+
+    /**
+     * The default engine is always available, a missing engine is replaced by the default one.
+     */
+    @Test
+    public void testRegistry() {
+        final IRestEngine engine = BreinRestEngineRegistry.create(BreinEngineType.HTTP_URL_CONNECTION_ENGINE);
+        assertTrue(engine instanceof HttpUrlRestEngine);
+        assertEquals(BreinEngineType.HTTP_URL_CONNECTION_ENGINE, engine.getRestEngineType(null));
+        assertSame(engine, engine.getRestEngine(BreinEngineType.HTTP_URL_CONNECTION_ENGINE));
+        assertNull(engine.getRestEngine(BreinEngineType.OK_HTTP_ENGINE));
+
+        assertEquals(BreinEngineType.HTTP_URL_CONNECTION_ENGINE,
+                BreinRestEngineRegistry.resolve(BreinEngineType.NO_ENGINE));
+        assertEquals(BreinEngineType.HTTP_URL_CONNECTION_ENGINE,
+                BreinRestEngineRegistry.create(BreinEngineType.NO_ENGINE).getRestEngineType(null));
+    }
+
+    /**
+     * The engine of the configuration is used, an endpoint may use another engine; activities are always sent by the
+     * default engine.
+     */
+    @Test
+    public void testSelection() throws InterruptedException {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger invoked = new AtomicInteger();
+        BreinRestEngineRegistry.register(BreinEngineType.OK_HTTP_ENGINE, new BreinRestEngineRegistry.IFactory() {
+            @Override
+            public IRestEngine create() {
+                created.incrementAndGet();
+                return new CountingEngine(invoked);
+            }
+        });
+
+        config.setRestEngineType(BreinStandInServer.LOOKUP_ENDPOINT, BreinEngineType.OK_HTTP_ENGINE);
+        final BreinEngine engine = new BreinEngine();
+        engine.configure(config);
+
+        try {
+            assertEquals(BreinEngineType.HTTP_URL_CONNECTION_ENGINE, engine.getRestEngine().getRestEngineType(null));
+
+            final BreinActivity activity = new BreinActivity().setActivityType("login");
+            activity.setUser("email", "test@breinify.com");
+            assertNotNull(send(engine, activity));
+            assertNotNull(send(engine, lookup(1)));
+            assertNotNull(send(engine, lookup(2)));
+
+            assertEquals(1, created.get());
+            assertEquals(2, invoked.get());
+            assertEquals(3, server.getReceivedCount());
+        } finally {
+            engine.terminate();
+        }
+
+        // the engine of the configuration sends all requests
+        config.setRestEngineType(BreinEngineType.OK_HTTP_ENGINE);
+        final BreinEngine okEngine = new BreinEngine();
+        okEngine.configure(config);
+        try {
+            assertTrue(okEngine.getRestEngine() instanceof CountingEngine);
+
+            final BreinActivity activity = new BreinActivity().setActivityType("login");
+            activity.setUser("email", "test@breinify.com");
+            assertNotNull(send(okEngine, activity));
+            assertEquals(3, invoked.get());
+            assertEquals(2, created.get());
+        } finally {
+            okEngine.terminate();
+        }
+    }
+
+    /**
+     * Every available engine completes the lookups with up to 8 requests in flight, for a server with a latency of 5
+     * to 20 milliseconds.
+     */
+    @Test
+    public void testLoad() throws InterruptedException {
+        server.setLatency(5, 20);
+
+        for (final BreinEngineType type : BreinEngineType.values()) {
+            if (type == BreinEngineType.NO_ENGINE || !BreinRestEngineRegistry.isAvailable(type)) {
+                continue;
+            }
+
+            config.setRestEngineType(type);
+            final BreinEngine engine = new BreinEngine();
+            engine.configure(config);
+
+            try {
+                for (int concurrency = 1; concurrency <= 8; concurrency *= 2) {
+                    final BreinLoadHarness.Result result = new BreinLoadHarness(concurrency, 30000)
+                            .run(100, new BreinLoadHarness.Request() {
+                                @Override
+                                public void send(final int nr, final ICallback<BreinResult> callback) {
+                                    engine.invoke(config, lookup(nr), callback);
+                                }
+                            });
+                    assertEquals(100, result.getCompleted());
+                    assertEquals(0, result.getFailed());
+                }
+            } finally {
+                engine.terminate();
+            }
+        }
+    }
+
+    /**
+     * The non-blocking engine sends the requests within its event loop, the callbacks are invoked by the worker pool.
+     */
+    @Test
+    public void testNio() throws InterruptedException {
+        config.setRestEngineType(BreinEngineType.NIO_ENGINE);
+        final BreinEngine engine = new BreinEngine();
+        engine.configure(config);
+
+        try {
+            final NioRestEngine nioEngine = (NioRestEngine) engine.getRestEngine();
+            final String[] thread = new String[1];
+            final CountDownLatch latch = new CountDownLatch(1);
+            engine.invoke(config, lookup(1), new ICallback<BreinResult>() {
+                @Override
+                public void callback(final BreinResult data) {
+                    thread[0] = data == null ? null : Thread.currentThread().getName();
+                    latch.countDown();
+                }
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(thread[0].startsWith(config.getExecutorThreadNamePrefix()));
+            assertNotEquals(config.getExecutorThreadNamePrefix() + "nio", thread[0]);
+
+            // chunked responses are read, the connection is kept alive
+            server.setChunked(true).setResponseBody(BreinStandInServer.LOOKUP_ENDPOINT,
+                    "{\"lookup\":{\"firstname\":{\"result\":\"Diane\"}}}");
+            final BreinResult result = send(engine, lookup(2));
+            assertNotNull(result);
+            assertNotNull(result.get("lookup"));
+            assertEquals(1, nioEngine.getClient().getOpenConnectionCount());
+
+            // temporary failures are sent again
+            server.failNext(1, 503);
+            final BreinActivity activity = new BreinActivity().setActivityType("login");
+            activity.setUser("email", "test@breinify.com");
+            assertNotNull(send(engine, activity));
+            assertEquals(4, server.getReceivedCount());
+            assertTrue(nioEngine.getClient().awaitIdle(1000));
+        } finally {
+            engine.terminate();
+        }
+    }
+
+    /**
+     * Host names are resolved outside of the event loop, i.e., a slow resolution does not stall the requests to other
+     * hosts, and it is bounded by the connection timeout.
+     */
+    @Test
+    public void testNioResolution() throws Exception {
+        final CountDownLatch resolving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final BreinNioHttpClient client = new BreinNioHttpClient(4, 10, 1024 * 1024, "breinify-test-nio") {
+            @Override
+            protected InetAddress resolve(final String host) throws IOException {
+                if (!"slow.breinify.test".equals(host)) {
+                    return super.resolve(host);
+                }
+
+                resolving.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new UnknownHostException(host);
+            }
+        };
+
+        try {
+            final Outcome slow = new Outcome();
+            assertTrue(client.post("http://slow.breinify.test/lookup", "{}".getBytes(), null, 300, 1000, slow));
+            assertTrue(resolving.await(5, TimeUnit.SECONDS));
+
+            final Outcome fast = new Outcome();
+            assertTrue(client.post(server.getUrl() + BreinStandInServer.LOOKUP_ENDPOINT, "{}".getBytes(), null,
+                    1000, 1000, fast));
+            assertNotNull(fast.await());
+            assertEquals(200, fast.response.getStatusCode());
+
+            assertNull(slow.await());
+            assertTrue(slow.error instanceof SocketTimeoutException);
+        } finally {
+            release.countDown();
+            client.close();
+        }
+    }
+
+    /**
+     * The blocking and the non-blocking engine complete the activities with 256 activities in flight, for a server
+     * with a latency of 20 to 50 milliseconds. Both engines may open a connection per request, the blocking one uses a
+     * thread per request (the adaptive limit is disabled), the non-blocking one a single thread.
+     */
+    @Test
+    public void testActivityLoad() throws InterruptedException {
+        server.setLatency(20, 50);
+        config.setConcurrencyLimitEnabled(false)
+                .setExecutorCorePoolSize(256)
+                .setExecutorMaxPoolSize(256)
+                .setNioMaxConnections(256);
+
+        for (final BreinEngineType type : new BreinEngineType[]{BreinEngineType.HTTP_URL_CONNECTION_ENGINE,
+                BreinEngineType.NIO_ENGINE}) {
+            config.setRestEngineType(type);
+            final BreinEngine engine = new BreinEngine();
+            engine.configure(config);
+
+            try {
+                final BreinLoadHarness.Result result = new BreinLoadHarness(256, 30000)
+                        .run(2000, new BreinLoadHarness.Request() {
+                            @Override
+                            public void send(final int nr, final ICallback<BreinResult> callback) {
+                                final BreinActivity activity = new BreinActivity().setActivityType("login");
+                                activity.setUser("email", "user" + nr + "@breinify.com");
+                                engine.invoke(config, activity, callback);
+                            }
+                        });
+                assertEquals(2000, result.getCompleted());
+                assertEquals(0, result.getFailed());
+            } finally {
+                engine.terminate();
+            }
+            server.reset();
+        }
+    }
+
+    private BreinLookup lookup(final int nr) {
+        final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+        lookup.setUser("email", "user" + nr + "@breinify.com");
+        return lookup;
+    }
+
+    private BreinResult send(final BreinEngine engine, final BreinBase data) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BreinResult[] result = new BreinResult[1];
+        engine.invoke(config, data, new ICallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                result[0] = data;
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    /**
+     * Keeps the outcome of a request sent by the client
+     */
+    private static class Outcome implements BreinNioHttpClient.IResponseHandler {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile BreinNioHttpClient.Response response;
+        private volatile IOException error;
+
+        @Override
+        public void completed(final BreinNioHttpClient.Response response) {
+            this.response = response;
+            latch.countDown();
+        }
+
+        @Override
+        public void failed(final IOException e, final boolean sent) {
+            this.error = e;
+            latch.countDown();
+        }
+
+        BreinNioHttpClient.Response await() throws InterruptedException {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            return response;
+        }
+    }
+
+    /**
+     * Engine registered as another type, counting the requests it sends
+     */
+    private static class CountingEngine extends HttpUrlRestEngine {
+        private final AtomicInteger invoked;
+
+        CountingEngine(final AtomicInteger invoked) {
+            this.invoked = invoked;
+        }
+
+        @Override
+        public BreinEngineType getRestEngineType(final BreinEngineType engine) {
+            return BreinEngineType.OK_HTTP_ENGINE;
+        }
+
+        @Override
+        public void invokeRequest(final BreinConfig config,
+                                  final BreinBase data,
+                                  final byte[] preparedBody,
+                                  final ICallback<BreinResult> callback) {
+            invoked.incrementAndGet();
+            super.invokeRequest(config, data, preparedBody, callback);
+        }
+    }
+}
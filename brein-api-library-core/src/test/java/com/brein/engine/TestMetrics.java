@@ -0,0 +1,233 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinBase;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDimension;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the metrics of the requests, the endpoints are replaced by a local stand-in server
+ */
+public class TestMetrics {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer();
+        config = new BreinConfig("TEST-API-KEY")
+                .setActivityBatchingEnabled(false)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * The latencies are counted per bucket, the percentiles are estimated by the upper bound of their bucket.
+     */
+    @Test
+    public void testHistogram() {
+        final BreinLatencyHistogram histogram = new BreinLatencyHistogram();
+        assertEquals(0.0, histogram.snapshot().getPercentile(0.99), 0.0);
+
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(150));
+        }
+        histogram.record(-1);
+
+        final BreinLatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(5.0, snapshot.getPercentile(0.5), 0.0);
+        assertEquals(5.0, snapshot.getPercentile(0.9), 0.0);
+        assertEquals(150.0, snapshot.getPercentile(0.99), 0.0);
+        assertEquals(150.0, snapshot.getMax(), 0.0);
+        assertEquals(17.7, snapshot.getMean(), 0.001);
+        assertEquals(BreinLatencyHistogram.getBounds().length + 1, snapshot.getCounts().length);
+        assertEquals(90, snapshot.getCounts()[2]);
+    }
+
+    /**
+     * Every attempt is recorded per endpoint (for both engines) and passed to the listener of the configuration.
+     */
+    @Test
+    public void testEngines() throws InterruptedException {
+        final AtomicInteger sent = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        config.setMetricsListener(new IBreinMetricsListener() {
+            @Override
+            public void onSent(final String endpoint, final int requestBytes) {
+                sent.incrementAndGet();
+            }
+
+            @Override
+            public void onCompleted(final String endpoint, final int statusCode, final long latencyInNanos) {
+                completed.incrementAndGet();
+            }
+
+            @Override
+            public void onRejected(final String endpoint) {
+                // nothing to count
+            }
+        });
+        config.setRetryPolicy(config.getActivityEndpoint(), new BreinRetryPolicy(2, 10, 2000));
+
+        for (final BreinEngineType type : new BreinEngineType[]{BreinEngineType.HTTP_URL_CONNECTION_ENGINE,
+                BreinEngineType.NIO_ENGINE}) {
+            config.setRestEngineType(type);
+            final BreinEngine engine = new BreinEngine();
+            engine.configure(config);
+            sent.set(0);
+            completed.set(0);
+
+            try {
+                server.setLatency(10, 10);
+                for (int i = 0; i < 3; i++) {
+                    assertNotNull(send(engine, lookup(i)));
+                }
+
+                // a throttled attempt is retried (an activity is not retried after a server error)
+                server.failNext(1, 503);
+                final BreinActivity activity = new BreinActivity().setActivityType("login");
+                activity.setUser("email", "test@breinify.com");
+                assertNotNull(send(engine, activity));
+
+                final BreinMetrics.Snapshot snapshot = engine.getMetrics().getSnapshot();
+                final BreinMetrics.EndpointSnapshot lookups = snapshot.getEndpoint(config.getLookupEndpoint());
+                assertEquals(type + ": " + lookups, 3, lookups.getRequests());
+                assertEquals(0, lookups.getFailures());
+                assertEquals(3, lookups.getLatency().getCount());
+                assertTrue(lookups.getLatency().getPercentile(0.5) >= 10.0);
+                assertTrue(lookups.getMaxRequestBytes() > 0);
+
+                final BreinMetrics.EndpointSnapshot activities = snapshot.getEndpoint(config.getActivityEndpoint());
+                assertEquals(2, activities.getRequests());
+                assertEquals(1, activities.getFailures());
+                assertEquals(0, snapshot.getInFlight());
+                assertEquals(0, snapshot.getQueued());
+                assertTrue(snapshot.getGauges().containsKey(BreinMetrics.QUEUED_GAUGE));
+                if (type == BreinEngineType.HTTP_URL_CONNECTION_ENGINE) {
+
+                    // the adaptive limit stays within the configured pool
+                    assertTrue(snapshot.getConcurrencyLimit() >= 1);
+                    assertTrue(snapshot.getConcurrencyLimit() <= config.getExecutorMaxPoolSize());
+                }
+
+                assertEquals(5, sent.get());
+                assertEquals(5, completed.get());
+            } finally {
+                engine.terminate();
+            }
+            server.reset();
+        }
+    }
+
+    /**
+     * A request failing without being sent (the circuit is open) is counted as rejected, a failing listener does not
+     * affect the request.
+     */
+    @Test
+    public void testRejected() throws InterruptedException {
+        config.setCircuitBreakerMinimumRequests(1)
+                .setRetryPolicy(config.getLookupEndpoint(), BreinRetryPolicy.NONE)
+                .setMetricsListener(new IBreinMetricsListener() {
+                    @Override
+                    public void onSent(final String endpoint, final int requestBytes) {
+                        throw new IllegalStateException("listeners may fail");
+                    }
+
+                    @Override
+                    public void onCompleted(final String endpoint, final int statusCode, final long latencyInNanos) {
+                        throw new IllegalStateException("listeners may fail");
+                    }
+
+                    @Override
+                    public void onRejected(final String endpoint) {
+                        throw new IllegalStateException("listeners may fail");
+                    }
+                });
+        final BreinEngine engine = new BreinEngine();
+        engine.configure(config);
+
+        try {
+            server.setStatusCode(500);
+            assertNull(send(engine, lookup(1)));
+            assertTrue(engine.getCircuitBreaker(config.getLookupEndpoint()).isRejecting());
+            assertNull(send(engine, lookup(2)));
+
+            final BreinMetrics.EndpointSnapshot lookups = engine.getMetrics().getSnapshot(config.getLookupEndpoint());
+            assertEquals(lookups.toString(), 1, lookups.getRequests());
+            assertEquals(1, lookups.getFailures());
+            assertEquals(1, lookups.getRejected());
+            assertEquals(1, server.getReceivedCount());
+        } finally {
+            engine.terminate();
+        }
+    }
+
+    /**
+     * Nothing is recorded if the metrics are disabled.
+     */
+    @Test
+    public void testDisabled() throws InterruptedException {
+        config.setMetricsEnabled(false);
+        final BreinEngine engine = new BreinEngine();
+        engine.configure(config);
+
+        try {
+            assertNotNull(send(engine, lookup(1)));
+            assertNull(engine.getMetrics().getSnapshot(config.getLookupEndpoint()));
+            assertTrue(engine.getMetrics().getSnapshot().getEndpoints().isEmpty());
+        } finally {
+            engine.terminate();
+        }
+    }
+
+    private BreinLookup lookup(final int nr) {
+        final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+        lookup.setUser("email", "user" + nr + "@breinify.com");
+        return lookup;
+    }
+
+    private BreinResult send(final BreinEngine engine, final BreinBase data) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BreinResult[] result = new BreinResult[1];
+        engine.invoke(config, data, new ICallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                result[0] = data;
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return result[0];
+    }
+}
@@ -0,0 +1,252 @@
+package com.brein.engine;
+
+import com.brein.api.BreinRecommendation;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the stale-while-revalidate cache of recommendation results
+ */
+public class TestRecommendationCache {
+
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("brein-recommendations", "");
+        assertTrue(directory.delete());
+    }
+
+    @After
+    public void tearDown() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * The key consists of the user, the category and the number of recommendations.
+     */
+    @Test
+    public void testKey() {
+        final BreinRecommendationCache cache = new BreinRecommendationCache(10, 0, DAY, null);
+
+        final String key = cache.createKey(recommendation("shoes", 3));
+        assertNotNull(key);
+        assertEquals(key, cache.createKey(recommendation("shoes", 3)));
+        assertFalse(key.equals(cache.createKey(recommendation("shirts", 3))));
+        assertFalse(key.equals(cache.createKey(recommendation("shoes", 5))));
+
+        final BreinRecommendation other = recommendation("shoes", 3);
+        other.setUser("email", "other@breinify.com");
+        assertFalse(key.equals(cache.createKey(other)));
+
+        assertNull(cache.createKey(new BreinRecommendation().setCategory("shoes")));
+    }
+
+    /**
+     * The results are available after a restart, i.e., loaded from disk in the background. Evicted and too old results
+     * are removed.
+     */
+    @Test
+    public void testColdStart() throws InterruptedException {
+        final BreinRecommendationCache cache = new BreinRecommendationCache(2, 0, DAY, directory);
+        cache.put("a", result("a"));
+        cache.put("b", result("b"));
+        cache.put("c", result("c"));
+        assertEquals(2, directory.listFiles().length);
+
+        final BreinRecommendationCache restarted = new BreinRecommendationCache(2, 0, DAY, directory);
+        assertTrue(restarted.awaitLoaded(5, TimeUnit.SECONDS));
+        assertNull(restarted.get("a"));
+        assertEquals("b", restarted.get("b").get("id"));
+        assertEquals("c", restarted.get("c").get("id"));
+
+        // a week later the results are too old to be served
+        final BreinRecommendationCache later = new BreinRecommendationCache(2, 0, DAY, directory) {
+            @Override
+            protected long now() {
+                return System.currentTimeMillis() + 7 * DAY;
+            }
+        };
+        assertTrue(later.awaitLoaded(5, TimeUnit.SECONDS));
+        assertNull(later.get("b"));
+        assertEquals(0, directory.listFiles().length);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * The calling thread never reads from disk, an action waiting for the results stored on disk runs after they are
+     * loaded (within the loading thread).
+     */
+    @Test
+    public void testLoadInBackground() throws Exception {
+        final BreinRecommendationCache cache = new BreinRecommendationCache(2, 0, DAY, directory);
+        cache.put("a", result("a"));
+
+        final CountDownLatch loading = new CountDownLatch(1);
+        final BreinRecommendationCache restarted = new BreinRecommendationCache(2, 0, DAY, directory) {
+            @Override
+            protected long now() {
+                // blocks the loading (pruning the directory) until released
+                try {
+                    loading.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.now();
+            }
+        };
+        assertFalse(restarted.isLoaded());
+
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        final CountDownLatch served = new CountDownLatch(1);
+        restarted.whenLoaded(new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+                served.countDown();
+            }
+        });
+        assertEquals(1, served.getCount());
+
+        loading.countDown();
+        assertTrue(served.await(5, TimeUnit.SECONDS));
+        assertTrue(restarted.isLoaded());
+        assertFalse(Thread.currentThread() == threads.get(0));
+        assertEquals("a", restarted.get("a").get("id"));
+    }
+
+    /**
+     * A cached result is served right away and refreshed in the background, the next request receives the refreshed
+     * result.
+     */
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        final BreinStandInServer server = new BreinStandInServer()
+                .setResponseBody(BreinStandInServer.RECOMMENDATION_ENDPOINT, "{\"id\":\"first\"}");
+        final BreinConfig config = new BreinConfig("TEST-API-KEY")
+                .setRecommendationCacheEnabled(true)
+                .setRecommendationCacheRefreshInterval(0)
+                .setRecommendationCacheDirectory(directory)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        final BreinEngine engine = new BreinEngine();
+        engine.configure(config);
+
+        try {
+            final Results results = new Results();
+
+            // nothing cached, the result of the request is passed
+            results.expect();
+            engine.invoke(config, recommendation("shoes", 3), results);
+            assertEquals("first", results.await().get("id"));
+
+            // the cached result is passed right away, the refresh is sent in the background
+            server.setResponseBody(BreinStandInServer.RECOMMENDATION_ENDPOINT, "{\"id\":\"second\"}");
+            final CountDownLatch served = results.expect();
+            engine.invoke(config, recommendation("shoes", 3), results);
+            assertEquals(0, served.getCount());
+            assertEquals("first", results.last().get("id"));
+            assertSame(Thread.currentThread(), results.lastThread());
+
+            final long start = System.currentTimeMillis();
+            while (server.getReceivedCount() < 2 && System.currentTimeMillis() - start < 5000) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, server.getReceivedCount());
+            Thread.sleep(100);
+
+            results.expect();
+            engine.invoke(config, recommendation("shoes", 3), results);
+            assertEquals("second", results.last().get("id"));
+            assertEquals(2, engine.getRecommendationCache().getHitCount());
+        } finally {
+            engine.terminate();
+            server.stop();
+        }
+    }
+
+    private BreinRecommendation recommendation(final String category, final int numberOfRecommendations) {
+        final BreinRecommendation recommendation = new BreinRecommendation()
+                .setCategory(category)
+                .setNumberOfRecommendations(numberOfRecommendations);
+        recommendation.setUser("email", "test@breinify.com");
+        return recommendation;
+    }
+
+    private BreinResult result(final String id) {
+        final Map<String, Object> json = new HashMap<>();
+        json.put("id", id);
+        return new BreinResult(json);
+    }
+
+    /**
+     * Collects the results passed to the callback
+     */
+    private static class Results implements ICallback<BreinResult> {
+        private final List<BreinResult> results = new CopyOnWriteArrayList<>();
+        private final List<Thread> threads = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch latch;
+
+        CountDownLatch expect() {
+            latch = new CountDownLatch(1);
+            return latch;
+        }
+
+        @Override
+        public void callback(final BreinResult data) {
+            results.add(data);
+            threads.add(Thread.currentThread());
+            latch.countDown();
+        }
+
+        BreinResult await() throws InterruptedException {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            return last();
+        }
+
+        BreinResult last() {
+            return results.get(results.size() - 1);
+        }
+
+        Thread lastThread() {
+            return threads.get(threads.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+import com.brein.util.BreinJsonUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the compression of the request bodies, the endpoints are replaced by a local stand-in server
+ */
+public class TestRequestCompression {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer();
+        config = new BreinConfig("TEST-API-KEY")
+                .setActivityBatchingEnabled(false)
+                .setRequestCompressionEnabled(true)
+                .setRequestCompressionThreshold(256)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * Only bodies reaching the threshold are compressed, nothing is compressed if disabled.
+     */
+    @Test
+    public void testThreshold() {
+        final BreinRequestCompressor compressor = new BreinRequestCompressor();
+        assertFalse(compressor.shouldCompress("/activity", 100000));
+
+        compressor.configure(config);
+        assertFalse(compressor.shouldCompress("/activity", 255));
+        assertTrue(compressor.shouldCompress("/activity", 256));
+        assertEquals(1, compressor.getStatistics("/activity").getUncompressedCount());
+        assertNull(compressor.getStatistics("/lookup"));
+
+        compressor.configure(new BreinConfig().setRequestCompressionEnabled(false));
+        assertFalse(compressor.shouldCompress("/activity", 100000));
+        assertNull(compressor.getStatistics("/activity"));
+    }
+
+    /**
+     * The compressed body is valid gzip, the ratio achieved is recorded per endpoint.
+     */
+    @Test
+    public void testRatio() throws IOException {
+        final BreinRequestCompressor compressor = new BreinRequestCompressor();
+        compressor.configure(config);
+
+        final byte[] body = repetitive(4096);
+        final byte[] compressed = compressor.compress("/activities", body);
+        assertArrayEquals(body, decompress(compressed));
+
+        final BreinRequestCompressor.Statistics statistics = compressor.getStatistics("/activities");
+        assertEquals(1, statistics.getCompressedCount());
+        assertEquals(4096, statistics.getOriginalBytes());
+        assertEquals(compressed.length, statistics.getCompressedBytes());
+        assertTrue(statistics.getRatio() < 0.2);
+        assertEquals(4096 - compressed.length, statistics.getSavedBytes());
+        assertEquals(1, compressor.getAll().size());
+    }
+
+    /**
+     * An endpoint whose bodies do not compress well is skipped, apart from a probe every now and then.
+     */
+    @Test
+    public void testAdaptive() {
+        final BreinRequestCompressor compressor = new BreinRequestCompressor();
+        compressor.configure(config);
+
+        final byte[] body = random(1024);
+        for (int i = 0; i < BreinRequestCompressor.MIN_SAMPLES; i++) {
+            assertTrue(compressor.shouldCompress("/activity", body.length));
+            compressor.compress("/activity", body);
+        }
+        assertTrue(compressor.getStatistics("/activity").getAverageRatio() > BreinRequestCompressor.MAX_RATIO);
+
+        int compressed = 0;
+        for (int i = 0; i < 2 * BreinRequestCompressor.PROBE_INTERVAL; i++) {
+            if (compressor.shouldCompress("/activity", body.length)) {
+                compressed++;
+            }
+        }
+        assertEquals(2, compressed);
+
+        // other endpoints are not affected
+        assertTrue(compressor.shouldCompress("/lookup", body.length));
+    }
+
+    /**
+     * Both engines send compressed bodies, which are decoded by the server, for single and batched activities.
+     */
+    @Test
+    public void testEngines() throws InterruptedException {
+        for (final BreinEngineType type : new BreinEngineType[]{BreinEngineType.HTTP_URL_CONNECTION_ENGINE,
+                BreinEngineType.NIO_ENGINE}) {
+            config.setRestEngineType(type).setActivityBatchingEnabled(false);
+            BreinEngine engine = new BreinEngine();
+            engine.configure(config);
+
+            try {
+                assertNotNull(send(engine, activity(0, 512)));
+                assertNotNull(send(engine, activity(1, 10)));
+                assertEquals(2, server.getRequests(BreinStandInServer.ACTIVITY_ENDPOINT).size());
+                assertEquals(1, server.getCompressedCount());
+
+                final BreinRequestCompressor.Statistics statistics =
+                        engine.getRequestCompressor().getStatistics(config.getActivityEndpoint());
+                assertEquals(type + ": " + statistics, 1, statistics.getCompressedCount());
+                assertEquals(1, statistics.getUncompressedCount());
+            } finally {
+                engine.terminate();
+            }
+
+            // the batch of activities is compressed as a whole
+            config.setActivityBatchingEnabled(true).setActivityBatchSize(5);
+            engine = new BreinEngine();
+            engine.configure(config);
+
+            try {
+                final CountDownLatch latch = new CountDownLatch(5);
+                final AtomicInteger succeeded = new AtomicInteger();
+                for (int i = 0; i < 5; i++) {
+                    engine.invoke(config, activity(i, 10), new ICallback<BreinResult>() {
+                        @Override
+                        public void callback(final BreinResult data) {
+                            if (data != null) {
+                                succeeded.incrementAndGet();
+                            }
+                            latch.countDown();
+                        }
+                    });
+                }
+                assertTrue(latch.await(5, TimeUnit.SECONDS));
+                assertEquals(5, succeeded.get());
+                assertEquals(1, server.getRequests(BreinStandInServer.BULK_ACTIVITY_ENDPOINT).size());
+                assertEquals(2, server.getCompressedCount());
+                assertTrue(engine.getRequestCompressor()
+                        .getStatistics(config.getBulkActivityEndpoint()).getRatio() < 1.0);
+            } finally {
+                engine.terminate();
+            }
+            server.reset();
+        }
+    }
+
+    private BreinActivity activity(final int nr, final int descriptionLength) {
+        final BreinActivity activity = new BreinActivity().setActivityType("login");
+        activity.setDescription(new String(repetitive(descriptionLength), BreinJsonUtil.UTF8));
+        activity.setUser("email", "user" + nr + "@breinify.com");
+        return activity;
+    }
+
+    private BreinResult send(final BreinEngine engine, final BreinActivity activity) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BreinResult[] result = new BreinResult[1];
+        engine.invoke(config, activity, new ICallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                result[0] = data;
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    private static byte[] repetitive(final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ('a' + i % 7);
+        }
+        return bytes;
+    }
+
+    private static byte[] random(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] decompress(final byte[] compressed) throws IOException {
+        final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}
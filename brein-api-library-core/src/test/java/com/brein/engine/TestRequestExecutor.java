@@ -0,0 +1,110 @@
+package com.brein.engine;
+
+import com.brein.domain.BreinConfig;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the bounded worker pool used by the rest engines
+ */
+public class TestRequestExecutor {
+
+    /**
+     * A burst of requests must not create more threads than configured, the overflow is rejected.
+     */
+    @Test
+    public void testBurstIsBounded() throws InterruptedException {
+        final BreinConfig config = new BreinConfig()
+                .setExecutorCorePoolSize(2)
+                .setExecutorMaxPoolSize(3)
+                .setExecutorQueueCapacity(10);
+        final BreinRequestExecutor executor = new BreinRequestExecutor(config);
+
+        final CountDownLatch block = new CountDownLatch(1);
+        final AtomicInteger executed = new AtomicInteger();
+
+        int accepted = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        block.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    executed.incrementAndGet();
+                }
+            })) {
+                accepted++;
+            }
+        }
+
+        final BreinRequestExecutor.Statistics statistics = executor.getStatistics();
+        assertEquals(13, accepted);
+        assertEquals(3, statistics.getPoolSize());
+        assertEquals(10, statistics.getQueueSize());
+        assertEquals(2000 - 13, statistics.getRejectedTaskCount());
+
+        block.countDown();
+        assertTrue(executor.shutdown(5000));
+        assertEquals(13, executed.get());
+        assertTrue(executor.isShutdown());
+    }
+
+    /**
+     * The worker threads are named and prioritized as configured.
+     */
+    @Test
+    public void testThreadNameAndPriority() throws InterruptedException {
+        final BreinConfig config = new BreinConfig()
+                .setExecutorThreadNamePrefix("test-worker-")
+                .setExecutorThreadPriority(Thread.MIN_PRIORITY);
+        final BreinRequestExecutor executor = new BreinRequestExecutor(config);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final String[] name = new String[1];
+        final int[] priority = new int[1];
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                name[0] = Thread.currentThread().getName();
+                priority[0] = Thread.currentThread().getPriority();
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(name[0].startsWith("test-worker-"));
+        assertEquals(Thread.MIN_PRIORITY, priority[0]);
+
+        executor.shutdown(1000);
+        assertFalse(executor.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }));
+    }
+
+    /**
+     * Terminating the engine drains the queue and stops the pool.
+     */
+    @Test
+    public void testEngineTerminate() {
+        final HttpUrlRestEngine engine = new HttpUrlRestEngine();
+        engine.configure(new BreinConfig());
+
+        assertEquals(0, engine.getPoolStatistics().getActiveCount());
+
+        engine.terminate();
+        assertEquals(null, engine.getPoolStatistics());
+    }
+}
@@ -0,0 +1,129 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the parsing of the responses, the endpoint is replaced by a local stand-in server
+ */
+public class TestResponseParsing {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+    private HttpUrlRestEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer();
+
+        config = new BreinConfig("TEST-API-KEY")
+                .setMaxResponseSize(1024)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        engine = new HttpUrlRestEngine();
+        engine.configure(config);
+    }
+
+    @After
+    public void tearDown() {
+        engine.terminate();
+        server.stop();
+    }
+
+    /**
+     * Non-ASCII characters of the response are decoded correctly.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUtf8Response() throws InterruptedException {
+        server.setResponseBody("{\"city\":\"Köln\",\"text\":\"Grüße ☃ 😀\",\"values\":[1,2.5]}");
+
+        final BreinResult result = request();
+        assertNotNull(result);
+        assertEquals("Köln", result.get("city"));
+        assertEquals("Grüße ☃ 😀", result.get("text"));
+        assertEquals(2, ((List<Object>) result.get("values")).size());
+    }
+
+    /**
+     * A response larger than the maximal size is dropped, whether its size is known upfront or not.
+     */
+    @Test
+    public void testMaxResponseSize() throws InterruptedException {
+        final StringBuilder body = new StringBuilder("{\"data\":\"");
+        for (int i = 0; i < 2048; i++) {
+            body.append('x');
+        }
+        body.append("\"}");
+        server.setResponseBody(body.toString());
+
+        assertNull(request());
+
+        server.setChunked(true);
+        assertNull(request());
+    }
+
+    /**
+     * An invalid response leads to an empty result, the request is not sent again.
+     */
+    @Test
+    public void testInvalidResponse() throws InterruptedException {
+        server.setResponseBody("{\"data\":");
+
+        assertNull(request());
+        assertEquals(1, server.getRequests(BreinStandInServer.ACTIVITY_ENDPOINT).size());
+    }
+
+    /**
+     * The result can be parsed from a string as well.
+     */
+    @Test
+    public void testResultFromString() {
+        final BreinResult result = new BreinResult("{\"nested\":{\"value\":\"ä\"}}");
+
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> nested = result.get("nested");
+        assertEquals("ä", nested.get("value"));
+    }
+
+    private BreinResult request() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<BreinResult> result = new AtomicReference<>();
+
+        final BreinActivity activity = new BreinActivity().setActivityType("test");
+        activity.setUser("email", "test@breinify.com");
+        engine.invokeRequest(config, activity, new ICallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                result.set(data);
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return result.get();
+    }
+}
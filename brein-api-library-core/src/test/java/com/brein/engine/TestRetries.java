@@ -0,0 +1,235 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinBase;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDimension;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the retries of failed requests, the endpoints are replaced by a local stand-in server
+ */
+public class TestRetries {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+    private HttpUrlRestEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer();
+
+        config = new BreinConfig("TEST-API-KEY")
+                .setRetryPolicy(new BreinRetryPolicy(3, 10, 5000))
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        engine = new HttpUrlRestEngine();
+        engine.configure(config);
+    }
+
+    @After
+    public void tearDown() {
+        engine.terminate();
+        server.stop();
+    }
+
+    /**
+     * The delays grow exponentially and are randomized, a requested wait is honored.
+     */
+    @Test
+    public void testDelays() {
+        final BreinRetryPolicy policy = new BreinRetryPolicy(5, 100, 1000);
+
+        for (int i = 0; i < 1000; i++) {
+            for (int attempt = 1; attempt < 5; attempt++) {
+                final long delay = policy.getDelay(attempt, -1);
+                assertTrue(delay >= 0);
+                assertTrue(delay <= Math.min(1000, 100L << (attempt - 1)));
+            }
+
+            final long delay = policy.getDelay(1, 500);
+            assertTrue(delay >= 500 && delay <= 600);
+        }
+
+        assertEquals(-1, policy.getDelay(5, -1));
+        assertEquals(-1, policy.getDelay(1, 2000));
+        assertEquals(-1, BreinRetryPolicy.NONE.getDelay(1, -1));
+    }
+
+    /**
+     * A temporarily failing request is sent again, the callback is informed once.
+     */
+    @Test
+    public void testRetriedUntilSent() throws InterruptedException {
+        server.failNext(2, 500);
+
+        final Results results = new Results(1);
+        engine.invokeRequest(config, lookup(), results);
+
+        assertTrue(results.await());
+        assertNotNull(results.get(0));
+        assertEquals(3, server.getReceivedCount());
+        assertEquals(1, server.getRequests(BreinStandInServer.LOOKUP_ENDPOINT).size());
+    }
+
+    /**
+     * The callback is informed with {@code null}, after all attempts failed.
+     */
+    @Test
+    public void testAttemptsExhausted() throws InterruptedException {
+        server.setErrorRate(1.0);
+
+        final Results results = new Results(1);
+        engine.invokeRequest(config, lookup(), results);
+
+        assertTrue(results.await());
+        assertNull(results.get(0));
+        assertEquals(3, server.getFailedCount());
+
+        // the policy of the endpoint is used, if set
+        server.reset();
+        config.setRetryPolicy(config.getLookupEndpoint(), BreinRetryPolicy.NONE);
+
+        final Results noRetries = new Results(1);
+        engine.invokeRequest(config, lookup(), noRetries);
+
+        assertTrue(noRetries.await());
+        assertEquals(1, server.getFailedCount());
+    }
+
+    /**
+     * The {@code Retry-After} of a throttled request is honored, the worker is not blocked meanwhile.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRetryAfter() throws InterruptedException {
+        final BreinConfig singleWorker = new BreinConfig("TEST-API-KEY")
+                .setRetryPolicy(new BreinRetryPolicy(3, 10, 5000))
+                .setExecutorCorePoolSize(1)
+                .setExecutorMaxPoolSize(1)
+                .setConcurrencyLimitMax(1)
+                .setBaseUrl(server.getUrl());
+        engine.terminate();
+        engine = new HttpUrlRestEngine();
+        engine.configure(singleWorker);
+
+        server.failNext(1, 429);
+
+        final Results results = new Results(2);
+        final long start = System.currentTimeMillis();
+        engine.invokeRequest(singleWorker, activity("throttled"), results);
+        Thread.sleep(100);
+        engine.invokeRequest(singleWorker, activity("other"), results);
+
+        assertTrue(results.await());
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+        assertEquals(1, server.getFailedCount());
+
+        // the other request was sent while the throttled one was waiting
+        assertNotNull(results.get(0));
+        assertNotNull(results.get(1));
+        final Map<String, Object> first = server.getRequests(BreinStandInServer.ACTIVITY_ENDPOINT).get(0);
+        assertEquals("other", ((Map<String, Object>) first.get("activity")).get("type"));
+    }
+
+    /**
+     * An activity the backend may have processed (i.e., it answered with a server error or the response timed out)
+     * is neither sent again nor added to the offline queue, one which could not be sent at all is.
+     */
+    @Test
+    public void testActivityNotDuplicated() throws Exception {
+        final AtomicInteger journaled = new AtomicInteger();
+        engine.terminate();
+        engine = new HttpUrlRestEngine() {
+            @Override
+            protected void journal(final BreinBase data, final String fullUrl, final byte[] requestBody) {
+                journaled.incrementAndGet();
+            }
+        };
+        config.setSocketTimeout(200);
+        engine.configure(config);
+
+        server.failNext(1, 500);
+        final Results failed = new Results(1);
+        engine.invokeRequest(config, activity("login"), failed);
+        assertTrue(failed.await());
+        assertNull(failed.get(0));
+        assertEquals(1, server.getReceivedCount());
+
+        server.reset();
+        server.setLatency(1000, 1000);
+        final Results timedOut = new Results(1);
+        engine.invokeRequest(config, activity("login"), timedOut);
+        assertTrue(timedOut.await());
+        assertNull(timedOut.get(0));
+        assertEquals(1, server.getReceivedCount());
+        assertEquals(0, journaled.get());
+
+        // the request is not sent at all, i.e., it is retried and finally added to the offline queue
+        server.stop();
+        final Results unreachable = new Results(1);
+        engine.invokeRequest(config, activity("login"), unreachable);
+        assertTrue(unreachable.await());
+        assertNull(unreachable.get(0));
+        assertEquals(1, journaled.get());
+    }
+
+    private BreinLookup lookup() {
+        final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+        lookup.setUser("email", "test@breinify.com");
+        return lookup;
+    }
+
+    private BreinActivity activity(final String type) {
+        final BreinActivity activity = new BreinActivity().setActivityType(type);
+        activity.setUser("email", "test@breinify.com");
+        return activity;
+    }
+
+    private static class Results implements ICallback<BreinResult> {
+        private final List<BreinResult> results = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        Results(final int expected) {
+            this.latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void callback(final BreinResult data) {
+            results.add(data);
+            latch.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+
+        BreinResult get(final int index) {
+            return results.get(index);
+        }
+    }
+}
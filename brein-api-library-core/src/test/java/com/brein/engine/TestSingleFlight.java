@@ -0,0 +1,213 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinTemporalData;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDimension;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+import com.brein.util.BreinJsonUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the coalescing of identical requests in flight, the endpoints are replaced by a local stand-in server
+ */
+public class TestSingleFlight {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+    private BreinEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer()
+                .setLatency(300, 300)
+                .setResponseBody(BreinStandInServer.LOOKUP_ENDPOINT, "{\"firstname\":{\"result\":\"Diane\"}}");
+
+        config = new BreinConfig("TEST-API-KEY")
+                .setActivityBatchingEnabled(false)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        engine = new BreinEngine();
+        engine.configure(config);
+    }
+
+    @After
+    public void tearDown() {
+        engine.terminate();
+        server.stop();
+    }
+
+    /**
+     * The key ignores the timestamp and the signature, but not the values of the request (including the
+     * localDateTime).
+     */
+    @Test
+    public void testKey() throws IOException {
+        final BreinSingleFlight flight = new BreinSingleFlight();
+        final BreinConfig signed = new BreinConfig("TEST-API-KEY").setSecret("p3rs0n4l1z4t10n");
+
+        final String key = flight.createKey("/lookup",
+                BreinJsonUtil.toBytes(lookup("test@breinify.com").setUnixTimestamp(1000), signed));
+        assertNotNull(key);
+        assertEquals(key, flight.createKey("/lookup",
+                BreinJsonUtil.toBytes(lookup("test@breinify.com").setUnixTimestamp(2000), signed)));
+        assertFalse(key.contains("signature"));
+        assertFalse(key.contains("unixTimestamp"));
+        assertFalse(key.equals(flight.createKey("/lookup",
+                BreinJsonUtil.toBytes(lookup("other@breinify.com"), signed))));
+        assertFalse(key.equals(flight.createKey("/temporaldata",
+                BreinJsonUtil.toBytes(lookup("test@breinify.com"), signed))));
+        assertNull(flight.createKey("/lookup", null));
+
+        // requests for different dates are not coalesced
+        final String temporalKey = flight.createKey("/temporaldata", BreinJsonUtil.toBytes(new BreinTemporalData()
+                .setLocalDateTime("Sun Oct 18 2026 10:00:00 GMT-07:00 (PDT)").setLocation("san diego"), signed));
+        assertEquals(temporalKey, flight.createKey("/temporaldata", BreinJsonUtil.toBytes(new BreinTemporalData()
+                .setLocalDateTime("Sun Oct 18 2026 10:00:00 GMT-07:00 (PDT)").setLocation("san diego"), signed)));
+        assertFalse(temporalKey.equals(flight.createKey("/temporaldata", BreinJsonUtil.toBytes(new BreinTemporalData()
+                .setLocalDateTime("Mon Oct 19 2026 10:00:00 GMT-07:00 (PDT)").setLocation("san diego"), signed))));
+
+        // the order of the values does not matter, only the top-level volatile values are removed
+        assertEquals("/x|{\"a\":{\"b\":[1.0,{\"c\":\"}\",\"signature\":\"s\"}]},\"d\":\"e\"}", flight.createKey("/x",
+                "{\"d\":\"e\", \"unixTimestamp\":1,\"a\":{\"b\":[1,{\"signature\":\"s\",\"c\":\"}\"}]}}".getBytes()));
+        assertNull(flight.createKey("/x", "{\"a\":".getBytes()));
+    }
+
+    /**
+     * Identical lookups sent at the same time share one request, its result is passed to all callbacks.
+     */
+    @Test
+    public void testCoalescing() throws InterruptedException {
+        final Results results = new Results(6);
+        for (int i = 0; i < 5; i++) {
+            engine.invoke(config, lookup("test@breinify.com"), results);
+        }
+        engine.invoke(config, lookup("other@breinify.com"), results);
+
+        results.await();
+        assertEquals(2, server.getReceivedCount());
+        assertEquals(4, engine.getSingleFlight().getCoalescedCount());
+        assertEquals(0, engine.getSingleFlight().size());
+
+        // the coalesced lookups share the same result
+        final Set<BreinResult> distinct = Collections.newSetFromMap(new IdentityHashMap<BreinResult, Boolean>());
+        for (final BreinResult result : results.results) {
+            assertNotNull(result);
+            distinct.add(result);
+        }
+        assertEquals(2, distinct.size());
+
+        // the next lookup is sent, nothing is in flight anymore
+        final Results next = new Results(1);
+        engine.invoke(config, lookup("test@breinify.com"), next);
+        next.await();
+        assertEquals(3, server.getReceivedCount());
+    }
+
+    /**
+     * TemporalData requests for different dates are sent individually, the identical ones are coalesced.
+     */
+    @Test
+    public void testTemporalDataByDate() throws InterruptedException {
+        final Results results = new Results(3);
+        engine.invoke(config, new BreinTemporalData()
+                .setLocalDateTime("Sun Oct 18 2026 10:00:00 GMT-07:00 (PDT)").setLocation("san diego"), results);
+        engine.invoke(config, new BreinTemporalData()
+                .setLocalDateTime("Sun Oct 18 2026 10:00:00 GMT-07:00 (PDT)").setLocation("san diego"), results);
+        engine.invoke(config, new BreinTemporalData()
+                .setLocalDateTime("Mon Oct 19 2026 10:00:00 GMT-07:00 (PDT)").setLocation("san diego"), results);
+
+        results.await();
+        assertEquals(2, server.getReceivedCount());
+        assertEquals(1, engine.getSingleFlight().getCoalescedCount());
+    }
+
+    /**
+     * Activities are never coalesced, every one is tracked.
+     */
+    @Test
+    public void testActivitiesNotCoalesced() throws InterruptedException {
+        final Results results = new Results(3);
+        for (int i = 0; i < 3; i++) {
+            final BreinActivity activity = new BreinActivity().setActivityType("login");
+            activity.setUser("email", "test@breinify.com");
+            engine.invoke(config, activity, results);
+        }
+
+        results.await();
+        assertEquals(3, server.getReceivedCount());
+        assertEquals(0, engine.getSingleFlight().getCoalescedCount());
+    }
+
+    /**
+     * Disabled, identical lookups are sent individually.
+     */
+    @Test
+    public void testDisabled() throws InterruptedException {
+        config.setSingleFlightEnabled(false);
+        engine.configure(config);
+        assertNull(engine.getSingleFlight());
+
+        final Results results = new Results(3);
+        for (int i = 0; i < 3; i++) {
+            engine.invoke(config, lookup("test@breinify.com"), results);
+        }
+
+        results.await();
+        assertEquals(3, server.getReceivedCount());
+    }
+
+    private BreinLookup lookup(final String email) {
+        final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+        lookup.setUser("email", email);
+        return lookup;
+    }
+
+    /**
+     * Collects the results passed to the callback
+     */
+    private static class Results implements ICallback<BreinResult> {
+        private final List<BreinResult> results = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        Results(final int expected) {
+            latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void callback(final BreinResult data) {
+            results.add(data);
+            latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
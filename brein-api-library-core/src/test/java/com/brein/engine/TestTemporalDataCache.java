@@ -0,0 +1,207 @@
+package com.brein.engine;
+
+import com.brein.api.BreinTemporalData;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+import com.brein.util.BreinGeoHash;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the cache of temporalData results
+ */
+public class TestTemporalDataCache {
+
+    private static final long MINUTE = 60L * 1000L;
+
+    /**
+     * The geohash of well known coordinates.
+     */
+    @Test
+    public void testGeoHash() {
+        assertEquals("ezs42", BreinGeoHash.encode(42.605, -5.603, 5));
+        assertEquals("u4pruydqqvj", BreinGeoHash.encode(57.64911, 10.40744, 11));
+    }
+
+    /**
+     * Nearby coordinates share a key within the same time bucket, requests without a location are not cached.
+     */
+    @Test
+    public void testKey() {
+        final Clock clock = new Clock(10 * MINUTE);
+        final BreinTemporalDataCache cache = clock.cache(10, 5 * MINUTE);
+
+        final String key = cache.createKey(coordinates(37.38610, -122.08390));
+        assertNotNull(key);
+        assertEquals(key, cache.createKey(coordinates(37.38615, -122.08395)));
+        assertFalse(key.equals(cache.createKey(coordinates(37.7749, -122.4194))));
+        assertFalse(key.equals(cache.createKey(coordinates(37.38610, -122.08390).addShapeTypes("CITY"))));
+
+        final String ipKey = cache.createKey(new BreinTemporalData().setLookUpIpAddress("74.115.209.58"));
+        assertNotNull(ipKey);
+        assertFalse(ipKey.equals(cache.createKey(new BreinTemporalData().setLookUpIpAddress("74.115.209.59"))));
+
+        assertNull(cache.createKey(new BreinTemporalData().setTimezone("America/Los_Angeles")));
+
+        // the timezone, the localDateTime and the structured location are part of the key
+        assertFalse(key.equals(cache.createKey(coordinates(37.38610, -122.08390).setTimezone("America/New_York"))));
+        final String dateKey = cache.createKey(coordinates(37.38610, -122.08390)
+                .setLocalDateTime("Sun Oct 18 2026 10:00:00 GMT-07:00 (PDT)"));
+        assertFalse(key.equals(dateKey));
+        assertEquals(dateKey, cache.createKey(coordinates(37.38610, -122.08390)
+                .setLocalDateTime("Sun Oct 18 2026 10:00:00 GMT-07:00 (PDT)")));
+
+        final String cityKey = cache.createKey(new BreinTemporalData().setLocation("San Diego", "CA", "USA"));
+        assertNotNull(cityKey);
+        assertFalse(cityKey.equals(cache.createKey(new BreinTemporalData().setLocation("San Jose", "CA", "USA"))));
+        assertFalse(cityKey.equals(cache.createKey(new BreinTemporalData().setLocation("San Diego", "CA", null))));
+
+        // the next time bucket uses a new key
+        clock.time += 5 * MINUTE;
+        assertFalse(key.equals(cache.createKey(coordinates(37.38610, -122.08390))));
+    }
+
+    /**
+     * The least recently used result is evicted, an expired result is not served.
+     */
+    @Test
+    public void testEvictionAndExpiration() {
+        final Clock clock = new Clock(0);
+        final BreinTemporalDataCache cache = clock.cache(2, 5 * MINUTE);
+
+        cache.put("a", result(-1));
+        cache.put("b", result(-1));
+        assertNotNull(cache.get("a"));
+        cache.put("c", result(-1));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+
+        clock.time += 5 * MINUTE;
+        assertNull(cache.get("a"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    /**
+     * A result expires when its weather gets too old, even if the time-to-live did not pass so far.
+     */
+    @Test
+    public void testWeatherAge() {
+        final Clock clock = new Clock(1500000000L * 1000L);
+        final BreinTemporalDataCache cache = clock.cache(10, 10 * MINUTE);
+
+        // measured 58 minutes ago, i.e., the weather is too old in 2 minutes
+        cache.put("recent", result(clock.time / 1000L - 58L * 60L));
+
+        // measured 2 hours ago, the backend does not provide newer values, so the time-to-live is used
+        cache.put("outdated", result(clock.time / 1000L - 120L * 60L));
+
+        clock.time += 2 * MINUTE;
+        assertNull(cache.get("recent"));
+        assertNotNull(cache.get("outdated"));
+    }
+
+    /**
+     * A cached result is passed to the callback without a request, within the worker pool like any other result.
+     */
+    @Test
+    public void testServedFromCache() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        final BreinStandInServer server = new BreinStandInServer()
+                .setResponseBody(BreinStandInServer.TEMPORALDATA_ENDPOINT,
+                        "{\"weather\":{\"description\":\"clear sky\",\"lastMeasured\":" +
+                                (System.currentTimeMillis() / 1000L) + "}}");
+        final BreinConfig config = new BreinConfig("TEST-API-KEY")
+                .setTemporalDataCacheEnabled(true)
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+
+        final BreinEngine engine = new BreinEngine();
+        engine.configure(config);
+
+        try {
+            final List<Thread> threads = new CopyOnWriteArrayList<>();
+            final List<BreinResult> results = new CopyOnWriteArrayList<>();
+            final CountDownLatch first = new CountDownLatch(1);
+            final CountDownLatch second = new CountDownLatch(2);
+            final ICallback<BreinResult> callback = new ICallback<BreinResult>() {
+                @Override
+                public void callback(final BreinResult data) {
+                    threads.add(Thread.currentThread());
+                    results.add(data);
+                    first.countDown();
+                    second.countDown();
+                }
+            };
+
+            engine.invoke(config, coordinates(37.38610, -122.08390), callback);
+            assertTrue(first.await(5, TimeUnit.SECONDS));
+            assertNotNull(results.get(0));
+
+            engine.invoke(config, coordinates(37.38612, -122.08391), callback);
+            assertTrue(second.await(5, TimeUnit.SECONDS));
+            assertSame(results.get(0), results.get(1));
+            assertFalse(Thread.currentThread() == threads.get(1));
+            assertEquals(1, server.getReceivedCount());
+            assertEquals(1, engine.getTemporalDataCache().getHitCount());
+        } finally {
+            engine.terminate();
+            server.stop();
+        }
+    }
+
+    private BreinTemporalData coordinates(final double latitude, final double longitude) {
+        return new BreinTemporalData().setLatitude(latitude).setLongitude(longitude);
+    }
+
+    private BreinResult result(final long lastMeasured) {
+        final Map<String, Object> weather = new HashMap<>();
+        weather.put("description", "clear sky");
+        if (lastMeasured >= 0) {
+            weather.put("lastMeasured", (double) lastMeasured);
+        }
+
+        final Map<String, Object> json = new HashMap<>();
+        json.put("weather", weather);
+        return new BreinResult(json);
+    }
+
+    private static class Clock {
+        private long time;
+
+        Clock(final long time) {
+            this.time = time;
+        }
+
+        BreinTemporalDataCache cache(final int maxSize, final long ttl) {
+            return new BreinTemporalDataCache(maxSize, ttl, 6, 60 * MINUTE) {
+                @Override
+                protected long now() {
+                    return time;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.brein.engine;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinBase;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDimension;
+import com.brein.domain.BreinResult;
+import com.brein.server.BreinStandInServer;
+import com.brein.server.BreinStubIpInfoProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the tracing of the phases of the requests, the endpoints are replaced by a local stand-in server
+ */
+public class TestTracing {
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer();
+        config = new BreinConfig("TEST-API-KEY")
+                .setActivityBatchingEnabled(false)
+                .setRetryPolicy(new BreinRetryPolicy(2, 10, 10))
+                .setBaseUrl(server.getUrl());
+        BreinifyCore.setConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * Calls which are not sampled are not traced.
+     */
+    @Test
+    public void testNone() {
+        assertSame(BreinCallTrace.NONE, BreinCallTrace.start(null, "/lookup"));
+        assertSame(BreinCallTrace.NONE, BreinCallTrace.start(BreinEventListener.NONE, "/lookup"));
+
+        final BreinSamplingEventListener listener = new BreinSamplingEventListener(3);
+        int traced = 0;
+        for (int i = 0; i < 9; i++) {
+            final BreinCallTrace trace = BreinCallTrace.start(listener, "/lookup");
+            if (trace.isEnabled()) {
+                traced++;
+                trace.callEnd();
+            }
+        }
+        assertEquals(3, traced);
+        assertEquals(3, listener.getTraces().size());
+        assertEquals(0, listener.getRunningCount());
+    }
+
+    /**
+     * The events of a call share the correlation id and are reported in order, a failed attempt is reported before
+     * the next one (for both engines).
+     */
+    @Test
+    public void testEvents() throws InterruptedException {
+        for (final BreinEngineType type : new BreinEngineType[]{BreinEngineType.HTTP_URL_CONNECTION_ENGINE,
+                BreinEngineType.NIO_ENGINE}) {
+            final RecordingListener listener = new RecordingListener();
+            config.setRestEngineType(type).setEventListener(listener);
+            final BreinEngine engine = new BreinEngine();
+            engine.configure(config);
+
+            try {
+                assertNotNull(send(engine, lookup(1)));
+                server.failNext(1, 500);
+                assertNotNull(send(engine, lookup(2)));
+            } finally {
+                engine.terminate();
+            }
+
+            assertEquals(2, listener.events.size());
+            final List<List<String>> calls = new ArrayList<>(listener.events.values());
+            final List<String> first = calls.get(0).size() < calls.get(1).size() ? calls.get(0) : calls.get(1);
+            final List<String> second = first == calls.get(0) ? calls.get(1) : calls.get(0);
+
+            if (type == BreinEngineType.NIO_ENGINE) {
+                assertEquals(Arrays.asList("callStart", "serializationStart", "serializationEnd", "attemptStart",
+                        "responseHeadersEnd", "parseStart", "parseEnd", "callEnd"), first);
+                assertEquals(Arrays.asList("callStart", "serializationStart", "serializationEnd", "attemptStart",
+                        "responseHeadersEnd", "attemptFailed", "attemptStart", "responseHeadersEnd", "parseStart",
+                        "parseEnd", "callEnd"), second);
+            } else {
+                assertEquals(Arrays.asList("callStart", "serializationStart", "serializationEnd", "attemptStart",
+                        "connectStart", "connectEnd", "requestBodyEnd", "responseHeadersEnd", "parseStart",
+                        "parseEnd", "callEnd"), first);
+                assertEquals(Arrays.asList("callStart", "serializationStart", "serializationEnd", "attemptStart",
+                        "connectStart", "connectEnd", "requestBodyEnd", "responseHeadersEnd", "attemptFailed",
+                        "attemptStart", "connectStart", "connectEnd", "requestBodyEnd", "responseHeadersEnd",
+                        "parseStart", "parseEnd", "callEnd"), second);
+            }
+            assertFalse(listener.unordered);
+            server.reset();
+        }
+    }
+
+    /**
+     * The sampling listener keeps the durations of the phases of every n-th call.
+     */
+    @Test
+    public void testSampling() throws InterruptedException {
+        final BreinSamplingEventListener listener = new BreinSamplingEventListener(2);
+        config.setEventListener(listener);
+        server.setLatency(20, 20);
+        final BreinEngine engine = new BreinEngine();
+        engine.configure(config);
+
+        try {
+            for (int i = 0; i < 4; i++) {
+                assertNotNull(send(engine, lookup(i)));
+            }
+
+            // a status code which is not retried ends the call
+            server.setStatusCode(400);
+            final BreinActivity activity = new BreinActivity().setActivityType("login");
+            activity.setUser("email", "test@breinify.com");
+            send(engine, activity);
+        } finally {
+            engine.terminate();
+        }
+
+        final List<BreinSamplingEventListener.Trace> traces = listener.getTraces();
+        assertEquals(3, traces.size());
+        for (final BreinSamplingEventListener.Trace trace : traces.subList(0, 2)) {
+            assertEquals(trace.toString(), config.getLookupEndpoint(), trace.getEndpoint());
+            assertTrue(trace.isSucceeded());
+            assertEquals(1, trace.getAttempts());
+            assertEquals(200, trace.getStatusCode());
+            assertTrue(trace.getBytes() > 0);
+            assertTrue(trace.getSerializationTime() >= 0);
+            assertTrue(trace.getQueueTime() >= 0);
+            assertTrue(trace.getConnectTime() >= 0);
+            assertTrue(trace.getTimeToFirstByte() >= TimeUnit.MILLISECONDS.toNanos(20));
+            assertTrue(trace.getParseTime() >= 0);
+            assertTrue(trace.getTotalTime() >= trace.getTimeToFirstByte());
+        }
+        assertTrue(traces.get(0).getCallId() < traces.get(1).getCallId());
+
+        assertTrue(traces.get(2).isSucceeded());
+        assertEquals(400, traces.get(2).getStatusCode());
+        assertEquals(config.getActivityEndpoint(), traces.get(2).getEndpoint());
+        assertEquals(0, listener.getRunningCount());
+    }
+
+    private BreinLookup lookup(final int nr) {
+        final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+        lookup.setUser("email", "user" + nr + "@breinify.com");
+        return lookup;
+    }
+
+    private BreinResult send(final BreinEngine engine, final BreinBase data) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BreinResult[] result = new BreinResult[1];
+        engine.invoke(config, data, new ICallback<BreinResult>() {
+            @Override
+            public void callback(final BreinResult data) {
+                result[0] = data;
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        // the end of the call is reported after the callback returned
+        Thread.sleep(50);
+        return result[0];
+    }
+
+    /**
+     * Records the names of the events per call
+     */
+    private static class RecordingListener extends BreinEventListener {
+        private final Map<Long, List<String>> events = new ConcurrentHashMap<>();
+        private final Map<Long, Long> last = new ConcurrentHashMap<>();
+        private volatile boolean unordered = false;
+
+        private void record(final long callId, final String event, final long nanoTime) {
+            List<String> callEvents = events.get(callId);
+            if (callEvents == null) {
+                callEvents = new ArrayList<>();
+                events.put(callId, callEvents);
+            }
+            synchronized (callEvents) {
+                callEvents.add(event);
+            }
+
+            final Long previous = last.put(callId, nanoTime);
+            if (previous != null && previous > nanoTime) {
+                unordered = true;
+            }
+        }
+
+        @Override
+        public void callStart(final long callId, final String endpoint, final long nanoTime) {
+            record(callId, "callStart", nanoTime);
+        }
+
+        @Override
+        public void serializationStart(final long callId, final long nanoTime) {
+            record(callId, "serializationStart", nanoTime);
+        }
+
+        @Override
+        public void serializationEnd(final long callId, final int bytes, final long nanoTime) {
+            record(callId, "serializationEnd", nanoTime);
+        }
+
+        @Override
+        public void attemptStart(final long callId, final int attempt, final long nanoTime) {
+            record(callId, "attemptStart", nanoTime);
+        }
+
+        @Override
+        public void connectStart(final long callId, final long nanoTime) {
+            record(callId, "connectStart", nanoTime);
+        }
+
+        @Override
+        public void connectEnd(final long callId, final long nanoTime) {
+            record(callId, "connectEnd", nanoTime);
+        }
+
+        @Override
+        public void requestBodyEnd(final long callId, final int bytes, final long nanoTime) {
+            record(callId, "requestBodyEnd", nanoTime);
+        }
+
+        @Override
+        public void responseHeadersEnd(final long callId, final int statusCode, final long nanoTime) {
+            record(callId, "responseHeadersEnd", nanoTime);
+        }
+
+        @Override
+        public void attemptFailed(final long callId, final int attempt, final int statusCode, final long nanoTime) {
+            record(callId, "attemptFailed", nanoTime);
+        }
+
+        @Override
+        public void parseStart(final long callId, final long nanoTime) {
+            record(callId, "parseStart", nanoTime);
+        }
+
+        @Override
+        public void parseEnd(final long callId, final long nanoTime) {
+            record(callId, "parseEnd", nanoTime);
+        }
+
+        @Override
+        public void callEnd(final long callId, final long nanoTime) {
+            record(callId, "callEnd", nanoTime);
+        }
+
+        @Override
+        public void callFailed(final long callId, final long nanoTime) {
+            record(callId, "callFailed", nanoTime);
+        }
+    }
+}
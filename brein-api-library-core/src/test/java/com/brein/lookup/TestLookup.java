@@ -1,7 +1,7 @@
 package com.brein.lookup;
 
 import com.brein.api.BreinLookup;
-import com.brein.api.Breinify;
+import com.brein.api.BreinifyCore;
 import com.brein.api.RestCallback;
 import com.brein.domain.BreinConfig;
 import com.brein.domain.BreinDimension;
@@ -45,7 +45,7 @@ public class TestLookup {
     public void setUp() {
 
         final BreinConfig breinConfig = new BreinConfig(VALID_API_KEY, VALID_SECRET);
-        Breinify.setConfig(breinConfig);
+        BreinifyCore.setConfig(breinConfig);
     }
 
     /**
@@ -0,0 +1,157 @@
+package com.brein.server;
+
+import com.brein.api.ICallback;
+import com.brein.domain.BreinResult;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput and the latency of requests sent through the library, typically against a {@link
+ * BreinStandInServer}. The harness keeps a fixed number of requests in flight, a request is completed when its
+ * callback is invoked.
+ */
+public class BreinLoadHarness {
+
+    /**
+     * Sends a single request, the callback must be passed to the library.
+     */
+    public interface Request {
+        void send(int nr, ICallback<BreinResult> callback);
+    }
+
+    private final int concurrency;
+    private final long timeout;
+
+    /**
+     * @param concurrency int the maximal number of requests in flight
+     * @param timeout     long the time in milliseconds to wait for outstanding callbacks
+     */
+    public BreinLoadHarness(final int concurrency, final long timeout) {
+        this.concurrency = concurrency;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sends the requests and waits for their callbacks.
+     *
+     * @param requests int the number of requests to send
+     * @param request  Request used to send a request
+     *
+     * @return Result the measured values
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Result run(final int requests, final Request request) throws InterruptedException {
+        final Semaphore inFlight = new Semaphore(this.concurrency);
+        final CountDownLatch done = new CountDownLatch(requests);
+        final long[] latencies = new long[requests];
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            if (!inFlight.tryAcquire(this.timeout, TimeUnit.MILLISECONDS)) {
+                break;
+            }
+
+            final int nr = i;
+            final long sent = System.nanoTime();
+            request.send(nr, new ICallback<BreinResult>() {
+                @Override
+                public void callback(final BreinResult data) {
+                    latencies[nr] = System.nanoTime() - sent;
+                    if (data == null) {
+                        failed.incrementAndGet();
+                    }
+                    completed.incrementAndGet();
+
+                    inFlight.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await(this.timeout, TimeUnit.MILLISECONDS);
+        final long duration = System.nanoTime() - start;
+
+        final int count = completed.get();
+        final long[] measured = new long[count];
+        int pos = 0;
+        for (int i = 0; i < requests && pos < count; i++) {
+            if (latencies[i] > 0) {
+                measured[pos++] = latencies[i];
+            }
+        }
+        Arrays.sort(measured, 0, pos);
+
+        return new Result(requests, count, failed.get(), duration, Arrays.copyOf(measured, pos));
+    }
+
+    /**
+     * The measured values of a run, the latencies are in milliseconds.
+     */
+    public static class Result {
+        private final int requests;
+        private final int completed;
+        private final int failed;
+        private final long duration;
+        private final long[] latencies;
+
+        private Result(final int requests,
+                       final int completed,
+                       final int failed,
+                       final long duration,
+                       final long[] latencies) {
+            this.requests = requests;
+            this.completed = completed;
+            this.failed = failed;
+            this.duration = duration;
+            this.latencies = latencies;
+        }
+
+        /**
+         * @return int the number of requests whose callback was invoked
+         */
+        public int getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return int the number of completed requests without a result
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return double the completed requests per second
+         */
+        public double getThroughput() {
+            return duration == 0 ? 0.0 : completed * (double) TimeUnit.SECONDS.toNanos(1) / duration;
+        }
+
+        /**
+         * @param percentile double the percentile, e.g. {@code 99.0}
+         *
+         * @return double the latency of the percentile in milliseconds
+         */
+        public double getLatency(final double percentile) {
+            if (latencies.length == 0) {
+                return 0.0;
+            }
+
+            final int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1000000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d completed (%d failed), %.0f requests/s, latency p50: %.1fms, " +
+                            "p90: %.1fms, p99: %.1fms, max: %.1fms", completed, requests, failed, getThroughput(),
+                    getLatency(50.0), getLatency(90.0), getLatency(99.0), getLatency(100.0));
+        }
+    }
+}
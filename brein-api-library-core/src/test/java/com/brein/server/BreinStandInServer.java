@@ -0,0 +1,436 @@
+package com.brein.server;
+
+import com.brein.util.Base64;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Local stand-in for the Breinify API, used for integration and load tests without network access. The server
+ * implements the {@code /activity}, {@code /activities}, {@code /lookup}, {@code /temporaldata} and {@code
+ * /recommendation} endpoints, the library is pointed at it using {@link com.brein.domain.BreinConfig#setBaseUrl(String)
+ * setBaseUrl(server.getUrl())}.
+ * <p>
+ * If a secret is passed, the signature of every request is verified independently of the library's signer, requests
+ * without a valid signature are answered with {@code 403}. The latency, the rate of failing requests ({@code 500}) and
+ * the maximal requests per second (exceeding requests are answered with {@code 429}) are configurable. Every accepted
+ * request body is parsed and recorded per endpoint.
+ */
+public class BreinStandInServer {
+
+    public static final String ACTIVITY_ENDPOINT = "/activity";
+    public static final String BULK_ACTIVITY_ENDPOINT = "/activities";
+    public static final String LOOKUP_ENDPOINT = "/lookup";
+    public static final String TEMPORALDATA_ENDPOINT = "/temporaldata";
+    public static final String RECOMMENDATION_ENDPOINT = "/recommendation";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * maximal number of pending connections, load tests open hundreds of connections at once
+     */
+    private static final int BACKLOG = 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SecretKeySpec key;
+
+    private final Map<String, List<Map<String, Object>>> requests = new ConcurrentHashMap<>();
+    private final Map<String, String> responseBodies = new ConcurrentHashMap<>();
+
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicInteger rejectedSignatures = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger compressed = new AtomicInteger();
+
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger windowRequests = new AtomicInteger();
+    private final AtomicInteger failNext = new AtomicInteger();
+
+    private volatile long minLatency = 0;
+    private volatile long maxLatency = 0;
+    private volatile double errorRate = 0.0;
+    private volatile int maxRequestsPerSecond = 0;
+    private volatile int statusCode = 0;
+    private volatile int failNextStatusCode = 0;
+    private volatile boolean chunked = false;
+
+    /**
+     * Creates and starts a server which does not verify signatures.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    public BreinStandInServer() throws IOException {
+        this(null);
+    }
+
+    /**
+     * Creates and starts a server listening on a free local port.
+     *
+     * @param secret String the secret used to verify the signatures, {@code null} to accept unsigned requests
+     *
+     * @throws IOException if the server cannot be started
+     */
+    public BreinStandInServer(final String secret) throws IOException {
+        this.key = secret == null ? null : new SecretKeySpec(secret.getBytes(UTF8), ALGORITHM);
+        this.executor = Executors.newCachedThreadPool();
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), BACKLOG);
+        this.server.setExecutor(this.executor);
+        for (final String endpoint : new String[]{ACTIVITY_ENDPOINT, BULK_ACTIVITY_ENDPOINT, LOOKUP_ENDPOINT,
+                TEMPORALDATA_ENDPOINT, RECOMMENDATION_ENDPOINT}) {
+            this.requests.put(endpoint, new CopyOnWriteArrayList<Map<String, Object>>());
+            this.server.createContext(endpoint, new EndpointHandler(endpoint));
+        }
+        this.server.start();
+    }
+
+    /**
+     * @return String the base url of the server, e.g. {@code http://127.0.0.1:12345}
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    /**
+     * Sets the latency added to every request, the latency is chosen uniformly between the minimum and the maximum.
+     *
+     * @param minLatency long the minimal latency in milliseconds
+     * @param maxLatency long the maximal latency in milliseconds
+     *
+     * @return BreinStandInServer the server itself
+     */
+    public BreinStandInServer setLatency(final long minLatency, final long maxLatency) {
+        this.minLatency = minLatency;
+        this.maxLatency = Math.max(minLatency, maxLatency);
+        return this;
+    }
+
+    /**
+     * @param errorRate double the fraction of requests (0.0 to 1.0) answered with {@code 500}
+     *
+     * @return BreinStandInServer the server itself
+     */
+    public BreinStandInServer setErrorRate(final double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @param maxRequestsPerSecond int the requests accepted per second, further requests are answered with {@code
+     *                             429} and a {@code Retry-After} header; {@code 0} to disable the throttling
+     *
+     * @return BreinStandInServer the server itself
+     */
+    public BreinStandInServer setMaxRequestsPerSecond(final int maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        return this;
+    }
+
+    /**
+     * @param statusCode int the status code every request is answered with, {@code 0} to process the requests
+     *
+     * @return BreinStandInServer the server itself
+     */
+    public BreinStandInServer setStatusCode(final int statusCode) {
+        this.statusCode = statusCode;
+        return this;
+    }
+
+    /**
+     * Answers the next requests with the status code, a {@code 429} or {@code 503} contains a {@code Retry-After} of
+     * one second.
+     *
+     * @param count      int the number of requests to fail
+     * @param statusCode int the status code to answer with
+     *
+     * @return BreinStandInServer the server itself
+     */
+    public BreinStandInServer failNext(final int count, final int statusCode) {
+        this.failNextStatusCode = statusCode;
+        this.failNext.set(count);
+        return this;
+    }
+
+    /**
+     * @param responseBody String the body every endpoint answers with
+     *
+     * @return BreinStandInServer the server itself
+     */
+    public BreinStandInServer setResponseBody(final String responseBody) {
+        for (final String endpoint : this.requests.keySet()) {
+            this.responseBodies.put(endpoint, responseBody);
+        }
+        return this;
+    }
+
+    /**
+     * @param endpoint     String the endpoint, e.g. {@link #LOOKUP_ENDPOINT}
+     * @param responseBody String the body the endpoint answers with
+     *
+     * @return BreinStandInServer the server itself
+     */
+    public BreinStandInServer setResponseBody(final String endpoint, final String responseBody) {
+        this.responseBodies.put(endpoint, responseBody);
+        return this;
+    }
+
+    /**
+     * @param chunked boolean {@code true} to send the responses without a {@code Content-Length}
+     *
+     * @return BreinStandInServer the server itself
+     */
+    public BreinStandInServer setChunked(final boolean chunked) {
+        this.chunked = chunked;
+        return this;
+    }
+
+    /**
+     * @param endpoint String the endpoint, e.g. {@link #ACTIVITY_ENDPOINT}
+     *
+     * @return List the parsed bodies of the accepted requests of the endpoint
+     */
+    public List<Map<String, Object>> getRequests(final String endpoint) {
+        final List<Map<String, Object>> endpointRequests = this.requests.get(endpoint);
+        return endpointRequests == null ? Collections.<Map<String, Object>>emptyList() : endpointRequests;
+    }
+
+    /**
+     * @return int the number of received requests, including the rejected ones
+     */
+    public int getReceivedCount() {
+        return this.received.get();
+    }
+
+    /**
+     * @return int the number of requests rejected because of an invalid signature
+     */
+    public int getRejectedSignatureCount() {
+        return this.rejectedSignatures.get();
+    }
+
+    /**
+     * @return int the number of requests answered with {@code 429}
+     */
+    public int getThrottledCount() {
+        return this.throttled.get();
+    }
+
+    /**
+     * @return int the number of requests answered with a simulated failure
+     */
+    public int getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * @return int the number of requests received with a gzip compressed body
+     */
+    public int getCompressedCount() {
+        return this.compressed.get();
+    }
+
+    /**
+     * Removes all recorded requests and resets the counters.
+     */
+    public void reset() {
+        for (final List<Map<String, Object>> endpointRequests : this.requests.values()) {
+            endpointRequests.clear();
+        }
+        this.received.set(0);
+        this.rejectedSignatures.set(0);
+        this.throttled.set(0);
+        this.failed.set(0);
+        this.compressed.set(0);
+    }
+
+    /**
+     * Stops the server immediately.
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Creates the message which is expected to be signed for the request of the endpoint, the messages correspond to
+     * the ones documented for the Breinify API.
+     *
+     * @param endpoint String the endpoint
+     * @param request  Map the parsed request
+     *
+     * @return String the message to be signed
+     */
+    @SuppressWarnings("unchecked")
+    protected String createMessage(final String endpoint, final Map<String, Object> request) {
+        final long unixTimestamp = toLong(request.get("unixTimestamp"));
+
+        if (ACTIVITY_ENDPOINT.equals(endpoint)) {
+            final Map<String, Object> activity = (Map<String, Object>) request.get("activity");
+            final Object type = activity == null ? null : activity.get("type");
+            return (type == null ? "" : type) + String.valueOf(unixTimestamp) + 1;
+        } else if (BULK_ACTIVITY_ENDPOINT.equals(endpoint)) {
+            final List<Object> activities = (List<Object>) request.get("activities");
+            return String.valueOf(unixTimestamp) + (activities == null ? 0 : activities.size());
+        } else if (LOOKUP_ENDPOINT.equals(endpoint)) {
+            final Map<String, Object> lookup = (Map<String, Object>) request.get("lookup");
+            final List<Object> dimensions = lookup == null ? null : (List<Object>) lookup.get("dimensions");
+            final boolean empty = dimensions == null || dimensions.isEmpty();
+            return (empty ? "0" : String.valueOf(dimensions.get(0))) + unixTimestamp +
+                    (dimensions == null ? 0 : dimensions.size());
+        } else if (TEMPORALDATA_ENDPOINT.equals(endpoint)) {
+            final Map<String, Object> user = (Map<String, Object>) request.get("user");
+            final Map<String, Object> additional = user == null ? null : (Map<String, Object>) user.get("additional");
+            final Object localDateTime = additional == null ? null : additional.get("localDateTime");
+            final Object timezone = additional == null ? null : additional.get("timezone");
+            return unixTimestamp + "-" + (localDateTime == null ? "" : localDateTime) + "-" +
+                    (timezone == null ? "" : timezone);
+        } else {
+            return String.valueOf(unixTimestamp);
+        }
+    }
+
+    private boolean isValidSignature(final String endpoint, final Map<String, Object> request) {
+        if (this.key == null) {
+            return true;
+        }
+
+        final Object signature = request.get("signature");
+        if (!(signature instanceof String)) {
+            return false;
+        }
+
+        try {
+            final Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(this.key);
+            final byte[] expected = mac.doFinal(createMessage(endpoint, request).getBytes(UTF8));
+            return Base64.encodeBytes(expected).equals(signature);
+        } catch (final Exception e) {
+            return false;
+        }
+    }
+
+    private boolean isThrottled() {
+        final int max = this.maxRequestsPerSecond;
+        if (max <= 0) {
+            return false;
+        }
+
+        final long second = System.currentTimeMillis() / 1000L;
+        final long current = this.window.get();
+        if (current != second && this.window.compareAndSet(current, second)) {
+            this.windowRequests.set(0);
+        }
+
+        return this.windowRequests.incrementAndGet() > max;
+    }
+
+    private static long toLong(final Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : -1L;
+    }
+
+    private class EndpointHandler implements HttpHandler {
+        private final String endpoint;
+
+        EndpointHandler(final String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void handle(final HttpExchange exchange) throws IOException {
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            final InputStream in;
+            if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                compressed.incrementAndGet();
+                in = new GZIPInputStream(exchange.getRequestBody());
+            } else {
+                in = exchange.getRequestBody();
+            }
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            received.incrementAndGet();
+
+            final long latency = minLatency + (maxLatency > minLatency ?
+                    ThreadLocalRandom.current().nextLong(maxLatency - minLatency + 1) : 0);
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            String response = responseBodies.get(this.endpoint);
+            response = response == null ? "{}" : response;
+
+            int status = statusCode;
+            if (status == 0) {
+                final Map<String, Object> request = new Gson().fromJson(new String(body.toByteArray(), UTF8),
+                        Map.class);
+
+                if (request == null) {
+                    status = 400;
+                    response = "{\"error\":\"missing body\"}";
+                } else if (!isValidSignature(this.endpoint, request)) {
+                    rejectedSignatures.incrementAndGet();
+                    status = 403;
+                    response = "{\"error\":\"invalid signature\"}";
+                } else if (failNext.getAndDecrement() > 0) {
+                    failed.incrementAndGet();
+                    status = failNextStatusCode;
+                    response = "{\"error\":\"simulated failure\"}";
+                    if (status == 429 || status == 503) {
+                        exchange.getResponseHeaders().add("Retry-After", "1");
+                    }
+                } else if (isThrottled()) {
+                    throttled.incrementAndGet();
+                    status = 429;
+                    response = "{\"error\":\"too many requests\"}";
+                    exchange.getResponseHeaders().add("Retry-After", "1");
+                } else if (errorRate > 0.0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    failed.incrementAndGet();
+                    status = 500;
+                    response = "{\"error\":\"simulated failure\"}";
+                } else {
+                    status = 200;
+                    getRequests(this.endpoint).add(request);
+                }
+            }
+
+            final byte[] responseBytes = response.getBytes(UTF8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, chunked ? 0 : responseBytes.length);
+            final OutputStream out = exchange.getResponseBody();
+            out.write(responseBytes);
+            out.close();
+        }
+    }
+}
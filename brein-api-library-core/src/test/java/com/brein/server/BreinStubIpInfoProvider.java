@@ -0,0 +1,130 @@
+package com.brein.server;
+
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinIpInfo;
+import com.brein.domain.IIpInfoProvider;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for the service resolving the external ip-address, i.e., the ip-address is resolved locally (with an
+ * optional latency) and the resolutions are counted.
+ */
+public class BreinStubIpInfoProvider implements IIpInfoProvider {
+
+    /**
+     * the ip-address resolved by the provider of the shared instance, see {@link #install()}
+     */
+    public static final String IP_ADDRESS = "74.115.209.58";
+
+    private static final BreinStubIpInfoProvider SHARED = new BreinStubIpInfoProvider(IP_ADDRESS);
+
+    private final AtomicInteger resolveCount = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private volatile String ipAddress;
+    private volatile long latency = 0;
+    private volatile boolean failing = false;
+
+    /**
+     * @param ipAddress String the ip-address resolved
+     */
+    public BreinStubIpInfoProvider(final String ipAddress) {
+        this.ipAddress = ipAddress;
+    }
+
+    /**
+     * Installs a stub provider for the shared instance of {@link BreinIpInfo} (used when a request is serialized), so
+     * that the ip-address is not resolved using ip-api.com. The method returns as soon as the ip-address is resolved.
+     *
+     * @return BreinIpInfo the shared instance
+     */
+    public static BreinIpInfo install() throws InterruptedException {
+        final BreinIpInfo info = BreinIpInfo.getInstance(new BreinConfig().setIpInfoProvider(SHARED));
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!IP_ADDRESS.equals(info.getExternalIp()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return info;
+    }
+
+    /**
+     * @param ipAddress String the ip-address resolved from now on
+     *
+     * @return BreinStubIpInfoProvider the provider itself
+     */
+    public BreinStubIpInfoProvider setIpAddress(final String ipAddress) {
+        this.ipAddress = ipAddress;
+        return this;
+    }
+
+    /**
+     * @param latency long the time in ms a resolution takes
+     *
+     * @return BreinStubIpInfoProvider the provider itself
+     */
+    public BreinStubIpInfoProvider setLatency(final long latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * @param failing boolean {@code true} if the resolutions fail from now on
+     *
+     * @return BreinStubIpInfoProvider the provider itself
+     */
+    public BreinStubIpInfoProvider setFailing(final boolean failing) {
+        this.failing = failing;
+        return this;
+    }
+
+    @Override
+    public Map<String, Object> resolve() throws IOException {
+        this.resolveCount.incrementAndGet();
+
+        final int current = this.inFlight.incrementAndGet();
+        while (true) {
+            final int max = this.maxInFlight.get();
+            if (current <= max || this.maxInFlight.compareAndSet(max, current)) {
+                break;
+            }
+        }
+
+        try {
+            if (this.latency > 0) {
+                Thread.sleep(this.latency);
+            }
+            if (this.failing) {
+                throw new IOException("Resolution failed");
+            }
+
+            final Map<String, Object> info = new HashMap<>();
+            info.put(BreinIpInfo.IP_FIELD, this.ipAddress);
+            info.put(BreinIpInfo.TIMEZONE_FIELD, "America/Los_Angeles");
+            return info;
+        } catch (final InterruptedException e) {
+            throw new IOException("Resolution interrupted", e);
+        } finally {
+            this.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return int the number of resolutions so far
+     */
+    public int getResolveCount() {
+        return this.resolveCount.get();
+    }
+
+    /**
+     * @return int the maximal number of resolutions running at the same time
+     */
+    public int getMaxInFlight() {
+        return this.maxInFlight.get();
+    }
+}
@@ -0,0 +1,197 @@
+package com.brein.server;
+
+import com.brein.api.BreinActivity;
+import com.brein.api.BreinLookup;
+import com.brein.api.BreinRecommendation;
+import com.brein.api.BreinTemporalData;
+import com.brein.api.BreinifyCore;
+import com.brein.api.ICallback;
+import com.brein.domain.BreinConfig;
+import com.brein.domain.BreinDimension;
+import com.brein.domain.BreinResult;
+import com.brein.engine.BreinRetryPolicy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the library against the local stand-in server
+ */
+public class TestStandInServer {
+
+    private static final String SECRET = "lmcoj4k27hbbszzyiqamhg==";
+
+    private BreinStandInServer server;
+    private BreinConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        BreinStubIpInfoProvider.install();
+
+        server = new BreinStandInServer(SECRET);
+
+        config = new BreinConfig("TEST-API-KEY", SECRET)
+                .setBaseUrl(server.getUrl())
+                .setExecutorQueueCapacity(1000);
+
+        BreinifyCore.shutdown();
+        BreinifyCore.setConfig(config);
+    }
+
+    @After
+    public void tearDown() {
+        BreinifyCore.shutdown();
+        server.stop();
+    }
+
+    /**
+     * The signed requests of all endpoints are accepted by the server.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSignedRequests() throws InterruptedException {
+        server.setResponseBody(BreinStandInServer.LOOKUP_ENDPOINT, "{\"firstname\":{\"result\":\"Diane\"}}");
+
+        final BreinActivity activity = new BreinActivity().setActivityType("login");
+        activity.setUser("email", "test@breinify.com");
+        assertNotNull(send(activity));
+
+        final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+        lookup.setUser("email", "test@breinify.com");
+        final BreinResult lookupResult = send(lookup);
+        assertNotNull(lookupResult);
+        assertEquals("Diane", ((Map<String, Object>) lookupResult.get("firstname")).get("result"));
+
+        final BreinTemporalData temporalData = new BreinTemporalData().setTimezone("America/Los_Angeles");
+        temporalData.setUser("email", "test@breinify.com");
+        assertNotNull(send(temporalData));
+
+        final BreinRecommendation recommendation = new BreinRecommendation().setNumberOfRecommendations(3);
+        recommendation.setUser("email", "test@breinify.com");
+        assertNotNull(send(recommendation));
+
+        assertEquals(0, server.getRejectedSignatureCount());
+        assertEquals(1, server.getRequests(BreinStandInServer.ACTIVITY_ENDPOINT).size());
+        assertEquals(1, server.getRequests(BreinStandInServer.TEMPORALDATA_ENDPOINT).size());
+        assertEquals(1, server.getRequests(BreinStandInServer.RECOMMENDATION_ENDPOINT).size());
+
+        final List<Map<String, Object>> lookups = server.getRequests(BreinStandInServer.LOOKUP_ENDPOINT);
+        assertEquals(1, lookups.size());
+        assertEquals("TEST-API-KEY", lookups.get(0).get("apiKey"));
+    }
+
+    /**
+     * Requests signed with another secret are rejected.
+     */
+    @Test
+    public void testInvalidSignature() throws InterruptedException {
+        config.setSecret("another-secret");
+
+        final BreinActivity activity = new BreinActivity().setActivityType("login");
+        activity.setUser("email", "test@breinify.com");
+        assertNull(send(activity));
+
+        assertEquals(1, server.getRejectedSignatureCount());
+        assertEquals(0, server.getRequests(BreinStandInServer.ACTIVITY_ENDPOINT).size());
+    }
+
+    /**
+     * Requests exceeding the limit are throttled, simulated failures are answered with an error (the requests are not
+     * retried).
+     */
+    @Test
+    public void testThrottlingAndErrors() throws InterruptedException {
+        config.setRetryPolicy(BreinRetryPolicy.NONE);
+        config.setCircuitBreakerEnabled(false);
+
+        final BreinLoadHarness harness = new BreinLoadHarness(1, 10000);
+
+        server.setMaxRequestsPerSecond(5);
+        BreinLoadHarness.Result result = harness.run(10, new Lookup());
+        assertEquals(10, result.getCompleted());
+        assertTrue(server.getThrottledCount() > 0);
+        assertEquals(server.getThrottledCount(), result.getFailed());
+
+        server.setMaxRequestsPerSecond(0);
+        server.setErrorRate(1.0);
+        result = harness.run(5, new Lookup());
+        assertEquals(5, result.getFailed());
+        assertEquals(5, server.getFailedCount());
+    }
+
+    /**
+     * The signed lookups sent concurrently through the facade are accepted, for a server with a latency of 5 to 20
+     * milliseconds (the throughput and latency are measured by the {@code EngineBenchmark}).
+     */
+    @Test
+    public void testLoad() throws InterruptedException {
+        server.setLatency(5, 20);
+
+        final BreinLoadHarness.Result result = new BreinLoadHarness(8, 30000).run(100, new Lookup());
+        assertEquals(100, result.getCompleted());
+        assertEquals(0, result.getFailed());
+        assertEquals(0, server.getRejectedSignatureCount());
+    }
+
+    private BreinResult send(final BreinActivity activity) throws InterruptedException {
+        final Receiver receiver = new Receiver();
+        BreinifyCore.activity(activity, receiver);
+        return receiver.await();
+    }
+
+    private BreinResult send(final BreinLookup lookup) throws InterruptedException {
+        final Receiver receiver = new Receiver();
+        BreinifyCore.lookUp(lookup, receiver);
+        return receiver.await();
+    }
+
+    private BreinResult send(final BreinTemporalData temporalData) throws InterruptedException {
+        final Receiver receiver = new Receiver();
+        BreinifyCore.temporalData(temporalData, receiver);
+        return receiver.await();
+    }
+
+    private BreinResult send(final BreinRecommendation recommendation) throws InterruptedException {
+        final Receiver receiver = new Receiver();
+        BreinifyCore.recommendation(recommendation, receiver);
+        return receiver.await();
+    }
+
+    private static class Lookup implements BreinLoadHarness.Request {
+
+        @Override
+        public void send(final int nr, final ICallback<BreinResult> callback) {
+            final BreinLookup lookup = new BreinLookup().setBreinDimension(new BreinDimension("firstname"));
+            lookup.setUser("email", "user" + nr + "@breinify.com");
+            BreinifyCore.lookUp(lookup, callback);
+        }
+    }
+
+    private static class Receiver implements ICallback<BreinResult> {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicReference<BreinResult> result = new AtomicReference<>();
+
+        @Override
+        public void callback(final BreinResult data) {
+            result.set(data);
+            latch.countDown();
+        }
+
+        private BreinResult await() throws InterruptedException {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            return result.get();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.brein.util;
+
+import com.brein.domain.BreinConfig;
+import com.brein.engine.BreinEngine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the logging facade
+ */
+public class TestLogger {
+
+    private final List<String> messages = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        BreinLogger.setSink(new BreinLogger.ISink() {
+            @Override
+            public void log(final BreinLogger.Level level, final String tag, final String message,
+                            final Throwable t) {
+                messages.add(level + " " + tag + ": " + message);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        BreinLogger.setSink(null);
+        BreinLogger.setLevel(BreinLogger.DEFAULT_LEVEL);
+    }
+
+    /**
+     * Only messages of the enabled levels are passed to the sink.
+     */
+    @Test
+    public void testLevels() {
+        BreinLogger.setLevel(BreinLogger.Level.INFO);
+        assertFalse(BreinLogger.isLoggable(BreinLogger.Level.DEBUG));
+        assertTrue(BreinLogger.isLoggable(BreinLogger.Level.INFO));
+
+        BreinLogger.v("Test", "verbose");
+        BreinLogger.d("Test", "debug");
+        BreinLogger.i("Test", "info");
+        BreinLogger.w("Test", "warn");
+        BreinLogger.e("Test", "error", new IllegalStateException());
+        assertEquals(3, messages.size());
+        assertEquals("INFO Test: info", messages.get(0));
+
+        BreinLogger.setLevel(BreinLogger.Level.OFF);
+        BreinLogger.e("Test", "error");
+        assertFalse(BreinLogger.isLoggable(BreinLogger.Level.ERROR));
+        assertFalse(BreinLogger.isLoggable(BreinLogger.Level.OFF));
+        assertEquals(3, messages.size());
+    }
+
+    /**
+     * The message of a disabled level is not built.
+     */
+    @Test
+    public void testLazyMessage() {
+        final AtomicInteger built = new AtomicInteger();
+        final BreinLogger.IMessage message = new BreinLogger.IMessage() {
+            @Override
+            public String get() {
+                built.incrementAndGet();
+                return "expensive";
+            }
+        };
+
+        BreinLogger.d("Test", message);
+        assertEquals(0, built.get());
+        assertTrue(messages.isEmpty());
+
+        BreinLogger.setLevel(BreinLogger.Level.VERBOSE);
+        BreinLogger.v("Test", message);
+        assertEquals(1, built.get());
+        assertEquals("VERBOSE Test: expensive", messages.get(0));
+    }
+
+    /**
+     * The level of the configuration is applied when the configuration is used, the default sink of a platform does
+     * not replace a sink set explicitly.
+     */
+    @Test
+    public void testConfiguration() {
+        final BreinEngine engine = new BreinEngine();
+        engine.configure(new BreinConfig("TEST-API-KEY"));
+        assertSame(BreinLogger.DEFAULT_LEVEL, BreinLogger.getLevel());
+
+        engine.configure(new BreinConfig("TEST-API-KEY").setLogLevel(BreinLogger.Level.OFF));
+        engine.terminate();
+        assertSame(BreinLogger.Level.OFF, BreinLogger.getLevel());
+
+        BreinLogger.setDefaultSink(BreinLogger.CONSOLE);
+        BreinLogger.setLevel(BreinLogger.Level.WARN);
+        BreinLogger.w("Test", "warn");
+        assertEquals(1, messages.size());
+    }
+}
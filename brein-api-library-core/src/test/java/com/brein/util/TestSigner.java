@@ -0,0 +1,103 @@
+package com.brein.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the signer, the throughput is measured by the {@code SignerBenchmark}
+ */
+public class TestSigner {
+
+    private static final String SECRET = "lmcoj4k27hbbszzyiqamhg==";
+
+    /**
+     * The signature is the known HmacSHA256 signature.
+     */
+    @Test
+    public void testSignature() {
+        final BreinSigner signer = new BreinSigner("secretkey");
+        assertEquals("h5HRhGRwWlRs9pscyHhQWNc7pxnDOwDZBIAnnhEQbrU=", signer.sign("apiKey"));
+
+        final byte[] message = "xxapiKeyxx".getBytes(BreinJsonUtil.UTF8);
+        assertEquals("h5HRhGRwWlRs9pscyHhQWNc7pxnDOwDZBIAnnhEQbrU=", signer.sign(message, 2, 6));
+        assertEquals("h5HRhGRwWlRs9pscyHhQWNc7pxnDOwDZBIAnnhEQbrU=",
+                signer.sign(ByteBuffer.wrap(message, 2, 6)));
+        assertEquals("h5HRhGRwWlRs9pscyHhQWNc7pxnDOwDZBIAnnhEQbrU=",
+                BreinUtil.generateSignature("apiKey", "secretkey"));
+
+        assertSame(BreinSigner.forSecret("secretkey"), BreinSigner.forSecret("secretkey"));
+    }
+
+    /**
+     * A message written into the buffer is signed like the formatted message.
+     */
+    @Test
+    public void testMessage() {
+        final BreinSigner signer = new BreinSigner(SECRET);
+
+        assertEquals(signer.sign(String.format("%s%d%d", "checkOut", 1500000000L, 1)),
+                signer.message().append("checkOut").append(1500000000L).append(1).sign());
+        assertEquals(signer.sign(String.format("%d-%s-%s", -42L, "Grüße ☃", "😀")),
+                signer.message().append(-42L).append('-').append("Grüße ☃").append('-').append("😀").sign());
+        assertEquals(signer.sign(String.valueOf(Long.MIN_VALUE) + 0 + null),
+                signer.message().append(Long.MIN_VALUE).append(0).append((String) null).sign());
+    }
+
+    /**
+     * Signing concurrently leads to the same signatures as signing within a single thread.
+     */
+    @Test
+    public void testConcurrentSignatures() throws Exception {
+        final BreinSigner signer = BreinSigner.forSecret(SECRET);
+        final Mac reference = Mac.getInstance(BreinSigner.ALGORITHM);
+        reference.init(new SecretKeySpec(SECRET.getBytes(BreinJsonUtil.UTF8), BreinSigner.ALGORITHM));
+
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 2000; i++) {
+                            final String message = "activity" + thread + "-" + i;
+                            final String expected;
+                            synchronized (reference) {
+                                expected = Base64.encodeBytes(
+                                        reference.doFinal(message.getBytes(BreinJsonUtil.UTF8)));
+                            }
+
+                            if (!expected.equals(signer.message().append(message).sign())) {
+                                return false;
+                            }
+                        }
+
+                        return true;
+                    }
+                }));
+            }
+
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.brein.util;
 
-import android.util.Log;
-
 import com.google.gson.Gson;
 
 import org.junit.Ignore;
@@ -45,19 +43,19 @@ public class TestUtil {
     public void testIpAddress() {
 
         final String extIp2 = getExternalIp2();
-        Log.d("ExIP is:", extIp2);
+        BreinLogger.d("ExIP is:", extIp2);
 
         final String extIp = getExternalIpAsJson();
-        Log.d("ExIP is:", extIp);
+        BreinLogger.d("ExIP is:", extIp);
 
         Map<String,Object> result = new Gson().fromJson(extIp, Map.class);
-        Log.d("Map is: ", result.toString());
+        BreinLogger.d("Map is: ", result.toString());
 
         final String ip1 = getLocalIpAddress();
-        Log.d("IP1 is: ", ip1);
+        BreinLogger.d("IP1 is: ", ip1);
 
         final String ip2 = getLocalIpAddress2();
-        Log.d("IP2 is: ", ip2);
+        BreinLogger.d("IP2 is: ", ip2);
 
         // final String s = BreinUtil.detectIpAddress();
     }
@@ -75,7 +73,7 @@ public class TestUtil {
                 }
             }
         } catch (Exception ex) {
-            Log.e("IP Address", ex.toString());
+            BreinLogger.e("IP Address", ex.toString());
         }
         return null;
     }